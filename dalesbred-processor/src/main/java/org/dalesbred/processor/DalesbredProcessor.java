@@ -0,0 +1,285 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred.processor;
+
+import org.dalesbred.annotation.DalesbredInstantiator;
+import org.dalesbred.annotation.SQL;
+import org.dalesbred.generated.GeneratedInstantiator;
+import org.dalesbred.query.NamedQuery;
+import org.dalesbred.query.SqlSyntaxException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.annotation.processing.*;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.*;
+
+import static java.util.Arrays.asList;
+
+/**
+ * Generates code for Dalesbred at compile time:
+ *
+ * <ul>
+ *     <li>For each constructor annotated with {@link DalesbredInstantiator}, a {@link GeneratedInstantiator}
+ *     that invokes the constructor directly. Dalesbred will automatically use the generated class instead of
+ *     reflection.</li>
+ *     <li>For each class containing {@link SQL}-annotated string constants with named parameters, a class
+ *     named {@code <Class>_DalesbredQueries} containing a pre-parsed {@link NamedQuery} for each of the constants.</li>
+ * </ul>
+ */
+@SupportedAnnotationTypes({ DalesbredProcessor.INSTANTIATOR_ANNOTATION, DalesbredProcessor.SQL_ANNOTATION })
+public final class DalesbredProcessor extends AbstractProcessor {
+
+    static final String INSTANTIATOR_ANNOTATION = "org.dalesbred.annotation.DalesbredInstantiator";
+
+    static final String SQL_ANNOTATION = "org.dalesbred.annotation.SQL";
+
+    static final String QUERIES_CLASS_NAME_SUFFIX = "_DalesbredQueries";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(@NotNull Set<? extends TypeElement> annotations, @NotNull RoundEnvironment roundEnv) {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(roundEnv.getElementsAnnotatedWith(DalesbredInstantiator.class)))
+            processInstantiator(constructor);
+
+        Map<TypeElement, List<VariableElement>> queryConstants = new LinkedHashMap<>();
+        for (VariableElement field : ElementFilter.fieldsIn(roundEnv.getElementsAnnotatedWith(SQL.class))) {
+            if (parseConstant(field) != null)
+                queryConstants.computeIfAbsent((TypeElement) field.getEnclosingElement(), t -> new ArrayList<>()).add(field);
+        }
+
+        for (Map.Entry<TypeElement, List<VariableElement>> entry : queryConstants.entrySet())
+            writeQueries(entry.getKey(), entry.getValue());
+
+        return false;
+    }
+
+    private void processInstantiator(@NotNull ExecutableElement constructor) {
+        TypeElement type = (TypeElement) constructor.getEnclosingElement();
+
+        String problem = inaccessibilityReason(constructor);
+        if (problem != null) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "Not generating instantiator for " + type.getQualifiedName() + ": " + problem + ". Reflection will be used instead.", constructor);
+            return;
+        }
+
+        String packageName = packageName(type);
+        String className = generatedClassName(type, GeneratedInstantiator.CLASS_NAME_SUFFIX);
+        String typeName = type.getQualifiedName().toString();
+        List<? extends VariableElement> parameters = constructor.getParameters();
+
+        try (PrintWriter out = createSourceFile(packageName, className, type)) {
+            writeHeader(out, packageName);
+            out.println("@SuppressWarnings({\"unchecked\", \"rawtypes\"})");
+            out.println("public final class " + className + " implements " + GeneratedInstantiator.class.getName() + "<" + typeName + "> {");
+            out.println();
+            out.println("    @Override");
+            out.println("    public " + typeName + " instantiate(Object[] arguments) {");
+            out.print("        return new " + typeName + "(");
+            for (int i = 0; i < parameters.size(); i++) {
+                if (i != 0) out.print(",");
+                out.println();
+                out.print("                " + castExpression(parameters.get(i).asType(), "arguments[" + i + "]"));
+            }
+            out.println(");");
+            out.println("    }");
+            out.println("}");
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to write " + className + ": " + e, constructor);
+        }
+    }
+
+    private void writeQueries(@NotNull TypeElement type, @NotNull List<VariableElement> fields) {
+        String packageName = packageName(type);
+        String className = generatedClassName(type, QUERIES_CLASS_NAME_SUFFIX);
+        String namedQueryName = NamedQuery.class.getName();
+
+        try (PrintWriter out = createSourceFile(packageName, className, type)) {
+            writeHeader(out, packageName);
+            out.println("public final class " + className + " {");
+            for (VariableElement field : fields) {
+                NamedQuery query = parseConstant(field);
+                assert query != null;
+
+                out.println();
+                out.print("    " + (field.getModifiers().contains(Modifier.PUBLIC) ? "public " : "") + "static final " + namedQueryName + " " + field.getSimpleName());
+                out.print(" = " + namedQueryName + ".precompiled(" + stringLiteral(query.getSql()));
+                for (String name : query.getParameterNames())
+                    out.print(", " + stringLiteral(name));
+                out.println(");");
+            }
+            out.println();
+            out.println("    private " + className + "() {");
+            out.println("    }");
+            out.println("}");
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to write " + className + ": " + e, type);
+        }
+    }
+
+    /**
+     * Returns the parsed query of a {@code static final} string constant with at least one named parameter.
+     * Returns null for other fields, including constants containing traditional positional queries.
+     */
+    @Nullable
+    private static NamedQuery parseConstant(@NotNull VariableElement field) {
+        if (!field.getModifiers().containsAll(asList(Modifier.STATIC, Modifier.FINAL)))
+            return null;
+
+        Object value = field.getConstantValue();
+        if (!(value instanceof String))
+            return null;
+
+        try {
+            NamedQuery query = NamedQuery.parse((String) value);
+            return query.getParameterNames().isEmpty() ? null : query;
+        } catch (SqlSyntaxException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the reason why generated code in the same package can't invoke given constructor,
+     * or null if it can.
+     */
+    @Nullable
+    private static String inaccessibilityReason(@NotNull ExecutableElement constructor) {
+        if (constructor.getModifiers().contains(Modifier.PRIVATE))
+            return "constructor is private";
+
+        NestingKind nestingKind = ((TypeElement) constructor.getEnclosingElement()).getNestingKind();
+        if (nestingKind == NestingKind.LOCAL || nestingKind == NestingKind.ANONYMOUS)
+            return "class is local";
+
+        for (Element element = constructor.getEnclosingElement(); element.getKind() != ElementKind.PACKAGE; element = element.getEnclosingElement()) {
+            Set<Modifier> modifiers = element.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE))
+                return element.getSimpleName() + " is private";
+            if (element == constructor.getEnclosingElement() && modifiers.contains(Modifier.ABSTRACT))
+                return element.getSimpleName() + " is abstract";
+            if (element.getEnclosingElement().getKind() != ElementKind.PACKAGE && !modifiers.contains(Modifier.STATIC))
+                return element.getSimpleName() + " is a non-static inner class";
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns an expression that casts given expression of type Object to given type, unboxing primitives.
+     */
+    @NotNull
+    private String castExpression(@NotNull TypeMirror type, @NotNull String expression) {
+        if (type.getKind().isPrimitive()) {
+            String boxed = processingEnv.getTypeUtils().boxedClass((PrimitiveType) type).getQualifiedName().toString();
+            return "(" + type.getKind().name().toLowerCase(Locale.ROOT) + ") (" + boxed + ") " + expression;
+        } else {
+            return "(" + typeName(type) + ") " + expression;
+        }
+    }
+
+    /**
+     * Returns the source representation of erasure of given type.
+     */
+    @NotNull
+    private String typeName(@NotNull TypeMirror type) {
+        if (type.getKind().isPrimitive())
+            return type.getKind().name().toLowerCase(Locale.ROOT);
+        if (type.getKind() == TypeKind.ARRAY)
+            return typeName(((ArrayType) type).getComponentType()) + "[]";
+
+        TypeMirror erasure = processingEnv.getTypeUtils().erasure(type);
+        Element element = processingEnv.getTypeUtils().asElement(erasure);
+        if (element instanceof TypeElement)
+            return ((TypeElement) element).getQualifiedName().toString();
+        else
+            return "Object";
+    }
+
+    @NotNull
+    private String packageName(@NotNull TypeElement type) {
+        return processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+    }
+
+    /**
+     * Returns the simple name of the generated class. This must match the naming used by Dalesbred at runtime:
+     * binary name of the class without the package, {@code $} replaced by {@code _}, followed by suffix.
+     */
+    @NotNull
+    private String generatedClassName(@NotNull TypeElement type, @NotNull String suffix) {
+        String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+        String packageName = packageName(type);
+        String localName = packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1);
+        return localName.replace('$', '_') + suffix;
+    }
+
+    @NotNull
+    private PrintWriter createSourceFile(@NotNull String packageName, @NotNull String className, @NotNull TypeElement originatingType) throws IOException {
+        String qualifiedName = packageName.isEmpty() ? className : packageName + '.' + className;
+        return new PrintWriter(processingEnv.getFiler().createSourceFile(qualifiedName, originatingType).openWriter());
+    }
+
+    private static void writeHeader(@NotNull PrintWriter out, @NotNull String packageName) {
+        out.println("// Generated by " + DalesbredProcessor.class.getName() + ". Do not edit.");
+        if (!packageName.isEmpty()) {
+            out.println("package " + packageName + ";");
+            out.println();
+        }
+    }
+
+    @NotNull
+    static String stringLiteral(@NotNull String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2);
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':  sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20 || c > 0x7e)
+                        sb.append(String.format("\\u%04x", (int) c));
+                    else
+                        sb.append(c);
+            }
+        }
+        sb.append('"');
+        return sb.toString();
+    }
+}
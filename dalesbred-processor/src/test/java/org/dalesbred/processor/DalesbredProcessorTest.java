@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred.processor;
+
+import org.dalesbred.generated.GeneratedInstantiator;
+import org.dalesbred.query.NamedQuery;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.*;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.*;
+
+public class DalesbredProcessorTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void generateInstantiatorForAnnotatedConstructor() throws Exception {
+        ClassLoader classLoader = compile("test.Person",
+                "package test;\n" +
+                "import org.dalesbred.annotation.DalesbredInstantiator;\n" +
+                "public class Person {\n" +
+                "    public final String name;\n" +
+                "    public final int age;\n" +
+                "    @DalesbredInstantiator\n" +
+                "    Person(String name, int age) { this.name = name; this.age = age; }\n" +
+                "}\n");
+
+        GeneratedInstantiator<?> instantiator = (GeneratedInstantiator<?>) classLoader.loadClass("test.Person_DalesbredInstantiator").newInstance();
+        Object person = instantiator.instantiate(new Object[] { "Fred", 42 });
+
+        assertEquals("Fred", person.getClass().getField("name").get(person));
+        assertEquals(42, person.getClass().getField("age").get(person));
+    }
+
+    @Test
+    public void generateInstantiatorForNestedClass() throws Exception {
+        ClassLoader classLoader = compile("test.Outer",
+                "package test;\n" +
+                "import org.dalesbred.annotation.DalesbredInstantiator;\n" +
+                "import java.util.List;\n" +
+                "public class Outer {\n" +
+                "    public static class Inner {\n" +
+                "        public final List<String> values;\n" +
+                "        @DalesbredInstantiator\n" +
+                "        public Inner(List<String> values) { this.values = values; }\n" +
+                "    }\n" +
+                "}\n");
+
+        GeneratedInstantiator<?> instantiator = (GeneratedInstantiator<?>) classLoader.loadClass("test.Outer_Inner_DalesbredInstantiator").newInstance();
+        Object inner = instantiator.instantiate(new Object[] { asList("foo", "bar") });
+
+        assertEquals(asList("foo", "bar"), inner.getClass().getField("values").get(inner));
+    }
+
+    @Test
+    public void skipPrivateConstructorsWithWarning() throws Exception {
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        ClassLoader classLoader = compile("test.Secret",
+                "package test;\n" +
+                "import org.dalesbred.annotation.DalesbredInstantiator;\n" +
+                "public class Secret {\n" +
+                "    @DalesbredInstantiator\n" +
+                "    private Secret(String value) { }\n" +
+                "}\n", diagnostics);
+
+        assertMissingClass(classLoader, "test.Secret_DalesbredInstantiator");
+        assertTrue(diagnostics.getDiagnostics().stream().anyMatch(d -> d.getKind() == Diagnostic.Kind.WARNING
+                && d.getMessage(null).contains("constructor is private")));
+    }
+
+    @Test
+    public void generatePreParsedNamedQueries() throws Exception {
+        ClassLoader classLoader = compile("test.Queries",
+                "package test;\n" +
+                "import org.dalesbred.annotation.SQL;\n" +
+                "public class Queries {\n" +
+                "    @SQL public static final String FIND_BY_NAME = \"select * from person where name = :name and age > :age -- :comment\";\n" +
+                "    @SQL static final String WITH_QUOTES = \"select ':foo', \\\"bar\\\" from dual where x = :x\";\n" +
+                "    @SQL public static final String POSITIONAL = \"select * from person where id = ?\";\n" +
+                "    @SQL public static final String NO_PARAMETERS = \"select * from person\";\n" +
+                "    @SQL public final String notStatic = \"select :foo\";\n" +
+                "}\n");
+
+        Class<?> queries = classLoader.loadClass("test.Queries_DalesbredQueries");
+
+        NamedQuery findByName = (NamedQuery) queries.getField("FIND_BY_NAME").get(null);
+        assertEquals("select * from person where name = ? and age > ? -- :comment", findByName.getSql());
+        assertEquals(asList("name", "age"), findByName.getParameterNames());
+
+        NamedQuery withQuotes = (NamedQuery) getDeclaredField(queries, "WITH_QUOTES");
+        assertEquals("select ':foo', \"bar\" from dual where x = ?", withQuotes.getSql());
+        assertEquals(singletonList("x"), withQuotes.getParameterNames());
+
+        List<String> fieldNames = new ArrayList<>();
+        for (java.lang.reflect.Field field : queries.getDeclaredFields())
+            fieldNames.add(field.getName());
+        assertEquals(asList("FIND_BY_NAME", "WITH_QUOTES"), fieldNames);
+    }
+
+    @Test
+    public void stringLiteralEscapesSpecialCharacters() {
+        assertEquals("\"a\\\"b\\\\c\\nd\\u00e4\"", DalesbredProcessor.stringLiteral("a\"b\\c\ndä"));
+    }
+
+    private static Object getDeclaredField(Class<?> cl, String name) throws ReflectiveOperationException {
+        java.lang.reflect.Field field = cl.getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(null);
+    }
+
+    private static void assertMissingClass(ClassLoader classLoader, String name) {
+        try {
+            classLoader.loadClass(name);
+            fail("expected no class " + name);
+        } catch (ClassNotFoundException ignored) {
+        }
+    }
+
+    private ClassLoader compile(String className, String source) throws IOException {
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        ClassLoader classLoader = compile(className, source, diagnostics);
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics())
+            assertNotEquals(diagnostic.toString(), Diagnostic.Kind.WARNING, diagnostic.getKind());
+        return classLoader;
+    }
+
+    private ClassLoader compile(String className, String source, DiagnosticCollector<JavaFileObject> diagnostics) throws IOException {
+        File sourceDir = temporaryFolder.newFolder("src");
+        File outputDir = temporaryFolder.newFolder("out");
+
+        File sourceFile = new File(sourceDir, className.replace('.', File.separatorChar) + ".java");
+        assertTrue(sourceFile.getParentFile().mkdirs());
+        Files.write(sourceFile.toPath(), source.getBytes(StandardCharsets.UTF_8));
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+            List<String> options = asList("-classpath", System.getProperty("java.class.path"), "-d", outputDir.getPath(), "-s", outputDir.getPath());
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null, fileManager.getJavaFileObjects(sourceFile));
+            task.setProcessors(singletonList(new DalesbredProcessor()));
+
+            assertTrue(diagnostics.getDiagnostics().toString(), task.call());
+        }
+
+        return new URLClassLoader(new URL[] { outputDir.toURI().toURL() }, getClass().getClassLoader());
+    }
+}
@@ -0,0 +1,484 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred;
+
+import org.dalesbred.annotation.SQL;
+import org.dalesbred.query.SqlQuery;
+import org.dalesbred.result.ResultTable;
+import org.dalesbred.result.RowMapper;
+import org.dalesbred.transaction.TransactionCallback;
+import org.dalesbred.transaction.TransactionSettings;
+import org.dalesbred.transaction.VoidTransactionCallback;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Asynchronous facade for {@link Database}. Each operation is executed on a worker thread and its result
+ * is delivered through a {@link CompletableFuture}. Since transactions are bound to threads, a transaction
+ * callback always executes completely on a single worker, so all operations performed through the
+ * {@link Database} inside the callback take part in the same transaction.
+ * <p>
+ * The amount of concurrently executing operations should usually not exceed the size of the connection
+ * pool. Operations that can't be started immediately because all workers are busy wait in a queue and if
+ * the queue is full, further operations fail with {@link RejectedExecutionException}. The load can be monitored with {@link #getStatistics()}.
+ */
+public final class AsyncDatabase implements AutoCloseable {
+
+    @NotNull
+    private final Database db;
+
+    @NotNull
+    private final ExecutorService executor;
+
+    private final boolean ownsExecutor;
+
+    private final int maxConcurrency;
+
+    private final int maxQueueDepth;
+
+    /** Limits concurrency when the executor itself does not, e.g. with virtual threads */
+    @Nullable
+    private final Semaphore concurrencyLimit;
+
+    /** Operations that are either executing or waiting for a worker */
+    private final AtomicInteger pendingTasks = new AtomicInteger();
+
+    private final AtomicInteger activeTasks = new AtomicInteger();
+
+    private final LongAdder completedTasks = new LongAdder();
+
+    private final LongAdder rejectedTasks = new LongAdder();
+
+    private final LongAdder totalWaitNanos = new LongAdder();
+
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    private AsyncDatabase(@NotNull Database db,
+                          @NotNull ExecutorService executor,
+                          boolean ownsExecutor,
+                          int maxConcurrency,
+                          int maxQueueDepth,
+                          @Nullable Semaphore concurrencyLimit) {
+        this.db = requireNonNull(db);
+        this.executor = requireNonNull(executor);
+        this.ownsExecutor = ownsExecutor;
+        this.maxConcurrency = maxConcurrency;
+        this.maxQueueDepth = maxQueueDepth;
+        this.concurrencyLimit = concurrencyLimit;
+    }
+
+    /**
+     * Creates a facade that executes operations using given executor. The executor is not shut down
+     * when this facade is closed and the queue is limited only by the executor.
+     */
+    public AsyncDatabase(@NotNull Database db, @NotNull ExecutorService executor) {
+        this(db, executor, false, executor instanceof ThreadPoolExecutor ? ((ThreadPoolExecutor) executor).getMaximumPoolSize() : 0, Integer.MAX_VALUE, null);
+    }
+
+    /**
+     * Creates a facade that executes operations on a pool of given amount of threads, allowing
+     * at most given amount of operations to wait in the queue.
+     */
+    @NotNull
+    public static AsyncDatabase withThreadPool(@NotNull Database db, int threads, int maxQueueDepth) {
+        validateLimits(threads, maxQueueDepth);
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new WorkerThreadFactory());
+        executor.allowCoreThreadTimeOut(true);
+
+        return new AsyncDatabase(db, executor, true, threads, maxQueueDepth, null);
+    }
+
+    /**
+     * Creates a facade that executes each operation on a new virtual thread, allowing at most given
+     * amount of operations to execute concurrently and given amount of operations to wait for their turn.
+     * If the JDK does not support virtual threads, falls back to {@link #withThreadPool(Database, int, int)}.
+     *
+     * @see #isVirtualThreadsSupported()
+     */
+    @NotNull
+    public static AsyncDatabase withVirtualThreads(@NotNull Database db, int maxConcurrency, int maxQueueDepth) {
+        validateLimits(maxConcurrency, maxQueueDepth);
+
+        ExecutorService executor = createVirtualThreadExecutor();
+        if (executor == null)
+            return withThreadPool(db, maxConcurrency, maxQueueDepth);
+
+        return new AsyncDatabase(db, executor, true, maxConcurrency, maxQueueDepth, new Semaphore(maxConcurrency));
+    }
+
+    /**
+     * Returns true if the JDK supports virtual threads.
+     */
+    public static boolean isVirtualThreadsSupported() {
+        return findVirtualThreadExecutorFactory() != null;
+    }
+
+    private static void validateLimits(int maxConcurrency, int maxQueueDepth) {
+        if (maxConcurrency <= 0) throw new IllegalArgumentException("maxConcurrency must be positive, but was: " + maxConcurrency);
+        if (maxQueueDepth < 0) throw new IllegalArgumentException("maxQueueDepth must not be negative, but was: " + maxQueueDepth);
+    }
+
+    @Nullable
+    private static ExecutorService createVirtualThreadExecutor() {
+        Method factory = findVirtualThreadExecutorFactory();
+        if (factory == null)
+            return null;
+
+        try {
+            return (ExecutorService) factory.invoke(null);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new DatabaseException("failed to create executor for virtual threads", e);
+        }
+    }
+
+    @Nullable
+    private static Method findVirtualThreadExecutorFactory() {
+        try {
+            // Looked up reflectively, since we need to run on JDKs without virtual threads
+            return java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the underlying synchronous database.
+     */
+    @NotNull
+    public Database getDatabase() {
+        return db;
+    }
+
+    /**
+     * Executes given action on a worker thread. This is the primitive on which all other operations are built.
+     */
+    @NotNull
+    public <T> CompletableFuture<T> execute(@NotNull Function<? super Database, ? extends T> action) {
+        requireNonNull(action);
+        CompletableFuture<T> future = new CompletableFuture<>();
+
+        // Operations are queued only when all workers are busy, so the queue is full when there are
+        // maxQueueDepth operations in addition to the ones being executed.
+        if (pendingTasks.incrementAndGet() > maxPendingTasks()) {
+            pendingTasks.decrementAndGet();
+            rejectedTasks.increment();
+            future.completeExceptionally(new RejectedExecutionException("queue of AsyncDatabase is full: " + maxQueueDepth + " operations are waiting"));
+            return future;
+        }
+
+        long submitTime = System.nanoTime();
+        try {
+            executor.execute(() -> run(action, future, submitTime));
+        } catch (RejectedExecutionException e) {
+            pendingTasks.decrementAndGet();
+            rejectedTasks.increment();
+            future.completeExceptionally(e);
+        }
+
+        return future;
+    }
+
+    private <T> void run(@NotNull Function<? super Database, ? extends T> action, @NotNull CompletableFuture<T> future, long submitTime) {
+        if (concurrencyLimit != null) {
+            try {
+                concurrencyLimit.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                pendingTasks.decrementAndGet();
+                future.completeExceptionally(e);
+                return;
+            }
+        }
+
+        recordWait(System.nanoTime() - submitTime);
+        activeTasks.incrementAndGet();
+
+        T result = null;
+        Throwable failure = null;
+        try {
+            // Don't bother executing operations that have been cancelled while they were waiting
+            if (!future.isDone())
+                result = action.apply(db);
+        } catch (Throwable e) {
+            failure = e;
+        } finally {
+            // Update the statistics before completing the future so that callers observe consistent values
+            activeTasks.decrementAndGet();
+            pendingTasks.decrementAndGet();
+            completedTasks.increment();
+            if (concurrencyLimit != null)
+                concurrencyLimit.release();
+        }
+
+        if (failure != null)
+            future.completeExceptionally(failure);
+        else
+            future.complete(result);
+    }
+
+    private int maxPendingTasks() {
+        if (maxConcurrency == 0 || maxQueueDepth == Integer.MAX_VALUE)
+            return Integer.MAX_VALUE;
+        return maxConcurrency + maxQueueDepth;
+    }
+
+    private void recordWait(long waitNanos) {
+        totalWaitNanos.add(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    /**
+     * Returns a snapshot of the current load of this facade.
+     */
+    @NotNull
+    public AsyncDatabaseStatistics getStatistics() {
+        int active = activeTasks.get();
+        return new AsyncDatabaseStatistics(Math.max(0, pendingTasks.get() - active), active, maxConcurrency,
+                completedTasks.sum(), rejectedTasks.sum(), totalWaitNanos.sum(), maxWaitNanos.get());
+    }
+
+    /**
+     * Executes a block of code within a context of a transaction on a single worker thread.
+     *
+     * @see Database#withTransaction(TransactionCallback)
+     */
+    @NotNull
+    public <T> CompletableFuture<T> withTransaction(@NotNull TransactionCallback<T> callback) {
+        return execute(db -> db.withTransaction(callback));
+    }
+
+    /**
+     * Executes a block of code with given transaction settings on a single worker thread.
+     *
+     * @see Database#withTransaction(TransactionSettings, TransactionCallback)
+     */
+    @NotNull
+    public <T> CompletableFuture<T> withTransaction(@NotNull TransactionSettings settings, @NotNull TransactionCallback<T> callback) {
+        return execute(db -> db.withTransaction(settings, callback));
+    }
+
+    /**
+     * @see Database#withVoidTransaction(VoidTransactionCallback)
+     */
+    @NotNull
+    public CompletableFuture<Void> withVoidTransaction(@NotNull VoidTransactionCallback callback) {
+        return execute(db -> {
+            db.withVoidTransaction(callback);
+            return null;
+        });
+    }
+
+    /**
+     * @see Database#withVoidTransaction(TransactionSettings, VoidTransactionCallback)
+     */
+    @NotNull
+    public CompletableFuture<Void> withVoidTransaction(@NotNull TransactionSettings settings, @NotNull VoidTransactionCallback callback) {
+        return execute(db -> {
+            db.withVoidTransaction(settings, callback);
+            return null;
+        });
+    }
+
+    /**
+     * @see Database#findAll(RowMapper, SqlQuery)
+     */
+    @NotNull
+    public <T> CompletableFuture<List<T>> findAll(@NotNull RowMapper<T> rowMapper, @NotNull SqlQuery query) {
+        return execute(db -> db.findAll(rowMapper, query));
+    }
+
+    /**
+     * @see Database#findAll(Class, SqlQuery)
+     */
+    @NotNull
+    public <T> CompletableFuture<List<T>> findAll(@NotNull Class<T> cl, @NotNull SqlQuery query) {
+        return execute(db -> db.findAll(cl, query));
+    }
+
+    /**
+     * @see Database#findAll(Class, String, Object...)
+     */
+    @NotNull
+    public <T> CompletableFuture<List<T>> findAll(@NotNull Class<T> cl, @NotNull @SQL String sql, Object... args) {
+        return findAll(cl, SqlQuery.query(sql, args));
+    }
+
+    /**
+     * @see Database#findUnique(Class, SqlQuery)
+     */
+    @NotNull
+    public <T> CompletableFuture<T> findUnique(@NotNull Class<T> cl, @NotNull SqlQuery query) {
+        return execute(db -> db.findUnique(cl, query));
+    }
+
+    /**
+     * @see Database#findUnique(Class, String, Object...)
+     */
+    @NotNull
+    public <T> CompletableFuture<T> findUnique(@NotNull Class<T> cl, @NotNull @SQL String sql, Object... args) {
+        return findUnique(cl, SqlQuery.query(sql, args));
+    }
+
+    /**
+     * @see Database#findOptional(Class, SqlQuery)
+     */
+    @NotNull
+    public <T> CompletableFuture<Optional<T>> findOptional(@NotNull Class<T> cl, @NotNull SqlQuery query) {
+        return execute(db -> db.findOptional(cl, query));
+    }
+
+    /**
+     * @see Database#findOptional(Class, String, Object...)
+     */
+    @NotNull
+    public <T> CompletableFuture<Optional<T>> findOptional(@NotNull Class<T> cl, @NotNull @SQL String sql, Object... args) {
+        return findOptional(cl, SqlQuery.query(sql, args));
+    }
+
+    /**
+     * @see Database#findUniqueOrNull(Class, SqlQuery)
+     */
+    @NotNull
+    public <T> CompletableFuture<T> findUniqueOrNull(@NotNull Class<T> cl, @NotNull SqlQuery query) {
+        return execute(db -> db.findUniqueOrNull(cl, query));
+    }
+
+    /**
+     * @see Database#findUniqueInt(SqlQuery)
+     */
+    @NotNull
+    public CompletableFuture<Integer> findUniqueInt(@NotNull SqlQuery query) {
+        return execute(db -> db.findUniqueInt(query));
+    }
+
+    /**
+     * @see Database#findUniqueInt(String, Object...)
+     */
+    @NotNull
+    public CompletableFuture<Integer> findUniqueInt(@NotNull @SQL String sql, Object... args) {
+        return findUniqueInt(SqlQuery.query(sql, args));
+    }
+
+    /**
+     * @see Database#findUniqueLong(SqlQuery)
+     */
+    @NotNull
+    public CompletableFuture<Long> findUniqueLong(@NotNull SqlQuery query) {
+        return execute(db -> db.findUniqueLong(query));
+    }
+
+    /**
+     * @see Database#findUniqueLong(String, Object...)
+     */
+    @NotNull
+    public CompletableFuture<Long> findUniqueLong(@NotNull @SQL String sql, Object... args) {
+        return findUniqueLong(SqlQuery.query(sql, args));
+    }
+
+    /**
+     * @see Database#findMap(Class, Class, SqlQuery)
+     */
+    @NotNull
+    public <K, V> CompletableFuture<Map<K, V>> findMap(@NotNull Class<K> keyType, @NotNull Class<V> valueType, @NotNull SqlQuery query) {
+        return execute(db -> db.findMap(keyType, valueType, query));
+    }
+
+    /**
+     * @see Database#findTable(SqlQuery)
+     */
+    @NotNull
+    public CompletableFuture<ResultTable> findTable(@NotNull SqlQuery query) {
+        return execute(db -> db.findTable(query));
+    }
+
+    /**
+     * @see Database#update(SqlQuery)
+     */
+    @NotNull
+    public CompletableFuture<Integer> update(@NotNull SqlQuery query) {
+        return execute(db -> db.update(query));
+    }
+
+    /**
+     * @see Database#update(String, Object...)
+     */
+    @NotNull
+    public CompletableFuture<Integer> update(@NotNull @SQL String sql, Object... args) {
+        return update(SqlQuery.query(sql, args));
+    }
+
+    /**
+     * @see Database#updateBatch(String, List)
+     */
+    @NotNull
+    public CompletableFuture<int[]> updateBatch(@NotNull @SQL String sql, @NotNull List<? extends List<?>> argumentLists) {
+        return execute(db -> db.updateBatch(sql, argumentLists));
+    }
+
+    /**
+     * Shuts down the executor if it was created by this facade. Operations that have already been
+     * submitted are still executed.
+     */
+    @Override
+    public void close() {
+        if (ownsExecutor)
+            executor.shutdown();
+    }
+
+    private static final class WorkerThreadFactory implements ThreadFactory {
+
+        private static final AtomicInteger poolCounter = new AtomicInteger();
+
+        private final int pool = poolCounter.incrementAndGet();
+
+        private final AtomicInteger threadCounter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(@NotNull Runnable r) {
+            Thread thread = new Thread(r, "dalesbred-async-" + pool + "-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred;
+
+/**
+ * Immutable snapshot of the load of an {@link AsyncDatabase}.
+ */
+public final class AsyncDatabaseStatistics {
+
+    private final int queueDepth;
+    private final int activeTasks;
+    private final int maxConcurrency;
+    private final long completedTasks;
+    private final long rejectedTasks;
+    private final long totalWaitNanos;
+    private final long maxWaitNanos;
+
+    public AsyncDatabaseStatistics(int queueDepth,
+                                   int activeTasks,
+                                   int maxConcurrency,
+                                   long completedTasks,
+                                   long rejectedTasks,
+                                   long totalWaitNanos,
+                                   long maxWaitNanos) {
+        this.queueDepth = queueDepth;
+        this.activeTasks = activeTasks;
+        this.maxConcurrency = maxConcurrency;
+        this.completedTasks = completedTasks;
+        this.rejectedTasks = rejectedTasks;
+        this.totalWaitNanos = totalWaitNanos;
+        this.maxWaitNanos = maxWaitNanos;
+    }
+
+    /**
+     * Returns the amount of tasks that have been submitted, but have not yet started executing.
+     */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * Returns the amount of tasks executing at the time the snapshot was taken.
+     */
+    public int getActiveTasks() {
+        return activeTasks;
+    }
+
+    /**
+     * Returns the maximum amount of tasks that can execute concurrently, or 0 if the limit is unknown.
+     */
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Returns the amount of tasks that have finished executing, either normally or exceptionally.
+     */
+    public long getCompletedTasks() {
+        return completedTasks;
+    }
+
+    /**
+     * Returns the amount of tasks that were rejected because the queue was full.
+     */
+    public long getRejectedTasks() {
+        return rejectedTasks;
+    }
+
+    /**
+     * Returns the total time that started tasks have waited in the queue, in nanoseconds.
+     */
+    public long getTotalWaitNanos() {
+        return totalWaitNanos;
+    }
+
+    /**
+     * Returns the longest time that a task has waited in the queue, in nanoseconds.
+     */
+    public long getMaxWaitNanos() {
+        return maxWaitNanos;
+    }
+
+    /**
+     * Returns the ratio of active tasks to the maximum concurrency, or 0 if the limit is unknown.
+     */
+    public double getSaturation() {
+        return maxConcurrency == 0 ? 0 : (double) activeTasks / maxConcurrency;
+    }
+
+    @Override
+    public String toString() {
+        return "AsyncDatabaseStatistics [queueDepth=" + queueDepth + ", activeTasks=" + activeTasks +
+                ", maxConcurrency=" + maxConcurrency + ", completedTasks=" + completedTasks +
+                ", rejectedTasks=" + rejectedTasks + ", totalWaitNanos=" + totalWaitNanos +
+                ", maxWaitNanos=" + maxWaitNanos + ']';
+    }
+}
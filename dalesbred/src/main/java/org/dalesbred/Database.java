@@ -26,13 +26,35 @@ import org.dalesbred.annotation.SQL;
 import org.dalesbred.connection.ConnectionProvider;
 import org.dalesbred.connection.DataSourceConnectionProvider;
 import org.dalesbred.connection.DriverManagerConnectionProvider;
+import org.dalesbred.connection.PooledConnectionProvider;
 import org.dalesbred.conversion.TypeConversionRegistry;
 import org.dalesbred.dialect.Dialect;
+import org.dalesbred.dialect.IdSetStrategy;
+import org.dalesbred.internal.instantiation.Instantiator;
+import org.dalesbred.internal.instantiation.InstantiatorArguments;
 import org.dalesbred.internal.instantiation.InstantiatorProvider;
+import org.dalesbred.internal.instantiation.NamedTypeList;
+import org.dalesbred.internal.jdbc.BatchChunkSizer;
+import org.dalesbred.internal.jdbc.ManagedTransactionContext;
+import org.dalesbred.internal.jdbc.StatementCache;
+import org.dalesbred.internal.jdbc.StatementHandle;
+import org.dalesbred.internal.jdbc.MultiRowInsert;
+import org.dalesbred.internal.jdbc.ResultSetUtils;
+import org.dalesbred.internal.jdbc.StatementKey;
+import org.dalesbred.internal.result.CopyTextDecoder;
 import org.dalesbred.internal.result.InstantiatorRowMapper;
 import org.dalesbred.internal.result.MapResultSetProcessor;
+import org.dalesbred.internal.result.PrimitiveResultSetProcessors;
+import org.dalesbred.internal.result.ResultSetSpliterator;
 import org.dalesbred.internal.result.ResultTableResultSetProcessor;
 import org.dalesbred.internal.utils.JndiUtils;
+import org.dalesbred.query.BatchOptions;
+import org.dalesbred.query.BindingPlan;
+import org.dalesbred.query.CopyFormat;
+import org.dalesbred.query.IdSet;
+import org.dalesbred.query.QueryBuilder;
+import org.dalesbred.query.NamedQuery;
+import org.dalesbred.query.QueryOptions;
 import org.dalesbred.query.SqlQuery;
 import org.dalesbred.result.*;
 import org.dalesbred.transaction.*;
@@ -42,10 +64,20 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.sql.*;
 import java.util.*;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static java.lang.System.currentTimeMillis;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.Objects.requireNonNull;
 import static org.dalesbred.internal.utils.OptionalUtils.unwrapOptionalAsNull;
 import static org.dalesbred.transaction.TransactionCallback.fromVoidCallback;
@@ -71,9 +103,17 @@ public final class Database {
     @NotNull
     private final Logger log = LoggerFactory.getLogger(Database.class);
 
+    /** Options for streaming queries, unless specified otherwise */
+    @NotNull
+    private static final QueryOptions STREAMING_OPTIONS = QueryOptions.DEFAULT.withStreaming(true);
+
     /** Should we create transactions implicitly when individual operations are invoked outside transaction */
     private boolean allowImplicitTransactions = true;
 
+    /** Options used for queries that don't specify them */
+    @NotNull
+    private volatile QueryOptions defaultQueryOptions = QueryOptions.DEFAULT;
+
     /** The dialect that the database uses */
     @NotNull
     private final Dialect dialect;
@@ -101,8 +141,10 @@ public final class Database {
     /**
      * Returns a new Database that uses given connection options to open connection. The database
      * opens connections directly from {@link DriverManager} without performing connection pooling.
+     * For pooling, construct the database using a {@link PooledConnectionProvider}.
      *
      * @see DriverManagerConnectionProvider
+     * @see PooledConnectionProvider#forUrlAndCredentials(String, String, String)
      */
     @NotNull
     public static Database forUrlAndCredentials(@NotNull String url, @Nullable String username, @Nullable String password) {
@@ -278,7 +320,8 @@ public final class Database {
         return withCurrentTransaction(query, tx -> {
             logQuery(query);
 
-            try (PreparedStatement ps = tx.getConnection().prepareStatement(query.getSql())) {
+            try (StatementHandle statement = prepareStatement(tx, query)) {
+                PreparedStatement ps = statement.getStatement();
                 bindArguments(ps, query.getArguments());
 
                 long startTime = currentTimeMillis();
@@ -299,6 +342,187 @@ public final class Database {
         return executeQuery(processor, SqlQuery.query(sql, args));
     }
 
+    /**
+     * Creates a new {@link MultiQuery} for executing several independent queries together. If the dialect
+     * supports multiple result sets, the queries are sent to the database as a single statement.
+     *
+     * @see Dialect#supportsMultipleResultSets()
+     */
+    @NotNull
+    public MultiQuery multiQuery() {
+        return new MultiQuery(this);
+    }
+
+    void executeMultiQuery(@NotNull List<MultiQuery.Result<?>> results) {
+        if (results.isEmpty())
+            return;
+
+        if (results.size() == 1 || !dialect.supportsMultipleResultSets() || !allHaveDefaultOptions(results)) {
+            withCurrentTransaction(results.get(0).getQuery(), tx -> {
+                for (MultiQuery.Result<?> result : results)
+                    executeInto(result);
+                return null;
+            });
+            return;
+        }
+
+        List<SqlQuery> queries = new ArrayList<>(results.size());
+        for (MultiQuery.Result<?> result : results)
+            queries.add(result.getQuery());
+
+        SqlQuery query = combineQueries(queries);
+        withCurrentTransaction(query, tx -> {
+            logQuery(query);
+
+            try (StatementHandle statement = prepareStatement(tx, query)) {
+                PreparedStatement ps = statement.getStatement();
+                bindArguments(ps, query.getArguments());
+
+                long startTime = currentTimeMillis();
+                boolean isResultSet = ps.execute();
+                logQueryExecution(query, currentTimeMillis() - startTime);
+
+                for (MultiQuery.Result<?> result : results) {
+                    // Skip update counts produced by the database between the result sets
+                    while (!isResultSet) {
+                        if (ps.getUpdateCount() == -1)
+                            throw new DatabaseException("expected " + results.size() + " result sets from multi-query, but got fewer");
+                        isResultSet = ps.getMoreResults();
+                    }
+
+                    try (ResultSet resultSet = ps.getResultSet()) {
+                        processInto(result, resultSet);
+                    }
+                    isResultSet = ps.getMoreResults();
+                }
+            }
+            return null;
+        });
+    }
+
+    private <T> void executeInto(@NotNull MultiQuery.Result<T> result) {
+        result.complete(executeQuery(result.getProcessor(), result.getQuery()));
+    }
+
+    private static <T> void processInto(@NotNull MultiQuery.Result<T> result, @NotNull ResultSet resultSet) throws SQLException {
+        result.complete(result.getProcessor().process(resultSet));
+    }
+
+    private static boolean allHaveDefaultOptions(@NotNull List<MultiQuery.Result<?>> results) {
+        for (MultiQuery.Result<?> result : results)
+            if (!result.getQuery().getOptions().equals(QueryOptions.DEFAULT))
+                return false;
+        return true;
+    }
+
+    /**
+     * Combines given queries to a single statement. The separator is placed on a line of its own so that
+     * queries ending with line comments don't comment it out.
+     */
+    @NotNull
+    static SqlQuery combineQueries(@NotNull List<SqlQuery> queries) {
+        StringBuilder sql = new StringBuilder();
+        List<Object> arguments = new ArrayList<>();
+
+        for (SqlQuery query : queries) {
+            if (sql.length() != 0)
+                sql.append("\n;\n");
+            sql.append(query.getSql().replaceFirst("[\\s;]+$", ""));
+            arguments.addAll(query.getArguments());
+        }
+
+        return SqlQuery.query(sql.toString(), arguments);
+    }
+
+    /**
+     * Executes a query and returns a lazy stream that maps the rows of the result with given
+     * {@link RowMapper} as they are consumed, without reading the whole result into memory.
+     * <p>
+     * The stream keeps the underlying statement open until it is closed or fully consumed, so
+     * it should be used with try-with-resources. Since the result is read from the connection of
+     * the current transaction, the stream may only be used within the transaction that created it:
+     * this method requires an active transaction even if implicit transactions are allowed.
+     * <p>
+     * Unless the query or {@link #getDefaultQueryOptions() defaults} specify otherwise, the query
+     * is executed with {@link QueryOptions#withStreaming(boolean) streaming} enabled.
+     *
+     * @throws NoActiveTransactionException if there's no active transaction
+     */
+    @NotNull
+    public <T> Stream<T> stream(@NotNull RowMapper<T> rowMapper, @NotNull SqlQuery query) {
+        if (!transactionManager.hasActiveTransaction())
+            throw new NoActiveTransactionException("Streaming queries require an active transaction, because the results are read lazily from the connection of the transaction.");
+
+        return withCurrentTransaction(query, tx -> {
+            logQuery(query);
+
+            PreparedStatement ps = dialect.prepareStatement(tx.getConnection(), query.getSql(), query.getOptions().withDefaults(STREAMING_OPTIONS).withDefaults(defaultQueryOptions));
+            try {
+                bindArguments(ps, query.getArguments());
+
+                long startTime = currentTimeMillis();
+                ResultSet resultSet = ps.executeQuery();
+                logQueryExecution(query, currentTimeMillis() - startTime);
+
+                ResultSetSpliterator<T> spliterator = new ResultSetSpliterator<>(ps, resultSet, rowMapper, isCurrentTransaction(tx), dialect);
+                return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+
+            } catch (SQLException | RuntimeException e) {
+                ps.close();
+                throw e;
+            }
+        });
+    }
+
+    /**
+     * Returns a check for whether given transaction is still the active transaction of the current thread.
+     */
+    @NotNull
+    private BooleanSupplier isCurrentTransaction(@NotNull TransactionContext tx) {
+        if (tx instanceof ManagedTransactionContext) {
+            ManagedTransactionContext managedTx = (ManagedTransactionContext) tx;
+            return () -> managedTx.isTransactionOpen() && transactionManager.hasActiveTransaction();
+        }
+
+        // Without access to the transaction itself, compare connections
+        Connection connection = tx.getConnection();
+        return () -> transactionManager.hasActiveTransaction()
+                && transactionManager.withCurrentTransaction(currentTx -> currentTx.getConnection() == connection, dialect);
+    }
+
+    /**
+     * Executes a query and returns a lazy stream that maps the rows of the result with given
+     * {@link RowMapper} as they are consumed.
+     *
+     * @see #stream(RowMapper, SqlQuery)
+     */
+    @NotNull
+    public <T> Stream<T> stream(@NotNull RowMapper<T> rowMapper, @NotNull @SQL String sql, Object... args) {
+        return stream(rowMapper, SqlQuery.query(sql, args));
+    }
+
+    /**
+     * Executes a query and returns a lazy stream that converts the rows of the result to instances
+     * of given class using default mechanisms as they are consumed.
+     *
+     * @see #stream(RowMapper, SqlQuery)
+     */
+    @NotNull
+    public <T> Stream<T> stream(@NotNull Class<T> cl, @NotNull SqlQuery query) {
+        return stream(rowMapperForClass(cl), query);
+    }
+
+    /**
+     * Executes a query and returns a lazy stream that converts the rows of the result to instances
+     * of given class using default mechanisms as they are consumed.
+     *
+     * @see #stream(RowMapper, SqlQuery)
+     */
+    @NotNull
+    public <T> Stream<T> stream(@NotNull Class<T> cl, @NotNull @SQL String sql, Object... args) {
+        return stream(cl, SqlQuery.query(sql, args));
+    }
+
     /**
      * Executes a query and processes each row of the result with given {@link RowMapper}
      * to produce a list of results.
@@ -333,6 +557,60 @@ public final class Database {
         return findAll(cl, SqlQuery.query(sql, args));
     }
 
+    /**
+     * Executes a single-column query and collects the results into an array of ints without
+     * boxing each value. Null values are not allowed.
+     */
+    @NotNull
+    public int[] findIntArray(@NotNull SqlQuery query) {
+        return executeQuery(PrimitiveResultSetProcessors.intArray(instantiatorRegistry), query);
+    }
+
+    /**
+     * Executes a single-column query and collects the results into an array of ints without
+     * boxing each value. Null values are not allowed.
+     */
+    @NotNull
+    public int[] findIntArray(@NotNull @SQL String sql, Object... args) {
+        return findIntArray(SqlQuery.query(sql, args));
+    }
+
+    /**
+     * Executes a single-column query and collects the results into an array of longs without
+     * boxing each value. Null values are not allowed.
+     */
+    @NotNull
+    public long[] findLongArray(@NotNull SqlQuery query) {
+        return executeQuery(PrimitiveResultSetProcessors.longArray(instantiatorRegistry), query);
+    }
+
+    /**
+     * Executes a single-column query and collects the results into an array of longs without
+     * boxing each value. Null values are not allowed.
+     */
+    @NotNull
+    public long[] findLongArray(@NotNull @SQL String sql, Object... args) {
+        return findLongArray(SqlQuery.query(sql, args));
+    }
+
+    /**
+     * Executes a single-column query and collects the results into an array of doubles without
+     * boxing each value. Null values are not allowed.
+     */
+    @NotNull
+    public double[] findDoubleArray(@NotNull SqlQuery query) {
+        return executeQuery(PrimitiveResultSetProcessors.doubleArray(instantiatorRegistry), query);
+    }
+
+    /**
+     * Executes a single-column query and collects the results into an array of doubles without
+     * boxing each value. Null values are not allowed.
+     */
+    @NotNull
+    public double[] findDoubleArray(@NotNull @SQL String sql, Object... args) {
+        return findDoubleArray(SqlQuery.query(sql, args));
+    }
+
     /**
      * Finds a unique result from database, using given {@link RowMapper} to convert the row.
      *
@@ -436,8 +714,7 @@ public final class Database {
      */
     @NotNull
     public OptionalInt findOptionalInt(@NotNull SqlQuery query) {
-        Optional<Integer> value = findOptional(Integer.class, query);
-        return value.isPresent() ? OptionalInt.of(value.get()) : OptionalInt.empty();
+        return executeQuery(PrimitiveResultSetProcessors.optionalInt(instantiatorRegistry), query);
     }
 
     /**
@@ -459,8 +736,7 @@ public final class Database {
      */
     @NotNull
     public OptionalLong findOptionalLong(@NotNull SqlQuery query) {
-        Optional<Long> value = findOptional(Long.class, query);
-        return value.isPresent() ? OptionalLong.of(value.get()) : OptionalLong.empty();
+        return executeQuery(PrimitiveResultSetProcessors.optionalLong(instantiatorRegistry), query);
     }
 
     /**
@@ -482,8 +758,7 @@ public final class Database {
      */
     @NotNull
     public OptionalDouble findOptionalDouble(@NotNull SqlQuery query) {
-        Optional<Double> value = findOptional(Double.class, query);
-        return value.isPresent() ? OptionalDouble.of(value.get()) : OptionalDouble.empty();
+        return executeQuery(PrimitiveResultSetProcessors.optionalDouble(instantiatorRegistry), query);
     }
 
     /**
@@ -545,7 +820,7 @@ public final class Database {
      * @throws EmptyResultException if there are no rows
      */
     public int findUniqueInt(@NotNull SqlQuery query) {
-        return executeQuery(rowMapperForClass(int.class).unique(), query);
+        return executeQuery(PrimitiveResultSetProcessors.uniqueInt(instantiatorRegistry), query);
     }
 
     /**
@@ -565,7 +840,7 @@ public final class Database {
      * @throws EmptyResultException if there are no rows
      */
     public long findUniqueLong(@NotNull SqlQuery query) {
-        return executeQuery(rowMapperForClass(long.class).unique(), query);
+        return executeQuery(PrimitiveResultSetProcessors.uniqueLong(instantiatorRegistry), query);
     }
 
     /**
@@ -617,6 +892,28 @@ public final class Database {
         return findTable(SqlQuery.query(sql, args));
     }
 
+    /**
+     * Executes a query and creates a column-oriented {@link ResultTable} from the results.
+     * Columnar tables use considerably less memory than normal tables for large results.
+     *
+     * @see ResultTable#columnarBuilder(List)
+     */
+    @NotNull
+    public ResultTable findColumnarTable(@NotNull SqlQuery query) {
+        return executeQuery(new ResultTableResultSetProcessor(true), query);
+    }
+
+    /**
+     * Executes a query and creates a column-oriented {@link ResultTable} from the results.
+     * Columnar tables use considerably less memory than normal tables for large results.
+     *
+     * @see ResultTable#columnarBuilder(List)
+     */
+    @NotNull
+    public ResultTable findColumnarTable(@NotNull @SQL String sql, Object... args) {
+        return findColumnarTable(SqlQuery.query(sql, args));
+    }
+
     /**
      * Executes an update against the database and returns the amount of affected rows.
      */
@@ -624,7 +921,8 @@ public final class Database {
         return withCurrentTransaction(query, tx -> {
             logQuery(query);
 
-            try (PreparedStatement ps = tx.getConnection().prepareStatement(query.getSql())) {
+            try (StatementHandle statement = prepareStatement(tx, query)) {
+                PreparedStatement ps = statement.getStatement();
                 bindArguments(ps, query.getArguments());
                 long startTime = currentTimeMillis();
                 int count = ps.executeUpdate();
@@ -654,7 +952,8 @@ public final class Database {
         return withCurrentTransaction(query, tx -> {
             logQuery(query);
 
-            try (PreparedStatement ps = prepareStatement(tx.getConnection(), query.getSql(), columnNames)) {
+            try (StatementHandle statement = prepareStatement(tx, query.getSql(), columnNames)) {
+                PreparedStatement ps = statement.getStatement();
                 bindArguments(ps, query.getArguments());
                 long startTime = currentTimeMillis();
                 ps.executeUpdate();
@@ -668,11 +967,41 @@ public final class Database {
     }
 
     @NotNull
-    private static PreparedStatement prepareStatement(@NotNull Connection connection, @NotNull String sql, @NotNull List<String> columnNames) throws SQLException {
-        if (columnNames.isEmpty())
-            return connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+    private StatementHandle prepareStatement(@NotNull TransactionContext tx, @NotNull SqlQuery query) throws SQLException {
+        Connection connection = tx.getConnection();
+        QueryOptions options = query.getOptions().withDefaults(defaultQueryOptions);
+
+        return prepareStatement(tx, StatementKey.withOptions(query.getSql(), options),
+                () -> dialect.prepareStatement(connection, query.getSql(), options));
+    }
+
+    @NotNull
+    private static StatementHandle prepareStatement(@NotNull TransactionContext tx, @NotNull @SQL String sql) throws SQLException {
+        Connection connection = tx.getConnection();
+        return prepareStatement(tx, StatementKey.plain(sql), () -> connection.prepareStatement(sql));
+    }
+
+    @NotNull
+    private static StatementHandle prepareStatement(@NotNull TransactionContext tx, @NotNull @SQL String sql, @NotNull List<String> columnNames) throws SQLException {
+        Connection connection = tx.getConnection();
+        return prepareStatement(tx, StatementKey.withGeneratedKeys(sql, columnNames), () -> {
+            if (columnNames.isEmpty())
+                return connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            else
+                return connection.prepareStatement(sql, columnNames.toArray(new String[columnNames.size()]));
+        });
+    }
+
+    /**
+     * Prepares a statement, reusing a previously prepared one if the transaction caches statements.
+     */
+    @NotNull
+    private static StatementHandle prepareStatement(@NotNull TransactionContext tx, @NotNull StatementKey key, @NotNull StatementCache.StatementFactory factory) throws SQLException {
+        StatementCache cache = (tx instanceof ManagedTransactionContext) ? ((ManagedTransactionContext) tx).getStatementCache() : null;
+        if (cache != null)
+            return cache.prepare(key, factory);
         else
-            return connection.prepareStatement(sql, columnNames.toArray(new String[columnNames.size()]));
+            return StatementHandle.uncached(factory.prepare());
     }
 
     /**
@@ -692,7 +1021,8 @@ public final class Database {
         return withCurrentTransaction(query, tx -> {
             logQuery(query);
 
-            try (PreparedStatement ps = tx.getConnection().prepareStatement(sql)) {
+            try (StatementHandle statement = prepareStatement(tx, sql)) {
+                PreparedStatement ps = statement.getStatement();
                 for (List<?> arguments : argumentLists) {
                     bindArguments(ps, arguments);
                     ps.addBatch();
@@ -705,6 +1035,419 @@ public final class Database {
         });
     }
 
+    /**
+     * Executes a batch update with named parameters against the database, returning an array of
+     * modification counts for each row. The values of parameters are resolved from the getters and
+     * fields of beans, or from the entries of rows that are {@link Map}s.
+     * <p>
+     * The SQL is parsed once and the accessors of parameters are resolved once per class of rows,
+     * after which every row is bound directly to the batch.
+     *
+     * @throws org.dalesbred.query.VariableResolutionException if a row can't provide values for named parameters
+     * @see SqlQuery#namedQuery(String, Object)
+     * @see SqlQuery#namedQuery(String, Map)
+     */
+    public int[] updateBatchNamed(@SQL @NotNull String sql, @NotNull Collection<?> rows) {
+        NamedQuery namedQuery = NamedQuery.parse(sql);
+        SqlQuery query = SqlQuery.query(namedQuery.getSql(), "<batch-update>");
+
+        return withCurrentTransaction(query, tx -> {
+            logQuery(query);
+
+            try (StatementHandle statement = prepareStatement(tx, namedQuery.getSql())) {
+                PreparedStatement ps = statement.getStatement();
+                Class<?> planClass = null;
+                BindingPlan<Object> plan = null;
+
+                for (Object row : rows) {
+                    requireNonNull(row, "null row in batch");
+                    if (row.getClass() != planClass) {
+                        planClass = row.getClass();
+                        plan = bindingPlanFor(namedQuery, row);
+                    }
+
+                    bindArguments(ps, plan, row);
+                    ps.addBatch();
+                }
+
+                long startTime = currentTimeMillis();
+                int[] counts = ps.executeBatch();
+                logQueryExecution(query, currentTimeMillis() - startTime);
+                return counts;
+            }
+        });
+    }
+
+    @NotNull
+    @SuppressWarnings("unchecked")
+    private static BindingPlan<Object> bindingPlanFor(@NotNull NamedQuery query, @NotNull Object row) {
+        if (row instanceof Map)
+            return (BindingPlan<Object>) (BindingPlan<?>) query.bindingPlanForMaps();
+        else
+            return (BindingPlan<Object>) query.bindingPlanForBeans(row.getClass());
+    }
+
+    /**
+     * Executes a batch update against the database, reading the argument lists lazily from given iterator.
+     * Instead of sending all rows at once, the rows are sent in chunks as specified by options, so
+     * that the whole batch never needs to be held in memory.
+     *
+     * @return total amount of affected rows, not including rows for which the driver did not report a count
+     * @see BatchOptions
+     */
+    public long updateBatch(@SQL @NotNull String sql, @NotNull Iterator<? extends List<?>> argumentLists, @NotNull BatchOptions options) {
+        SqlQuery query = SqlQuery.query(sql, "<batch-update>");
+
+        return withCurrentTransaction(query, tx -> {
+            logQuery(query);
+
+            if (options.isMultiRowInserts()) {
+                MultiRowInsert insert = MultiRowInsert.parse(sql).orElse(null);
+                if (insert != null) {
+                    int rowsPerStatement = dialect.getMaxMultiRowInsertRows(insert.getParametersPerRow());
+                    if (rowsPerStatement > 1)
+                        return updateBatchWithMultiRowInserts(tx, query, insert, rowsPerStatement, argumentLists, options);
+                }
+            }
+
+            try (StatementHandle statement = prepareStatement(tx, sql)) {
+                PreparedStatement ps = statement.getStatement();
+                BatchChunkSizer chunkSizer = new BatchChunkSizer(options);
+                long totalCount = 0;
+                int rows = 0;
+
+                while (argumentLists.hasNext()) {
+                    bindArguments(ps, argumentLists.next());
+                    ps.addBatch();
+
+                    if (++rows >= chunkSizer.getChunkSize()) {
+                        totalCount += executeBatchChunk(ps, query, chunkSizer, rows);
+                        rows = 0;
+                    }
+                }
+
+                if (rows > 0)
+                    totalCount += executeBatchChunk(ps, query, chunkSizer, rows);
+
+                return totalCount;
+            }
+        });
+    }
+
+    /**
+     * Executes a batch by grouping rows into multi-row inserts of given size, which are then executed in
+     * chunks as normal batches. Rows that are left over are inserted with a separate, smaller statement.
+     */
+    private long updateBatchWithMultiRowInserts(@NotNull TransactionContext tx,
+                                                @NotNull SqlQuery query,
+                                                @NotNull MultiRowInsert insert,
+                                                int rowsPerStatement,
+                                                @NotNull Iterator<? extends List<?>> argumentLists,
+                                                @NotNull BatchOptions options) throws SQLException {
+        List<List<?>> pendingRows = new ArrayList<>(rowsPerStatement);
+        long totalCount = 0;
+
+        try (StatementHandle statement = prepareStatement(tx, insert.getSql(rowsPerStatement))) {
+            PreparedStatement ps = statement.getStatement();
+            BatchChunkSizer chunkSizer = new BatchChunkSizer(options);
+            int rows = 0;
+
+            while (argumentLists.hasNext()) {
+                pendingRows.add(argumentLists.next());
+
+                if (pendingRows.size() == rowsPerStatement) {
+                    bindRows(ps, insert, pendingRows);
+                    ps.addBatch();
+                    pendingRows.clear();
+
+                    rows += rowsPerStatement;
+                    if (rows >= chunkSizer.getChunkSize()) {
+                        totalCount += executeBatchChunk(ps, query, chunkSizer, rows);
+                        rows = 0;
+                    }
+                }
+            }
+
+            if (rows > 0)
+                totalCount += executeBatchChunk(ps, query, chunkSizer, rows);
+        }
+
+        if (!pendingRows.isEmpty()) {
+            try (StatementHandle statement = prepareStatement(tx, insert.getSql(pendingRows.size()))) {
+                PreparedStatement ps = statement.getStatement();
+                bindRows(ps, insert, pendingRows);
+
+                long startTime = currentTimeMillis();
+                totalCount += ps.executeUpdate();
+                logQueryExecution(query, currentTimeMillis() - startTime);
+            }
+        }
+
+        return totalCount;
+    }
+
+    private void bindRows(@NotNull PreparedStatement ps, @NotNull MultiRowInsert insert, @NotNull List<List<?>> rows) throws SQLException {
+        int parametersPerRow = insert.getParametersPerRow();
+        int index = 1;
+
+        for (List<?> row : rows) {
+            if (row.size() != parametersPerRow)
+                throw new IllegalArgumentException("Expected " + parametersPerRow + " arguments for row, but got " + row.size());
+
+            for (Object arg : row)
+                dialect.bindArgument(ps, index++, instantiatorRegistry.valueToDatabase(unwrapOptionalAsNull(arg)));
+        }
+    }
+
+    /**
+     * Executes a batch update against the database, reading the argument lists lazily from given stream.
+     * The stream is not closed by this method.
+     *
+     * @return total amount of affected rows, not including rows for which the driver did not report a count
+     * @see #updateBatch(String, Iterator, BatchOptions)
+     */
+    public long updateBatch(@SQL @NotNull String sql, @NotNull Stream<? extends List<?>> argumentLists, @NotNull BatchOptions options) {
+        return updateBatch(sql, argumentLists.iterator(), options);
+    }
+
+    /**
+     * Bulk-loads rows into given table, reading the rows lazily from given iterator. If the dialect
+     * supports it, uses a database specific mechanism such as {@code COPY} of PostgreSQL, which is
+     * considerably faster than inserting rows in batches. Otherwise falls back to inserting rows in
+     * chunks as {@link #updateBatch(String, Iterator, BatchOptions)} does, using multi-row inserts
+     * if the dialect supports them.
+     * <p>
+     * Values are converted using the conversions of {@link #getTypeConversionRegistry()}.
+     *
+     * @param table name of the table, which is used in SQL as is
+     * @param columns names of columns, which are used in SQL as is
+     * @param rows values of rows, in the order of columns
+     * @return number of rows loaded
+     * @see Dialect#supportsCopyIn()
+     */
+    public long copyIn(@NotNull String table, @NotNull List<String> columns, @NotNull Iterator<? extends List<?>> rows) {
+        if (columns.isEmpty()) throw new IllegalArgumentException("no columns specified for copy");
+
+        if (!dialect.supportsCopyIn())
+            return updateBatch(insertSql(table, columns), rows, BatchOptions.DEFAULT.withMultiRowInserts(true));
+
+        SqlQuery query = SqlQuery.query("copy " + table + " (" + String.join(", ", columns) + ") from stdin", "<copy-in>");
+
+        return withCurrentTransaction(query, tx -> {
+            logQuery(query);
+
+            long startTime = currentTimeMillis();
+            long count = dialect.copyIn(tx.getConnection(), table, columns, rows,
+                    value -> instantiatorRegistry.valueToDatabase(unwrapOptionalAsNull(value)));
+            logQueryExecution(query, currentTimeMillis() - startTime);
+            return count;
+        });
+    }
+
+    /**
+     * Bulk-loads rows into given table, reading the rows lazily from given stream. The stream is not
+     * closed by this method.
+     *
+     * @return number of rows loaded
+     * @see #copyIn(String, List, Iterator)
+     */
+    public long copyIn(@NotNull String table, @NotNull List<String> columns, @NotNull Stream<? extends List<?>> rows) {
+        return copyIn(table, columns, rows.iterator());
+    }
+
+    /**
+     * Exports the results of given query to given stream in given format, bypassing the decoding of
+     * results row by row. The query can't have parameters, since it's embedded in the export command.
+     * <p>
+     * Only supported if the dialect supports it, e.g. on PostgreSQL, which uses {@code COPY (query) TO STDOUT}.
+     *
+     * @return number of rows exported
+     * @throws UnsupportedOperationException if dialect does not support exports
+     * @see Dialect#supportsCopyOut()
+     */
+    public long copyOut(@NotNull @SQL String sql, @NotNull CopyFormat format, @NotNull OutputStream out) {
+        SqlQuery query = SqlQuery.query(sql);
+
+        if (!dialect.supportsCopyOut())
+            throw new UnsupportedOperationException("bulk-exports are not supported by " + dialect);
+
+        return withCurrentTransaction(query, tx -> {
+            logQuery(query);
+
+            try {
+                long startTime = currentTimeMillis();
+                long count = dialect.copyOut(tx.getConnection(), sql, format, out);
+                logQueryExecution(query, currentTimeMillis() - startTime);
+                return count;
+            } catch (IOException e) {
+                throw new DatabaseException("failed to write exported data", e);
+            }
+        });
+    }
+
+    /**
+     * Exports the results of given query to given channel in given format.
+     *
+     * @return number of rows exported
+     * @see #copyOut(String, CopyFormat, OutputStream)
+     */
+    public long copyOut(@NotNull @SQL String sql, @NotNull CopyFormat format, @NotNull WritableByteChannel channel) {
+        return copyOut(sql, format, Channels.newOutputStream(channel));
+    }
+
+    /**
+     * Exports the results of given query, decoding the rows into instances of given class and passing
+     * them to given consumer as they arrive. The instances are created as with {@link #findAll(Class, SqlQuery)},
+     * but values of columns whose types can't be decoded from exported text are passed to instantiators as strings.
+     * <p>
+     * If the dialect does not support exports, falls back to streaming the results of a normal query.
+     *
+     * @return number of rows exported
+     * @see #copyOut(String, CopyFormat, OutputStream)
+     */
+    public <T> long copyOut(@NotNull Class<T> cl, @NotNull @SQL String sql, @NotNull Consumer<? super T> consumer) {
+        SqlQuery query = SqlQuery.query(sql);
+
+        if (!dialect.supportsCopyOut()) {
+            return withCurrentTransaction(query, tx -> {
+                try (Stream<T> stream = stream(cl, query)) {
+                    long[] count = { 0 };
+                    stream.forEach(value -> {
+                        consumer.accept(value);
+                        count[0]++;
+                    });
+                    return count[0];
+                }
+            });
+        }
+
+        return withCurrentTransaction(query, tx -> {
+            logQuery(query);
+
+            NamedTypeList types;
+            try (StatementHandle statement = prepareStatement(tx, sql)) {
+                ResultSetMetaData metaData = statement.getStatement().getMetaData();
+                if (metaData == null)
+                    throw new DatabaseException("could not determine the columns of query");
+                types = CopyTextDecoder.decodableTypes(ResultSetUtils.getTypes(metaData));
+            }
+
+            Instantiator<T> instantiator = instantiatorRegistry.findInstantiator(cl, types);
+            Object[] arguments = new Object[types.size()];
+            InstantiatorArguments instantiatorArguments = new InstantiatorArguments(types, arguments);
+
+            try (CopyTextDecoder decoder = new CopyTextDecoder(types, values -> {
+                System.arraycopy(values, 0, arguments, 0, values.length);
+                consumer.accept(instantiator.instantiate(instantiatorArguments));
+            })) {
+                long startTime = currentTimeMillis();
+                long count = dialect.copyOut(tx.getConnection(), sql, CopyFormat.TEXT, decoder);
+                logQueryExecution(query, currentTimeMillis() - startTime);
+                return count;
+            } catch (IOException e) {
+                throw new DatabaseException("failed to decode exported data", e);
+            }
+        });
+    }
+
+    /**
+     * Returns a condition that is true when given expression matches one of the ids of given set, to be
+     * used as a part of a query, typically through {@link QueryBuilder#append(SqlQuery)}. The SQL of the
+     * condition depends on the strategy chosen by the dialect, but it does not depend on the exact size
+     * of the set, so statements can be cached:
+     * <ul>
+     *     <li>{@link IdSetStrategy#ARRAY}: {@code expression = any(?)} with the ids bound as an array</li>
+     *     <li>{@link IdSetStrategy#PLACEHOLDERS}: {@code expression in (?, ...)} with the amount of placeholders
+     *     padded to a power of two</li>
+     *     <li>{@link IdSetStrategy#TEMPORARY_TABLE}: {@code expression in (select id from table)}, where the table
+     *     is loaded immediately. Each condition of a transaction gets a table of its own, so conditions can be
+     *     combined freely within the transaction, but they must not be used after it. An active transaction
+     *     is required.</li>
+     * </ul>
+     *
+     * @param expression SQL expression to compare, which is used as is
+     * @param ids the ids to match against
+     * @see Dialect#getIdSetStrategy(int)
+     */
+    @NotNull
+    public SqlQuery idSetCondition(@NotNull @SQL String expression, @NotNull IdSet ids) {
+        if (ids.isEmpty())
+            return SqlQuery.query("1 = 0");
+
+        switch (dialect.getIdSetStrategy(ids.size())) {
+            case ARRAY:
+                return SqlQuery.query(expression + " = any(?)", ids.toSqlArray());
+            case TEMPORARY_TABLE:
+                return temporaryTableIdSetCondition(expression, ids);
+            case PLACEHOLDERS:
+            default:
+                return placeholderIdSetCondition(expression, ids);
+        }
+    }
+
+    @NotNull
+    private SqlQuery placeholderIdSetCondition(@NotNull String expression, @NotNull IdSet ids) {
+        // Padding the last list of the group must not exceed the maximum size, so use a power of two
+        int groupSize = Integer.highestOneBit(dialect.getMaxInListSize());
+        List<?> values = ids.getIds();
+
+        if (values.size() <= groupSize)
+            return new QueryBuilder(expression).append(" in (").appendPaddedPlaceholders(values).append(")").build();
+
+        QueryBuilder qb = new QueryBuilder("(");
+        for (int start = 0; start < values.size(); start += groupSize) {
+            if (start != 0)
+                qb.append(" or ");
+            qb.append(expression).append(" in (")
+                    .appendPaddedPlaceholders(values.subList(start, Math.min(start + groupSize, values.size())))
+                    .append(")");
+        }
+        return qb.append(")").build();
+    }
+
+    @NotNull
+    private SqlQuery temporaryTableIdSetCondition(@NotNull String expression, @NotNull IdSet ids) {
+        if (!hasActiveTransaction())
+            throw new NoActiveTransactionException("Id sets loaded into temporary tables require an active transaction.");
+
+        SqlQuery query = SqlQuery.query("<prepare id set table>", ids.getSqlType());
+        String table = withCurrentTransaction(query, tx -> {
+            if (!(tx instanceof ManagedTransactionContext))
+                throw new UnsupportedOperationException("temporary id set tables are not supported with transactions of " + transactionManager.getClass().getName());
+
+            int index = ((ManagedTransactionContext) tx).nextIdSetTableIndex();
+            return dialect.prepareIdSetTable(tx.getConnection(), ids.getSqlType(), index);
+        });
+
+        updateBatch("insert into " + table + " (id) values (?)",
+                ids.getIds().stream().map(Collections::singletonList).iterator(),
+                BatchOptions.DEFAULT.withMultiRowInserts(true));
+
+        return SqlQuery.query(expression + " in (select id from " + table + ")");
+    }
+
+    @NotNull
+    private static String insertSql(@NotNull String table, @NotNull List<String> columns) {
+        StringBuilder sql = new StringBuilder("insert into ").append(table).append(" (").append(String.join(", ", columns)).append(") values (?");
+        for (int i = 1; i < columns.size(); i++)
+            sql.append(", ?");
+        return sql.append(')').toString();
+    }
+
+    private long executeBatchChunk(@NotNull PreparedStatement ps, @NotNull SqlQuery query, @NotNull BatchChunkSizer chunkSizer, int rows) throws SQLException {
+        long startTime = nanoTime();
+        int[] counts = ps.executeBatch();
+        long elapsedNanos = nanoTime() - startTime;
+        logQueryExecution(query, NANOSECONDS.toMillis(elapsedNanos));
+        chunkSizer.chunkExecuted(rows, elapsedNanos);
+
+        long totalCount = 0;
+        for (int count : counts)
+            if (count > 0)
+                totalCount += count;
+        return totalCount;
+    }
+
     /**
      * Executes batch of updates against the database and return generated keys as extracted by generatedKeysProcessor.
      *
@@ -724,7 +1467,8 @@ public final class Database {
         return withCurrentTransaction(query, tx -> {
             logQuery(query);
 
-            try (PreparedStatement ps = prepareStatement(tx.getConnection(), sql, columnNames)) {
+            try (StatementHandle statement = prepareStatement(tx, sql, columnNames)) {
+                PreparedStatement ps = statement.getStatement();
                 for (List<?> arguments : argumentLists) {
                     bindArguments(ps, arguments);
                     ps.addBatch();
@@ -756,16 +1500,31 @@ public final class Database {
             dialect.bindArgument(ps, i++, instantiatorRegistry.valueToDatabase(unwrapOptionalAsNull(arg)));
     }
 
+    private <T> void bindArguments(@NotNull PreparedStatement ps, @NotNull BindingPlan<T> plan, @NotNull T row) throws SQLException {
+        for (int i = 0, count = plan.getParameterCount(); i < count; i++)
+            dialect.bindArgument(ps, i + 1, instantiatorRegistry.valueToDatabase(unwrapOptionalAsNull(plan.getArgument(row, i))));
+    }
+
     @NotNull
     private <T> ResultSetProcessor<List<T>> resultProcessorForClass(@NotNull Class<T> cl) {
         return rowMapperForClass(cl).list();
     }
 
     @NotNull
-    private <T> RowMapper<T> rowMapperForClass(@NotNull Class<T> cl) {
+    <T> RowMapper<T> rowMapperForClass(@NotNull Class<T> cl) {
         return new InstantiatorRowMapper<>(cl, instantiatorRegistry);
     }
 
+    /**
+     * Returns the statistics of the cache used for storing resolved instantiators. The instantiators
+     * are cached by the target type and the signature of the result-set, so that repeated queries
+     * don't need to perform reflection to find out how to construct the results.
+     */
+    @NotNull
+    public CacheStatistics getInstantiatorCacheStatistics() {
+        return instantiatorRegistry.getInstantiatorCacheStatistics();
+    }
+
     /**
      * Returns {@link TypeConversionRegistry} that can be used to register new type-conversions.
      */
@@ -790,6 +1549,76 @@ public final class Database {
         this.allowImplicitTransactions = allowImplicitTransactions;
     }
 
+    /**
+     * Returns the options used for executing queries that don't specify them.
+     *
+     * @see SqlQuery#withOptions(QueryOptions)
+     */
+    @NotNull
+    public QueryOptions getDefaultQueryOptions() {
+        return defaultQueryOptions;
+    }
+
+    /**
+     * Sets the options used for executing queries that don't specify them. Options specified
+     * for individual queries take precedence over these.
+     *
+     * @see SqlQuery#withOptions(QueryOptions)
+     */
+    public void setDefaultQueryOptions(@NotNull QueryOptions defaultQueryOptions) {
+        this.defaultQueryOptions = requireNonNull(defaultQueryOptions);
+    }
+
+    /**
+     * Returns true if null intermediate objects of nested property paths (e.g. {@code address}
+     * when binding column {@code address.street}) are instantiated on demand.
+     *
+     * @see #setCreateMissingIntermediateObjects(boolean)
+     */
+    public boolean isCreateMissingIntermediateObjects() {
+        return instantiatorRegistry.isCreateMissingIntermediateObjects();
+    }
+
+    /**
+     * If flag is set to true (by default it's false), null intermediate objects of nested property
+     * paths are instantiated using their public no-args constructor and assigned to their parent
+     * before setting the final property. Otherwise a null intermediate object causes an
+     * {@link org.dalesbred.internal.instantiation.InstantiationFailureException}.
+     */
+    public void setCreateMissingIntermediateObjects(boolean createMissingIntermediateObjects) {
+        instantiatorRegistry.setCreateMissingIntermediateObjects(createMissingIntermediateObjects);
+    }
+
+    /**
+     * Returns the maximum amount of prepared statements cached by each transaction.
+     *
+     * @see #setStatementCacheSize(int)
+     */
+    public int getStatementCacheSize() {
+        return transactionManager.getStatementCacheSize();
+    }
+
+    /**
+     * Sets the maximum amount of prepared statements cached by each transaction (by default 0, meaning
+     * that statements are not cached). When caching is enabled, executing the same SQL repeatedly within
+     * a transaction reuses the statement prepared for the first execution instead of preparing it again.
+     * The least recently used statements are closed when the cache is full and all cached statements are
+     * closed when the transaction ends. Streaming queries never use cached statements.
+     *
+     * @throws UnsupportedOperationException if the transaction manager does not support caching statements
+     */
+    public void setStatementCacheSize(int statementCacheSize) {
+        transactionManager.setStatementCacheSize(statementCacheSize);
+    }
+
+    /**
+     * Returns the statistics of prepared statement caches, accumulated over all transactions.
+     */
+    @NotNull
+    public CacheStatistics getStatementCacheStatistics() {
+        return transactionManager.getStatementCacheStatistics();
+    }
+
     /**
      * Returns a string containing useful debug information about the state of this object.
      */
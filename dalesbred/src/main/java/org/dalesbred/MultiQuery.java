@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred;
+
+import org.dalesbred.annotation.SQL;
+import org.dalesbred.query.SqlQuery;
+import org.dalesbred.result.ResultSetProcessor;
+import org.dalesbred.result.RowMapper;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A group of independent queries that are sent to the database together. If the dialect supports
+ * multiple result sets, all queries are executed as a single statement, saving a round trip per query.
+ * Otherwise the queries are executed one after another within a single transaction.
+ * <p>
+ * Queries are added with the find-methods, which return handles that can be used to access the results
+ * after the queries have been executed:
+ * <pre>
+ * MultiQuery queries = db.multiQuery();
+ * MultiQuery.Result&lt;List&lt;Department&gt;&gt; departments = queries.findAll(Department.class, query("select ..."));
+ * MultiQuery.Result&lt;Integer&gt; employeeCount = queries.findUnique(Integer.class, query("select count(*) ..."));
+ * queries.execute();
+ * </pre>
+ *
+ * @see Database#multiQuery()
+ */
+public final class MultiQuery {
+
+    @NotNull
+    private final Database db;
+
+    @NotNull
+    private final List<Result<?>> results = new ArrayList<>();
+
+    MultiQuery(@NotNull Database db) {
+        this.db = requireNonNull(db);
+    }
+
+    /**
+     * Adds a query whose results are processed with given {@link ResultSetProcessor}.
+     */
+    @NotNull
+    public <T> Result<T> add(@NotNull ResultSetProcessor<T> processor, @NotNull SqlQuery query) {
+        Result<T> result = new Result<>(query, processor);
+        results.add(result);
+        return result;
+    }
+
+    /**
+     * @see Database#findAll(RowMapper, SqlQuery)
+     */
+    @NotNull
+    public <T> Result<List<T>> findAll(@NotNull RowMapper<T> rowMapper, @NotNull SqlQuery query) {
+        return add(rowMapper.list(), query);
+    }
+
+    /**
+     * @see Database#findAll(Class, SqlQuery)
+     */
+    @NotNull
+    public <T> Result<List<T>> findAll(@NotNull Class<T> cl, @NotNull SqlQuery query) {
+        return findAll(db.rowMapperForClass(cl), query);
+    }
+
+    /**
+     * @see Database#findAll(Class, String, Object...)
+     */
+    @NotNull
+    public <T> Result<List<T>> findAll(@NotNull Class<T> cl, @NotNull @SQL String sql, Object... args) {
+        return findAll(cl, SqlQuery.query(sql, args));
+    }
+
+    /**
+     * @see Database#findUnique(RowMapper, SqlQuery)
+     */
+    @NotNull
+    public <T> Result<T> findUnique(@NotNull RowMapper<T> rowMapper, @NotNull SqlQuery query) {
+        return add(rowMapper.unique(), query);
+    }
+
+    /**
+     * @see Database#findUnique(Class, SqlQuery)
+     */
+    @NotNull
+    public <T> Result<T> findUnique(@NotNull Class<T> cl, @NotNull SqlQuery query) {
+        return findUnique(db.rowMapperForClass(cl), query);
+    }
+
+    /**
+     * @see Database#findUnique(Class, String, Object...)
+     */
+    @NotNull
+    public <T> Result<T> findUnique(@NotNull Class<T> cl, @NotNull @SQL String sql, Object... args) {
+        return findUnique(cl, SqlQuery.query(sql, args));
+    }
+
+    /**
+     * @see Database#findOptional(RowMapper, SqlQuery)
+     */
+    @NotNull
+    public <T> Result<Optional<T>> findOptional(@NotNull RowMapper<T> rowMapper, @NotNull SqlQuery query) {
+        return add(rowMapper.optional(), query);
+    }
+
+    /**
+     * @see Database#findOptional(Class, SqlQuery)
+     */
+    @NotNull
+    public <T> Result<Optional<T>> findOptional(@NotNull Class<T> cl, @NotNull SqlQuery query) {
+        return findOptional(db.rowMapperForClass(cl), query);
+    }
+
+    /**
+     * @see Database#findOptional(Class, String, Object...)
+     */
+    @NotNull
+    public <T> Result<Optional<T>> findOptional(@NotNull Class<T> cl, @NotNull @SQL String sql, Object... args) {
+        return findOptional(cl, SqlQuery.query(sql, args));
+    }
+
+    /**
+     * Executes all queries added so far and stores their results in the handles returned when the queries were added.
+     * Executing again re-executes all queries and replaces the previous results.
+     */
+    public void execute() {
+        db.executeMultiQuery(unmodifiableList(results));
+    }
+
+    /**
+     * Returns the amount of queries in this multi-query.
+     */
+    public int size() {
+        return results.size();
+    }
+
+    /**
+     * Handle to the result of a single query of a {@link MultiQuery}.
+     */
+    public static final class Result<T> {
+
+        @NotNull
+        private final SqlQuery query;
+
+        @NotNull
+        private final ResultSetProcessor<T> processor;
+
+        private boolean executed = false;
+
+        private T value;
+
+        private Result(@NotNull SqlQuery query, @NotNull ResultSetProcessor<T> processor) {
+            this.query = requireNonNull(query);
+            this.processor = requireNonNull(processor);
+        }
+
+        /**
+         * Returns the result of the query.
+         *
+         * @throws IllegalStateException if the query has not been executed yet
+         */
+        public T get() {
+            if (!executed)
+                throw new IllegalStateException("query has not been executed: " + query);
+            return value;
+        }
+
+        /**
+         * Returns true if the query has been executed.
+         */
+        public boolean isExecuted() {
+            return executed;
+        }
+
+        @NotNull
+        SqlQuery getQuery() {
+            return query;
+        }
+
+        @NotNull
+        ResultSetProcessor<T> getProcessor() {
+            return processor;
+        }
+
+        void complete(T value) {
+            this.value = value;
+            this.executed = true;
+        }
+
+        @NotNull
+        @Override
+        public String toString() {
+            return executed ? String.valueOf(value) : "<not executed> " + query;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred.connection;
+
+/**
+ * Immutable snapshot of the state of a {@link PooledConnectionProvider}.
+ */
+public final class ConnectionPoolStatistics {
+
+    private final int activeConnections;
+    private final int idleConnections;
+    private final int waitingThreads;
+    private final int maxSize;
+    private final long acquisitions;
+    private final long timeouts;
+    private final long createdConnections;
+    private final long totalWaitNanos;
+    private final long maxWaitNanos;
+
+    public ConnectionPoolStatistics(int activeConnections, int idleConnections, int waitingThreads, int maxSize,
+                                    long acquisitions, long timeouts, long createdConnections,
+                                    long totalWaitNanos, long maxWaitNanos) {
+        this.activeConnections = activeConnections;
+        this.idleConnections = idleConnections;
+        this.waitingThreads = waitingThreads;
+        this.maxSize = maxSize;
+        this.acquisitions = acquisitions;
+        this.timeouts = timeouts;
+        this.createdConnections = createdConnections;
+        this.totalWaitNanos = totalWaitNanos;
+        this.maxWaitNanos = maxWaitNanos;
+    }
+
+    /**
+     * Returns the amount of connections that are currently borrowed from the pool.
+     */
+    public int getActiveConnections() {
+        return activeConnections;
+    }
+
+    /**
+     * Returns the amount of open connections waiting in the pool.
+     */
+    public int getIdleConnections() {
+        return idleConnections;
+    }
+
+    /**
+     * Returns the amount of threads waiting for a connection.
+     */
+    public int getWaitingThreads() {
+        return waitingThreads;
+    }
+
+    /**
+     * Returns the maximum amount of connections that may be borrowed at the same time.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns the amount of connections successfully borrowed from the pool.
+     */
+    public long getAcquisitions() {
+        return acquisitions;
+    }
+
+    /**
+     * Returns the amount of times borrowing a connection has timed out.
+     */
+    public long getTimeouts() {
+        return timeouts;
+    }
+
+    /**
+     * Returns the amount of physical connections opened by the pool.
+     */
+    public long getCreatedConnections() {
+        return createdConnections;
+    }
+
+    /**
+     * Returns the total time threads have waited for connections, in nanoseconds.
+     */
+    public long getTotalWaitNanos() {
+        return totalWaitNanos;
+    }
+
+    /**
+     * Returns the longest time a thread has waited for a connection, in nanoseconds.
+     */
+    public long getMaxWaitNanos() {
+        return maxWaitNanos;
+    }
+
+    /**
+     * Returns the average time threads have waited for connections, in nanoseconds, or 0 if
+     * no connections have been borrowed.
+     */
+    public double getAverageWaitNanos() {
+        return acquisitions == 0 ? 0 : (double) totalWaitNanos / acquisitions;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPoolStatistics [active=" + activeConnections + ", idle=" + idleConnections +
+                ", waiting=" + waitingThreads + ", maxSize=" + maxSize + ", acquisitions=" + acquisitions +
+                ", timeouts=" + timeouts + ", created=" + createdConnections +
+                ", totalWaitNanos=" + totalWaitNanos + ", maxWaitNanos=" + maxWaitNanos + ']';
+    }
+}
@@ -35,5 +35,15 @@ public interface ConnectionProvider {
     @NotNull
     Connection getConnection() throws SQLException;
 
+    /**
+     * Returns a connection for a new transaction. Providers may use the read-only flag for routing
+     * read-only transactions to different servers than read-write transactions. By default the flag
+     * is ignored and the connection is obtained using {@link #getConnection()}.
+     */
+    @NotNull
+    default Connection getConnection(boolean readOnly) throws SQLException {
+        return getConnection();
+    }
+
     void releaseConnection(@NotNull Connection connection) throws SQLException;
 }
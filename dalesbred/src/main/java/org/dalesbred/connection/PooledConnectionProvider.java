@@ -0,0 +1,433 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred.connection;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Collections.synchronizedMap;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Lightweight {@link ConnectionProvider} that pools connections opened by another provider, typically
+ * {@link DriverManagerConnectionProvider}. Suitable for simple deployments that don't need all the
+ * features of a separate connection pool.
+ * <p>
+ * Idle connections are kept in a stack so that the most recently used connections are reused first and
+ * the rest can time out. Threads waiting for a connection are served in order of arrival. A connection is
+ * validated when it's borrowed, unless it was returned to the pool very recently. Connections that have
+ * been closed when they are returned are discarded. Connections are closed after their maximum lifetime,
+ * and idle connections exceeding the minimum size after the idle timeout. If opening a connection fails,
+ * further attempts back off exponentially so that an unavailable database isn't flooded with attempts.
+ * <p>
+ * The pool does not use background threads: all maintenance is performed when connections are borrowed
+ * and returned. The pool should be closed when it's no longer needed:
+ * <pre>
+ * PooledConnectionProvider pool = PooledConnectionProvider.forUrlAndCredentials(url, user, password);
+ * Database db = new Database(pool);
+ * ...
+ * pool.close();
+ * </pre>
+ */
+public final class PooledConnectionProvider implements ConnectionProvider, AutoCloseable {
+
+    /** Maximum size of pools created without explicit size */
+    public static final int DEFAULT_MAX_SIZE = 10;
+
+    /** Time to wait before retrying after the first failure to open a connection */
+    private static final long MIN_BACKOFF_NANOS = MILLISECONDS.toNanos(100);
+
+    /** Upper limit for the exponentially growing wait between attempts to open a connection */
+    private static final long MAX_BACKOFF_NANOS = SECONDS.toNanos(10);
+
+    @NotNull
+    private final ConnectionProvider connectionProvider;
+
+    private final int minSize;
+
+    private final int maxSize;
+
+    /** Permits for borrowing connections. Fair, so that waiting threads are served in order. */
+    @NotNull
+    private final Semaphore permits;
+
+    /** Idle connections, most recently returned first */
+    @NotNull
+    private final ConcurrentLinkedDeque<PooledConnection> idleConnections = new ConcurrentLinkedDeque<>();
+
+    @NotNull
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    /** Open connections, both idle and borrowed */
+    @NotNull
+    private final AtomicInteger totalCount = new AtomicInteger();
+
+    @NotNull
+    private final Map<Connection, PooledConnection> borrowedConnections = synchronizedMap(new IdentityHashMap<>());
+
+    private volatile long acquireTimeoutNanos = SECONDS.toNanos(30);
+
+    private volatile long maxLifetimeNanos = MINUTES.toNanos(30);
+
+    private volatile long idleTimeoutNanos = MINUTES.toNanos(10);
+
+    private volatile long validationIntervalNanos = MILLISECONDS.toNanos(500);
+
+    private volatile int validationTimeoutSeconds = 5;
+
+    private volatile boolean closed = false;
+
+    /** Guards the state of backoff after failed attempts to open connections */
+    @NotNull
+    private final Object backoffLock = new Object();
+
+    private long backoffNanos = 0;
+
+    private long nextOpenAttempt;
+
+    @Nullable
+    private SQLException lastOpenFailure;
+
+    @NotNull
+    private final LongAdder acquisitions = new LongAdder();
+
+    @NotNull
+    private final LongAdder timeouts = new LongAdder();
+
+    @NotNull
+    private final LongAdder createdConnections = new LongAdder();
+
+    @NotNull
+    private final LongAdder totalWaitNanos = new LongAdder();
+
+    @NotNull
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    @NotNull
+    private static final Logger log = LoggerFactory.getLogger(PooledConnectionProvider.class);
+
+    /**
+     * Creates a pool of at most {@value #DEFAULT_MAX_SIZE} connections opened from {@link java.sql.DriverManager}.
+     */
+    @NotNull
+    public static PooledConnectionProvider forUrlAndCredentials(@NotNull String url, @Nullable String username, @Nullable String password) {
+        return new PooledConnectionProvider(new DriverManagerConnectionProvider(url, username, password));
+    }
+
+    /**
+     * Creates a pool of at most {@value #DEFAULT_MAX_SIZE} connections.
+     */
+    public PooledConnectionProvider(@NotNull ConnectionProvider connectionProvider) {
+        this(connectionProvider, 0, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Creates a pool that keeps at least {@code minSize} connections open once they have been opened
+     * and lends at most {@code maxSize} connections at a time.
+     *
+     * @see #fillToMinimumSize()
+     */
+    public PooledConnectionProvider(@NotNull ConnectionProvider connectionProvider, int minSize, int maxSize) {
+        if (minSize < 0) throw new IllegalArgumentException("negative minSize: " + minSize);
+        if (maxSize <= 0 || maxSize < minSize) throw new IllegalArgumentException("invalid maxSize: " + maxSize);
+
+        this.connectionProvider = requireNonNull(connectionProvider);
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    /**
+     * Sets the maximum time to wait for a connection when all connections are in use.
+     */
+    public void setAcquireTimeoutMillis(long acquireTimeoutMillis) {
+        if (acquireTimeoutMillis < 0) throw new IllegalArgumentException("negative acquireTimeoutMillis: " + acquireTimeoutMillis);
+
+        this.acquireTimeoutNanos = MILLISECONDS.toNanos(acquireTimeoutMillis);
+    }
+
+    /**
+     * Sets the maximum time a connection is used after it has been opened. 0 disables the limit.
+     */
+    public void setMaxLifetimeMillis(long maxLifetimeMillis) {
+        if (maxLifetimeMillis < 0) throw new IllegalArgumentException("negative maxLifetimeMillis: " + maxLifetimeMillis);
+
+        this.maxLifetimeNanos = MILLISECONDS.toNanos(maxLifetimeMillis);
+    }
+
+    /**
+     * Sets the time after which idle connections are closed, unless the pool would shrink below its minimum size.
+     */
+    public void setIdleTimeoutMillis(long idleTimeoutMillis) {
+        if (idleTimeoutMillis < 0) throw new IllegalArgumentException("negative idleTimeoutMillis: " + idleTimeoutMillis);
+
+        this.idleTimeoutNanos = MILLISECONDS.toNanos(idleTimeoutMillis);
+    }
+
+    /**
+     * Sets the time after returning a connection during which it is borrowed again without validating it.
+     * Validating connections that are in constant use would only add round trips.
+     */
+    public void setValidationIntervalMillis(long validationIntervalMillis) {
+        if (validationIntervalMillis < 0) throw new IllegalArgumentException("negative validationIntervalMillis: " + validationIntervalMillis);
+
+        this.validationIntervalNanos = MILLISECONDS.toNanos(validationIntervalMillis);
+    }
+
+    /**
+     * Sets the timeout passed to {@link Connection#isValid(int)} when validating connections.
+     */
+    public void setValidationTimeoutSeconds(int validationTimeoutSeconds) {
+        if (validationTimeoutSeconds < 0) throw new IllegalArgumentException("negative validationTimeoutSeconds: " + validationTimeoutSeconds);
+
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+    }
+
+    /**
+     * Opens connections until the pool has at least its minimum amount of connections.
+     */
+    public void fillToMinimumSize() throws SQLException {
+        while (!closed && totalCount.get() < minSize) {
+            PooledConnection connection = openConnection();
+            connection.lastReleased = System.nanoTime();
+            pushIdle(connection);
+        }
+    }
+
+    @NotNull
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (closed)
+            throw new SQLException("connection pool has been closed");
+
+        long startTime = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(acquireTimeoutNanos, NANOSECONDS)) {
+                timeouts.increment();
+                throw new SQLTransientConnectionException("timed out after " + NANOSECONDS.toMillis(acquireTimeoutNanos) + " ms waiting for a connection, all " + maxSize + " connections are in use");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("interrupted while waiting for a connection", e);
+        }
+
+        long waitNanos = System.nanoTime() - startTime;
+        totalWaitNanos.add(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+
+        try {
+            PooledConnection connection = borrowIdleConnection();
+            if (connection == null)
+                connection = openConnection();
+
+            borrowedConnections.put(connection.connection, connection);
+            acquisitions.increment();
+            return connection.connection;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void releaseConnection(@NotNull Connection connection) throws SQLException {
+        PooledConnection pooled = borrowedConnections.remove(connection);
+        if (pooled == null) {
+            // Not borrowed from this pool, so just pass it on
+            connectionProvider.releaseConnection(connection);
+            return;
+        }
+
+        try {
+            long now = System.nanoTime();
+            if (closed || pooled.isExpired(now, maxLifetimeNanos) || isClosed(connection)) {
+                discard(pooled);
+            } else {
+                pooled.lastReleased = now;
+                pushIdle(pooled);
+                evictIdleConnections(now);
+
+                // The pool might have been closed while we were returning the connection
+                if (closed)
+                    discardIdleConnections();
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    @Nullable
+    private PooledConnection borrowIdleConnection() {
+        PooledConnection connection;
+        while ((connection = idleConnections.pollFirst()) != null) {
+            idleCount.decrementAndGet();
+
+            long now = System.nanoTime();
+            if (connection.isExpired(now, maxLifetimeNanos) || (now - connection.lastReleased >= validationIntervalNanos && !isValid(connection))) {
+                discard(connection);
+            } else {
+                evictIdleConnections(now);
+                return connection;
+            }
+        }
+        return null;
+    }
+
+    @NotNull
+    private PooledConnection openConnection() throws SQLException {
+        synchronized (backoffLock) {
+            if (lastOpenFailure != null && System.nanoTime() - nextOpenAttempt < 0)
+                throw new SQLTransientConnectionException("not opening a connection, since opening one failed recently: " + lastOpenFailure, lastOpenFailure.getSQLState(), lastOpenFailure);
+        }
+
+        Connection connection;
+        try {
+            connection = connectionProvider.getConnection();
+        } catch (SQLException e) {
+            synchronized (backoffLock) {
+                backoffNanos = Math.min(MAX_BACKOFF_NANOS, Math.max(MIN_BACKOFF_NANOS, backoffNanos * 2));
+                nextOpenAttempt = System.nanoTime() + backoffNanos;
+                lastOpenFailure = e;
+            }
+            throw e;
+        }
+
+        synchronized (backoffLock) {
+            backoffNanos = 0;
+            lastOpenFailure = null;
+        }
+
+        totalCount.incrementAndGet();
+        createdConnections.increment();
+        return new PooledConnection(connection, System.nanoTime());
+    }
+
+    private void pushIdle(@NotNull PooledConnection connection) {
+        idleConnections.offerFirst(connection);
+        idleCount.incrementAndGet();
+    }
+
+    private static boolean isClosed(@NotNull Connection connection) {
+        try {
+            return connection.isClosed();
+        } catch (SQLException e) {
+            return true;
+        }
+    }
+
+    private boolean isValid(@NotNull PooledConnection connection) {
+        try {
+            return connection.connection.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Closes connections that have been idle for too long, starting from the least recently used.
+     */
+    private void evictIdleConnections(long now) {
+        while (totalCount.get() > minSize) {
+            PooledConnection oldest = idleConnections.peekLast();
+            if (oldest == null || now - oldest.lastReleased < idleTimeoutNanos)
+                break;
+
+            if (idleConnections.removeLastOccurrence(oldest)) {
+                idleCount.decrementAndGet();
+                discard(oldest);
+            }
+        }
+    }
+
+    private void discardIdleConnections() {
+        PooledConnection connection;
+        while ((connection = idleConnections.pollFirst()) != null) {
+            idleCount.decrementAndGet();
+            discard(connection);
+        }
+    }
+
+    private void discard(@NotNull PooledConnection connection) {
+        totalCount.decrementAndGet();
+        try {
+            connectionProvider.releaseConnection(connection.connection);
+        } catch (SQLException e) {
+            log.warn("Failed to close pooled connection: " + e, e);
+        }
+    }
+
+    /**
+     * Returns a snapshot of the state of this pool.
+     */
+    @NotNull
+    public ConnectionPoolStatistics getStatistics() {
+        return new ConnectionPoolStatistics(borrowedConnections.size(), idleCount.get(), permits.getQueueLength(), maxSize,
+                acquisitions.sum(), timeouts.sum(), createdConnections.sum(), totalWaitNanos.sum(), maxWaitNanos.get());
+    }
+
+    /**
+     * Closes all idle connections and stops lending connections. Borrowed connections are closed when they are released.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        discardIdleConnections();
+    }
+
+    private static final class PooledConnection {
+
+        @NotNull
+        private final Connection connection;
+
+        private final long created;
+
+        private volatile long lastReleased;
+
+        PooledConnection(@NotNull Connection connection, long created) {
+            this.connection = connection;
+            this.created = created;
+            this.lastReleased = created;
+        }
+
+        boolean isExpired(long now, long maxLifetimeNanos) {
+            return maxLifetimeNanos != 0 && now - created >= maxLifetimeNanos;
+        }
+    }
+}
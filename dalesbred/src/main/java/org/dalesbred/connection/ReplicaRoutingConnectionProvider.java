@@ -0,0 +1,320 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred.connection;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Collections.synchronizedMap;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * {@link ConnectionProvider} that routes read-only transactions to replicas and all other transactions
+ * to the primary database.
+ * <p>
+ * Read-only transactions are assigned to the replica with the least outstanding connections. A replica is
+ * ejected for a while if opening connections to it fails repeatedly, and optionally also when its
+ * replication lag exceeds a threshold. If no replica is available, read-only transactions use the primary.
+ *
+ * @see org.dalesbred.transaction.TransactionSettings#setReadOnly(boolean)
+ */
+public final class ReplicaRoutingConnectionProvider implements ConnectionProvider {
+
+    @NotNull
+    private final DataSource primary;
+
+    @NotNull
+    private final List<Replica> replicas;
+
+    /** Open connections to replicas, mapped to the replica they were obtained from */
+    @NotNull
+    private final Map<Connection, Replica> replicaConnections = synchronizedMap(new IdentityHashMap<>());
+
+    @NotNull
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    private volatile int failureThreshold = 3;
+
+    private volatile long ejectionNanos = SECONDS.toNanos(30);
+
+    @Nullable
+    private volatile ReplicationLagProbe lagProbe;
+
+    private volatile long maxLagMillis = Long.MAX_VALUE;
+
+    private volatile long lagCheckIntervalNanos = SECONDS.toNanos(5);
+
+    @NotNull
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingConnectionProvider.class);
+
+    public ReplicaRoutingConnectionProvider(@NotNull DataSource primary, @NotNull List<? extends DataSource> replicas) {
+        this.primary = requireNonNull(primary);
+        this.replicas = new ArrayList<>(replicas.size());
+
+        for (DataSource replica : replicas)
+            this.replicas.add(new Replica(requireNonNull(replica)));
+    }
+
+    /**
+     * Sets the amount of consecutive failures to open a connection after which a replica is ejected.
+     */
+    public void setFailureThreshold(int failureThreshold) {
+        if (failureThreshold <= 0) throw new IllegalArgumentException("failureThreshold must be positive, but was: " + failureThreshold);
+
+        this.failureThreshold = failureThreshold;
+    }
+
+    /**
+     * Sets the time for which an ejected replica is not used. After that, the replica is tried again.
+     */
+    public void setEjectionMillis(long ejectionMillis) {
+        if (ejectionMillis < 0) throw new IllegalArgumentException("negative ejectionMillis: " + ejectionMillis);
+
+        this.ejectionNanos = MILLISECONDS.toNanos(ejectionMillis);
+    }
+
+    /**
+     * Ejects replicas whose replication lag exceeds given amount of milliseconds. The lag is measured using
+     * given probe with a connection that is about to be handed out, at most once per lag check interval for
+     * each replica.
+     *
+     * @see #setLagCheckIntervalMillis(long)
+     */
+    public void setMaxReplicationLag(long maxLagMillis, @NotNull ReplicationLagProbe probe) {
+        if (maxLagMillis < 0) throw new IllegalArgumentException("negative maxLagMillis: " + maxLagMillis);
+
+        this.maxLagMillis = maxLagMillis;
+        this.lagProbe = requireNonNull(probe);
+    }
+
+    /**
+     * Sets the minimum interval between measuring the replication lag of a replica. Replicas ejected because
+     * of lag are measured again after the interval.
+     */
+    public void setLagCheckIntervalMillis(long lagCheckIntervalMillis) {
+        if (lagCheckIntervalMillis < 0) throw new IllegalArgumentException("negative lagCheckIntervalMillis: " + lagCheckIntervalMillis);
+
+        this.lagCheckIntervalNanos = MILLISECONDS.toNanos(lagCheckIntervalMillis);
+    }
+
+    /**
+     * Returns the amount of replicas that are currently available for read-only transactions.
+     */
+    public int getAvailableReplicaCount() {
+        long now = System.nanoTime();
+        int count = 0;
+        for (Replica replica : replicas)
+            if (replica.isAvailable(now))
+                count++;
+        return count;
+    }
+
+    /**
+     * Returns a connection to the primary database.
+     */
+    @NotNull
+    @Override
+    public Connection getConnection() throws SQLException {
+        return primary.getConnection();
+    }
+
+    /**
+     * Returns a connection to a replica for read-only transactions and a connection to the primary otherwise.
+     */
+    @NotNull
+    @Override
+    public Connection getConnection(boolean readOnly) throws SQLException {
+        if (!readOnly || replicas.isEmpty())
+            return primary.getConnection();
+
+        boolean[] tried = new boolean[replicas.size()];
+        for (int attempt = 0; attempt < replicas.size(); attempt++) {
+            int index = selectReplica(tried);
+            if (index == -1)
+                break;
+
+            tried[index] = true;
+            Connection connection = replicas.get(index).tryOpenConnection();
+            if (connection != null)
+                return connection;
+        }
+
+        log.debug("No replica available for read-only transaction, using primary.");
+        return primary.getConnection();
+    }
+
+    /**
+     * Returns the index of the available replica with least outstanding connections, or -1 if there are none.
+     * Ties are resolved in round-robin order so that idle replicas share the load.
+     */
+    private int selectReplica(@NotNull boolean[] tried) {
+        long now = System.nanoTime();
+        int size = replicas.size();
+        int start = Math.floorMod(nextReplica.getAndIncrement(), size);
+
+        int selected = -1;
+        int leastOutstanding = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            int index = (start + i) % size;
+            Replica replica = replicas.get(index);
+            if (!tried[index] && replica.isAvailable(now)) {
+                int outstanding = replica.outstanding.get();
+                if (outstanding < leastOutstanding) {
+                    selected = index;
+                    leastOutstanding = outstanding;
+                }
+            }
+        }
+        return selected;
+    }
+
+    @Override
+    public void releaseConnection(@NotNull Connection connection) throws SQLException {
+        Replica replica = replicaConnections.remove(connection);
+        if (replica != null)
+            replica.outstanding.decrementAndGet();
+
+        connection.close();
+    }
+
+    private final class Replica {
+
+        @NotNull
+        private final DataSource dataSource;
+
+        @NotNull
+        private final AtomicInteger outstanding = new AtomicInteger();
+
+        private int consecutiveFailures = 0;
+
+        private boolean ejected = false;
+
+        private long ejectedUntil;
+
+        private boolean lagMeasured = false;
+
+        private long lastLagCheck;
+
+        Replica(@NotNull DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        synchronized boolean isAvailable(long now) {
+            return !ejected || now - ejectedUntil >= 0;
+        }
+
+        @Nullable
+        Connection tryOpenConnection() {
+            Connection connection;
+            try {
+                connection = dataSource.getConnection();
+            } catch (SQLException e) {
+                connectionFailed(e);
+                return null;
+            }
+
+            try {
+                if (!checkLag(connection)) {
+                    connection.close();
+                    return null;
+                }
+            } catch (SQLException e) {
+                closeQuietly(connection);
+                connectionFailed(e);
+                return null;
+            }
+
+            connectionSucceeded();
+            outstanding.incrementAndGet();
+            replicaConnections.put(connection, this);
+            return connection;
+        }
+
+        /**
+         * Returns true if the lag of the replica is acceptable, measuring it if it hasn't been measured recently.
+         */
+        private boolean checkLag(@NotNull Connection connection) throws SQLException {
+            ReplicationLagProbe probe = lagProbe;
+            if (probe == null)
+                return true;
+
+            long now = System.nanoTime();
+            synchronized (this) {
+                if (lagMeasured && now - lastLagCheck < lagCheckIntervalNanos)
+                    return true;
+                lagMeasured = true;
+                lastLagCheck = now;
+            }
+
+            long lag = probe.getLagMillis(connection);
+            if (lag <= maxLagMillis)
+                return true;
+
+            log.warn("Ejecting replica {} because its replication lag {} ms exceeds {} ms.", dataSource, lag, maxLagMillis);
+            eject(now + lagCheckIntervalNanos);
+            return false;
+        }
+
+        private synchronized void connectionSucceeded() {
+            consecutiveFailures = 0;
+            ejected = false;
+        }
+
+        private void connectionFailed(@NotNull SQLException e) {
+            synchronized (this) {
+                consecutiveFailures++;
+                if (consecutiveFailures < failureThreshold)
+                    return;
+            }
+
+            log.warn("Ejecting replica " + dataSource + " after " + failureThreshold + " consecutive failures: " + e, e);
+            eject(System.nanoTime() + ejectionNanos);
+        }
+
+        private synchronized void eject(long until) {
+            ejected = true;
+            ejectedUntil = until;
+        }
+    }
+
+    private static void closeQuietly(@NotNull Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.warn("Failed to close connection: " + e, e);
+        }
+    }
+}
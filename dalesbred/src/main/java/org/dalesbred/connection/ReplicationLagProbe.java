@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred.connection;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Measures how far a replica lags behind the primary. For example, on PostgreSQL the lag
+ * of a streaming replica can be measured with:
+ * <pre>
+ * connection -&gt; {
+ *     try (Statement st = connection.createStatement();
+ *          ResultSet rs = st.executeQuery("select coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()), 0) * 1000")) {
+ *         rs.next();
+ *         return rs.getLong(1);
+ *     }
+ * }
+ * </pre>
+ *
+ * @see ReplicaRoutingConnectionProvider#setMaxReplicationLag(long, ReplicationLagProbe)
+ */
+@FunctionalInterface
+public interface ReplicationLagProbe {
+
+    /**
+     * Returns the replication lag of the server that given connection is connected to, in milliseconds.
+     */
+    long getLagMillis(@NotNull Connection connection) throws SQLException;
+}
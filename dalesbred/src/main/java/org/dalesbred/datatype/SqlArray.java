@@ -31,6 +31,7 @@ import java.util.List;
 import static java.util.Arrays.asList;
 import static java.util.Collections.unmodifiableList;
 import static java.util.Objects.requireNonNull;
+import static org.dalesbred.internal.utils.CollectionUtils.listView;
 
 /**
  * Wrapper for values that are to be bound as {@link java.sql.Array} objects
@@ -47,8 +48,12 @@ public final class SqlArray {
     private final List<?> values;
 
     private SqlArray(@NotNull String type, @NotNull Collection<?> values) {
+        this(type, unmodifiableList(new ArrayList<>(values)));
+    }
+
+    private SqlArray(@NotNull String type, @NotNull List<?> unmodifiableValues) {
         this.type = requireNonNull(type);
-        this.values = unmodifiableList(new ArrayList<>(values));
+        this.values = unmodifiableValues;
     }
 
     /**
@@ -89,6 +94,22 @@ public final class SqlArray {
         return varchars(asList(values));
     }
 
+    /**
+     * Constructs bigint array of given values.
+     */
+    @NotNull
+    public static SqlArray bigints(@NotNull long... values) {
+        return new SqlArray("bigint", listView(values.clone()));
+    }
+
+    /**
+     * Constructs integer array of given values.
+     */
+    @NotNull
+    public static SqlArray integers(@NotNull int... values) {
+        return new SqlArray("integer", listView(values.clone()));
+    }
+
     /**
      * Returns the database type for the array.
      */
@@ -29,6 +29,8 @@ import org.dalesbred.connection.DataSourceConnectionProvider;
 import org.dalesbred.conversion.TypeConversionPair;
 import org.dalesbred.conversion.TypeConversionRegistry;
 import org.dalesbred.internal.jdbc.ArgumentBinder;
+import org.dalesbred.query.CopyFormat;
+import org.dalesbred.query.QueryOptions;
 import org.dalesbred.transaction.TransactionManager;
 import org.dalesbred.transaction.TransactionRollbackException;
 import org.dalesbred.transaction.TransactionSerializationException;
@@ -39,9 +41,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
 import java.util.function.Function;
 
 /**
@@ -51,6 +58,15 @@ public abstract class Dialect {
 
     private static final String SERIALIZATION_FAILURE = "40001";
 
+    /** Fetch size used for streaming queries if no explicit fetch size is given */
+    private static final int DEFAULT_STREAMING_FETCH_SIZE = 1000;
+
+    /** Maximum amount of values in a single IN-list, which is the limit of Oracle */
+    private static final int DEFAULT_MAX_IN_LIST_SIZE = 1000;
+
+    /** Maximum amount of rows in multi-row inserts, unless limited further by parameter limits */
+    private static final int DEFAULT_MAX_MULTI_ROW_INSERT_ROWS = 1000;
+
     private static final Logger log = LoggerFactory.getLogger(Dialect.class);
 
     @NotNull
@@ -163,4 +179,197 @@ public abstract class Dialect {
     public void bindArgument(@NotNull PreparedStatement ps, int index, @Nullable Object value) throws SQLException {
         ArgumentBinder.bindArgument(ps, index, value);
     }
+
+    /**
+     * Prepares a statement for executing a query with given options.
+     *
+     * @param connection connection to prepare the statement in
+     * @param sql        the SQL of the query
+     * @param options    options for executing the query
+     * @throws SQLException if something fails
+     */
+    @NotNull
+    public PreparedStatement prepareStatement(@NotNull Connection connection, @NotNull String sql, @NotNull QueryOptions options) throws SQLException {
+        Integer type = options.getResultSetType();
+        Integer holdability = options.getResultSetHoldability();
+
+        PreparedStatement ps;
+        if (holdability != null)
+            ps = connection.prepareStatement(sql, type != null ? type : ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, holdability);
+        else if (type != null)
+            ps = connection.prepareStatement(sql, type, ResultSet.CONCUR_READ_ONLY);
+        else
+            ps = connection.prepareStatement(sql);
+
+        try {
+            applyOptions(ps, options);
+            return ps;
+        } catch (SQLException | RuntimeException e) {
+            ps.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Applies given options to a prepared statement. Can be overridden by subclasses to implement
+     * database specific behaviour, especially for {@link QueryOptions#isStreaming() streaming}.
+     *
+     * @throws SQLException if something fails
+     */
+    protected void applyOptions(@NotNull PreparedStatement ps, @NotNull QueryOptions options) throws SQLException {
+        Integer fetchSize = options.getFetchSize();
+        if (fetchSize != null)
+            ps.setFetchSize(fetchSize);
+        else if (options.isStreaming())
+            ps.setFetchSize(getStreamingFetchSize());
+
+        Integer maxRows = options.getMaxRows();
+        if (maxRows != null)
+            ps.setMaxRows(maxRows);
+
+        Integer queryTimeout = options.getQueryTimeout();
+        if (queryTimeout != null)
+            ps.setQueryTimeout(queryTimeout);
+
+        Integer fetchDirection = options.getFetchDirection();
+        if (fetchDirection != null)
+            ps.setFetchDirection(fetchDirection);
+    }
+
+    /**
+     * Returns the maximum amount of rows to insert with a single multi-row {@code INSERT ... VALUES}
+     * statement when batches are rewritten, given the amount of parameters needed for each row.
+     * Returning 1 disables rewriting, which is the default since not all databases support multi-row
+     * inserts or benefit from them.
+     *
+     * @see org.dalesbred.query.BatchOptions#withMultiRowInserts(boolean)
+     */
+    public int getMaxMultiRowInsertRows(int parametersPerRow) {
+        return 1;
+    }
+
+    /**
+     * Returns the maximum amount of rows for multi-row inserts so that the total amount of parameters
+     * of the statement does not exceed given limit.
+     */
+    protected static int multiRowInsertRowsWithinParameterLimit(int parametersPerRow, int maxParameters) {
+        return Math.max(1, Math.min(DEFAULT_MAX_MULTI_ROW_INSERT_ROWS, maxParameters / parametersPerRow));
+    }
+
+    /**
+     * Returns the strategy for matching against an id set of given size. By default uses padded
+     * placeholders, which work on all databases, but are limited by the amount of parameters a
+     * statement may have.
+     *
+     * @see org.dalesbred.Database#idSetCondition(String, org.dalesbred.query.IdSet)
+     */
+    @NotNull
+    public IdSetStrategy getIdSetStrategy(int size) {
+        return IdSetStrategy.PLACEHOLDERS;
+    }
+
+    /**
+     * Returns the maximum amount of values in a single {@code IN}-list. Larger id sets using
+     * {@link IdSetStrategy#PLACEHOLDERS} are split into multiple lists.
+     */
+    public int getMaxInListSize() {
+        return DEFAULT_MAX_IN_LIST_SIZE;
+    }
+
+    /**
+     * Creates a temporary table for storing ids of given type in the current session, or empties
+     * it if it already exists, returning the name of the table. The table has a single column
+     * {@code id}. Each id set of a transaction is given a distinct index, and tables with different
+     * indices must be distinct, so that several id sets can be used in the same query. Only needs
+     * to be implemented if {@link #getIdSetStrategy(int)} returns {@link IdSetStrategy#TEMPORARY_TABLE}.
+     *
+     * @param index index of the id set within the current transaction
+     * @throws SQLException if something fails
+     * @see #idSetTableName(String, String, int)
+     */
+    @NotNull
+    public String prepareIdSetTable(@NotNull Connection connection, @NotNull String sqlType, int index) throws SQLException {
+        throw new UnsupportedOperationException("temporary id set tables are not supported by " + getClass().getName());
+    }
+
+    /**
+     * Returns a name for id set table of given type and index, consisting of given prefix, the type
+     * with all characters except letters and digits replaced by underscores and the index.
+     */
+    @NotNull
+    protected static String idSetTableName(@NotNull String prefix, @NotNull String sqlType, int index) {
+        return prefix + "dalesbred_id_set_" + sqlType.replaceAll("[^A-Za-z0-9]", "_") + '_' + index;
+    }
+
+    /**
+     * Returns true if several queries separated by semicolons can be executed as a single statement
+     * that returns a result set for each query. Otherwise the queries of a {@link org.dalesbred.MultiQuery}
+     * are executed one at a time.
+     */
+    public boolean supportsMultipleResultSets() {
+        return false;
+    }
+
+    /**
+     * Returns true if this dialect implements {@link #copyIn(Connection, String, List, Iterator, Function)}.
+     * Otherwise bulk-loads fall back to batched inserts.
+     */
+    public boolean supportsCopyIn() {
+        return false;
+    }
+
+    /**
+     * Bulk-loads rows into given table using a database specific mechanism that is faster than
+     * batched inserts. Rows should be consumed lazily so that they never need to be held in memory.
+     *
+     * @param connection     connection to load the rows in
+     * @param table          name of the table, which is used in SQL as is
+     * @param columns        names of the columns, which are used in SQL as is
+     * @param rows           values of rows, in the order of columns
+     * @param valueConverter converts values of rows to values that can be sent to database
+     * @return number of rows loaded
+     * @throws SQLException if something fails
+     * @see #supportsCopyIn()
+     */
+    public long copyIn(@NotNull Connection connection,
+                       @NotNull String table,
+                       @NotNull List<String> columns,
+                       @NotNull Iterator<? extends List<?>> rows,
+                       @NotNull Function<Object, Object> valueConverter) throws SQLException {
+        throw new UnsupportedOperationException("bulk-loading is not supported by " + getClass().getName());
+    }
+
+    /**
+     * Returns true if this dialect implements {@link #copyOut(Connection, String, CopyFormat, OutputStream)}.
+     */
+    public boolean supportsCopyOut() {
+        return false;
+    }
+
+    /**
+     * Exports the results of given query in given format using a database specific mechanism
+     * that bypasses decoding the results row by row.
+     *
+     * @param connection connection to execute the query in
+     * @param sql        the SQL of the query, without parameters
+     * @param format     format of the exported data
+     * @param out        stream to write the data to
+     * @return number of rows exported
+     * @throws SQLException if something fails
+     * @throws IOException if writing the data fails
+     * @see #supportsCopyOut()
+     */
+    public long copyOut(@NotNull Connection connection,
+                        @NotNull String sql,
+                        @NotNull CopyFormat format,
+                        @NotNull OutputStream out) throws SQLException, IOException {
+        throw new UnsupportedOperationException("bulk-exports are not supported by " + getClass().getName());
+    }
+
+    /**
+     * Returns the fetch size to use for streaming queries that don't specify a fetch size explicitly.
+     */
+    protected int getStreamingFetchSize() {
+        return DEFAULT_STREAMING_FETCH_SIZE;
+    }
 }
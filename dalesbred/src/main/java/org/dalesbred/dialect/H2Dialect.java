@@ -26,4 +26,9 @@ package org.dalesbred.dialect;
  * Support for H2.
  */
 public class H2Dialect extends Dialect {
+
+    @Override
+    public int getMaxMultiRowInsertRows(int parametersPerRow) {
+        return multiRowInsertRowsWithinParameterLimit(parametersPerRow, Integer.MAX_VALUE);
+    }
 }
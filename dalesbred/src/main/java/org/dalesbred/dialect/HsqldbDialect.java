@@ -26,4 +26,9 @@ package org.dalesbred.dialect;
  * Support for HSQLDB.
  */
 public class HsqldbDialect extends Dialect {
+
+    @Override
+    public int getMaxMultiRowInsertRows(int parametersPerRow) {
+        return multiRowInsertRowsWithinParameterLimit(parametersPerRow, Integer.MAX_VALUE);
+    }
 }
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred.dialect;
+
+/**
+ * Strategies for matching against large sets of ids.
+ *
+ * @see Dialect#getIdSetStrategy(int)
+ * @see org.dalesbred.Database#idSetCondition(String, org.dalesbred.query.IdSet)
+ */
+public enum IdSetStrategy {
+
+    /**
+     * Bind all ids as a single array parameter and compare using {@code = any(?)}.
+     */
+    ARRAY,
+
+    /**
+     * Use {@code IN}-lists whose amount of placeholders is padded to a power of two, so that only
+     * a few distinct statements are generated.
+     */
+    PLACEHOLDERS,
+
+    /**
+     * Load the ids into a temporary table of the session and compare using a subquery.
+     */
+    TEMPORARY_TABLE
+}
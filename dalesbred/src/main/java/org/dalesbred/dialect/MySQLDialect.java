@@ -22,8 +22,55 @@
 
 package org.dalesbred.dialect;
 
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
 /**
  * Support for MySQL.
  */
 public class MySQLDialect extends Dialect {
+
+    /** The protocol limits the amount of parameters of a statement */
+    private static final int MAX_PARAMETERS = 65535;
+
+    /** Largest id set matched using placeholders, leaving room for other parameters of the query */
+    private static final int MAX_PLACEHOLDER_ID_SET_SIZE = 32768;
+
+    /**
+     * MySQL's driver reads the whole result into memory unless the fetch size of a forward-only,
+     * read-only statement is {@link Integer#MIN_VALUE}, in which case it streams the results row by row.
+     */
+    @Override
+    protected int getStreamingFetchSize() {
+        return Integer.MIN_VALUE;
+    }
+
+    /**
+     * Unless {@code rewriteBatchedStatements} is enabled, the driver sends batches as separate statements,
+     * so multi-row inserts pay off.
+     */
+    @Override
+    public int getMaxMultiRowInsertRows(int parametersPerRow) {
+        return multiRowInsertRowsWithinParameterLimit(parametersPerRow, MAX_PARAMETERS);
+    }
+
+    @NotNull
+    @Override
+    public IdSetStrategy getIdSetStrategy(int size) {
+        return size <= MAX_PLACEHOLDER_ID_SET_SIZE ? IdSetStrategy.PLACEHOLDERS : IdSetStrategy.TEMPORARY_TABLE;
+    }
+
+    @NotNull
+    @Override
+    public String prepareIdSetTable(@NotNull Connection connection, @NotNull String sqlType, int index) throws SQLException {
+        String table = idSetTableName("", sqlType, index);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create temporary table if not exists " + table + " (id " + sqlType + " not null)");
+            statement.execute("delete from " + table);
+        }
+        return table;
+    }
 }
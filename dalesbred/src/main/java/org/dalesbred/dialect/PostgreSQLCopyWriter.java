@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred.dialect;
+
+import org.dalesbred.datatype.SqlArray;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.postgresql.util.PGobject;
+
+import java.sql.Array;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.OffsetTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+import static java.util.Arrays.asList;
+
+/**
+ * Encodes rows in the text format of PostgreSQL's {@code COPY} and writes them to a sink through
+ * a fixed-size buffer, so that arbitrarily large loads can be streamed without materializing them.
+ * Characters are encoded as UTF-8, since the driver always uses UTF-8 as the client encoding.
+ * <p>
+ * Timestamps are written with the offset of the default time zone of the JVM, which is what the driver
+ * does when binding them as parameters. Arrays are written as array literals.
+ */
+final class PostgreSQLCopyWriter {
+
+    static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    @NotNull
+    private final Sink sink;
+
+    private final int columnCount;
+
+    @NotNull
+    private final Function<Object, Object> valueConverter;
+
+    @NotNull
+    private final byte[] buffer;
+
+    private int position = 0;
+
+    PostgreSQLCopyWriter(@NotNull Sink sink, int columnCount, @NotNull Function<Object, Object> valueConverter) {
+        this(sink, columnCount, valueConverter, DEFAULT_BUFFER_SIZE);
+    }
+
+    PostgreSQLCopyWriter(@NotNull Sink sink, int columnCount, @NotNull Function<Object, Object> valueConverter, int bufferSize) {
+        if (bufferSize < 4) throw new IllegalArgumentException("too small buffer size: " + bufferSize);
+
+        this.sink = sink;
+        this.columnCount = columnCount;
+        this.valueConverter = valueConverter;
+        this.buffer = new byte[bufferSize];
+    }
+
+    void writeRow(@NotNull List<?> row) throws SQLException {
+        if (row.size() != columnCount)
+            throw new IllegalArgumentException("Expected " + columnCount + " values for row, but got " + row.size());
+
+        for (int i = 0; i < columnCount; i++) {
+            if (i != 0)
+                writeAscii('\t');
+            writeValue(valueConverter.apply(row.get(i)));
+        }
+
+        writeAscii('\n');
+    }
+
+    void flush() throws SQLException {
+        if (position != 0) {
+            sink.write(buffer, position);
+            position = 0;
+        }
+    }
+
+    private void writeValue(@Nullable Object value) throws SQLException {
+        if (value instanceof PGobject)
+            value = ((PGobject) value).getValue();
+
+        if (value == null) {
+            writeAscii('\\');
+            writeAscii('N');
+        } else if (value instanceof byte[]) {
+            writeBytea((byte[]) value);
+        } else {
+            writeEscaped(toText(value));
+        }
+    }
+
+    /**
+     * Returns the text representation of given non-null value, before the escaping done by COPY.
+     */
+    @NotNull
+    private static String toText(@NotNull Object value) throws SQLException {
+        if (value instanceof PGobject) {
+            String text = ((PGobject) value).getValue();
+            return text != null ? text : "NULL";
+        } else if (value instanceof Boolean) {
+            return (Boolean) value ? "t" : "f";
+        } else if (value instanceof byte[]) {
+            return byteaToText((byte[]) value);
+        } else if (value instanceof CharSequence || value instanceof Number || value instanceof Character || value instanceof UUID) {
+            return value.toString();
+        } else if (value instanceof Enum<?>) {
+            return ((Enum<?>) value).name();
+        } else if (value instanceof java.sql.Date || value instanceof Time) {
+            // Both are defined in terms of the local time and print themselves in ISO format
+            return value.toString();
+        } else if (value instanceof Date) {
+            Instant instant = (value instanceof Timestamp) ? ((Timestamp) value).toInstant() : ((Date) value).toInstant();
+            return DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(instant.atZone(ZoneId.systemDefault()));
+        } else if (value instanceof LocalDate || value instanceof LocalTime || value instanceof LocalDateTime
+                || value instanceof OffsetDateTime || value instanceof OffsetTime || value instanceof Instant) {
+            return value.toString();
+        } else if (value instanceof ZonedDateTime) {
+            return ((ZonedDateTime) value).toOffsetDateTime().toString();
+        } else if (value instanceof SqlArray) {
+            return arrayToText(((SqlArray) value).getValues());
+        } else if (value instanceof Array) {
+            return arrayToText(javaArrayToList(((Array) value).getArray()));
+        } else {
+            throw new IllegalArgumentException("Can't encode value of " + value.getClass().getName() + " for COPY");
+        }
+    }
+
+    /**
+     * Returns an array literal where all elements are quoted, which PostgreSQL accepts for elements of any type.
+     */
+    @NotNull
+    private static String arrayToText(@NotNull List<?> values) throws SQLException {
+        StringBuilder sb = new StringBuilder();
+        sb.append('{');
+        for (int i = 0; i < values.size(); i++) {
+            if (i != 0)
+                sb.append(',');
+
+            Object value = values.get(i);
+            if (value == null) {
+                sb.append("NULL");
+            } else if (value instanceof SqlArray || value instanceof Array) {
+                sb.append(toText(value));
+            } else {
+                sb.append('"');
+                String text = toText(value);
+                for (int j = 0, len = text.length(); j < len; j++) {
+                    char c = text.charAt(j);
+                    if (c == '"' || c == '\\')
+                        sb.append('\\');
+                    sb.append(c);
+                }
+                sb.append('"');
+            }
+        }
+        sb.append('}');
+        return sb.toString();
+    }
+
+    @NotNull
+    private static List<?> javaArrayToList(@NotNull Object array) {
+        if (array instanceof Object[])
+            return asList((Object[]) array);
+
+        int length = java.lang.reflect.Array.getLength(array);
+        Object[] values = new Object[length];
+        for (int i = 0; i < length; i++)
+            values[i] = java.lang.reflect.Array.get(array, i);
+        return asList(values);
+    }
+
+    @NotNull
+    private static String byteaToText(@NotNull byte[] bytes) {
+        char[] chars = new char[2 + 2 * bytes.length];
+        chars[0] = '\\';
+        chars[1] = 'x';
+        for (int i = 0; i < bytes.length; i++) {
+            chars[2 + 2 * i] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+            chars[3 + 2 * i] = HEX_DIGITS[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Writes bytes in the hex format of bytea. The backslash of the format needs to be escaped in COPY.
+     */
+    private void writeBytea(@NotNull byte[] bytes) throws SQLException {
+        writeAscii('\\');
+        writeAscii('\\');
+        writeAscii('x');
+        for (byte b : bytes) {
+            writeAscii(HEX_DIGITS[(b >> 4) & 0xF]);
+            writeAscii(HEX_DIGITS[b & 0xF]);
+        }
+    }
+
+    private void writeEscaped(@NotNull String s) throws SQLException {
+        for (int i = 0, len = s.length(); i < len; i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '\\':
+                    writeAscii('\\');
+                    writeAscii('\\');
+                    break;
+                case '\t':
+                    writeAscii('\\');
+                    writeAscii('t');
+                    break;
+                case '\n':
+                    writeAscii('\\');
+                    writeAscii('n');
+                    break;
+                case '\r':
+                    writeAscii('\\');
+                    writeAscii('r');
+                    break;
+                default:
+                    if (c < 0x80) {
+                        writeAscii(c);
+                    } else if (c < 0x800) {
+                        ensureCapacity(2);
+                        buffer[position++] = (byte) (0xC0 | (c >> 6));
+                        buffer[position++] = (byte) (0x80 | (c & 0x3F));
+                    } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(s.charAt(i + 1))) {
+                        int codePoint = Character.toCodePoint(c, s.charAt(++i));
+                        ensureCapacity(4);
+                        buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                        buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                        buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                        buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+                    } else if (Character.isSurrogate(c)) {
+                        writeAscii('?');
+                    } else {
+                        ensureCapacity(3);
+                        buffer[position++] = (byte) (0xE0 | (c >> 12));
+                        buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                        buffer[position++] = (byte) (0x80 | (c & 0x3F));
+                    }
+            }
+        }
+    }
+
+    private void writeAscii(char c) throws SQLException {
+        ensureCapacity(1);
+        buffer[position++] = (byte) c;
+    }
+
+    private void ensureCapacity(int bytes) throws SQLException {
+        if (buffer.length - position < bytes)
+            flush();
+    }
+
+    @FunctionalInterface
+    interface Sink {
+        void write(@NotNull byte[] bytes, int length) throws SQLException;
+    }
+}
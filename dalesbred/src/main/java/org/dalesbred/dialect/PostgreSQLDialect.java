@@ -25,12 +25,22 @@ package org.dalesbred.dialect;
 import org.dalesbred.conversion.TypeConversionPair;
 import org.dalesbred.conversion.TypeConversionRegistry;
 import org.dalesbred.internal.utils.EnumUtils;
+import org.dalesbred.query.CopyFormat;
 import org.jetbrains.annotations.NotNull;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.copy.CopyOperation;
 import org.postgresql.util.PGobject;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
 import java.util.function.Function;
 
 /**
@@ -38,9 +48,14 @@ import java.util.function.Function;
  */
 public class PostgreSQLDialect extends Dialect {
 
+    /** The protocol limits the amount of parameters of a statement */
+    private static final int MAX_PARAMETERS = 32767;
+
     @NotNull
     @Override
     public <T extends Enum<T>, K> TypeConversionPair<Object,T> createNativeEnumConversions(@NotNull Class<T> enumType, @NotNull String typeName, @NotNull Function<T,K> keyFunction) {
+        Function<Object, T> enumLookup = EnumUtils.enumKeyLookup(enumType, keyFunction);
+
         return new TypeConversionPair<Object, T>() {
             @Override
             public Object convertToDatabase(T obj) {
@@ -48,9 +63,8 @@ public class PostgreSQLDialect extends Dialect {
             }
 
             @Override
-            @SuppressWarnings("unchecked")
             public T convertFromDatabase(Object obj) {
-                return EnumUtils.enumByKey(enumType, keyFunction, (K) obj);
+                return enumLookup.apply(obj);
             }
         };
     }
@@ -67,6 +81,95 @@ public class PostgreSQLDialect extends Dialect {
         }
     }
 
+    @Override
+    public int getMaxMultiRowInsertRows(int parametersPerRow) {
+        return multiRowInsertRowsWithinParameterLimit(parametersPerRow, MAX_PARAMETERS);
+    }
+
+    /**
+     * Binds all ids as a single array, so that the statement is the same regardless of the amount of ids.
+     */
+    @NotNull
+    @Override
+    public IdSetStrategy getIdSetStrategy(int size) {
+        return IdSetStrategy.ARRAY;
+    }
+
+    @Override
+    public boolean supportsMultipleResultSets() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsCopyIn() {
+        return true;
+    }
+
+    /**
+     * Loads rows using {@code COPY ... FROM STDIN}. The rows are encoded in text format and streamed
+     * to the server through a fixed-size buffer.
+     */
+    @Override
+    public long copyIn(@NotNull Connection connection,
+                       @NotNull String table,
+                       @NotNull List<String> columns,
+                       @NotNull Iterator<? extends List<?>> rows,
+                       @NotNull Function<Object, Object> valueConverter) throws SQLException {
+        CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+        CopyIn copyIn = copyManager.copyIn("copy " + table + " (" + String.join(", ", columns) + ") from stdin");
+        try {
+            PostgreSQLCopyWriter writer = new PostgreSQLCopyWriter((bytes, length) -> copyIn.writeToCopy(bytes, 0, length), columns.size(), valueConverter);
+            while (rows.hasNext())
+                writer.writeRow(rows.next());
+            writer.flush();
+
+            return copyIn.endCopy();
+        } catch (SQLException | RuntimeException e) {
+            cancelCopy(copyIn, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean supportsCopyOut() {
+        return true;
+    }
+
+    /**
+     * Exports the results using {@code COPY (query) TO STDOUT}.
+     */
+    @Override
+    public long copyOut(@NotNull Connection connection,
+                        @NotNull String sql,
+                        @NotNull CopyFormat format,
+                        @NotNull OutputStream out) throws SQLException, IOException {
+        CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+        return copyManager.copyOut("copy (" + sql + ") to stdout" + copyOptions(format), out);
+    }
+
+    @NotNull
+    private static String copyOptions(@NotNull CopyFormat format) {
+        switch (format) {
+            case TEXT:
+                return "";
+            case CSV:
+                return " with (format csv)";
+            case BINARY:
+                return " with (format binary)";
+            default:
+                throw new IllegalArgumentException("unknown format: " + format);
+        }
+    }
+
+    private static void cancelCopy(@NotNull CopyOperation copy, @NotNull Exception cause) {
+        try {
+            if (copy.isActive())
+                copy.cancelCopy();
+        } catch (SQLException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
     @Override
     public void registerTypeConversions(@NotNull TypeConversionRegistry typeConversionRegistry) {
         typeConversionRegistry.registerConversionToDatabase(Date.class, v -> new Timestamp(v.getTime()));
@@ -22,8 +22,48 @@
 
 package org.dalesbred.dialect;
 
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
 /**
  * Support for Microsoft SQL Server.
  */
 public class SQLServerDialect extends Dialect {
+
+    /** SQL Server rejects requests with 2100 or more parameters */
+    private static final int MAX_PARAMETERS = 2099;
+
+    /** Largest id set matched using placeholders, leaving room for other parameters of the query */
+    private static final int MAX_PLACEHOLDER_ID_SET_SIZE = 1024;
+
+    @Override
+    public int getMaxMultiRowInsertRows(int parametersPerRow) {
+        return multiRowInsertRowsWithinParameterLimit(parametersPerRow, MAX_PARAMETERS);
+    }
+
+    @Override
+    public boolean supportsMultipleResultSets() {
+        return true;
+    }
+
+    @NotNull
+    @Override
+    public IdSetStrategy getIdSetStrategy(int size) {
+        return size <= MAX_PLACEHOLDER_ID_SET_SIZE ? IdSetStrategy.PLACEHOLDERS : IdSetStrategy.TEMPORARY_TABLE;
+    }
+
+    @NotNull
+    @Override
+    public String prepareIdSetTable(@NotNull Connection connection, @NotNull String sqlType, int index) throws SQLException {
+        String table = idSetTableName("#", sqlType, index);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("if object_id('tempdb.." + table + "') is null" +
+                    " create table " + table + " (id " + sqlType + " not null)" +
+                    " else truncate table " + table);
+        }
+        return table;
+    }
 }
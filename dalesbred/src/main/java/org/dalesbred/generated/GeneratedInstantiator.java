@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred.generated;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Instantiator generated at compile time for a constructor annotated with
+ * {@link org.dalesbred.annotation.DalesbredInstantiator}. The generated class lives in the same package
+ * as the instantiated class and is named by replacing {@code $} with {@code _} in the binary name of the
+ * class and appending {@link #CLASS_NAME_SUFFIX}. When such class is found at runtime, Dalesbred invokes
+ * the constructor through it instead of reflection.
+ */
+@FunctionalInterface
+public interface GeneratedInstantiator<T> {
+
+    /**
+     * Suffix appended to the name of instantiated class to get the name of the generated class.
+     */
+    String CLASS_NAME_SUFFIX = "_DalesbredInstantiator";
+
+    /**
+     * Invokes the constructor with given arguments. The arguments have already been converted to the
+     * parameter types of the constructor and primitive-typed arguments are known to be non-null.
+     */
+    @NotNull
+    T instantiate(@NotNull Object[] arguments);
+}
@@ -22,15 +22,19 @@
 
 package org.dalesbred.integration.spring;
 
-import org.dalesbred.transaction.TransactionContext;
+import org.dalesbred.internal.jdbc.ManagedTransactionContext;
+import org.dalesbred.internal.jdbc.StatementCache;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.sql.Connection;
 
 import static java.util.Objects.requireNonNull;
 
-final class SpringTransactionContext implements TransactionContext {
+final class SpringTransactionContext implements ManagedTransactionContext {
 
     @NotNull
     private final TransactionStatus status;
@@ -38,9 +42,13 @@ final class SpringTransactionContext implements TransactionContext {
     @NotNull
     private final Connection connection;
 
+    @NotNull
+    private final TransactionState state;
+
     SpringTransactionContext(@NotNull TransactionStatus status, @NotNull Connection connection) {
         this.status = requireNonNull(status);
         this.connection = requireNonNull(connection);
+        this.state = TransactionState.current();
     }
 
     @NotNull
@@ -58,4 +66,52 @@ final class SpringTransactionContext implements TransactionContext {
     public boolean isRollbackOnly() {
         return status.isRollbackOnly();
     }
+
+    @Nullable
+    @Override
+    public StatementCache getStatementCache() {
+        return null;
+    }
+
+    @Override
+    public boolean isTransactionOpen() {
+        return state.open;
+    }
+
+    @Override
+    public int nextIdSetTableIndex() {
+        return state.idSetTableCount++;
+    }
+
+    /**
+     * State shared by all contexts of a single Spring transaction. The state is bound as a resource of the
+     * transaction and marked closed when the transaction completes. If transaction synchronization is not
+     * active, each context gets a state of its own.
+     */
+    private static final class TransactionState extends TransactionSynchronizationAdapter {
+
+        private volatile boolean open = true;
+
+        private int idSetTableCount = 0;
+
+        @NotNull
+        static TransactionState current() {
+            if (!TransactionSynchronizationManager.isSynchronizationActive())
+                return new TransactionState();
+
+            TransactionState state = (TransactionState) TransactionSynchronizationManager.getResource(TransactionState.class);
+            if (state == null) {
+                state = new TransactionState();
+                TransactionSynchronizationManager.bindResource(TransactionState.class, state);
+                TransactionSynchronizationManager.registerSynchronization(state);
+            }
+            return state;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            open = false;
+            TransactionSynchronizationManager.unbindResourceIfPossible(TransactionState.class);
+        }
+    }
 }
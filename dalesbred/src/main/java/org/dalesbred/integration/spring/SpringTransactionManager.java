@@ -120,6 +120,7 @@ public final class SpringTransactionManager implements TransactionManager {
         DefaultTransactionDefinition df = new DefaultTransactionDefinition();
         df.setIsolationLevel(springIsolationCode(settings.getIsolation()));
         df.setPropagationBehavior(springPropagationCode(settings.getPropagation()));
+        df.setReadOnly(settings.isReadOnly());
         return df;
     }
 }
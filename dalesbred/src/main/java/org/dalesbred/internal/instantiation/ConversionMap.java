@@ -22,52 +22,126 @@
 
 package org.dalesbred.internal.instantiation;
 
+import org.dalesbred.internal.utils.BoundedCache;
 import org.jetbrains.annotations.NotNull;
 
 import java.lang.reflect.Type;
 import java.util.*;
 
-import static java.util.Collections.emptyList;
 import static org.dalesbred.internal.utils.Primitives.wrap;
 import static org.dalesbred.internal.utils.TypeUtils.*;
 
+/**
+ * Registered conversions indexed by their source types.
+ * <p>
+ * Lookups are far more frequent than registrations (every bound argument of every query needs one),
+ * so the registrations are kept in an immutable snapshot that is replaced as a whole whenever new
+ * conversions are registered. Each snapshot has its own cache of resolved (source, target)-pairs,
+ * including pairs that have no conversion, so that repeated lookups don't need to walk the type
+ * hierarchies. Since the cache is replaced along with the snapshot, it's never stale.
+ */
 final class ConversionMap {
 
+    private static final int RESOLVED_CACHE_SIZE = 1000;
+
     @NotNull
-    private final Map<Type, List<ConversionRegistration>> mappings = new HashMap<>();
+    private volatile Snapshot snapshot = new Snapshot(Collections.emptyMap());
+
+    synchronized void register(@NotNull Type source, @NotNull Type target, @NotNull TypeConversion conversion) {
+        Map<Type, ConversionRegistration[]> mappings = new HashMap<>(snapshot.mappings);
+
+        ConversionRegistration[] existing = mappings.getOrDefault(wrap(source), new ConversionRegistration[0]);
+        ConversionRegistration[] registrations = Arrays.copyOf(existing, existing.length + 1);
+        registrations[existing.length] = new ConversionRegistration(target, conversion);
+        mappings.put(wrap(source), registrations);
 
-    void register(@NotNull Type source, @NotNull Type target, @NotNull TypeConversion conversion) {
-        mappings.computeIfAbsent(wrap(source), a -> new ArrayList<>()).add(new ConversionRegistration(target, conversion));
+        snapshot = new Snapshot(mappings);
     }
 
     @NotNull
     Optional<TypeConversion> findConversion(@NotNull Type source, @NotNull Type target) {
-        for (Type cl = wrap(source); cl != null; cl = genericSuperClass(cl)) {
-            Optional<TypeConversion> conversion = findConversionsRegisteredFor(cl, target);
-            if (conversion.isPresent())
-                return conversion;
+        return snapshot.findConversion(source, target);
+    }
+
+    private static final class Snapshot {
+
+        @NotNull
+        private final Map<Type, ConversionRegistration[]> mappings;
+
+        @NotNull
+        private final BoundedCache<TypePair, Optional<TypeConversion>> resolved = new BoundedCache<>(RESOLVED_CACHE_SIZE);
+
+        Snapshot(@NotNull Map<Type, ConversionRegistration[]> mappings) {
+            this.mappings = mappings;
         }
 
-        for (Type cl : genericInterfaces(source)) {
-            Optional<TypeConversion> conversion = findConversionsRegisteredFor(cl, target);
-            if (conversion.isPresent())
-                return conversion;
+        @NotNull
+        Optional<TypeConversion> findConversion(@NotNull Type source, @NotNull Type target) {
+            return resolved.computeIfAbsent(new TypePair(source, target), key -> resolveConversion(source, target));
+        }
+
+        @NotNull
+        private Optional<TypeConversion> resolveConversion(@NotNull Type source, @NotNull Type target) {
+            for (Type cl = wrap(source); cl != null; cl = genericSuperClass(cl)) {
+                Optional<TypeConversion> conversion = findConversionsRegisteredFor(cl, target);
+                if (conversion.isPresent())
+                    return conversion;
+            }
+
+            for (Type cl : genericInterfaces(source)) {
+                Optional<TypeConversion> conversion = findConversionsRegisteredFor(cl, target);
+                if (conversion.isPresent())
+                    return conversion;
+            }
+
+            return Optional.empty();
         }
 
-        return Optional.empty();
+        @NotNull
+        private Optional<TypeConversion> findConversionsRegisteredFor(@NotNull Type source, @NotNull Type target) {
+            ConversionRegistration[] candidates = mappings.get(source);
+            if (candidates == null)
+                return Optional.empty();
+
+            for (int i = candidates.length - 1; i >= 0; i--) {
+                ConversionRegistration conversion = candidates[i];
+                if (isAssignable(target, conversion.target))
+                    return Optional.of(conversion.conversion);
+            }
+
+            return Optional.empty();
+        }
     }
 
-    @NotNull
-    private Optional<TypeConversion> findConversionsRegisteredFor(@NotNull Type source, @NotNull Type target) {
-        List<ConversionRegistration> candidates = mappings.getOrDefault(source, emptyList());
+    private static final class TypePair {
+
+        @NotNull
+        private final Type source;
+
+        @NotNull
+        private final Type target;
 
-        for (int i = candidates.size() - 1; i >= 0; i--) {
-            ConversionRegistration conversion = candidates.get(i);
-            if (isAssignable(target, conversion.target))
-                return Optional.of(conversion.conversion);
+        TypePair(@NotNull Type source, @NotNull Type target) {
+            this.source = source;
+            this.target = target;
         }
 
-        return Optional.empty();
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) return true;
+
+            if (obj instanceof TypePair) {
+                TypePair rhs = (TypePair) obj;
+                return source.equals(rhs.source) && target.equals(rhs.target);
+            }
+
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return source.hashCode() * 31 + target.hashCode();
+        }
     }
 
     private static final class ConversionRegistration {
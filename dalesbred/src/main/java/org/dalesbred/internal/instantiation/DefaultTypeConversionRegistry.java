@@ -46,14 +46,18 @@ final class DefaultTypeConversionRegistry implements TypeConversionRegistry {
     @NotNull
     private final ConversionMap storeConversions = new ConversionMap();
 
-    public DefaultTypeConversionRegistry(@NotNull Dialect dialect) {
+    /** Called whenever conversions are registered so that dependent caches can be invalidated */
+    @NotNull
+    private final Runnable changeListener;
+
+    public DefaultTypeConversionRegistry(@NotNull Dialect dialect, @NotNull Runnable changeListener) {
         this.dialect = dialect;
+        this.changeListener = changeListener;
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public <T extends Enum<T>,K> void registerEnumConversion(@NotNull Class<T> enumType, @NotNull Function<T, K> keyFunction) {
-        registerConversionFromDatabase(Object.class, enumType, value -> EnumUtils.enumByKey(enumType, keyFunction, (K) value));
+        registerConversionFromDatabase(Object.class, enumType, EnumUtils.enumKeyLookup(enumType, keyFunction));
         registerConversionToDatabase(enumType, keyFunction::apply);
     }
 
@@ -76,10 +80,12 @@ final class DefaultTypeConversionRegistry implements TypeConversionRegistry {
     @Override
     public <S, T> void registerConversionFromDatabase(@NotNull Class<S> source, @NotNull Class<T> target, @NotNull Function<S, T> conversion) {
         loadConversions.register(source, target, TypeConversion.fromNonNullFunction(conversion));
+        changeListener.run();
     }
 
     @Override
     public <S> void registerConversionToDatabase(@NotNull Class<S> source, @NotNull Function<S, ?> conversion) {
         storeConversions.register(source, Object.class, TypeConversion.fromNonNullFunction(conversion));
+        changeListener.run();
     }
 }
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred.internal.instantiation;
+
+import org.dalesbred.generated.GeneratedInstantiator;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.Constructor;
+import java.util.List;
+import java.util.Optional;
+
+import static org.dalesbred.generated.GeneratedInstantiator.CLASS_NAME_SUFFIX;
+
+/**
+ * An instantiator that delegates construction to a {@link GeneratedInstantiator} produced by the
+ * annotation processor, so that the constructor is invoked by plain compiled code.
+ */
+final class GeneratedCodeInstantiator<T> implements Instantiator<T> {
+
+    @NotNull
+    private final GeneratedInstantiator<T> generated;
+
+    @NotNull
+    private final TypeConversion[] conversions;
+
+    /** The original constructor, used for error messages */
+    @NotNull
+    private final Constructor<T> constructor;
+
+    @NotNull
+    private final Class<?>[] constructorParameterTypes;
+
+    GeneratedCodeInstantiator(@NotNull GeneratedInstantiator<T> generated,
+                              @NotNull Constructor<T> constructor,
+                              @NotNull List<TypeConversion> conversions) {
+        this.generated = generated;
+        this.constructor = constructor;
+        this.constructorParameterTypes = constructor.getParameterTypes();
+        this.conversions = conversions.toArray(new TypeConversion[conversions.size()]);
+    }
+
+    @Override
+    @NotNull
+    public T instantiate(@NotNull InstantiatorArguments arguments) {
+        List<?> values = arguments.getValues();
+        Object[] result = new Object[conversions.length];
+
+        for (int i = 0; i < result.length; i++) {
+            Object value = conversions[i].convert(values.get(i));
+            if (value == null && constructorParameterTypes[i].isPrimitive())
+                throw new InstantiationFailureException("Can't pass null as primitive-typed parameter " + i + " of " + constructor);
+            result[i] = value;
+        }
+
+        return generated.instantiate(result);
+    }
+
+    /**
+     * Returns the generated instantiator for given class, or empty if the class was not processed
+     * by the annotation processor.
+     */
+    @NotNull
+    @SuppressWarnings("unchecked")
+    static <T> Optional<GeneratedInstantiator<T>> findGeneratedInstantiator(@NotNull Class<T> cl) {
+        ClassLoader classLoader = cl.getClassLoader();
+        if (classLoader == null)
+            return Optional.empty();
+
+        String name = cl.getName().replace('$', '_') + CLASS_NAME_SUFFIX;
+        try {
+            Class<?> generatedClass = Class.forName(name, true, classLoader);
+            if (!GeneratedInstantiator.class.isAssignableFrom(generatedClass))
+                throw new InstantiationFailureException(name + " does not implement " + GeneratedInstantiator.class.getName());
+
+            return Optional.of((GeneratedInstantiator<T>) generatedClass.getConstructor().newInstance());
+
+        } catch (ClassNotFoundException e) {
+            return Optional.empty();
+        } catch (ReflectiveOperationException e) {
+            throw new InstantiationFailureException("failed to instantiate generated instantiator " + name, e);
+        }
+    }
+}
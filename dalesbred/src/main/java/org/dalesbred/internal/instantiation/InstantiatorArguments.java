@@ -23,6 +23,7 @@
 package org.dalesbred.internal.instantiation;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Arrays;
 import java.util.List;
@@ -40,16 +41,25 @@ public final class InstantiatorArguments {
     @NotNull
     private final List<?> values;
 
+    /** The array backing the values, if they were given as an array */
+    @Nullable
+    private final Object[] valueArray;
+
     public InstantiatorArguments(@NotNull NamedTypeList types, @NotNull Object[] values) {
-        this(types, Arrays.asList(values));
+        this(types, Arrays.asList(values), values);
     }
 
     public InstantiatorArguments(@NotNull NamedTypeList types, @NotNull List<?> values) {
+        this(types, values, null);
+    }
+
+    private InstantiatorArguments(@NotNull NamedTypeList types, @NotNull List<?> values, @Nullable Object[] valueArray) {
         if (types.size() != values.size())
             throw new IllegalArgumentException("got " + types.size() + " types, but " + values.size() + " values");
 
         this.types = types;
         this.values = unmodifiableList(values);
+        this.valueArray = valueArray;
     }
 
     @NotNull
@@ -62,6 +72,15 @@ public final class InstantiatorArguments {
         return values;
     }
 
+    /**
+     * Returns the values as an array without copying them, if they were given as an array. The array
+     * must not be modified.
+     */
+    @NotNull
+    Object[] getValueArray() {
+        return valueArray != null ? valueArray : values.toArray();
+    }
+
     public int size() {
         return types.size();
     }
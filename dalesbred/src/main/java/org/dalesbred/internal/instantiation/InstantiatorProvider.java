@@ -22,12 +22,15 @@
 
 package org.dalesbred.internal.instantiation;
 
+import org.dalesbred.CacheStatistics;
 import org.dalesbred.annotation.DalesbredIgnore;
 import org.dalesbred.annotation.DalesbredInstantiator;
 import org.dalesbred.conversion.TypeConversionRegistry;
 import org.dalesbred.dialect.Dialect;
+import org.dalesbred.generated.GeneratedInstantiator;
 import org.dalesbred.integration.joda.JodaTypeConversions;
 import org.dalesbred.integration.threeten.ThreeTenTypeConversions;
+import org.dalesbred.internal.utils.BoundedCache;
 import org.dalesbred.internal.utils.OptionalUtils;
 import org.dalesbred.internal.utils.ReflectionUtils;
 import org.jetbrains.annotations.NotNull;
@@ -55,18 +58,32 @@ import static org.dalesbred.internal.utils.TypeUtils.*;
  */
 public final class InstantiatorProvider {
 
+    private static final int INSTANTIATOR_CACHE_SIZE = 1000;
+
     @NotNull
     private final Dialect dialect;
 
     @NotNull
     private final DefaultTypeConversionRegistry typeConversionRegistry;
 
+    /**
+     * Resolved instantiators by target type and result-set signature. Resolving an instantiator
+     * involves a lot of reflection, so we'll only want to do it once for each kind of query.
+     */
+    @NotNull
+    private final BoundedCache<InstantiatorKey, Instantiator<?>> instantiatorCache = new BoundedCache<>(INSTANTIATOR_CACHE_SIZE);
+
+    /**
+     * Should null intermediate objects of nested property paths be instantiated on demand?
+     */
+    private volatile boolean createMissingIntermediateObjects = false;
+
     @NotNull
     private static final Logger log = LoggerFactory.getLogger(InstantiatorProvider.class);
 
     public InstantiatorProvider(@NotNull Dialect dialect) {
         this.dialect = requireNonNull(dialect);
-        this.typeConversionRegistry = new DefaultTypeConversionRegistry(dialect);
+        this.typeConversionRegistry = new DefaultTypeConversionRegistry(dialect, instantiatorCache::clear);
 
         DefaultTypeConversions.register(typeConversionRegistry);
 
@@ -102,6 +119,11 @@ public final class InstantiatorProvider {
 
     @NotNull
     public Instantiator<?> findInstantiator(@NotNull Type type, @NotNull NamedTypeList types) {
+        return instantiatorCache.computeIfAbsent(new InstantiatorKey(type, types), key -> resolveInstantiator(type, types));
+    }
+
+    @NotNull
+    private Instantiator<?> resolveInstantiator(@NotNull Type type, @NotNull NamedTypeList types) {
         // First check if we have an immediate conversion registered. If so, we'll just use that.
         if (types.size() == 1) {
             TypeConversion conversion = findConversionFromDbValue(types.getType(0), type).orElse(null);
@@ -132,12 +154,6 @@ public final class InstantiatorProvider {
         if(constructor == null)
             return Optional.empty();
 
-        try {
-            ReflectionUtils.makeAccessible(constructor);
-        } catch (SecurityException e) {
-            throw new InstantiationFailureException("Cannot instantiate " + constructor.getDeclaringClass().getName() +" using non-public constructor due to Security exception", e);
-        }
-
         List<String> columnNames = types.getNames();
         List<Type> constructorParameterTypes = asList(constructor.getGenericParameterTypes());
 
@@ -145,11 +161,27 @@ public final class InstantiatorProvider {
             throw new InstantiationFailureException(String.format("Cannot instantiate %s, constructor takes %d arguments, but result set has %d",
                     constructor.getDeclaringClass().getName(), constructorParameterTypes.size(), columnNames.size()));
 
-        ReflectionInstantiator<?> instantiator = resolveConversions(types, constructorParameterTypes)
-                .map(conversions -> new ReflectionInstantiator<>(constructor, conversions, Collections.emptyList()))
+        List<TypeConversion> conversions = resolveConversions(types, constructorParameterTypes)
                 .orElseThrow(() -> new InstantiationFailureException("could not find a way to instantiate " + constructor.getDeclaringClass().getName() + " with parameters " + types));
 
-        return Optional.of(instantiator);
+        return Optional.of(explicitInstantiator(constructor, conversions));
+    }
+
+    @NotNull
+    private static <T> Instantiator<T> explicitInstantiator(@NotNull Constructor<T> constructor, @NotNull List<TypeConversion> conversions) {
+        GeneratedInstantiator<T> generated = GeneratedCodeInstantiator.findGeneratedInstantiator(constructor.getDeclaringClass()).orElse(null);
+        if (generated != null) {
+            log.debug("Using generated instantiator for {}", constructor.getDeclaringClass().getName());
+            return new GeneratedCodeInstantiator<>(generated, constructor, conversions);
+        }
+
+        try {
+            ReflectionUtils.makeAccessible(constructor);
+        } catch (SecurityException e) {
+            throw new InstantiationFailureException("Cannot instantiate " + constructor.getDeclaringClass().getName() +" using non-public constructor due to Security exception", e);
+        }
+
+        return MethodHandleInstantiator.create(constructor, conversions, Collections.emptyList());
     }
 
     /**
@@ -164,12 +196,12 @@ public final class InstantiatorProvider {
         List<String> columnNames = types.getNames();
         return findTargetTypes(constructor, columnNames)
                 .flatMap(targetTypes -> resolveConversions(types, targetTypes)
-                        .map(conversions -> new ReflectionInstantiator<>(constructor, conversions, createPropertyAccessorsForValuesNotCoveredByConstructor(constructor, columnNames))));
+                        .map(conversions -> MethodHandleInstantiator.create(constructor, conversions, createPropertyAccessorsForValuesNotCoveredByConstructor(constructor, columnNames))));
     }
 
     @NotNull
-    private static List<PropertyAccessor> createPropertyAccessorsForValuesNotCoveredByConstructor(@NotNull Constructor<?> constructor,
-                                                                                                  @NotNull List<String> names) {
+    private List<PropertyAccessor> createPropertyAccessorsForValuesNotCoveredByConstructor(@NotNull Constructor<?> constructor,
+                                                                                           @NotNull List<String> names) {
         int constructorParameterCount = constructor.getParameterTypes().length;
         int accessorCount = names.size() - constructorParameterCount;
         ArrayList<PropertyAccessor> accessors = new ArrayList<>(accessorCount);
@@ -181,8 +213,8 @@ public final class InstantiatorProvider {
     }
 
     @NotNull
-    private static PropertyAccessor createAccessor(int index, @NotNull Class<?> cl, @NotNull List<String> names) {
-        return PropertyAccessor.findAccessor(cl, names.get(index)).orElseThrow(() ->
+    private PropertyAccessor createAccessor(int index, @NotNull Class<?> cl, @NotNull List<String> names) {
+        return PropertyAccessor.findAccessor(cl, names.get(index), createMissingIntermediateObjects).orElseThrow(() ->
                 new InstantiationFailureException("Could not find neither setter nor field for '" + names.get(index) + '\''));
     }
 
@@ -365,4 +397,51 @@ public final class InstantiatorProvider {
     public TypeConversionRegistry getTypeConversionRegistry() {
         return typeConversionRegistry;
     }
+
+    @NotNull
+    public CacheStatistics getInstantiatorCacheStatistics() {
+        return instantiatorCache.getStatistics();
+    }
+
+    public boolean isCreateMissingIntermediateObjects() {
+        return createMissingIntermediateObjects;
+    }
+
+    public void setCreateMissingIntermediateObjects(boolean createMissingIntermediateObjects) {
+        if (this.createMissingIntermediateObjects != createMissingIntermediateObjects) {
+            this.createMissingIntermediateObjects = createMissingIntermediateObjects;
+            instantiatorCache.clear();
+        }
+    }
+
+    private static final class InstantiatorKey {
+
+        @NotNull
+        private final Type type;
+
+        @NotNull
+        private final NamedTypeList types;
+
+        InstantiatorKey(@NotNull Type type, @NotNull NamedTypeList types) {
+            this.type = type;
+            this.types = types;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) return true;
+
+            if (obj instanceof InstantiatorKey) {
+                InstantiatorKey rhs = (InstantiatorKey) obj;
+                return type.equals(rhs.type) && types.equals(rhs.types);
+            }
+
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return type.hashCode() * 31 + types.hashCode();
+        }
+    }
 }
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred.internal.instantiation;
+
+import org.dalesbred.internal.utils.Throwables;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.util.List;
+
+import static java.lang.invoke.MethodType.methodType;
+import static java.util.Collections.nCopies;
+
+/**
+ * An instantiator that invokes the constructor through a pre-linked {@link MethodHandle} instead
+ * of {@link Constructor#newInstance(Object...)}. Apart from the invocation mechanism, this behaves
+ * exactly like {@link ReflectionInstantiator}, which is used as a fallback when a handle can't be
+ * created for the constructor.
+ * <p>
+ * The conversions of constructor parameters are folded into the handle, which is invoked directly
+ * with the array of values, so instantiating does not need to allocate arrays of its own.
+ */
+final class MethodHandleInstantiator<T> implements Instantiator<T> {
+
+    /**
+     * Handle of type {@code (Object[])Object} that converts the values of constructor parameters and
+     * invokes the constructor. Values that are bound to properties are ignored.
+     */
+    @NotNull
+    private final MethodHandle constructor;
+
+    @NotNull
+    private final TypeConversion[] conversions;
+
+    @NotNull
+    private final PropertyAccessor[] accessors;
+
+    private final int constructorParameterCount;
+
+    /** {@link TypeConversion#convert(Object)} as a handle */
+    @NotNull
+    private static final MethodHandle CONVERT;
+
+    @NotNull
+    private static final MethodHandle REQUIRE_NON_NULL_ARGUMENT;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            CONVERT = lookup.findVirtual(TypeConversion.class, "convert", methodType(Object.class, Object.class));
+            REQUIRE_NON_NULL_ARGUMENT = lookup.findStatic(MethodHandleInstantiator.class, "requireNonNullArgument",
+                    methodType(Object.class, String.class, Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private MethodHandleInstantiator(@NotNull MethodHandle constructor,
+                                     int constructorParameterCount,
+                                     @NotNull List<TypeConversion> conversions,
+                                     @NotNull List<PropertyAccessor> accessors) {
+        this.constructor = constructor;
+        this.constructorParameterCount = constructorParameterCount;
+        this.conversions = conversions.toArray(new TypeConversion[conversions.size()]);
+        this.accessors = accessors.toArray(new PropertyAccessor[accessors.size()]);
+    }
+
+    /**
+     * Creates an instantiator for given constructor, preferring method handles and falling back to
+     * reflection if the constructor can't be accessed through them.
+     */
+    @NotNull
+    static <T> Instantiator<T> create(@NotNull Constructor<T> constructor,
+                                      @NotNull List<TypeConversion> conversions,
+                                      @NotNull List<PropertyAccessor> accessors) {
+        try {
+            Class<?>[] parameterTypes = constructor.getParameterTypes();
+            MethodHandle[] filters = new MethodHandle[parameterTypes.length];
+            for (int i = 0; i < filters.length; i++)
+                filters[i] = argumentFilter(conversions.get(i), parameterTypes[i], "Can't pass null as primitive-typed parameter " + i + " of " + constructor);
+
+            MethodHandle handle = MethodHandles.filterArguments(MethodHandles.lookup().unreflectConstructor(constructor), 0, filters);
+            handle = MethodHandles.dropArguments(handle, parameterTypes.length, nCopies(accessors.size(), Object.class))
+                    .asSpreader(Object[].class, parameterTypes.length + accessors.size())
+                    .asType(methodType(Object.class, Object[].class));
+
+            return new MethodHandleInstantiator<>(handle, parameterTypes.length, conversions, accessors);
+
+        } catch (IllegalAccessException | SecurityException e) {
+            return new ReflectionInstantiator<>(constructor, conversions, accessors);
+        }
+    }
+
+    /**
+     * Returns a handle of type {@code (Object)type} that converts a value for parameter of given type.
+     */
+    @NotNull
+    private static MethodHandle argumentFilter(@NotNull TypeConversion conversion, @NotNull Class<?> type, @NotNull String nullMessage) {
+        MethodHandle filter = CONVERT.bindTo(conversion);
+        if (type.isPrimitive())
+            filter = MethodHandles.filterReturnValue(filter, REQUIRE_NON_NULL_ARGUMENT.bindTo(nullMessage));
+        return filter.asType(methodType(type, Object.class));
+    }
+
+    @SuppressWarnings("unused") // invoked through REQUIRE_NON_NULL_ARGUMENT
+    @NotNull
+    private static Object requireNonNullArgument(@NotNull String message, @Nullable Object value) {
+        if (value == null)
+            throw new InstantiationFailureException(message);
+        return value;
+    }
+
+    @Override
+    @NotNull
+    @SuppressWarnings("unchecked")
+    public T instantiate(@NotNull InstantiatorArguments arguments) {
+        try {
+            T value = (T) (Object) constructor.invokeExact(arguments.getValueArray());
+            if (accessors.length != 0)
+                bindRemainingProperties(value, arguments.getValues());
+            return value;
+        } catch (Throwable e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
+    private void bindRemainingProperties(@NotNull T result, @NotNull List<?> values) {
+        for (int i = 0; i < accessors.length; i++) {
+            int argumentIndex = i + constructorParameterCount;
+            accessors[i].set(result, conversions[argumentIndex].convert(values.get(argumentIndex)));
+        }
+    }
+}
@@ -93,6 +93,23 @@ public final class NamedTypeList {
         return sb.toString();
     }
 
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) return true;
+
+        if (obj instanceof NamedTypeList) {
+            NamedTypeList rhs = (NamedTypeList) obj;
+            return names.equals(rhs.names) && types.equals(rhs.types);
+        }
+
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return names.hashCode() * 31 + types.hashCode();
+    }
+
     @NotNull
     public static Builder builder(int size) {
         return new Builder(size);
@@ -27,13 +27,18 @@ import org.dalesbred.internal.utils.Throwables;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
 import java.util.Optional;
 import java.util.regex.Pattern;
 
+import static java.lang.invoke.MethodType.methodType;
+import static java.lang.reflect.Modifier.isFinal;
 import static java.lang.reflect.Modifier.isPublic;
 import static org.dalesbred.internal.utils.StringUtils.isEqualIgnoringCaseAndUnderscores;
 
@@ -48,39 +53,87 @@ abstract class PropertyAccessor {
 
     @NotNull
     static Optional<PropertyAccessor> findAccessor(@NotNull Class<?> cl, @NotNull String path) {
+        return findAccessor(cl, path, false);
+    }
+
+    /**
+     * Finds an accessor for given property path. Nested paths are compiled into a single method handle
+     * that walks through the intermediate objects and finally sets the property.
+     *
+     * @param createMissingIntermediates if {@code true}, intermediate objects that are {@code null} are
+     *                                   instantiated on demand, provided that they have a public no-args
+     *                                   constructor and that they can be assigned back to their parent.
+     *                                   Otherwise encountering a {@code null} intermediate object is an error.
+     */
+    @NotNull
+    static Optional<PropertyAccessor> findAccessor(@NotNull Class<?> cl, @NotNull String path, boolean createMissingIntermediates) {
         String[] segments = PERIOD.split(path, -1);
 
         assert segments.length != 0; // split will always return non-empty array
 
         if (segments.length == 1)
-            return findFinalAccessor(cl, segments[0]);
+            return findFinalAccessor(cl, segments[0]).map(PropertyAccessor.class::cast);
 
         Class<?> currentClass = cl;
 
-        PropertyReader[] readers = new PropertyReader[segments.length - 1];
+        // Handle of type (Object root) -> Object that resolves the object containing the final property
+        MethodHandle resolver = null;
         for (int i = 0; i < segments.length - 1; i++) {
+            MethodHandle step;
             Field field = findField(currentClass, segments[i]).orElse(null);
             if (field != null) {
-                readers[i] = field::get;
+                MethodHandle writer = isFinal(field.getModifiers()) ? null : fieldSetter(field);
+                step = intermediateStep(path, field.getType(), fieldGetter(field), writer, createMissingIntermediates);
                 currentClass = field.getType();
             } else {
                 Method getter = findGetter(currentClass, segments[i]).orElse(null);
                 if (getter != null) {
-                    readers[i] = getter::invoke;
-                    currentClass = getter.getReturnType();
+                    Class<?> type = getter.getReturnType();
+                    MethodHandle writer = findSetter(currentClass, segments[i])
+                            .filter(setter -> setter.getParameterTypes()[0].isAssignableFrom(type))
+                            .map(PropertyAccessor::methodHandle)
+                            .orElse(null);
+                    step = intermediateStep(path, type, methodHandle(getter), writer, createMissingIntermediates);
+                    currentClass = type;
                 } else {
                     return Optional.empty();
                 }
             }
+
+            resolver = (resolver == null) ? step : MethodHandles.filterReturnValue(resolver, step);
+        }
+
+        MethodHandle finalResolver = MethodHandles.catchException(resolver, Throwable.class, WRAP_INTERMEDIATE_FAILURE.bindTo(path));
+        Optional<HandlePropertyAccessor> accessor = findFinalAccessor(currentClass, segments[segments.length - 1]);
+        return accessor.map(a -> new NestedPathAccessor(finalResolver, path, a));
+    }
+
+    /**
+     * Returns a handle of type {@code (Object parent) -> Object} that reads a non-null intermediate
+     * value from parent, either failing or creating a new object if the property is {@code null}.
+     */
+    @NotNull
+    private static MethodHandle intermediateStep(@NotNull String path,
+                                                 @NotNull Class<?> type,
+                                                 @NotNull MethodHandle reader,
+                                                 @Nullable MethodHandle writer,
+                                                 boolean createMissing) {
+        MethodHandle getter = reader.asType(GETTER_TYPE);
+
+        if (createMissing && writer != null) {
+            MethodHandle constructor = publicDefaultConstructor(type).orElse(null);
+            if (constructor != null) {
+                MethodHandle create = MethodHandles.insertArguments(CREATE_INTERMEDIATE_IF_MISSING, 0, constructor, writer.asType(SETTER_TYPE));
+                return MethodHandles.foldArguments(create, getter);
+            }
         }
 
-        Optional<PropertyAccessor> accessor = findFinalAccessor(currentClass, segments[segments.length - 1]);
-        return accessor.map(a -> new NestedPathAccessor(readers, path, a));
+        return MethodHandles.filterReturnValue(getter, REQUIRE_INTERMEDIATE.bindTo(path));
     }
 
     @NotNull
-    private static Optional<PropertyAccessor> findFinalAccessor(@NotNull Class<?> currentClass, @NotNull String name) {
-        Optional<PropertyAccessor> setter = findSetter(currentClass, name).map(SetterPropertyAccessor::new);
+    private static Optional<HandlePropertyAccessor> findFinalAccessor(@NotNull Class<?> currentClass, @NotNull String name) {
+        Optional<HandlePropertyAccessor> setter = findSetter(currentClass, name).map(SetterPropertyAccessor::new);
 
         if (setter.isPresent()) {
             return setter;
@@ -138,106 +191,213 @@ abstract class PropertyAccessor {
         return findAccessor(cl, name).map(PropertyAccessor::getType);
     }
 
-    private static final class FieldPropertyAccessor extends PropertyAccessor {
+    /**
+     * Type of the handles used for setting properties: {@code (Object target, Object value) -> void}.
+     */
+    @NotNull
+    private static final MethodType SETTER_TYPE = methodType(void.class, Object.class, Object.class);
 
-        @NotNull
-        private final Field field;
+    /**
+     * Type of the handles used for reading intermediate properties: {@code (Object target) -> Object}.
+     */
+    @NotNull
+    private static final MethodType GETTER_TYPE = methodType(Object.class, Object.class);
 
-        private FieldPropertyAccessor(@NotNull Field field) {
-            this.field = field;
+    /** {@link Field#get(Object)} as a handle, used as a fallback when the field can't be unreflected */
+    @NotNull
+    private static final MethodHandle REFLECTIVE_FIELD_GET;
+
+    /** {@link Field#set(Object, Object)} as a handle, used as a fallback when the field can't be unreflected */
+    @NotNull
+    private static final MethodHandle REFLECTIVE_FIELD_SET;
+
+    /** {@link Method#invoke(Object, Object...)} as a handle, used as a fallback when the method can't be unreflected */
+    @NotNull
+    private static final MethodHandle REFLECTIVE_METHOD_INVOKE;
+
+    @NotNull
+    private static final MethodHandle REQUIRE_INTERMEDIATE;
+
+    @NotNull
+    private static final MethodHandle CREATE_INTERMEDIATE_IF_MISSING;
+
+    @NotNull
+    private static final MethodHandle WRAP_INTERMEDIATE_FAILURE;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            REFLECTIVE_FIELD_GET = lookup.findVirtual(Field.class, "get", methodType(Object.class, Object.class));
+            REFLECTIVE_FIELD_SET = lookup.findVirtual(Field.class, "set", methodType(void.class, Object.class, Object.class));
+            REFLECTIVE_METHOD_INVOKE = lookup.findVirtual(Method.class, "invoke", methodType(Object.class, Object.class, Object[].class));
+            REQUIRE_INTERMEDIATE = lookup.findStatic(PropertyAccessor.class, "requireIntermediate",
+                    methodType(Object.class, String.class, Object.class));
+            CREATE_INTERMEDIATE_IF_MISSING = lookup.findStatic(PropertyAccessor.class, "createIntermediateIfMissing",
+                    methodType(Object.class, MethodHandle.class, MethodHandle.class, Object.class, Object.class));
+            WRAP_INTERMEDIATE_FAILURE = lookup.findStatic(PropertyAccessor.class, "wrapIntermediateFailure",
+                    methodType(Object.class, String.class, Throwable.class, Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
         }
+    }
 
-        @Override
-        Type getType() {
-            return field.getGenericType();
+    @NotNull
+    private static MethodHandle fieldGetter(@NotNull Field field) {
+        try {
+            return MethodHandles.publicLookup().unreflectGetter(field);
+        } catch (IllegalAccessException e) {
+            // Fall back to reflection
+            return REFLECTIVE_FIELD_GET.bindTo(field);
         }
+    }
 
-        @Override
-        void set(Object object, Object value) {
-            try {
-                field.set(object, value);
-            } catch (IllegalAccessException e) {
-                throw Throwables.propagate(e);
-            }
+    @NotNull
+    private static MethodHandle fieldSetter(@NotNull Field field) {
+        try {
+            return MethodHandles.publicLookup().unreflectSetter(field);
+        } catch (IllegalAccessException e) {
+            // Fall back to reflection
+            return REFLECTIVE_FIELD_SET.bindTo(field);
+        }
+    }
+
+    @NotNull
+    private static MethodHandle methodHandle(@NotNull Method method) {
+        try {
+            return MethodHandles.publicLookup().unreflect(method);
+        } catch (IllegalAccessException e) {
+            // Fall back to reflection
+            return REFLECTIVE_METHOD_INVOKE.bindTo(method).asFixedArity().asCollector(Object[].class, method.getParameterCount());
         }
     }
 
-    private static final class SetterPropertyAccessor extends PropertyAccessor {
+    @NotNull
+    private static Optional<MethodHandle> publicDefaultConstructor(@NotNull Class<?> cl) {
+        try {
+            Constructor<?> constructor = cl.getConstructor();
+            return Optional.of(MethodHandles.publicLookup().unreflectConstructor(constructor).asType(methodType(Object.class)));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return Optional.empty();
+        }
+    }
+
+    @SuppressWarnings("unused") // invoked through REQUIRE_INTERMEDIATE
+    @NotNull
+    private static Object requireIntermediate(@NotNull String path, @Nullable Object value) {
+        if (value != null)
+            return value;
+        else
+            throw new InstantiationFailureException(
+                    "Failed to set property for '" + path + "', because one of the intermediate objects was null.");
+    }
+
+    @SuppressWarnings("unused") // invoked through CREATE_INTERMEDIATE_IF_MISSING
+    @NotNull
+    private static Object createIntermediateIfMissing(@NotNull MethodHandle constructor,
+                                                      @NotNull MethodHandle writer,
+                                                      @Nullable Object value,
+                                                      @NotNull Object parent) throws Throwable {
+        if (value != null)
+            return value;
+
+        Object created = (Object) constructor.invokeExact();
+        writer.invokeExact(parent, created);
+        return created;
+    }
+
+    @SuppressWarnings("unused") // invoked through WRAP_INTERMEDIATE_FAILURE
+    @NotNull
+    private static Object wrapIntermediateFailure(@NotNull String path, @NotNull Throwable e, @Nullable Object root) {
+        if (e instanceof Error)
+            throw (Error) e;
+        else if (e instanceof InstantiationFailureException)
+            throw (InstantiationFailureException) e;
+        else
+            throw new InstantiationFailureException("Failed to set property for '" + path + "'.", e);
+    }
+
+    /**
+     * Base class for accessors that set the value using a {@link MethodHandle} that is linked
+     * once when the accessor is created.
+     */
+    private abstract static class HandlePropertyAccessor extends PropertyAccessor {
 
         @NotNull
-        private final Method setter;
+        private final MethodHandle setter;
 
-        private SetterPropertyAccessor(@NotNull Method setter) {
-            this.setter = setter;
-        }
+        @NotNull
+        private final String description;
 
-        @Override
-        Type getType() {
-            return setter.getGenericParameterTypes()[0];
+        private final boolean primitive;
+
+        HandlePropertyAccessor(@NotNull MethodHandle setter, @NotNull String description, boolean primitive) {
+            this.setter = setter.asType(SETTER_TYPE);
+            this.description = description;
+            this.primitive = primitive;
         }
 
         @Override
         void set(Object object, Object value) {
+            if (value == null && primitive)
+                throw new InstantiationFailureException("Can't assign null to primitive-typed " + description);
+
             try {
-                setter.invoke(object, value);
-            } catch (Exception e) {
+                setter.invokeExact(object, value);
+            } catch (Throwable e) {
                 throw Throwables.propagate(e);
             }
         }
     }
 
-    private static final class NestedPathAccessor extends PropertyAccessor {
+    private static final class FieldPropertyAccessor extends HandlePropertyAccessor {
 
         @NotNull
-        private final PropertyReader[] readers;
+        private final Field field;
 
-        @NotNull
-        private final String path;
+        private FieldPropertyAccessor(@NotNull Field field) {
+            super(fieldSetter(field), field.toString(), field.getType().isPrimitive());
+            this.field = field;
+        }
+
+        @Override
+        Type getType() {
+            return field.getGenericType();
+        }
+    }
+
+    private static final class SetterPropertyAccessor extends HandlePropertyAccessor {
 
         @NotNull
-        private final PropertyAccessor accessor;
+        private final Method setter;
 
-        public NestedPathAccessor(@NotNull PropertyReader[] readers, @NotNull String path, @NotNull PropertyAccessor accessor) {
-            this.readers = readers;
-            this.path = path;
-            this.accessor = accessor;
+        private SetterPropertyAccessor(@NotNull Method setter) {
+            super(methodHandle(setter), setter.toString(), setter.getParameterTypes()[0].isPrimitive());
+            this.setter = setter;
         }
 
         @Override
         Type getType() {
-            return accessor.getType();
+            return setter.getGenericParameterTypes()[0];
         }
+    }
 
-        @Override
-        void set(Object object, Object value) {
-            accessor.set(resolveFinalObject(object), value);
-        }
+    /**
+     * Accessor for nested paths. The handle first resolves the final object through the intermediate
+     * properties and then passes it to the setter of the final accessor.
+     */
+    private static final class NestedPathAccessor extends HandlePropertyAccessor {
 
         @NotNull
-        private Object resolveFinalObject(@NotNull Object object) {
-            try {
-                Object obj = object;
-
-                for (PropertyReader reader : readers) {
-                    Object value = reader.propertyValue(obj);
-                    if (value != null)
-                        obj = value;
-                    else
-                        throw new InstantiationFailureException(
-                                "Failed to set property for '" + path + "', because one of the intermediate objects was null.");
-                }
-
-                return obj;
+        private final Type type;
 
-            } catch (InvocationTargetException | IllegalAccessException e) {
-                throw new InstantiationFailureException("Failed to set property for '" + path + "'.", e);
-            }
+        NestedPathAccessor(@NotNull MethodHandle resolver, @NotNull String path, @NotNull HandlePropertyAccessor accessor) {
+            super(MethodHandles.filterArguments(accessor.setter, 0, resolver), "property '" + path + "'", accessor.primitive);
+            this.type = accessor.getType();
         }
-    }
 
-    private interface PropertyReader {
-        @Nullable
-        Object propertyValue(@NotNull Object o) throws IllegalAccessException, InvocationTargetException;
+        @Override
+        Type getType() {
+            return type;
+        }
     }
 }
-
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred.internal.jdbc;
+
+import org.dalesbred.query.BatchOptions;
+import org.jetbrains.annotations.NotNull;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Decides the size of chunks when executing a batch in chunks. In adaptive mode the size of the next chunk
+ * is estimated from the throughput of previous chunk so that executing it would take the target time.
+ * To avoid oscillation, the estimate is averaged with the current size and growth is limited to doubling.
+ */
+public final class BatchChunkSizer {
+
+    @NotNull
+    private final BatchOptions options;
+
+    private int chunkSize;
+
+    public BatchChunkSizer(@NotNull BatchOptions options) {
+        this.options = options;
+        this.chunkSize = options.getChunkSize();
+    }
+
+    /**
+     * Returns the amount of rows to put in the current chunk.
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Records the execution of a chunk, adjusting the size of next chunk in adaptive mode.
+     */
+    public void chunkExecuted(int rows, long elapsedNanos) {
+        if (!options.isAdaptive() || rows < chunkSize)
+            return;
+
+        long targetNanos = MILLISECONDS.toNanos(options.getTargetChunkMillis());
+        double estimate = elapsedNanos > 0 ? (double) rows * targetNanos / elapsedNanos : Double.MAX_VALUE;
+        double next = Math.min((chunkSize + estimate) / 2, 2.0 * chunkSize);
+
+        chunkSize = (int) Math.max(1, Math.min(next, options.getMaxChunkSize()));
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred.internal.jdbc;
+
+import org.dalesbred.internal.instantiation.NamedTypeList;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Type;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Reads the value of a single column from the current row of a {@link ResultSet}.
+ * <p>
+ * Readers are selected based on the class reported by {@link java.sql.ResultSetMetaData#getColumnClassName(int)}
+ * so that the value returned is always of the same type that {@link ResultSet#getObject(int)} would return.
+ * For the common primitive-like types we can then use the typed accessors of {@link ResultSet} and skip the
+ * generic type dispatching that drivers perform in {@code getObject}.
+ * <p>
+ * The values are still boxed, since they are passed on to instantiators as objects. Queries for single
+ * primitive values or arrays of them avoid boxing by using the typed accessors directly, see
+ * {@link org.dalesbred.internal.result.PrimitiveResultSetProcessors}.
+ */
+@FunctionalInterface
+public interface ColumnReader {
+
+    @Nullable
+    Object read(@NotNull ResultSet resultSet, int column) throws SQLException;
+
+    @NotNull
+    ColumnReader OBJECT = ResultSet::getObject;
+
+    @NotNull
+    ColumnReader STRING = ResultSet::getString;
+
+    @NotNull
+    ColumnReader INTEGER = (rs, column) -> {
+        int value = rs.getInt(column);
+        return (value == 0 && rs.wasNull()) ? null : value;
+    };
+
+    @NotNull
+    ColumnReader LONG = (rs, column) -> {
+        long value = rs.getLong(column);
+        return (value == 0 && rs.wasNull()) ? null : value;
+    };
+
+    @NotNull
+    ColumnReader SHORT = (rs, column) -> {
+        short value = rs.getShort(column);
+        return (value == 0 && rs.wasNull()) ? null : value;
+    };
+
+    @NotNull
+    ColumnReader DOUBLE = (rs, column) -> {
+        double value = rs.getDouble(column);
+        return (value == 0 && rs.wasNull()) ? null : value;
+    };
+
+    @NotNull
+    ColumnReader BOOLEAN = (rs, column) -> {
+        boolean value = rs.getBoolean(column);
+        return (!value && rs.wasNull()) ? null : value;
+    };
+
+    /**
+     * Returns a reader for column whose values are of given type.
+     */
+    @NotNull
+    static ColumnReader forType(@NotNull Type type) {
+        if (type == Integer.class)
+            return INTEGER;
+        else if (type == Long.class)
+            return LONG;
+        else if (type == Short.class)
+            return SHORT;
+        else if (type == Double.class)
+            return DOUBLE;
+        else if (type == Boolean.class)
+            return BOOLEAN;
+        else if (type == String.class)
+            return STRING;
+        else
+            return OBJECT;
+    }
+
+    /**
+     * Returns readers for all columns described by given types.
+     */
+    @NotNull
+    static ColumnReader[] forTypes(@NotNull NamedTypeList types) {
+        ColumnReader[] readers = new ColumnReader[types.size()];
+
+        for (int i = 0; i < readers.length; i++)
+            readers[i] = forType(types.getType(i));
+
+        return readers;
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred.internal.jdbc;
+
+import org.dalesbred.transaction.TransactionContext;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * {@link TransactionContext} of transactions managed by Dalesbred itself, providing access
+ * to resources that are not part of the public API.
+ */
+public interface ManagedTransactionContext extends TransactionContext {
+
+    /**
+     * Returns the cache of prepared statements of this transaction, or null if statements are not cached.
+     */
+    @Nullable
+    StatementCache getStatementCache();
+
+    /**
+     * Returns true until the transaction this context belongs to has ended. Remains false even if
+     * the connection of the transaction is later reused by another transaction.
+     */
+    boolean isTransactionOpen();
+
+    /**
+     * Returns a new index for a temporary id set table, so that each id set of the transaction gets a table
+     * of its own. Indices start from zero for each transaction, so that tables are reused by later transactions.
+     */
+    int nextIdSetTableIndex();
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred.internal.jdbc;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A simple {@code INSERT ... VALUES (?, ...)} statement that can be rewritten to insert multiple rows
+ * at once with {@code VALUES (?, ...), (?, ...), ...}. Only statements that are known to be safe to
+ * rewrite are recognized: the statement may not contain quotes, comments or parameters outside the
+ * values-list and nothing may follow the values-list.
+ */
+public final class MultiRowInsert {
+
+    private static final Pattern INSERT_PREFIX = Pattern.compile("^\\s*insert\\s+into\\s+[^?]*?\\bvalues\\s*(?=\\()", Pattern.CASE_INSENSITIVE);
+
+    @NotNull
+    private final String prefix;
+
+    @NotNull
+    private final String valuesList;
+
+    private final int parametersPerRow;
+
+    private MultiRowInsert(@NotNull String prefix, @NotNull String valuesList, int parametersPerRow) {
+        this.prefix = prefix;
+        this.valuesList = valuesList;
+        this.parametersPerRow = parametersPerRow;
+    }
+
+    /**
+     * Returns the parsed statement if given SQL is a simple insert that can be rewritten.
+     */
+    @NotNull
+    public static Optional<MultiRowInsert> parse(@NotNull String sql) {
+        if (containsUnsupportedSyntax(sql))
+            return Optional.empty();
+
+        Matcher matcher = INSERT_PREFIX.matcher(sql);
+        if (!matcher.find())
+            return Optional.empty();
+
+        int start = matcher.end();
+        int end = findClosingParenthesis(sql, start);
+        if (end == -1 || !sql.substring(end + 1).trim().isEmpty())
+            return Optional.empty();
+
+        String valuesList = sql.substring(start, end + 1);
+        int parameters = countParameters(valuesList);
+        if (parameters == 0)
+            return Optional.empty();
+
+        return Optional.of(new MultiRowInsert(sql.substring(0, start), valuesList, parameters));
+    }
+
+    /**
+     * Returns the number of parameters needed for a single row.
+     */
+    public int getParametersPerRow() {
+        return parametersPerRow;
+    }
+
+    /**
+     * Returns SQL for inserting given amount of rows.
+     */
+    @NotNull
+    public String getSql(int rows) {
+        if (rows <= 0) throw new IllegalArgumentException("invalid amount of rows: " + rows);
+
+        StringBuilder sb = new StringBuilder(prefix.length() + rows * (valuesList.length() + 2));
+        sb.append(prefix).append(valuesList);
+        for (int i = 1; i < rows; i++)
+            sb.append(", ").append(valuesList);
+        return sb.toString();
+    }
+
+    private static boolean containsUnsupportedSyntax(@NotNull String sql) {
+        return sql.indexOf('\'') != -1
+                || sql.indexOf('"') != -1
+                || sql.indexOf('`') != -1
+                || sql.indexOf(';') != -1
+                || sql.contains("--")
+                || sql.contains("/*");
+    }
+
+    private static int findClosingParenthesis(@NotNull String sql, int start) {
+        int depth = 0;
+        for (int i = start; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                if (--depth == 0)
+                    return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int countParameters(@NotNull String sql) {
+        int count = 0;
+        for (int i = 0; i < sql.length(); i++)
+            if (sql.charAt(i) == '?')
+                count++;
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return prefix + valuesList;
+    }
+}
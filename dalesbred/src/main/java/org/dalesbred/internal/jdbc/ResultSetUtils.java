@@ -24,6 +24,7 @@ package org.dalesbred.internal.jdbc;
 
 import org.dalesbred.DatabaseException;
 import org.dalesbred.internal.instantiation.NamedTypeList;
+import org.dalesbred.internal.utils.BoundedCache;
 import org.jetbrains.annotations.NotNull;
 
 import java.lang.reflect.Type;
@@ -35,6 +36,10 @@ import java.sql.SQLException;
  */
 public final class ResultSetUtils {
 
+    /** Resolved column classes by name, so that we don't need to call Class.forName for every column of every query */
+    @NotNull
+    private static final BoundedCache<String, Class<?>> columnClasses = new BoundedCache<>(1000);
+
     private ResultSetUtils() { }
 
     @NotNull
@@ -52,8 +57,15 @@ public final class ResultSetUtils {
     @NotNull
     public static Type getColumnType(@NotNull ResultSetMetaData metaData, int column) throws SQLException {
         String className = metaData.getColumnClassName(column);
+
+        Class<?> cached = columnClasses.get(className);
+        if (cached != null)
+            return cached;
+
         try {
-            return Class.forName(className);
+            Class<?> cl = Class.forName(className);
+            columnClasses.put(className, cl);
+            return cl;
         } catch (ClassNotFoundException e) {
             throw new DatabaseException("Could not find class '" + className + "' specified by ResultSet.", e);
         }
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred.internal.jdbc;
+
+import org.dalesbred.CacheStatistics;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Least-recently-used cache of prepared statements of a single connection.
+ * <p>
+ * Statements are removed from the cache while they are in use, so that nested queries with the same
+ * SQL will not share a statement. When a statement is returned, its parameters and batch are cleared
+ * and it's put back to the cache, closing the least recently used statement if the cache is full.
+ * <p>
+ * Instances are confined to the thread running the transaction and are not thread-safe.
+ */
+public final class StatementCache implements AutoCloseable {
+
+    private final int maxSize;
+
+    @NotNull
+    private final Counters counters;
+
+    @NotNull
+    private final LinkedHashMap<StatementKey, PreparedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+
+    @NotNull
+    private static final Logger log = LoggerFactory.getLogger(StatementCache.class);
+
+    public StatementCache(int maxSize, @NotNull Counters counters) {
+        if (maxSize <= 0) throw new IllegalArgumentException("maxSize must be positive, but was: " + maxSize);
+
+        this.maxSize = maxSize;
+        this.counters = counters;
+    }
+
+    /**
+     * Returns a cached statement for given key, or prepares a new one using given factory.
+     */
+    @NotNull
+    public StatementHandle prepare(@NotNull StatementKey key, @NotNull StatementFactory factory) throws SQLException {
+        PreparedStatement statement = statements.remove(key);
+        if (statement != null) {
+            counters.hits.increment();
+            counters.size.decrement();
+        } else {
+            counters.misses.increment();
+            statement = factory.prepare();
+        }
+
+        return new StatementHandle(statement, this, key);
+    }
+
+    void release(@NotNull StatementKey key, @NotNull PreparedStatement statement) throws SQLException {
+        if (statement.isClosed())
+            return;
+
+        try {
+            statement.clearParameters();
+            statement.clearBatch();
+        } catch (SQLException | RuntimeException e) {
+            statement.close();
+            throw e;
+        }
+
+        PreparedStatement previous = statements.put(key, statement);
+        if (previous != null)
+            previous.close();
+        else
+            counters.size.increment();
+
+        if (statements.size() > maxSize) {
+            Iterator<PreparedStatement> it = statements.values().iterator();
+            PreparedStatement eldest = it.next();
+            it.remove();
+            counters.size.decrement();
+            eldest.close();
+        }
+    }
+
+    public int size() {
+        return statements.size();
+    }
+
+    /**
+     * Closes all cached statements.
+     */
+    @Override
+    public void close() {
+        for (Map.Entry<StatementKey, PreparedStatement> entry : statements.entrySet()) {
+            try {
+                entry.getValue().close();
+            } catch (SQLException e) {
+                log.warn("failed to close cached statement: " + entry.getKey(), e);
+            }
+        }
+
+        counters.size.add(-statements.size());
+        statements.clear();
+    }
+
+    @FunctionalInterface
+    public interface StatementFactory {
+        @NotNull
+        PreparedStatement prepare() throws SQLException;
+    }
+
+    /**
+     * Statistics collected over all caches sharing the same counters.
+     */
+    public static final class Counters {
+
+        @NotNull
+        private final LongAdder hits = new LongAdder();
+
+        @NotNull
+        private final LongAdder misses = new LongAdder();
+
+        @NotNull
+        private final LongAdder size = new LongAdder();
+
+        @NotNull
+        public CacheStatistics getStatistics() {
+            return new CacheStatistics(hits.sum(), misses.sum(), (int) size.sum());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred.internal.jdbc;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * A prepared statement borrowed for executing a single query. Closing the handle returns the
+ * statement to the {@link StatementCache} it came from, or closes the statement if it's not cached.
+ */
+public final class StatementHandle implements AutoCloseable {
+
+    @NotNull
+    private final PreparedStatement statement;
+
+    @Nullable
+    private final StatementCache cache;
+
+    @Nullable
+    private final StatementKey key;
+
+    StatementHandle(@NotNull PreparedStatement statement, @Nullable StatementCache cache, @Nullable StatementKey key) {
+        this.statement = statement;
+        this.cache = cache;
+        this.key = key;
+    }
+
+    /**
+     * Returns a handle that closes given statement when it's closed.
+     */
+    @NotNull
+    public static StatementHandle uncached(@NotNull PreparedStatement statement) {
+        return new StatementHandle(statement, null, null);
+    }
+
+    @NotNull
+    public PreparedStatement getStatement() {
+        return statement;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (cache != null && key != null)
+            cache.release(key, statement);
+        else
+            statement.close();
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred.internal.jdbc;
+
+import org.dalesbred.query.QueryOptions;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Identifies a cached {@link java.sql.PreparedStatement}: statements with the same SQL are only
+ * interchangeable if they were prepared with same options and same generated key settings.
+ */
+public final class StatementKey {
+
+    @NotNull
+    private final String sql;
+
+    @Nullable
+    private final QueryOptions options;
+
+    /** Names of generated key columns, empty for all generated keys and null if keys are not generated */
+    @Nullable
+    private final List<String> generatedKeyColumns;
+
+    private StatementKey(@NotNull String sql, @Nullable QueryOptions options, @Nullable List<String> generatedKeyColumns) {
+        this.sql = requireNonNull(sql);
+        this.options = options;
+        this.generatedKeyColumns = generatedKeyColumns;
+    }
+
+    /**
+     * Returns key for a plain statement prepared with default settings of the connection.
+     */
+    @NotNull
+    public static StatementKey plain(@NotNull String sql) {
+        return new StatementKey(sql, null, null);
+    }
+
+    /**
+     * Returns key for statement prepared with given options.
+     */
+    @NotNull
+    public static StatementKey withOptions(@NotNull String sql, @NotNull QueryOptions options) {
+        return new StatementKey(sql, requireNonNull(options), null);
+    }
+
+    /**
+     * Returns key for statement returning given generated key columns.
+     */
+    @NotNull
+    public static StatementKey withGeneratedKeys(@NotNull String sql, @NotNull List<String> columnNames) {
+        return new StatementKey(sql, null, unmodifiableList(new ArrayList<>(columnNames)));
+    }
+
+    @NotNull
+    public String getSql() {
+        return sql;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) return true;
+        if (obj instanceof StatementKey) {
+            StatementKey rhs = (StatementKey) obj;
+            return sql.equals(rhs.sql)
+                    && Objects.equals(options, rhs.options)
+                    && Objects.equals(generatedKeyColumns, rhs.generatedKeyColumns);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return (sql.hashCode() * 31 + Objects.hashCode(options)) * 31 + Objects.hashCode(generatedKeyColumns);
+    }
+
+    @Override
+    public String toString() {
+        return sql;
+    }
+}
@@ -0,0 +1,694 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred.internal.result;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.Timestamp;
+import java.util.*;
+
+/**
+ * Column-oriented storage for the values of a single column of {@link org.dalesbred.result.ResultTable}.
+ * <p>
+ * Numeric, boolean and temporal values are stored in primitive arrays with a separate bitmap for nulls,
+ * strings are dictionary-encoded unless most of them are distinct and all other values are stored as they are. Values returned by
+ * {@link #get(int)} are equal to, but not necessarily the same instances as, the values that were added.
+ */
+public abstract class Column {
+
+    /** Initial capacity of the arrays used for building columns */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /** Minimum amount of rows before deciding whether dictionary-encoding strings is worthwhile */
+    private static final int DICTIONARY_MIN_ROWS = 256;
+
+    /** Maximum fraction of distinct strings in a dictionary-encoded column */
+    private static final double DICTIONARY_MAX_DISTINCT_RATIO = 0.5;
+
+    @NotNull
+    final BitSet nulls;
+
+    final int size;
+
+    private Column(@NotNull BitSet nulls, int size) {
+        this.nulls = nulls;
+        this.size = size;
+    }
+
+    /**
+     * Returns the value of given row.
+     */
+    @Nullable
+    public abstract Object get(int row);
+
+    public boolean isNull(int row) {
+        checkIndex(row);
+        return nulls.get(row);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the values of the column as int-array.
+     *
+     * @throws IllegalStateException if the column contains nulls or non-numeric values
+     */
+    @NotNull
+    public int[] toIntArray() {
+        int[] result = new int[size];
+        for (int i = 0; i < size; i++)
+            result[i] = nonNullNumber(i).intValue();
+        return result;
+    }
+
+    /**
+     * Returns the values of the column as long-array.
+     *
+     * @throws IllegalStateException if the column contains nulls or non-numeric values
+     */
+    @NotNull
+    public long[] toLongArray() {
+        long[] result = new long[size];
+        for (int i = 0; i < size; i++)
+            result[i] = nonNullNumber(i).longValue();
+        return result;
+    }
+
+    /**
+     * Returns the values of the column as double-array.
+     *
+     * @throws IllegalStateException if the column contains nulls or non-numeric values
+     */
+    @NotNull
+    public double[] toDoubleArray() {
+        double[] result = new double[size];
+        for (int i = 0; i < size; i++)
+            result[i] = nonNullNumber(i).doubleValue();
+        return result;
+    }
+
+    @NotNull
+    private Number nonNullNumber(int row) {
+        Object value = get(row);
+        if (value instanceof Number)
+            return (Number) value;
+        else if (value == null)
+            throw new IllegalStateException("null value in row " + row);
+        else
+            throw new IllegalStateException("non-numeric value in row " + row + ": " + value.getClass().getName());
+    }
+
+    void checkIndex(int row) {
+        if (row < 0 || row >= size)
+            throw new IndexOutOfBoundsException("row: " + row + ", size: " + size);
+    }
+
+    void checkNoNulls() {
+        if (!nulls.isEmpty())
+            throw new IllegalStateException("null value in row " + nulls.nextSetBit(0));
+    }
+
+    /**
+     * Returns a builder that stores values of given type as efficiently as possible.
+     */
+    @NotNull
+    public static Builder builder(@NotNull Class<?> type) {
+        if (type == Integer.class)
+            return new IntBuilder();
+        else if (type == Long.class)
+            return new LongBuilder();
+        else if (type == Double.class)
+            return new DoubleBuilder();
+        else if (type == Boolean.class)
+            return new BooleanBuilder();
+        else if (type == String.class)
+            return new DictionaryBuilder();
+        else if (type == Timestamp.class)
+            return new TimestampBuilder();
+        else if (type == java.sql.Date.class)
+            return new SqlDateBuilder();
+        else
+            return new ObjectBuilder();
+    }
+
+    /**
+     * Builds a column by appending values to it.
+     */
+    public abstract static class Builder {
+
+        @NotNull
+        final BitSet nulls = new BitSet();
+
+        int size = 0;
+
+        /**
+         * Appends a value to the column. If the value can't be represented by this builder,
+         * the values are moved to a more general builder, which is returned. Callers must
+         * therefore always use the returned builder for subsequent calls.
+         */
+        @NotNull
+        public final Builder add(@Nullable Object value) {
+            if (value == null) {
+                ensureCapacity(size + 1);
+                nulls.set(size++);
+                return this;
+            } else if (accepts(value)) {
+                ensureCapacity(size + 1);
+                set(size++, value);
+                return this;
+            } else {
+                Builder builder = generalize(value);
+                Column column = build();
+                for (int i = 0; i < column.size; i++)
+                    builder.add(column.get(i));
+                return builder.add(value);
+            }
+        }
+
+        abstract boolean accepts(@NotNull Object value);
+
+        /**
+         * Returns a new builder that should take over when this builder does not accept given value.
+         */
+        @NotNull
+        Builder generalize(@NotNull Object value) {
+            return new ObjectBuilder();
+        }
+
+        abstract void ensureCapacity(int capacity);
+
+        abstract void set(int index, @NotNull Object value);
+
+        @NotNull
+        public abstract Column build();
+
+        static int newCapacity(int current, int required) {
+            return Math.max(required, Math.max(INITIAL_CAPACITY, current * 2));
+        }
+    }
+
+    private static final class IntColumn extends Column {
+
+        @NotNull
+        private final int[] values;
+
+        IntColumn(@NotNull int[] values, @NotNull BitSet nulls, int size) {
+            super(nulls, size);
+            this.values = values;
+        }
+
+        @Nullable
+        @Override
+        public Object get(int row) {
+            checkIndex(row);
+            return nulls.get(row) ? null : values[row];
+        }
+
+        @NotNull
+        @Override
+        public int[] toIntArray() {
+            checkNoNulls();
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    private static final class IntBuilder extends Builder {
+
+        @NotNull
+        private int[] values = new int[0];
+
+        @Override
+        boolean accepts(@NotNull Object value) {
+            return value instanceof Integer;
+        }
+
+        @Override
+        void ensureCapacity(int capacity) {
+            if (values.length < capacity)
+                values = Arrays.copyOf(values, newCapacity(values.length, capacity));
+        }
+
+        @Override
+        void set(int index, @NotNull Object value) {
+            values[index] = (Integer) value;
+        }
+
+        @NotNull
+        @Override
+        public Column build() {
+            return new IntColumn(Arrays.copyOf(values, size), nulls, size);
+        }
+    }
+
+    private static final class LongColumn extends Column {
+
+        @NotNull
+        private final long[] values;
+
+        LongColumn(@NotNull long[] values, @NotNull BitSet nulls, int size) {
+            super(nulls, size);
+            this.values = values;
+        }
+
+        @Nullable
+        @Override
+        public Object get(int row) {
+            checkIndex(row);
+            return nulls.get(row) ? null : values[row];
+        }
+
+        @NotNull
+        @Override
+        public long[] toLongArray() {
+            checkNoNulls();
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    private static final class LongBuilder extends Builder {
+
+        @NotNull
+        private long[] values = new long[0];
+
+        @Override
+        boolean accepts(@NotNull Object value) {
+            return value instanceof Long;
+        }
+
+        @Override
+        void ensureCapacity(int capacity) {
+            if (values.length < capacity)
+                values = Arrays.copyOf(values, newCapacity(values.length, capacity));
+        }
+
+        @Override
+        void set(int index, @NotNull Object value) {
+            values[index] = (Long) value;
+        }
+
+        @NotNull
+        @Override
+        public Column build() {
+            return new LongColumn(Arrays.copyOf(values, size), nulls, size);
+        }
+    }
+
+    private static final class DoubleColumn extends Column {
+
+        @NotNull
+        private final double[] values;
+
+        DoubleColumn(@NotNull double[] values, @NotNull BitSet nulls, int size) {
+            super(nulls, size);
+            this.values = values;
+        }
+
+        @Nullable
+        @Override
+        public Object get(int row) {
+            checkIndex(row);
+            return nulls.get(row) ? null : values[row];
+        }
+
+        @NotNull
+        @Override
+        public double[] toDoubleArray() {
+            checkNoNulls();
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    private static final class DoubleBuilder extends Builder {
+
+        @NotNull
+        private double[] values = new double[0];
+
+        @Override
+        boolean accepts(@NotNull Object value) {
+            return value instanceof Double;
+        }
+
+        @Override
+        void ensureCapacity(int capacity) {
+            if (values.length < capacity)
+                values = Arrays.copyOf(values, newCapacity(values.length, capacity));
+        }
+
+        @Override
+        void set(int index, @NotNull Object value) {
+            values[index] = (Double) value;
+        }
+
+        @NotNull
+        @Override
+        public Column build() {
+            return new DoubleColumn(Arrays.copyOf(values, size), nulls, size);
+        }
+    }
+
+    private static final class BooleanColumn extends Column {
+
+        @NotNull
+        private final BitSet values;
+
+        BooleanColumn(@NotNull BitSet values, @NotNull BitSet nulls, int size) {
+            super(nulls, size);
+            this.values = values;
+        }
+
+        @Nullable
+        @Override
+        public Object get(int row) {
+            checkIndex(row);
+            return nulls.get(row) ? null : values.get(row);
+        }
+    }
+
+    private static final class BooleanBuilder extends Builder {
+
+        @NotNull
+        private final BitSet values = new BitSet();
+
+        @Override
+        boolean accepts(@NotNull Object value) {
+            return value instanceof Boolean;
+        }
+
+        @Override
+        void ensureCapacity(int capacity) {
+        }
+
+        @Override
+        void set(int index, @NotNull Object value) {
+            values.set(index, (Boolean) value);
+        }
+
+        @NotNull
+        @Override
+        public Column build() {
+            return new BooleanColumn(values, nulls, size);
+        }
+    }
+
+    /**
+     * Dictionary-encoded strings: each distinct string is stored only once and rows refer to it by index.
+     */
+    private static final class DictionaryColumn extends Column {
+
+        @NotNull
+        private final int[] codes;
+
+        @NotNull
+        private final String[] dictionary;
+
+        DictionaryColumn(@NotNull int[] codes, @NotNull String[] dictionary, @NotNull BitSet nulls, int size) {
+            super(nulls, size);
+            this.codes = codes;
+            this.dictionary = dictionary;
+        }
+
+        @Nullable
+        @Override
+        public Object get(int row) {
+            checkIndex(row);
+            return nulls.get(row) ? null : dictionary[codes[row]];
+        }
+    }
+
+    private static final class DictionaryBuilder extends Builder {
+
+        @NotNull
+        private int[] codes = new int[0];
+
+        @NotNull
+        private final Map<String, Integer> dictionary = new HashMap<>();
+
+        @Override
+        boolean accepts(@NotNull Object value) {
+            return value instanceof String && !hasTooManyDistinctValues();
+        }
+
+        private boolean hasTooManyDistinctValues() {
+            return size >= DICTIONARY_MIN_ROWS && dictionary.size() > size * DICTIONARY_MAX_DISTINCT_RATIO;
+        }
+
+        @NotNull
+        @Override
+        Builder generalize(@NotNull Object value) {
+            return (value instanceof String) ? new StringArrayBuilder() : new ObjectBuilder();
+        }
+
+        @Override
+        void ensureCapacity(int capacity) {
+            if (codes.length < capacity)
+                codes = Arrays.copyOf(codes, newCapacity(codes.length, capacity));
+        }
+
+        @Override
+        void set(int index, @NotNull Object value) {
+            Integer code = dictionary.get(value);
+            if (code == null) {
+                code = dictionary.size();
+                dictionary.put((String) value, code);
+            }
+            codes[index] = code;
+        }
+
+        @NotNull
+        @Override
+        public Column build() {
+            String[] strings = new String[dictionary.size()];
+            for (Map.Entry<String, Integer> entry : dictionary.entrySet())
+                strings[entry.getValue()] = entry.getKey();
+
+            return new DictionaryColumn(Arrays.copyOf(codes, size), strings, nulls, size);
+        }
+    }
+
+    /**
+     * Strings stored as they are, used when there are too many distinct strings for dictionary-encoding to pay off.
+     */
+    private static final class StringColumn extends Column {
+
+        @NotNull
+        private final String[] values;
+
+        StringColumn(@NotNull String[] values, @NotNull BitSet nulls, int size) {
+            super(nulls, size);
+            this.values = values;
+        }
+
+        @Nullable
+        @Override
+        public Object get(int row) {
+            checkIndex(row);
+            return values[row];
+        }
+    }
+
+    private static final class StringArrayBuilder extends Builder {
+
+        @NotNull
+        private String[] values = new String[0];
+
+        @Override
+        boolean accepts(@NotNull Object value) {
+            return value instanceof String;
+        }
+
+        @Override
+        void ensureCapacity(int capacity) {
+            if (values.length < capacity)
+                values = Arrays.copyOf(values, newCapacity(values.length, capacity));
+        }
+
+        @Override
+        void set(int index, @NotNull Object value) {
+            values[index] = (String) value;
+        }
+
+        @NotNull
+        @Override
+        public Column build() {
+            return new StringColumn(Arrays.copyOf(values, size), nulls, size);
+        }
+    }
+
+    private static final class TimestampColumn extends Column {
+
+        @NotNull
+        private final long[] millis;
+
+        @NotNull
+        private final int[] nanos;
+
+        TimestampColumn(@NotNull long[] millis, @NotNull int[] nanos, @NotNull BitSet nulls, int size) {
+            super(nulls, size);
+            this.millis = millis;
+            this.nanos = nanos;
+        }
+
+        @Nullable
+        @Override
+        public Object get(int row) {
+            checkIndex(row);
+            if (nulls.get(row))
+                return null;
+
+            Timestamp timestamp = new Timestamp(millis[row]);
+            timestamp.setNanos(nanos[row]);
+            return timestamp;
+        }
+    }
+
+    private static final class TimestampBuilder extends Builder {
+
+        @NotNull
+        private long[] millis = new long[0];
+
+        @NotNull
+        private int[] nanos = new int[0];
+
+        @Override
+        boolean accepts(@NotNull Object value) {
+            return value.getClass() == Timestamp.class;
+        }
+
+        @Override
+        void ensureCapacity(int capacity) {
+            if (millis.length < capacity) {
+                int newCapacity = newCapacity(millis.length, capacity);
+                millis = Arrays.copyOf(millis, newCapacity);
+                nanos = Arrays.copyOf(nanos, newCapacity);
+            }
+        }
+
+        @Override
+        void set(int index, @NotNull Object value) {
+            Timestamp timestamp = (Timestamp) value;
+            millis[index] = timestamp.getTime();
+            nanos[index] = timestamp.getNanos();
+        }
+
+        @NotNull
+        @Override
+        public Column build() {
+            return new TimestampColumn(Arrays.copyOf(millis, size), Arrays.copyOf(nanos, size), nulls, size);
+        }
+    }
+
+    private static final class SqlDateColumn extends Column {
+
+        @NotNull
+        private final long[] millis;
+
+        SqlDateColumn(@NotNull long[] millis, @NotNull BitSet nulls, int size) {
+            super(nulls, size);
+            this.millis = millis;
+        }
+
+        @Nullable
+        @Override
+        public Object get(int row) {
+            checkIndex(row);
+            return nulls.get(row) ? null : new java.sql.Date(millis[row]);
+        }
+    }
+
+    private static final class SqlDateBuilder extends Builder {
+
+        @NotNull
+        private long[] millis = new long[0];
+
+        @Override
+        boolean accepts(@NotNull Object value) {
+            return value.getClass() == java.sql.Date.class;
+        }
+
+        @Override
+        void ensureCapacity(int capacity) {
+            if (millis.length < capacity)
+                millis = Arrays.copyOf(millis, newCapacity(millis.length, capacity));
+        }
+
+        @Override
+        void set(int index, @NotNull Object value) {
+            millis[index] = ((java.sql.Date) value).getTime();
+        }
+
+        @NotNull
+        @Override
+        public Column build() {
+            return new SqlDateColumn(Arrays.copyOf(millis, size), nulls, size);
+        }
+    }
+
+    private static final class ObjectColumn extends Column {
+
+        @NotNull
+        private final Object[] values;
+
+        ObjectColumn(@NotNull Object[] values, @NotNull BitSet nulls, int size) {
+            super(nulls, size);
+            this.values = values;
+        }
+
+        @Nullable
+        @Override
+        public Object get(int row) {
+            checkIndex(row);
+            return values[row];
+        }
+    }
+
+    private static final class ObjectBuilder extends Builder {
+
+        @NotNull
+        private Object[] values = new Object[0];
+
+        @Override
+        boolean accepts(@NotNull Object value) {
+            return true;
+        }
+
+        @Override
+        void ensureCapacity(int capacity) {
+            if (values.length < capacity)
+                values = Arrays.copyOf(values, newCapacity(values.length, capacity));
+        }
+
+        @Override
+        void set(int index, @NotNull Object value) {
+            values[index] = value;
+        }
+
+        @NotNull
+        @Override
+        public Column build() {
+            return new ObjectColumn(Arrays.copyOf(values, size), nulls, size);
+        }
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred.internal.result;
+
+import org.dalesbred.DatabaseException;
+import org.dalesbred.internal.instantiation.NamedTypeList;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.time.temporal.ChronoField.NANO_OF_SECOND;
+
+/**
+ * Decodes rows written in the text format of {@code COPY} as they are streamed in. Columns of types
+ * that can't be reliably parsed from text are decoded as strings, so {@link #decodableTypes(NamedTypeList)}
+ * should be used for determining the types of values passed to the row handler.
+ */
+public final class CopyTextDecoder extends OutputStream {
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = new DateTimeFormatterBuilder()
+            .appendPattern("yyyy-MM-dd HH:mm:ss")
+            .optionalStart().appendFraction(NANO_OF_SECOND, 0, 9, true).optionalEnd()
+            .optionalStart().appendOffset("+HH:mm", "Z").optionalEnd()
+            .toFormatter();
+
+    @NotNull
+    private static final Map<Type, Function<String, Object>> parsers = new HashMap<>();
+
+    static {
+        parsers.put(String.class, s -> s);
+        parsers.put(Short.class, Short::valueOf);
+        parsers.put(Integer.class, Integer::valueOf);
+        parsers.put(Long.class, Long::valueOf);
+        parsers.put(Float.class, Float::valueOf);
+        parsers.put(Double.class, Double::valueOf);
+        parsers.put(BigDecimal.class, BigDecimal::new);
+        parsers.put(Boolean.class, "t"::equals);
+        parsers.put(UUID.class, UUID::fromString);
+        parsers.put(byte[].class, CopyTextDecoder::parseBytea);
+        parsers.put(java.sql.Date.class, s -> java.sql.Date.valueOf(LocalDate.parse(s)));
+        parsers.put(Timestamp.class, CopyTextDecoder::parseTimestamp);
+    }
+
+    @NotNull
+    private final List<Function<String, Object>> columnParsers;
+
+    @NotNull
+    private final Consumer<Object[]> rowHandler;
+
+    /** Values of current row, reused for all rows */
+    @NotNull
+    private final Object[] values;
+
+    @NotNull
+    private byte[] line = new byte[1024];
+
+    private int length = 0;
+
+    @NotNull
+    private byte[] field = new byte[1024];
+
+    /**
+     * Constructs a decoder that passes values of rows to given handler. The array passed to the
+     * handler is reused for subsequent rows.
+     *
+     * @param types types of columns, as returned by {@link #decodableTypes(NamedTypeList)}
+     */
+    public CopyTextDecoder(@NotNull NamedTypeList types, @NotNull Consumer<Object[]> rowHandler) {
+        this.rowHandler = rowHandler;
+        this.values = new Object[types.size()];
+        this.columnParsers = new ArrayList<>(types.size());
+
+        for (int i = 0; i < types.size(); i++) {
+            Function<String, Object> parser = parsers.get(types.getType(i));
+            if (parser == null)
+                throw new IllegalArgumentException("can't decode column of type " + types.getType(i).getTypeName());
+            columnParsers.add(parser);
+        }
+    }
+
+    /**
+     * Returns given types, replacing the types that can't be decoded with {@link String}.
+     */
+    @NotNull
+    public static NamedTypeList decodableTypes(@NotNull NamedTypeList types) {
+        NamedTypeList.Builder result = NamedTypeList.builder(types.size());
+
+        for (int i = 0; i < types.size(); i++) {
+            Type type = types.getType(i);
+            result.add(types.getName(i), parsers.containsKey(type) ? type : String.class);
+        }
+
+        return result.build();
+    }
+
+    @Override
+    public void write(int b) {
+        if (b == '\n')
+            endRow();
+        else
+            append((byte) b);
+    }
+
+    @Override
+    public void write(@NotNull byte[] b, int off, int len) {
+        int start = off;
+        int end = off + len;
+
+        for (int i = off; i < end; i++) {
+            if (b[i] == '\n') {
+                append(b, start, i - start);
+                endRow();
+                start = i + 1;
+            }
+        }
+
+        append(b, start, end - start);
+    }
+
+    /**
+     * Verifies that the data did not end in the middle of a row.
+     */
+    @Override
+    public void close() throws IOException {
+        if (length != 0)
+            throw new IOException("data ended in the middle of a row");
+    }
+
+    private void append(byte b) {
+        if (length == line.length)
+            line = Arrays.copyOf(line, line.length * 2);
+        line[length++] = b;
+    }
+
+    private void append(@NotNull byte[] b, int off, int len) {
+        if (length + len > line.length)
+            line = Arrays.copyOf(line, Math.max(line.length * 2, length + len));
+        System.arraycopy(b, off, line, length, len);
+        length += len;
+    }
+
+    private void endRow() {
+        int column = 0;
+        int start = 0;
+
+        for (int i = 0; i <= length; i++) {
+            if (i == length || line[i] == '\t') {
+                if (column == values.length)
+                    throw new DatabaseException("Expected " + values.length + " columns, but got more");
+                values[column] = decodeField(column, start, i);
+                column++;
+                start = i + 1;
+            }
+        }
+
+        if (column != values.length)
+            throw new DatabaseException("Expected " + values.length + " columns, but got " + column);
+
+        length = 0;
+        rowHandler.accept(values);
+    }
+
+    @Nullable
+    private Object decodeField(int column, int start, int end) {
+        if (end - start == 2 && line[start] == '\\' && line[start + 1] == 'N')
+            return null;
+
+        if (field.length < end - start)
+            field = new byte[Math.max(field.length * 2, end - start)];
+
+        int n = 0;
+        for (int i = start; i < end; i++) {
+            byte b = line[i];
+            if (b != '\\' || i + 1 == end) {
+                field[n++] = b;
+                continue;
+            }
+
+            byte c = line[++i];
+            switch (c) {
+                case 'b': field[n++] = '\b'; break;
+                case 'f': field[n++] = '\f'; break;
+                case 'n': field[n++] = '\n'; break;
+                case 'r': field[n++] = '\r'; break;
+                case 't': field[n++] = '\t'; break;
+                case 'v': field[n++] = 0x0B; break;
+                case 'x': {
+                    int value = 0;
+                    int digits = 0;
+                    while (digits < 2 && i + 1 < end && Character.digit(line[i + 1], 16) != -1) {
+                        value = value * 16 + Character.digit(line[++i], 16);
+                        digits++;
+                    }
+                    field[n++] = digits == 0 ? c : (byte) value;
+                    break;
+                }
+                default:
+                    if (c >= '0' && c <= '7') {
+                        int value = c - '0';
+                        for (int digits = 1; digits < 3 && i + 1 < end && line[i + 1] >= '0' && line[i + 1] <= '7'; digits++)
+                            value = value * 8 + (line[++i] - '0');
+                        field[n++] = (byte) value;
+                    } else {
+                        field[n++] = c;
+                    }
+            }
+        }
+
+        String value = new String(field, 0, n, UTF_8);
+        try {
+            return columnParsers.get(column).apply(value);
+        } catch (RuntimeException e) {
+            throw new DatabaseException("Failed to decode value '" + value + "' of column " + (column + 1), e);
+        }
+    }
+
+    @NotNull
+    private static byte[] parseBytea(@NotNull String s) {
+        if (!s.startsWith("\\x"))
+            throw new IllegalArgumentException("only hex format of bytea is supported");
+
+        byte[] bytes = new byte[(s.length() - 2) / 2];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = (byte) Integer.parseInt(s.substring(2 + i * 2, 4 + i * 2), 16);
+        return bytes;
+    }
+
+    @NotNull
+    private static Timestamp parseTimestamp(@NotNull String s) {
+        TemporalAccessor value = TIMESTAMP_FORMAT.parseBest(s, OffsetDateTime::from, LocalDateTime::from);
+        if (value instanceof OffsetDateTime)
+            return Timestamp.from(((OffsetDateTime) value).toInstant());
+        else
+            return Timestamp.valueOf((LocalDateTime) value);
+    }
+}
@@ -26,6 +26,7 @@ import org.dalesbred.internal.instantiation.Instantiator;
 import org.dalesbred.internal.instantiation.InstantiatorArguments;
 import org.dalesbred.internal.instantiation.InstantiatorProvider;
 import org.dalesbred.internal.instantiation.NamedTypeList;
+import org.dalesbred.internal.jdbc.ColumnReader;
 import org.dalesbred.internal.jdbc.ResultSetUtils;
 import org.dalesbred.result.RowMapper;
 import org.dalesbred.result.UnexpectedResultException;
@@ -48,6 +49,8 @@ public final class InstantiatorRowMapper<T> implements RowMapper<T> {
 
     private Instantiator<T> ctor;
 
+    private ColumnReader[] readers;
+
     // For performance reasons we reuse the same arguments-array and InstantiatorArguments-object for all rows.
     // This should be fine as long as the instantiators don't hang on to their arguments for too long.
     private Object[] arguments;
@@ -64,6 +67,7 @@ public final class InstantiatorRowMapper<T> implements RowMapper<T> {
         if (types == null) {
             types = ResultSetUtils.getTypes(resultSet.getMetaData());
             ctor = instantiatorProvider.findInstantiator(cl, types);
+            readers = ColumnReader.forTypes(types);
             arguments = new Object[types.size()];
             instantiatorArguments = new InstantiatorArguments(types, arguments);
         }
@@ -71,7 +75,7 @@ public final class InstantiatorRowMapper<T> implements RowMapper<T> {
         boolean allowNulls = !cl.isPrimitive();
 
         for (int i = 0; i < arguments.length; i++)
-            arguments[i] = resultSet.getObject(i+1);
+            arguments[i] = readers[i].read(resultSet, i+1);
 
         T value = ctor.instantiate(instantiatorArguments);
         if (value != null || allowNulls)
@@ -23,6 +23,7 @@
 package org.dalesbred.internal.result;
 
 import org.dalesbred.internal.instantiation.*;
+import org.dalesbred.internal.jdbc.ColumnReader;
 import org.dalesbred.internal.jdbc.ResultSetUtils;
 import org.dalesbred.result.ResultSetProcessor;
 import org.dalesbred.result.UnexpectedResultException;
@@ -69,6 +70,8 @@ public final class MapResultSetProcessor<K,V> implements ResultSetProcessor<Map<
         NamedTypeList valueTypes = types.subList(1, types.size());
         TypeConversion keyConversion = instantiatorRegistry.getConversionFromDbValue(types.getType(0), keyType);
         Instantiator<V> valueInstantiator = instantiatorRegistry.findInstantiator(valueType, valueTypes);
+        ColumnReader keyReader = ColumnReader.forType(types.getType(0));
+        ColumnReader[] valueReaders = ColumnReader.forTypes(valueTypes);
 
         // For performance reasons we reuse the same arguments-array and InstantiatorArguments-object for all rows.
         // This should be fine as long as the instantiators don't hang on to their arguments for too long.
@@ -76,10 +79,10 @@ public final class MapResultSetProcessor<K,V> implements ResultSetProcessor<Map<
         InstantiatorArguments instantiatorArguments = new InstantiatorArguments(valueTypes, valueArguments);
 
         while (resultSet.next()) {
-            K key = keyType.cast(keyConversion.convert(resultSet.getObject(1)));
+            K key = keyType.cast(keyConversion.convert(keyReader.read(resultSet, 1)));
 
             for (int i = 0; i < valueArguments.length; i++)
-                valueArguments[i] = resultSet.getObject(i+2);
+                valueArguments[i] = valueReaders[i].read(resultSet, i+2);
 
             V value = valueInstantiator.instantiate(instantiatorArguments);
 
@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred.internal.result;
+
+import org.dalesbred.internal.instantiation.InstantiatorProvider;
+import org.dalesbred.internal.jdbc.ColumnReader;
+import org.dalesbred.result.EmptyResultException;
+import org.dalesbred.result.NonUniqueResultException;
+import org.dalesbred.result.ResultSetProcessor;
+import org.dalesbred.result.RowMapper;
+import org.dalesbred.result.UnexpectedResultException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.function.Function;
+
+import static org.dalesbred.internal.jdbc.ResultSetUtils.getColumnType;
+
+/**
+ * {@link ResultSetProcessor}s for primitive values and arrays of them.
+ * <p>
+ * When the result consists of a single column whose values are already of the requested type, the value
+ * is read directly with the typed getters of {@link ResultSet}, bypassing the instantiators. Otherwise
+ * processing is delegated to an {@link InstantiatorRowMapper} so that all normal conversions apply.
+ */
+public final class PrimitiveResultSetProcessors {
+
+    /** Initial capacity of the buffers used for collecting arrays */
+    private static final int INITIAL_ARRAY_CAPACITY = 64;
+
+    private PrimitiveResultSetProcessors() { }
+
+    @NotNull
+    public static ResultSetProcessor<Integer> uniqueInt(@NotNull InstantiatorProvider instantiatorProvider) {
+        return unique(int.class, Integer.class, ColumnReader.INTEGER, instantiatorProvider);
+    }
+
+    @NotNull
+    public static ResultSetProcessor<Long> uniqueLong(@NotNull InstantiatorProvider instantiatorProvider) {
+        return unique(long.class, Long.class, ColumnReader.LONG, instantiatorProvider);
+    }
+
+    @NotNull
+    public static ResultSetProcessor<OptionalInt> optionalInt(@NotNull InstantiatorProvider instantiatorProvider) {
+        return optional(Integer.class, ColumnReader.INTEGER, OptionalInt::of, OptionalInt.empty(), instantiatorProvider);
+    }
+
+    @NotNull
+    public static ResultSetProcessor<OptionalLong> optionalLong(@NotNull InstantiatorProvider instantiatorProvider) {
+        return optional(Long.class, ColumnReader.LONG, OptionalLong::of, OptionalLong.empty(), instantiatorProvider);
+    }
+
+    @NotNull
+    public static ResultSetProcessor<OptionalDouble> optionalDouble(@NotNull InstantiatorProvider instantiatorProvider) {
+        return optional(Double.class, ColumnReader.DOUBLE, OptionalDouble::of, OptionalDouble.empty(), instantiatorProvider);
+    }
+
+    /**
+     * Returns a processor for a single non-null value, read with given reader if the column is of given boxed type.
+     */
+    @NotNull
+    private static <T> ResultSetProcessor<T> unique(@NotNull Class<T> primitiveType,
+                                                    @NotNull Class<T> boxedType,
+                                                    @NotNull ColumnReader reader,
+                                                    @NotNull InstantiatorProvider instantiatorProvider) {
+        return resultSet -> {
+            RowMapper<T> fallback = fallbackMapper(resultSet, primitiveType, boxedType, instantiatorProvider);
+            if (fallback != null)
+                return fallback.unique().process(resultSet);
+
+            if (!resultSet.next())
+                throw new EmptyResultException();
+
+            T value = boxedType.cast(reader.read(resultSet, 1));
+            if (value == null)
+                throw new UnexpectedResultException("Expected " + primitiveType.getName() + ", but got null");
+
+            if (resultSet.next())
+                throw new NonUniqueResultException();
+
+            return value;
+        };
+    }
+
+    /**
+     * Returns a processor for an optional value, read with given reader if the column is of given type and
+     * wrapped to result with given function.
+     */
+    @NotNull
+    private static <T, R> ResultSetProcessor<R> optional(@NotNull Class<T> type,
+                                                         @NotNull ColumnReader reader,
+                                                         @NotNull Function<T, R> wrap,
+                                                         @NotNull R empty,
+                                                         @NotNull InstantiatorProvider instantiatorProvider) {
+        return resultSet -> {
+            if (!isSingleColumnOf(resultSet, type))
+                return new InstantiatorRowMapper<>(type, instantiatorProvider).optional().process(resultSet).map(wrap).orElse(empty);
+
+            if (!resultSet.next())
+                return empty;
+
+            T value = type.cast(reader.read(resultSet, 1));
+            R result = (value != null) ? wrap.apply(value) : empty;
+
+            if (resultSet.next())
+                throw new NonUniqueResultException();
+
+            return result;
+        };
+    }
+
+    /**
+     * Returns a processor that collects the values of all rows into an array. Null values are not allowed.
+     */
+    @NotNull
+    public static ResultSetProcessor<int[]> intArray(@NotNull InstantiatorProvider instantiatorProvider) {
+        return resultSet -> {
+            RowMapper<Integer> fallback = fallbackMapper(resultSet, int.class, Integer.class, instantiatorProvider);
+
+            int[] result = new int[INITIAL_ARRAY_CAPACITY];
+            int size = 0;
+
+            while (resultSet.next()) {
+                int value;
+                if (fallback == null) {
+                    value = resultSet.getInt(1);
+                    checkNotNull(resultSet, int.class);
+                } else {
+                    value = fallback.mapRow(resultSet);
+                }
+
+                if (size == result.length)
+                    result = Arrays.copyOf(result, size * 2);
+
+                result[size++] = value;
+            }
+
+            return (size == result.length) ? result : Arrays.copyOf(result, size);
+        };
+    }
+
+    /**
+     * Returns a processor that collects the values of all rows into an array. Null values are not allowed.
+     */
+    @NotNull
+    public static ResultSetProcessor<long[]> longArray(@NotNull InstantiatorProvider instantiatorProvider) {
+        return resultSet -> {
+            RowMapper<Long> fallback = fallbackMapper(resultSet, long.class, Long.class, instantiatorProvider);
+
+            long[] result = new long[INITIAL_ARRAY_CAPACITY];
+            int size = 0;
+
+            while (resultSet.next()) {
+                long value;
+                if (fallback == null) {
+                    value = resultSet.getLong(1);
+                    checkNotNull(resultSet, long.class);
+                } else {
+                    value = fallback.mapRow(resultSet);
+                }
+
+                if (size == result.length)
+                    result = Arrays.copyOf(result, size * 2);
+
+                result[size++] = value;
+            }
+
+            return (size == result.length) ? result : Arrays.copyOf(result, size);
+        };
+    }
+
+    /**
+     * Returns a processor that collects the values of all rows into an array. Null values are not allowed.
+     */
+    @NotNull
+    public static ResultSetProcessor<double[]> doubleArray(@NotNull InstantiatorProvider instantiatorProvider) {
+        return resultSet -> {
+            RowMapper<Double> fallback = fallbackMapper(resultSet, double.class, Double.class, instantiatorProvider);
+
+            double[] result = new double[INITIAL_ARRAY_CAPACITY];
+            int size = 0;
+
+            while (resultSet.next()) {
+                double value;
+                if (fallback == null) {
+                    value = resultSet.getDouble(1);
+                    checkNotNull(resultSet, double.class);
+                } else {
+                    value = fallback.mapRow(resultSet);
+                }
+
+                if (size == result.length)
+                    result = Arrays.copyOf(result, size * 2);
+
+                result[size++] = value;
+            }
+
+            return (size == result.length) ? result : Arrays.copyOf(result, size);
+        };
+    }
+
+    /**
+     * Returns a mapper that converts the values through instantiators, or null if the result consists of a single
+     * column of given boxed type that can be read directly.
+     */
+    @Nullable
+    private static <T> RowMapper<T> fallbackMapper(@NotNull ResultSet resultSet,
+                                                   @NotNull Class<T> primitiveType,
+                                                   @NotNull Class<T> boxedType,
+                                                   @NotNull InstantiatorProvider instantiatorProvider) throws SQLException {
+        return isSingleColumnOf(resultSet, boxedType) ? null : new InstantiatorRowMapper<>(primitiveType, instantiatorProvider);
+    }
+
+    /**
+     * Throws if the last value read from given result was null.
+     */
+    private static void checkNotNull(@NotNull ResultSet resultSet, @NotNull Class<?> primitiveType) throws SQLException {
+        if (resultSet.wasNull())
+            throw new UnexpectedResultException("Expected " + primitiveType.getName() + ", but got null");
+    }
+
+    private static boolean isSingleColumnOf(@NotNull ResultSet resultSet, @NotNull Class<?> type) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        return metaData.getColumnCount() == 1 && getColumnType(metaData, 1) == type;
+    }
+}
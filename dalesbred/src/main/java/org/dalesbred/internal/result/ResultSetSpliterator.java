@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred.internal.result;
+
+import org.dalesbred.dialect.Dialect;
+import org.dalesbred.result.RowMapper;
+import org.dalesbred.transaction.NoActiveTransactionException;
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * {@link Spliterator} that maps the rows of a live {@link ResultSet} on demand.
+ * <p>
+ * The spliterator owns the result-set and its statement and releases them on {@link #close()}.
+ * Since the result-set is only usable while the transaction it was created in is active, the
+ * transaction is checked before reading each row so that using the spliterator after the
+ * transaction has ended fails with a clear exception instead of an obscure driver error.
+ */
+public final class ResultSetSpliterator<T> extends Spliterators.AbstractSpliterator<T> implements AutoCloseable {
+
+    @NotNull
+    private final Statement statement;
+
+    @NotNull
+    private final ResultSet resultSet;
+
+    @NotNull
+    private final RowMapper<T> rowMapper;
+
+    @NotNull
+    private final BooleanSupplier transactionActive;
+
+    @NotNull
+    private final Dialect dialect;
+
+    private boolean closed = false;
+
+    public ResultSetSpliterator(@NotNull Statement statement,
+                                @NotNull ResultSet resultSet,
+                                @NotNull RowMapper<T> rowMapper,
+                                @NotNull BooleanSupplier transactionActive,
+                                @NotNull Dialect dialect) {
+        super(Long.MAX_VALUE, Spliterator.ORDERED);
+        this.statement = requireNonNull(statement);
+        this.resultSet = requireNonNull(resultSet);
+        this.rowMapper = requireNonNull(rowMapper);
+        this.transactionActive = requireNonNull(transactionActive);
+        this.dialect = requireNonNull(dialect);
+    }
+
+    @Override
+    public boolean tryAdvance(@NotNull Consumer<? super T> action) {
+        if (closed)
+            return false;
+
+        if (!transactionActive.getAsBoolean()) {
+            close();
+            throw new NoActiveTransactionException("Tried to read a streaming result after its transaction had ended. Streams need to be consumed within the transaction that created them.");
+        }
+
+        try {
+            if (!resultSet.next()) {
+                close();
+                return false;
+            }
+
+            action.accept(rowMapper.mapRow(resultSet));
+            return true;
+
+        } catch (SQLException e) {
+            close();
+            throw dialect.convertException(e);
+        }
+    }
+
+    /**
+     * Closes the underlying result-set and statement. Calling this method multiple times has no effect.
+     */
+    @Override
+    public void close() {
+        if (closed)
+            return;
+
+        closed = true;
+        try {
+            try {
+                resultSet.close();
+            } finally {
+                statement.close();
+            }
+        } catch (SQLException e) {
+            throw dialect.convertException(e);
+        }
+    }
+}
@@ -22,6 +22,7 @@
 
 package org.dalesbred.internal.result;
 
+import org.dalesbred.internal.jdbc.ColumnReader;
 import org.dalesbred.result.ResultSetProcessor;
 import org.dalesbred.result.ResultTable;
 import org.dalesbred.result.ResultTable.ColumnMetadata;
@@ -39,18 +40,38 @@ import static org.dalesbred.internal.jdbc.ResultSetUtils.getColumnType;
  */
 public final class ResultTableResultSetProcessor implements ResultSetProcessor<ResultTable> {
 
+    /** Should we build a column-oriented table? */
+    private final boolean columnar;
+
+    public ResultTableResultSetProcessor() {
+        this(false);
+    }
+
+    public ResultTableResultSetProcessor(boolean columnar) {
+        this.columnar = columnar;
+    }
+
     @NotNull
     @Override
     public ResultTable process(@NotNull ResultSet resultSet) throws SQLException {
         ResultSetMetaData metaData = resultSet.getMetaData();
         int columnCount = metaData.getColumnCount();
 
-        ResultTable.Builder builder = createBuilder(metaData);
+        ColumnReader[] readers = new ColumnReader[columnCount];
+        for (int i = 0; i < columnCount; i++)
+            readers[i] = ColumnReader.forType(getColumnType(metaData, i+1));
+
+        ResultTable.Builder builder = createBuilder(metaData, columnar);
+
+        // Columnar builder copies the values from the row, so we can reuse the same row for all values.
+        Object[] row = columnar ? new Object[columnCount] : null;
+
         while (resultSet.next()) {
-            Object[] row = new Object[columnCount];
+            if (!columnar)
+                row = new Object[columnCount];
 
             for (int i = 0; i < columnCount; i++)
-                row[i] = resultSet.getObject(i+1);
+                row[i] = readers[i].read(resultSet, i+1);
 
             builder.addRow(asList(row));
         }
@@ -59,13 +80,13 @@ public final class ResultTableResultSetProcessor implements ResultSetProcessor<R
     }
 
     @NotNull
-    private static ResultTable.Builder createBuilder(@NotNull ResultSetMetaData metaData) throws SQLException {
+    private static ResultTable.Builder createBuilder(@NotNull ResultSetMetaData metaData, boolean columnar) throws SQLException {
         int columnCount = metaData.getColumnCount();
         ColumnMetadata[] result = new ColumnMetadata[columnCount];
 
         for (int i = 0; i < columnCount; i++)
             result[i] = new ColumnMetadata(i, metaData.getColumnLabel(i + 1), getColumnType(metaData, i+1), metaData.getColumnType(i+1), metaData.getColumnTypeName(i+1));
 
-        return ResultTable.builder(asList(result));
+        return columnar ? ResultTable.columnarBuilder(asList(result)) : ResultTable.builder(asList(result));
     }
 }
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred.internal.utils;
+
+import org.dalesbred.CacheStatistics;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A thread-safe cache that holds at most a given amount of entries.
+ * <p>
+ * Lookups are lock-free. When the cache is full, arbitrary entries are evicted to make room for new
+ * ones. The cached values are supposed to be cheap to recompute compared to the work they save, so
+ * we don't bother with maintaining access order.
+ */
+public final class BoundedCache<K, V> {
+
+    @NotNull
+    private final ConcurrentMap<K, V> entries = new ConcurrentHashMap<>();
+
+    private final int maxSize;
+
+    @NotNull
+    private final LongAdder hits = new LongAdder();
+
+    @NotNull
+    private final LongAdder misses = new LongAdder();
+
+    /** Incremented by {@link #clear()}, so that values computed before clearing are not stored after it */
+    private volatile long generation = 0;
+
+    public BoundedCache(int maxSize) {
+        if (maxSize <= 0) throw new IllegalArgumentException("maxSize must be positive, but was: " + maxSize);
+
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the cached value for given key, computing it with given function if it's not cached.
+     * <p>
+     * The function is evaluated outside any locks, so it may be called concurrently for the same key
+     * and it may call back to this cache. In case of a race, the first stored value wins. If the cache
+     * is cleared while the value is computed, the value is returned but not cached.
+     */
+    @NotNull
+    public V computeIfAbsent(@NotNull K key, @NotNull Function<? super K, ? extends V> function) {
+        V value = entries.get(key);
+        if (value != null) {
+            hits.increment();
+            return value;
+        }
+
+        misses.increment();
+
+        long startGeneration = generation;
+        V newValue = requireNonNull(function.apply(key));
+
+        if (entries.size() >= maxSize)
+            evict();
+
+        V existing = entries.putIfAbsent(key, newValue);
+        if (existing != null)
+            return existing;
+
+        // The value might depend on state that was invalidated by clearing the cache while it was computed
+        if (generation != startGeneration)
+            entries.remove(key, newValue);
+
+        return newValue;
+    }
+
+    @Nullable
+    public V get(@NotNull K key) {
+        V value = entries.get(key);
+        if (value != null)
+            hits.increment();
+        else
+            misses.increment();
+        return value;
+    }
+
+    public void put(@NotNull K key, @NotNull V value) {
+        if (entries.size() >= maxSize)
+            evict();
+
+        entries.put(key, value);
+    }
+
+    /**
+     * Removes all entries from the cache. Values that are being computed concurrently won't be cached.
+     */
+    public synchronized void clear() {
+        generation++;
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @NotNull
+    public CacheStatistics getStatistics() {
+        return new CacheStatistics(hits.sum(), misses.sum(), entries.size());
+    }
+
+    private void evict() {
+        // Free a quarter of the cache at once so that we don't end up evicting on every insert.
+        int targetSize = maxSize - Math.max(1, maxSize / 4);
+
+        for (Iterator<K> it = entries.keySet().iterator(); it.hasNext() && entries.size() > targetSize; ) {
+            it.next();
+            it.remove();
+        }
+    }
+}
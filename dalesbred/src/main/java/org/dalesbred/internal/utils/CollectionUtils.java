@@ -25,9 +25,11 @@ package org.dalesbred.internal.utils;
 import org.jetbrains.annotations.NotNull;
 
 import java.lang.reflect.Array;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.RandomAccess;
 import java.util.function.Function;
 import java.util.stream.Collector;
 
@@ -53,8 +55,64 @@ public final class CollectionUtils {
         return result;
     }
 
+    /**
+     * Returns an unmodifiable list view of given array. Values are boxed only when they are accessed.
+     */
+    @NotNull
+    public static List<Long> listView(@NotNull long[] values) {
+        return new LongArrayList(values);
+    }
+
+    /**
+     * Returns an unmodifiable list view of given array. Values are boxed only when they are accessed.
+     */
+    @NotNull
+    public static List<Integer> listView(@NotNull int[] values) {
+        return new IntArrayList(values);
+    }
+
     @NotNull
     private static <T> Collector<T, ?, ArrayList<T>> toListWithCapacity(int capacity) {
         return toCollection(() -> new ArrayList<>(capacity));
     }
+
+    private static final class LongArrayList extends AbstractList<Long> implements RandomAccess {
+
+        @NotNull
+        private final long[] values;
+
+        LongArrayList(@NotNull long[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public Long get(int index) {
+            return values[index];
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+    }
+
+    private static final class IntArrayList extends AbstractList<Integer> implements RandomAccess {
+
+        @NotNull
+        private final int[] values;
+
+        IntArrayList(@NotNull int[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public Integer get(int index) {
+            return values[index];
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+    }
 }
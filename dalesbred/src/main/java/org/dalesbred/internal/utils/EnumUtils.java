@@ -25,12 +25,18 @@ package org.dalesbred.internal.utils;
 import org.dalesbred.DatabaseException;
 import org.dalesbred.internal.instantiation.InstantiationFailureException;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.Objects;
+import java.lang.reflect.Array;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.function.Function;
 
 public final class EnumUtils {
 
+    /** Integer keys are considered dense if the largest one is at most this many times the amount of keys */
+    private static final int MAX_DENSE_KEY_FACTOR = 4;
+
     private EnumUtils() { }
 
     @NotNull
@@ -42,12 +48,66 @@ public final class EnumUtils {
             throw new DatabaseException("invalid ordinal " + ordinal + " for enum type " + enumType.getName());
     }
 
+    /**
+     * Returns a function that finds enum constants by keys produced by given key function. Constants are
+     * indexed when this method is called so that lookups take constant time and don't allocate. A key
+     * matches a constant if it {@link Object#equals(Object) equals} the key of the constant. If several
+     * constants have equal keys, the one declared first is returned. Keys that don't match any constant
+     * cause {@link InstantiationFailureException}.
+     */
     @NotNull
-    public static <T extends Enum<T>,K> T enumByKey(@NotNull Class<T> enumType, @NotNull Function<T, K> keyFunction, @NotNull K key) {
-        for (T enumConstant : enumType.getEnumConstants())
-            if (Objects.equals(key, keyFunction.apply(enumConstant)))
-                return enumConstant;
+    public static <T extends Enum<T>,K> Function<Object, T> enumKeyLookup(@NotNull Class<T> enumType, @NotNull Function<T, K> keyFunction) {
+        T[] constants = enumType.getEnumConstants();
+
+        Map<Object, T> constantsByKey = new HashMap<>(constants.length * 2);
+        for (T constant : constants)
+            constantsByKey.putIfAbsent(keyFunction.apply(constant), constant);
+
+        T[] constantsByIntKey = denseIntIndex(constantsByKey, enumType);
+
+        if (constantsByIntKey != null) {
+            return key -> {
+                if (key instanceof Integer) {
+                    int index = (Integer) key;
+                    if (index >= 0 && index < constantsByIntKey.length && constantsByIntKey[index] != null)
+                        return constantsByIntKey[index];
+                }
+                throw new InstantiationFailureException("could not find enum constant of type " + enumType.getName() + " for " + key);
+            };
+        } else {
+            return key -> {
+                T constant = constantsByKey.get(key);
+                if (constant != null)
+                    return constant;
+                else
+                    throw new InstantiationFailureException("could not find enum constant of type " + enumType.getName() + " for " + key);
+            };
+        }
+    }
+
+    /**
+     * If all the keys are small non-negative integers, returns an array where constants are indexed by keys.
+     * Otherwise returns null.
+     */
+    @Nullable
+    private static <T extends Enum<T>> T[] denseIntIndex(@NotNull Map<Object, T> constantsByKey, @NotNull Class<T> enumType) {
+        int max = -1;
+        for (Object key : constantsByKey.keySet()) {
+            if (!(key instanceof Integer))
+                return null;
+
+            int value = (Integer) key;
+            if (value < 0 || value > MAX_DENSE_KEY_FACTOR * constantsByKey.size())
+                return null;
+
+            max = Math.max(max, value);
+        }
+
+        @SuppressWarnings("unchecked")
+        T[] result = (T[]) Array.newInstance(enumType, max + 1);
+        for (Map.Entry<Object, T> entry : constantsByKey.entrySet())
+            result[(Integer) entry.getKey()] = entry.getValue();
 
-        throw new InstantiationFailureException("could not find enum constant of type " + enumType.getName() + " for " + key);
+        return result;
     }
 }
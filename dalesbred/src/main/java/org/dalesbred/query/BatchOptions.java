@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred.query;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Options controlling how batches read from an iterator or stream are divided into chunks that are
+ * sent to the database with a single {@link java.sql.PreparedStatement#executeBatch()}.
+ * <p>
+ * By default all chunks have the same size. With {@link #withAdaptiveChunkSize(long, int)} the
+ * size of subsequent chunks is tuned based on how long the previous chunks took to execute.
+ * <p>
+ * With {@link #withMultiRowInserts(boolean)} simple {@code INSERT ... VALUES (?, ...)} statements are
+ * rewritten to insert multiple rows with a single statement, if the dialect supports it.
+ * <p>
+ * Instances are immutable: all {@code withXXX}-methods return new instances.
+ *
+ * @see org.dalesbred.Database#updateBatch(String, java.util.Iterator, BatchOptions)
+ */
+public final class BatchOptions {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    /**
+     * Options that send chunks of {@value #DEFAULT_CHUNK_SIZE} rows.
+     */
+    @NotNull
+    public static final BatchOptions DEFAULT = chunkSize(DEFAULT_CHUNK_SIZE);
+
+    private final int chunkSize;
+
+    private final int maxChunkSize;
+
+    /** Desired execution time of a chunk in adaptive mode, or 0 if chunk size is fixed */
+    private final long targetChunkMillis;
+
+    private final boolean multiRowInserts;
+
+    private BatchOptions(int chunkSize, int maxChunkSize, long targetChunkMillis, boolean multiRowInserts) {
+        this.chunkSize = chunkSize;
+        this.maxChunkSize = maxChunkSize;
+        this.targetChunkMillis = targetChunkMillis;
+        this.multiRowInserts = multiRowInserts;
+    }
+
+    /**
+     * Returns options that send chunks of given size.
+     */
+    @NotNull
+    public static BatchOptions chunkSize(int chunkSize) {
+        if (chunkSize <= 0) throw new IllegalArgumentException("chunkSize must be positive, but was: " + chunkSize);
+
+        return new BatchOptions(chunkSize, chunkSize, 0, false);
+    }
+
+    /**
+     * Returns options that start with the chunk size of these options, but adjust the size of subsequent
+     * chunks so that executing a chunk takes roughly given amount of time, never exceeding given
+     * maximum chunk size.
+     */
+    @NotNull
+    public BatchOptions withAdaptiveChunkSize(long targetChunkMillis, int maxChunkSize) {
+        if (targetChunkMillis <= 0) throw new IllegalArgumentException("targetChunkMillis must be positive, but was: " + targetChunkMillis);
+        if (maxChunkSize < chunkSize) throw new IllegalArgumentException("maxChunkSize " + maxChunkSize + " is smaller than chunkSize " + chunkSize);
+
+        return new BatchOptions(chunkSize, maxChunkSize, targetChunkMillis, multiRowInserts);
+    }
+
+    /**
+     * Returns options that rewrite simple {@code INSERT ... VALUES (?, ...)} statements to statements
+     * inserting multiple rows with {@code VALUES (...), (...), ...}. Rewriting is only performed for
+     * statements that have no other parameters and when the dialect says that it's supported and
+     * beneficial, otherwise the statement is executed as a normal batch.
+     *
+     * @see org.dalesbred.dialect.Dialect#getMaxMultiRowInsertRows(int)
+     */
+    @NotNull
+    public BatchOptions withMultiRowInserts(boolean multiRowInserts) {
+        return new BatchOptions(chunkSize, maxChunkSize, targetChunkMillis, multiRowInserts);
+    }
+
+    /**
+     * Returns the size of chunks, or the size of the first chunk in adaptive mode.
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Returns the maximum size of chunks.
+     */
+    public int getMaxChunkSize() {
+        return maxChunkSize;
+    }
+
+    /**
+     * Returns true if the size of chunks is adjusted based on their execution time.
+     */
+    public boolean isAdaptive() {
+        return targetChunkMillis != 0;
+    }
+
+    /**
+     * Returns the desired execution time of a chunk in adaptive mode, or 0 if chunk size is fixed.
+     */
+    public long getTargetChunkMillis() {
+        return targetChunkMillis;
+    }
+
+    /**
+     * Returns true if simple inserts should be rewritten to multi-row inserts.
+     */
+    public boolean isMultiRowInserts() {
+        return multiRowInserts;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) return true;
+        if (obj instanceof BatchOptions) {
+            BatchOptions rhs = (BatchOptions) obj;
+            return chunkSize == rhs.chunkSize && maxChunkSize == rhs.maxChunkSize && targetChunkMillis == rhs.targetChunkMillis
+                    && multiRowInserts == rhs.multiRowInserts;
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return ((chunkSize * 31 + maxChunkSize) * 31 + Long.hashCode(targetChunkMillis)) * 31 + Boolean.hashCode(multiRowInserts);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("BatchOptions [chunkSize=").append(chunkSize);
+        if (isAdaptive())
+            sb.append(", maxChunkSize=").append(maxChunkSize).append(", targetChunkMillis=").append(targetChunkMillis);
+        if (multiRowInserts)
+            sb.append(", multiRowInserts=true");
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred.query;
+
+import org.dalesbred.internal.utils.ReflectionUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static java.lang.invoke.MethodType.methodType;
+import static java.lang.reflect.Modifier.isStatic;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Creates {@link VariableResolver}s for beans of a given class. Getters and fields for variables are
+ * looked up once per class and variable name, including variables that can't be resolved, so
+ * resolving values of subsequent beans only needs to invoke pre-linked method handles.
+ *
+ * @see VariableResolver#forBean(Object)
+ */
+public final class BeanVariableResolverFactory<T> {
+
+    /**
+     * Factories by bean class. Note that a cached factory references its bean class, so classes whose
+     * beans have been resolved stay reachable for as long as this class is loaded.
+     */
+    @NotNull
+    private static final ClassValue<BeanVariableResolverFactory<?>> factories = new ClassValue<BeanVariableResolverFactory<?>>() {
+        @Override
+        protected BeanVariableResolverFactory<?> computeValue(Class<?> type) {
+            return new BeanVariableResolverFactory<>(type);
+        }
+    };
+
+    @NotNull
+    private static final MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+    @NotNull
+    private final Class<T> beanClass;
+
+    @NotNull
+    private final ConcurrentMap<String, PropertyReader> readers = new ConcurrentHashMap<>();
+
+    private BeanVariableResolverFactory(@NotNull Class<T> beanClass) {
+        this.beanClass = beanClass;
+    }
+
+    /**
+     * Returns the factory for beans of given class.
+     */
+    @NotNull
+    @SuppressWarnings("unchecked")
+    public static <T> BeanVariableResolverFactory<T> forClass(@NotNull Class<T> beanClass) {
+        return (BeanVariableResolverFactory<T>) factories.get(requireNonNull(beanClass));
+    }
+
+    /**
+     * Returns a resolver that resolves variables from the getters and public fields of given bean.
+     */
+    @NotNull
+    public VariableResolver resolverFor(@NotNull T bean) {
+        return createResolver(requireNonNull(bean));
+    }
+
+    @NotNull
+    static VariableResolver resolverForBean(@NotNull Object bean) {
+        return forClass(bean.getClass()).createResolver(bean);
+    }
+
+    @NotNull
+    private VariableResolver createResolver(@NotNull Object bean) {
+        return variable -> findReader(variable).read(bean, variable);
+    }
+
+    @NotNull
+    PropertyReader findReader(@NotNull String variable) {
+        // Try plain get first, since computeIfAbsent locks on Java 8 even if the value is present
+        PropertyReader reader = readers.get(variable);
+        return reader != null ? reader : readers.computeIfAbsent(variable, this::createReader);
+    }
+
+    @NotNull
+    private PropertyReader createReader(@NotNull String variable) {
+        Method getter = ReflectionUtils.findGetter(beanClass, variable).orElse(null);
+        if (getter != null)
+            return handleReader(getterHandle(getter), variable);
+
+        Field field = ReflectionUtils.findField(beanClass, variable).orElse(null);
+        if (field != null)
+            return handleReader(fieldHandle(field), variable);
+
+        return (bean, name) -> {
+            throw new VariableResolutionException("No accessor found for '" + name + '\'');
+        };
+    }
+
+    /**
+     * Returns a handle for getter, or null if it can't be accessed. Non-static getters are looked up
+     * through the bean class instead of the declaring class so that public getters inherited from
+     * non-public classes remain accessible.
+     */
+    @Nullable
+    private MethodHandle getterHandle(@NotNull Method getter) {
+        try {
+            if (isStatic(getter.getModifiers()))
+                return MethodHandles.dropArguments(lookup.unreflect(getter), 0, Object.class);
+
+            return lookup.findVirtual(beanClass, getter.getName(), methodType(getter.getReturnType()));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    @Nullable
+    private MethodHandle fieldHandle(@NotNull Field field) {
+        try {
+            if (isStatic(field.getModifiers()))
+                return MethodHandles.dropArguments(lookup.unreflectGetter(field), 0, Object.class);
+
+            return lookup.findGetter(beanClass, field.getName(), field.getType());
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    @NotNull
+    private static PropertyReader handleReader(@Nullable MethodHandle handle, @NotNull String variable) {
+        if (handle == null)
+            return (bean, name) -> {
+                throw new VariableResolutionException("Could not access variable'" + name + '\'');
+            };
+
+        MethodHandle adapted = handle.asType(methodType(Object.class, Object.class));
+        return (bean, name) -> {
+            try {
+                return adapted.invokeExact(bean);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new VariableResolutionException("Failed to resolve variable '" + name + "': " + e, e);
+            }
+        };
+    }
+
+    @FunctionalInterface
+    interface PropertyReader {
+        @Nullable
+        Object read(@NotNull Object bean, @NotNull String variable);
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred.query;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Extracts the values of parameters of a {@link NamedQuery} from rows of a given type. The accessors
+ * for parameters are resolved when the plan is created, so that binding a row only needs to invoke
+ * them, making plans suitable for binding large batches.
+ *
+ * @see NamedQuery#bindingPlanForBeans(Class)
+ * @see NamedQuery#bindingPlanForMaps()
+ */
+public final class BindingPlan<T> {
+
+    @NotNull
+    private final List<String> parameterNames;
+
+    @NotNull
+    private final List<ArgumentReader<T>> readers;
+
+    private BindingPlan(@NotNull List<String> parameterNames, @NotNull List<ArgumentReader<T>> readers) {
+        this.parameterNames = parameterNames;
+        this.readers = readers;
+    }
+
+    @NotNull
+    static <T> BindingPlan<T> forBeans(@NotNull Class<T> beanClass, @NotNull List<String> parameterNames) {
+        BeanVariableResolverFactory<T> factory = BeanVariableResolverFactory.forClass(beanClass);
+        List<ArgumentReader<T>> readers = new ArrayList<>(parameterNames.size());
+
+        for (String name : parameterNames) {
+            BeanVariableResolverFactory.PropertyReader reader = factory.findReader(name);
+            readers.add(bean -> reader.read(bean, name));
+        }
+
+        return new BindingPlan<>(parameterNames, readers);
+    }
+
+    @NotNull
+    static BindingPlan<Map<String, ?>> forMaps(@NotNull List<String> parameterNames) {
+        List<ArgumentReader<Map<String, ?>>> readers = new ArrayList<>(parameterNames.size());
+
+        for (String name : parameterNames) {
+            readers.add(map -> {
+                Object value = map.get(name);
+                if (value != null || map.containsKey(name))
+                    return value;
+                else
+                    throw new VariableResolutionException("No value registered for key '" + name + '\'');
+            });
+        }
+
+        return new BindingPlan<>(parameterNames, readers);
+    }
+
+    /**
+     * Returns the amount of positional parameters in the query.
+     */
+    public int getParameterCount() {
+        return readers.size();
+    }
+
+    /**
+     * Returns the value of parameter at given zero-based index for given row.
+     *
+     * @throws VariableResolutionException if the value can't be resolved
+     */
+    @Nullable
+    public Object getArgument(@NotNull T row, int index) {
+        return readers.get(index).read(row);
+    }
+
+    @Override
+    public String toString() {
+        return "BindingPlan " + parameterNames;
+    }
+
+    @FunctionalInterface
+    private interface ArgumentReader<T> {
+        @Nullable
+        Object read(@NotNull T row);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred.query;
+
+import org.dalesbred.datatype.SqlArray;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+import static org.dalesbred.internal.utils.CollectionUtils.listView;
+
+/**
+ * A set of ids to match against in a query. Unlike a list of placeholders, the SQL generated for
+ * id sets does not depend on the exact amount of ids, so large sets don't hit parameter limits
+ * and statements can be cached.
+ *
+ * @see org.dalesbred.Database#idSetCondition(String, IdSet)
+ */
+public final class IdSet {
+
+    /** Database type of the ids */
+    @NotNull
+    private final String sqlType;
+
+    @NotNull
+    private final List<?> ids;
+
+    private IdSet(@NotNull String sqlType, @NotNull List<?> ids) {
+        this.sqlType = requireNonNull(sqlType);
+        this.ids = ids;
+    }
+
+    /**
+     * Constructs a set of ids of given database type.
+     */
+    @NotNull
+    public static IdSet of(@NotNull String sqlType, @NotNull Collection<?> ids) {
+        return new IdSet(sqlType, unmodifiableList(new ArrayList<>(ids)));
+    }
+
+    /**
+     * Constructs a set of bigint ids.
+     */
+    @NotNull
+    public static IdSet ofLongs(@NotNull long... ids) {
+        return new IdSet("bigint", listView(ids.clone()));
+    }
+
+    /**
+     * Constructs a set of integer ids.
+     */
+    @NotNull
+    public static IdSet ofInts(@NotNull int... ids) {
+        return new IdSet("integer", listView(ids.clone()));
+    }
+
+    /**
+     * Returns the database type of the ids.
+     */
+    @NotNull
+    public String getSqlType() {
+        return sqlType;
+    }
+
+    /**
+     * Returns the ids of this set.
+     */
+    @NotNull
+    public List<?> getIds() {
+        return ids;
+    }
+
+    public int size() {
+        return ids.size();
+    }
+
+    public boolean isEmpty() {
+        return ids.isEmpty();
+    }
+
+    /**
+     * Returns the ids as an array that can be bound as a single parameter.
+     */
+    @NotNull
+    public SqlArray toSqlArray() {
+        return SqlArray.of(sqlType, ids);
+    }
+
+    @Override
+    public String toString() {
+        return "IdSet[type=" + sqlType + ", size=" + ids.size() + ']';
+    }
+}
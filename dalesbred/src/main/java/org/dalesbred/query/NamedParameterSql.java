@@ -24,7 +24,6 @@ package org.dalesbred.query;
 
 import org.dalesbred.annotation.SQL;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.TestOnly;
 
 import java.util.List;
 
@@ -56,13 +55,11 @@ final class NamedParameterSql {
 
     @NotNull
     @SQL
-    @TestOnly
     String getSql() {
         return sql;
     }
 
     @NotNull
-    @TestOnly
     public List<String> getParameterNames() {
         return parameterNames;
     }
@@ -24,146 +24,201 @@ package org.dalesbred.query;
 
 import org.dalesbred.annotation.SQL;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
+import static java.util.Collections.unmodifiableList;
 import static java.util.Objects.requireNonNull;
 
+/**
+ * Single-pass scanner that replaces named parameters with positional placeholders.
+ * <p>
+ * Literals, quoted identifiers, casts and comments are skipped without looking into them. The parts of
+ * SQL between parameters are copied in bulk, so SQL without parameters is returned without copying it.
+ */
 final class NamedParameterSqlParser {
 
-    /** The various patterns we need to skip combined to single regex so that it will be executed at once */
-    private static final Pattern SKIP_PATTERN = Pattern.compile("('[^']*'|\"[^\"]*\"|::|--[^\n]*)");
-
-    private static final Pattern IDENTIFIER_PATTERN = Pattern.compile("\\w+");
-
     @NotNull
-    private final Lexer lexer;
-    private final StringBuilder sqlBuilder;
-    private final List<String> parameterNames = new ArrayList<>();
+    @SQL
+    private final String sql;
 
-    private NamedParameterSqlParser(@SQL @NotNull String sql) {
-        this.lexer = new Lexer(sql);
-        this.sqlBuilder = new StringBuilder(sql.length());
+    private final int length;
+
+    private NamedParameterSqlParser(@NotNull @SQL String sql) {
+        this.sql = sql;
+        this.length = sql.length();
     }
 
     @NotNull
     public static NamedParameterSql parseSqlStatement(@NotNull @SQL String sql) {
-        NamedParameterSqlParser parser = new NamedParameterSqlParser(requireNonNull(sql));
-
-        while (parser.lexer.hasMore())
-            parser.parseNext();
-
-        return new NamedParameterSql(parser.sqlBuilder.toString(), parser.parameterNames);
+        return new NamedParameterSqlParser(requireNonNull(sql)).parse();
     }
 
-    private void parseNext() {
-        CharSequence skipped = lexer.readRegexp(SKIP_PATTERN);
-        if (skipped != null) {
-            sqlBuilder.append(skipped);
-
-        } else if (lexer.lookingAt("/*")) {
-            sqlBuilder.append(readUntil("*/"));
-
-        } else if (lexer.lookingAt(":")) {
-            sqlBuilder.append('?');
-            parameterNames.add(parseName());
+    @NotNull
+    private NamedParameterSql parse() {
+        List<String> parameterNames = new ArrayList<>();
+        StringBuilder sqlBuilder = null;
+        int spanStart = 0;
+        int offset = 0;
+
+        while (offset < length) {
+            char c = sql.charAt(offset);
+            switch (c) {
+                case '\'':
+                    offset = isEscapeStringPrefix(offset) ? skipEscapeString(offset) : skipQuoted(offset, '\'');
+                    break;
+                case '"':
+                    offset = skipQuoted(offset, '"');
+                    break;
+                case '-':
+                    offset = lookingAt(offset + 1, '-') ? skipLineComment(offset) : offset + 1;
+                    break;
+                case '/':
+                    offset = lookingAt(offset + 1, '*') ? skipBlockComment(offset) : offset + 1;
+                    break;
+                case '$':
+                    offset = skipDollarQuoted(offset);
+                    break;
+                case ':':
+                    if (lookingAt(offset + 1, ':')) {
+                        offset += 2;
+                        break;
+                    }
+
+                    int nameEnd = skipWordCharacters(offset + 1);
+                    if (nameEnd == offset + 1)
+                        throw new SqlSyntaxException("SQL cannot end to named parameter without name", sql);
+
+                    if (sqlBuilder == null)
+                        sqlBuilder = new StringBuilder(length);
+
+                    sqlBuilder.append(sql, spanStart, offset).append('?');
+                    parameterNames.add(sql.substring(offset + 1, nameEnd));
+                    offset = spanStart = nameEnd;
+                    break;
+                case '?':
+                    throw new SqlSyntaxException("SQL cannot contain traditional ? placeholders.", sql);
+                default:
+                    offset++;
+            }
+        }
 
-        } else if (lexer.lookingAt("?")) {
-            throw new SqlSyntaxException("SQL cannot contain traditional ? placeholders.", lexer.sql);
+        if (sqlBuilder == null)
+            return new NamedParameterSql(sql, unmodifiableList(parameterNames));
 
-        } else {
-            sqlBuilder.append(lexer.readChar());
-        }
+        sqlBuilder.append(sql, spanStart, length);
+        return new NamedParameterSql(sqlBuilder.toString(), unmodifiableList(parameterNames));
     }
 
-    @NotNull
-    private String parseName() {
-        lexer.expect(":");
-        CharSequence name = lexer.readRegexp(IDENTIFIER_PATTERN);
-        if (name != null)
-            return name.toString();
-        else
-            throw new SqlSyntaxException("SQL cannot end to named parameter without name", lexer.sql);
+    /**
+     * Skips a literal or quoted identifier starting at given offset. If the literal is not terminated,
+     * only the quote is skipped and the rest is processed as normal SQL.
+     */
+    private int skipQuoted(int start, char quote) {
+        int end = sql.indexOf(quote, start + 1);
+        return end != -1 ? end + 1 : start + 1;
     }
 
-    @NotNull
-    public String readUntil(@NotNull String end) {
-        int startOffset = lexer.offset;
+    /**
+     * Skips PostgreSQL escape string (e.g. {@code E'it\'s'}), where backslash escapes the next character.
+     */
+    private int skipEscapeString(int start) {
+        for (int i = start + 1; i < length; i++) {
+            char c = sql.charAt(i);
+            if (c == '\\')
+                i++;
+            else if (c == '\'')
+                return i + 1;
+        }
+        return start + 1;
+    }
 
-        int nextHit = lexer.findNext(end);
-        if (nextHit != -1)
-            lexer.offset = nextHit + end.length();
-        else
-            throw new SqlSyntaxException("Block end not found: \"" + end + "\".", lexer.sql);
+    private boolean isEscapeStringPrefix(int quoteOffset) {
+        if (quoteOffset == 0)
+            return false;
 
-        return lexer.sql.substring(startOffset, lexer.offset);
+        char prefix = sql.charAt(quoteOffset - 1);
+        return (prefix == 'E' || prefix == 'e') && (quoteOffset == 1 || !isIdentifierPart(sql.charAt(quoteOffset - 2)));
     }
 
-    private static final class Lexer implements CharSequence {
-        private final String sql;
-        private int offset;
-
-        public Lexer(String sql) {
-            this.sql = sql;
-        }
+    private int skipLineComment(int start) {
+        int end = sql.indexOf('\n', start + 2);
+        return end != -1 ? end : length;
+    }
 
-        private boolean hasMore() {
-            return offset < sql.length();
+    /**
+     * Skips a block comment, which may contain nested block comments. Nesting follows PostgreSQL and SQL Server;
+     * databases that end comments at the first closing delimiter (e.g. MySQL and Oracle) may see a different
+     * comment boundary if comments contain opening delimiters.
+     */
+    private int skipBlockComment(int start) {
+        int depth = 1;
+        int i = start + 2;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (c == '*' && lookingAt(i + 1, '/')) {
+                i += 2;
+                if (--depth == 0)
+                    return i;
+            } else if (c == '/' && lookingAt(i + 1, '*')) {
+                i += 2;
+                depth++;
+            } else {
+                i++;
+            }
         }
 
-        private boolean lookingAt(@NotNull String prefix) {
-            return sql.startsWith(prefix, offset);
-        }
+        throw new SqlSyntaxException("Block end not found: \"*/\".", sql);
+    }
 
-        private void expect(@NotNull String prefix) {
-            if (lookingAt(prefix))
-                offset += prefix.length();
-            else
-                throw new SqlSyntaxException("expected '" + prefix + '\'', sql);
+    /**
+     * Skips PostgreSQL dollar-quoted string (e.g. {@code $$text$$} or {@code $tag$text$tag$}). If the dollar
+     * does not start a terminated dollar-quoted string (e.g. it's part of an identifier or positional parameter),
+     * only the dollar is skipped.
+     */
+    private int skipDollarQuoted(int start) {
+        if (start > 0 && isIdentifierPart(sql.charAt(start - 1)))
+            return start + 1;
+
+        int tagEnd = start + 1;
+        if (tagEnd < length && isIdentifierStart(sql.charAt(tagEnd))) {
+            tagEnd++;
+            while (tagEnd < length && isIdentifierPart(sql.charAt(tagEnd)) && sql.charAt(tagEnd) != '$')
+                tagEnd++;
         }
 
-        @Nullable
-        private CharSequence readRegexp(@NotNull Pattern pattern) {
-            Matcher matcher = pattern.matcher(this);
-            if (matcher.lookingAt()) {
-                CharSequence result = subSequence(0, matcher.end());
-                offset += result.length();
-                return result;
-            } else {
-                return null;
-            }
-        }
+        if (!lookingAt(tagEnd, '$'))
+            return start + 1;
 
-        @Override
-        public int length() {
-            return sql.length() - offset;
-        }
+        String tag = sql.substring(start, tagEnd + 1);
+        int end = sql.indexOf(tag, tagEnd + 1);
+        return end != -1 ? end + tag.length() : start + 1;
+    }
 
-        @Override
-        public char charAt(int index) {
-            return sql.charAt(offset + index);
-        }
+    /**
+     * Returns the offset of first character that is not a word character (as in {@code \w} of regular expressions).
+     */
+    private int skipWordCharacters(int start) {
+        int i = start;
+        while (i < length && isWordCharacter(sql.charAt(i)))
+            i++;
+        return i;
+    }
 
-        @Override
-        public CharSequence subSequence(int start, int end) {
-            return sql.substring(offset + start, offset + end);
-        }
+    private boolean lookingAt(int offset, char c) {
+        return offset < length && sql.charAt(offset) == c;
+    }
 
-        @Override
-        public String toString() {
-            return sql.substring(offset);
-        }
+    private static boolean isWordCharacter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
 
-        private int findNext(@NotNull String substring) {
-            return sql.indexOf(substring, offset);
-        }
+    private static boolean isIdentifierStart(char c) {
+        return Character.isLetter(c) || c == '_';
+    }
 
-        public char readChar() {
-            return sql.charAt(offset++);
-        }
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
     }
 }
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred.query;
+
+import org.dalesbred.CacheStatistics;
+import org.dalesbred.annotation.SQL;
+import org.dalesbred.internal.utils.BoundedCache;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.TestOnly;
+
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A parsed query with named parameters. The named parameters have been replaced by positional
+ * placeholders, so binding values only needs to resolve them. Instances are immutable and can be
+ * stored in constants and shared between threads.
+ *
+ * @see SqlQuery#namedQuery(String, VariableResolver)
+ */
+public final class NamedQuery {
+
+    private static final int PARSE_CACHE_SIZE = 1000;
+
+    /**
+     * Parsed queries by their original SQL. Applications typically use a limited set of constant
+     * SQL strings, so parsing each of them once saves most of the work of named queries.
+     */
+    @NotNull
+    private static final BoundedCache<String, NamedQuery> parseCache = new BoundedCache<>(PARSE_CACHE_SIZE);
+
+    @NotNull
+    private final NamedParameterSql namedParameterSql;
+
+    private NamedQuery(@NotNull NamedParameterSql namedParameterSql) {
+        this.namedParameterSql = namedParameterSql;
+    }
+
+    /**
+     * Parses given SQL with named parameters prefixed by colon, e.g. ":argument". Results of parsing
+     * are cached, so calling this repeatedly with the same SQL is cheap.
+     *
+     * @throws SqlSyntaxException if SQL is malformed
+     */
+    @NotNull
+    public static NamedQuery parse(@NotNull @SQL String sql) {
+        return parseCache.computeIfAbsent(sql, s -> new NamedQuery(NamedParameterSqlParser.parseSqlStatement(s)));
+    }
+
+    /**
+     * Creates a query from SQL that has already been parsed. The SQL must contain one positional
+     * placeholder for each of the parameter names, in the same order. This is used by code generated
+     * by {@code dalesbred-processor} and normally applications should use {@link #parse(String)} instead.
+     */
+    @NotNull
+    public static NamedQuery precompiled(@NotNull @SQL String positionalSql, @NotNull String... parameterNames) {
+        return new NamedQuery(new NamedParameterSql(requireNonNull(positionalSql), unmodifiableList(asList(parameterNames.clone()))));
+    }
+
+    /**
+     * Creates an executable query by resolving the values of parameters using given resolver.
+     *
+     * @throws VariableResolutionException if variableResolver can't provide values for named parameters
+     */
+    @NotNull
+    public SqlQuery bind(@NotNull VariableResolver variableResolver) {
+        return namedParameterSql.toQuery(variableResolver);
+    }
+
+    /**
+     * Creates an executable query using given map for resolving the values of parameters.
+     *
+     * @see VariableResolver#forMap(Map)
+     */
+    @NotNull
+    public SqlQuery bind(@NotNull Map<String, ?> valueMap) {
+        return bind(VariableResolver.forMap(valueMap));
+    }
+
+    /**
+     * Creates an executable query using the properties/fields of given bean for resolving the values of parameters.
+     *
+     * @see VariableResolver#forBean(Object)
+     */
+    @NotNull
+    public SqlQuery bind(@NotNull Object bean) {
+        return bind(VariableResolver.forBean(bean));
+    }
+
+    /**
+     * Returns a plan for extracting the values of parameters from beans of given class. The getters
+     * and fields of the class are looked up immediately, so the plan can be used to bind many beans cheaply.
+     *
+     * @see VariableResolver#forBean(Object)
+     */
+    @NotNull
+    public <T> BindingPlan<T> bindingPlanForBeans(@NotNull Class<T> beanClass) {
+        return BindingPlan.forBeans(beanClass, getParameterNames());
+    }
+
+    /**
+     * Returns a plan for extracting the values of parameters from maps.
+     *
+     * @see VariableResolver#forMap(Map)
+     */
+    @NotNull
+    public BindingPlan<Map<String, ?>> bindingPlanForMaps() {
+        return BindingPlan.forMaps(getParameterNames());
+    }
+
+    /**
+     * Returns the SQL with named parameters replaced by positional placeholders.
+     */
+    @NotNull
+    @SQL
+    public String getSql() {
+        return namedParameterSql.getSql();
+    }
+
+    /**
+     * Returns the names of parameters in the order of their placeholders.
+     */
+    @NotNull
+    public List<String> getParameterNames() {
+        return namedParameterSql.getParameterNames();
+    }
+
+    @NotNull
+    @TestOnly
+    static CacheStatistics getParseCacheStatistics() {
+        return parseCache.getStatistics();
+    }
+
+    @Override
+    public String toString() {
+        return getSql() + " " + getParameterNames();
+    }
+}
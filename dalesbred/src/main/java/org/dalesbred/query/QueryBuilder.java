@@ -44,6 +44,9 @@ public final class QueryBuilder {
     /** Placeholder to be used in queries for values */
     public static final String PLACEHOLDER = "?";
 
+    /** Minimum amount of placeholders added by {@link #appendPaddedPlaceholders(Collection)} */
+    public static final int MIN_PADDED_PLACEHOLDERS = 8;
+
     /** The SQL query gathered so far */
     private final StringBuilder query = new StringBuilder(100);
 
@@ -120,6 +123,28 @@ public final class QueryBuilder {
         return this;
     }
 
+    /**
+     * Adds comma-separated place-holders for given values and adds the values as arguments. To reduce the
+     * amount of distinct statements, the amount of place-holders is padded to the next power of two, with
+     * a minimum of {@value #MIN_PADDED_PLACEHOLDERS}, by repeating the last value. This is suitable for
+     * {@code IN}-lists, where repeated values don't change the result. There must be at least 1 value.
+     */
+    @NotNull
+    public QueryBuilder appendPaddedPlaceholders(@NotNull Collection<?> values) {
+        int count = values.size();
+        if (count == 0) throw new IllegalArgumentException("no values for placeholders");
+
+        int paddedCount = Math.max(MIN_PADDED_PLACEHOLDERS, Integer.highestOneBit(count - 1) << 1);
+        appendPlaceholders(paddedCount);
+        addArguments(values);
+
+        Object last = arguments.get(arguments.size() - 1);
+        for (int i = count; i < paddedCount; i++)
+            arguments.add(last);
+
+        return this;
+    }
+
     /**
      * Adds an argument to this query.
      */
@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred.query;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Options controlling how a query is executed, e.g. how many rows are fetched from the database at once.
+ * <p>
+ * Options can be attached to individual queries using {@link SqlQuery#withOptions(QueryOptions)} and
+ * database-wide defaults can be configured with
+ * {@link org.dalesbred.Database#setDefaultQueryOptions(QueryOptions)}. Options that are not specified
+ * for a query are taken from the defaults and options not specified there use the defaults of the driver.
+ * <p>
+ * Instances are immutable: all {@code withXXX}-methods return new instances.
+ */
+public final class QueryOptions implements Serializable {
+
+    /**
+     * Options that don't specify anything and therefore use the defaults of the driver.
+     */
+    @NotNull
+    public static final QueryOptions DEFAULT = new QueryOptions(null, null, null, null, null, null, null);
+
+    @Nullable
+    private final Integer fetchSize;
+
+    @Nullable
+    private final Integer maxRows;
+
+    @Nullable
+    private final Integer queryTimeout;
+
+    @Nullable
+    private final Integer fetchDirection;
+
+    @Nullable
+    private final Integer resultSetType;
+
+    @Nullable
+    private final Integer resultSetHoldability;
+
+    @Nullable
+    private final Boolean streaming;
+
+    private static final long serialVersionUID = 1;
+
+    private QueryOptions(@Nullable Integer fetchSize,
+                         @Nullable Integer maxRows,
+                         @Nullable Integer queryTimeout,
+                         @Nullable Integer fetchDirection,
+                         @Nullable Integer resultSetType,
+                         @Nullable Integer resultSetHoldability,
+                         @Nullable Boolean streaming) {
+        this.fetchSize = fetchSize;
+        this.maxRows = maxRows;
+        this.queryTimeout = queryTimeout;
+        this.fetchDirection = fetchDirection;
+        this.resultSetType = resultSetType;
+        this.resultSetHoldability = resultSetHoldability;
+        this.streaming = streaming;
+    }
+
+    /**
+     * Returns options that fetch given amount of rows from the database at a time.
+     *
+     * @see java.sql.Statement#setFetchSize(int)
+     */
+    @NotNull
+    public QueryOptions withFetchSize(int fetchSize) {
+        if (fetchSize < 0) throw new IllegalArgumentException("negative fetchSize: " + fetchSize);
+        return new QueryOptions(fetchSize, maxRows, queryTimeout, fetchDirection, resultSetType, resultSetHoldability, streaming);
+    }
+
+    /**
+     * Returns options that limit the amount of rows returned to given value. Zero means no limit.
+     *
+     * @see java.sql.Statement#setMaxRows(int)
+     */
+    @NotNull
+    public QueryOptions withMaxRows(int maxRows) {
+        if (maxRows < 0) throw new IllegalArgumentException("negative maxRows: " + maxRows);
+        return new QueryOptions(fetchSize, maxRows, queryTimeout, fetchDirection, resultSetType, resultSetHoldability, streaming);
+    }
+
+    /**
+     * Returns options that limit the execution time of queries to given amount of seconds. Zero means no limit.
+     *
+     * @see java.sql.Statement#setQueryTimeout(int)
+     */
+    @NotNull
+    public QueryOptions withQueryTimeout(int seconds) {
+        if (seconds < 0) throw new IllegalArgumentException("negative queryTimeout: " + seconds);
+        return new QueryOptions(fetchSize, maxRows, seconds, fetchDirection, resultSetType, resultSetHoldability, streaming);
+    }
+
+    /**
+     * Returns options with given fetch direction hint.
+     *
+     * @param fetchDirection one of {@link java.sql.ResultSet#FETCH_FORWARD}, {@link java.sql.ResultSet#FETCH_REVERSE}
+     *                       or {@link java.sql.ResultSet#FETCH_UNKNOWN}
+     * @see java.sql.Statement#setFetchDirection(int)
+     */
+    @NotNull
+    public QueryOptions withFetchDirection(int fetchDirection) {
+        return new QueryOptions(fetchSize, maxRows, queryTimeout, fetchDirection, resultSetType, resultSetHoldability, streaming);
+    }
+
+    /**
+     * Returns options with given result set type.
+     *
+     * @param resultSetType one of {@link java.sql.ResultSet#TYPE_FORWARD_ONLY},
+     *                      {@link java.sql.ResultSet#TYPE_SCROLL_INSENSITIVE} or
+     *                      {@link java.sql.ResultSet#TYPE_SCROLL_SENSITIVE}
+     */
+    @NotNull
+    public QueryOptions withResultSetType(int resultSetType) {
+        return new QueryOptions(fetchSize, maxRows, queryTimeout, fetchDirection, resultSetType, resultSetHoldability, streaming);
+    }
+
+    /**
+     * Returns options with given result set holdability.
+     *
+     * @param resultSetHoldability either {@link java.sql.ResultSet#HOLD_CURSORS_OVER_COMMIT} or
+     *                             {@link java.sql.ResultSet#CLOSE_CURSORS_AT_COMMIT}
+     */
+    @NotNull
+    public QueryOptions withResultSetHoldability(int resultSetHoldability) {
+        return new QueryOptions(fetchSize, maxRows, queryTimeout, fetchDirection, resultSetType, resultSetHoldability, streaming);
+    }
+
+    /**
+     * Returns options that ask the database to stream the results using server-side cursors (or whatever
+     * mechanism the database has for it) instead of reading the whole result into memory at once.
+     * The exact mechanism depends on the {@link org.dalesbred.dialect.Dialect}.
+     */
+    @NotNull
+    public QueryOptions withStreaming(boolean streaming) {
+        return new QueryOptions(fetchSize, maxRows, queryTimeout, fetchDirection, resultSetType, resultSetHoldability, streaming);
+    }
+
+    /**
+     * Returns new options where the unspecified options of this object are taken from given defaults.
+     */
+    @NotNull
+    public QueryOptions withDefaults(@NotNull QueryOptions defaults) {
+        return new QueryOptions(
+                fetchSize != null ? fetchSize : defaults.fetchSize,
+                maxRows != null ? maxRows : defaults.maxRows,
+                queryTimeout != null ? queryTimeout : defaults.queryTimeout,
+                fetchDirection != null ? fetchDirection : defaults.fetchDirection,
+                resultSetType != null ? resultSetType : defaults.resultSetType,
+                resultSetHoldability != null ? resultSetHoldability : defaults.resultSetHoldability,
+                streaming != null ? streaming : defaults.streaming);
+    }
+
+    @Nullable
+    public Integer getFetchSize() {
+        return fetchSize;
+    }
+
+    @Nullable
+    public Integer getMaxRows() {
+        return maxRows;
+    }
+
+    @Nullable
+    public Integer getQueryTimeout() {
+        return queryTimeout;
+    }
+
+    @Nullable
+    public Integer getFetchDirection() {
+        return fetchDirection;
+    }
+
+    @Nullable
+    public Integer getResultSetType() {
+        return resultSetType;
+    }
+
+    @Nullable
+    public Integer getResultSetHoldability() {
+        return resultSetHoldability;
+    }
+
+    public boolean isStreaming() {
+        return streaming != null && streaming;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) return true;
+
+        if (obj instanceof QueryOptions) {
+            QueryOptions rhs = (QueryOptions) obj;
+            return Objects.equals(fetchSize, rhs.fetchSize)
+                    && Objects.equals(maxRows, rhs.maxRows)
+                    && Objects.equals(queryTimeout, rhs.queryTimeout)
+                    && Objects.equals(fetchDirection, rhs.fetchDirection)
+                    && Objects.equals(resultSetType, rhs.resultSetType)
+                    && Objects.equals(resultSetHoldability, rhs.resultSetHoldability)
+                    && Objects.equals(streaming, rhs.streaming);
+        }
+
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(fetchSize, maxRows, queryTimeout, fetchDirection, resultSetType, resultSetHoldability, streaming);
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+        return "QueryOptions [fetchSize=" + fetchSize + ", maxRows=" + maxRows + ", queryTimeout=" + queryTimeout +
+                ", fetchDirection=" + fetchDirection + ", resultSetType=" + resultSetType +
+                ", resultSetHoldability=" + resultSetHoldability + ", streaming=" + streaming + ']';
+    }
+}
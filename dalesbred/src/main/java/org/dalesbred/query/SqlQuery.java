@@ -46,11 +46,19 @@ public final class SqlQuery implements Serializable {
     @NotNull
     private final List<?> args;
 
+    @NotNull
+    private final QueryOptions options;
+
     private static final long serialVersionUID = 1;
 
     private SqlQuery(@NotNull @SQL String sql, @NotNull List<?> args) {
+        this(sql, args, QueryOptions.DEFAULT);
+    }
+
+    private SqlQuery(@NotNull @SQL String sql, @NotNull List<?> args, @NotNull QueryOptions options) {
         this.sql = requireNonNull(sql);
         this.args = unmodifiableList(args);
+        this.options = requireNonNull(options);
     }
 
     /**
@@ -94,14 +102,16 @@ public final class SqlQuery implements Serializable {
 
     /**
      * Creates a new {@link SqlQuery} consisting of given SQL statement and a provider for named arguments.
-     * The argument names in SQL should be prefixed by a colon, e.g. ":argument".
+     * The argument names in SQL should be prefixed by a colon, e.g. ":argument". The parsed form of SQL
+     * is cached, so only the values of arguments need to be resolved when the same SQL is used again.
      *
      * @throws SqlSyntaxException if SQL is malformed
      * @throws VariableResolutionException if variableResolver can't provide values for named parameters
+     * @see NamedQuery
      */
     @NotNull
     public static SqlQuery namedQuery(@NotNull @SQL String sql, @NotNull VariableResolver variableResolver) {
-        return NamedParameterSqlParser.parseSqlStatement(sql).toQuery(variableResolver);
+        return NamedQuery.parse(sql).bind(variableResolver);
     }
 
     /**
@@ -121,6 +131,31 @@ public final class SqlQuery implements Serializable {
         return args;
     }
 
+    /**
+     * Returns the execution options of this query.
+     */
+    @NotNull
+    public QueryOptions getOptions() {
+        return options;
+    }
+
+    /**
+     * Returns a copy of this query with given execution options.
+     */
+    @NotNull
+    public SqlQuery withOptions(@NotNull QueryOptions options) {
+        return new SqlQuery(sql, args, options);
+    }
+
+    /**
+     * Queries serialized before options were introduced don't have them, so use defaults for those.
+     */
+    @NotNull
+    private Object readResolve() {
+        //noinspection ConstantConditions
+        return (options != null) ? this : new SqlQuery(sql, args);
+    }
+
     @NotNull
     @Override
     public String toString() {
@@ -145,7 +180,7 @@ public final class SqlQuery implements Serializable {
 
         if (obj instanceof SqlQuery) {
             SqlQuery rhs = (SqlQuery) obj;
-            return sql.equals(rhs.sql) && args.equals(rhs.args);
+            return sql.equals(rhs.sql) && args.equals(rhs.args) && options.equals(rhs.options);
         }
 
         return false;
@@ -153,6 +188,6 @@ public final class SqlQuery implements Serializable {
 
     @Override
     public int hashCode() {
-        return Objects.hash(sql, args);
+        return Objects.hash(sql, args, options);
     }
 }
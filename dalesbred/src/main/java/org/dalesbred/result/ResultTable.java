@@ -22,10 +22,13 @@
 
 package org.dalesbred.result;
 
+import org.dalesbred.internal.result.Column;
 import org.dalesbred.internal.utils.TypeUtils;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.lang.reflect.Type;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -37,6 +40,11 @@ import static org.dalesbred.internal.utils.CollectionUtils.mapToList;
 /**
  * Represents the results of the query along with its metadata. Basically a detached
  * version of {@link java.sql.ResultSet}.
+ * <p>
+ * By default the values are stored row by row. Tables built with {@link #columnarBuilder(List)} store
+ * the values column by column instead, using primitive arrays for numeric, boolean and temporal values
+ * and dictionary-encoding for strings, which uses considerably less memory for large results. In that
+ * case {@link ResultRow}s are just views to the columns.
  */
 public final class ResultTable implements Iterable<ResultTable.ResultRow> {
 
@@ -46,9 +54,33 @@ public final class ResultTable implements Iterable<ResultTable.ResultRow> {
     @NotNull
     private final List<ResultRow> rows;
 
+    /** Values of the table by column, or null if the values are stored in rows */
+    @Nullable
+    private final Column[] columnValues;
+
     private ResultTable(@NotNull List<ColumnMetadata> columns, @NotNull List<ResultRow> rows) {
         this.columns = unmodifiableList(columns);
         this.rows = unmodifiableList(rows);
+        this.columnValues = null;
+    }
+
+    private ResultTable(@NotNull List<ColumnMetadata> columns, @NotNull Column[] columnValues, int rowCount, @NotNull ColumnIndices indices) {
+        this.columns = unmodifiableList(columns);
+        this.columnValues = columnValues;
+        this.rows = new AbstractList<ResultRow>() {
+            @Override
+            public ResultRow get(int index) {
+                if (index < 0 || index >= rowCount)
+                    throw new IndexOutOfBoundsException("row: " + index + ", size: " + rowCount);
+
+                return new ResultRow(new ColumnarRowValues(columnValues, index), indices);
+            }
+
+            @Override
+            public int size() {
+                return rowCount;
+            }
+        };
     }
 
     public int getRowCount() {
@@ -63,7 +95,10 @@ public final class ResultTable implements Iterable<ResultTable.ResultRow> {
      * Returns the value of given column of given row. Both indices are zero-based.
      */
     public Object get(int row, int column) {
-        return rows.get(row).get(column);
+        if (columnValues != null)
+            return columnValues[column].get(row);
+        else
+            return rows.get(row).get(column);
     }
 
     /**
@@ -73,6 +108,96 @@ public final class ResultTable implements Iterable<ResultTable.ResultRow> {
         return rows.get(row).get(column);
     }
 
+    /**
+     * Returns true if the value of given column of given row is null. Both indices are zero-based.
+     */
+    public boolean isNull(int row, int column) {
+        if (columnValues != null)
+            return columnValues[column].isNull(row);
+        else
+            return get(row, column) == null;
+    }
+
+    /**
+     * Returns the values of given column. Index is zero-based.
+     */
+    @NotNull
+    public List<Object> getColumnValues(int column) {
+        if (column < 0 || column >= columns.size())
+            throw new IndexOutOfBoundsException("column: " + column + ", columns: " + columns.size());
+
+        return new AbstractList<Object>() {
+            @Override
+            public Object get(int row) {
+                return ResultTable.this.get(row, column);
+            }
+
+            @Override
+            public int size() {
+                return getRowCount();
+            }
+        };
+    }
+
+    /**
+     * Returns the values of given column as an array of ints. Index is zero-based.
+     *
+     * @throws IllegalStateException if the column contains nulls or non-numeric values
+     */
+    @NotNull
+    public int[] getIntColumn(int column) {
+        if (columnValues != null)
+            return columnValues[column].toIntArray();
+
+        int[] result = new int[rows.size()];
+        for (int row = 0; row < result.length; row++)
+            result[row] = nonNullNumber(row, column).intValue();
+        return result;
+    }
+
+    /**
+     * Returns the values of given column as an array of longs. Index is zero-based.
+     *
+     * @throws IllegalStateException if the column contains nulls or non-numeric values
+     */
+    @NotNull
+    public long[] getLongColumn(int column) {
+        if (columnValues != null)
+            return columnValues[column].toLongArray();
+
+        long[] result = new long[rows.size()];
+        for (int row = 0; row < result.length; row++)
+            result[row] = nonNullNumber(row, column).longValue();
+        return result;
+    }
+
+    /**
+     * Returns the values of given column as an array of doubles. Index is zero-based.
+     *
+     * @throws IllegalStateException if the column contains nulls or non-numeric values
+     */
+    @NotNull
+    public double[] getDoubleColumn(int column) {
+        if (columnValues != null)
+            return columnValues[column].toDoubleArray();
+
+        double[] result = new double[rows.size()];
+        for (int row = 0; row < result.length; row++)
+            result[row] = nonNullNumber(row, column).doubleValue();
+        return result;
+    }
+
+    @NotNull
+    private Number nonNullNumber(int row, int column) {
+        Object value = get(row, column);
+        if (value instanceof Number)
+            return (Number) value;
+        else if (value == null)
+            throw new IllegalStateException("null value in row " + row);
+        else
+            throw new IllegalStateException("non-numeric value in row " + row + ": " + value.getClass().getName());
+    }
+
     @NotNull
     public List<ResultRow> getRows() {
         return rows;
@@ -236,6 +361,15 @@ public final class ResultTable implements Iterable<ResultTable.ResultRow> {
         return new Builder(columns);
     }
 
+    /**
+     * Returns a builder for building a ResultTable for given columns that stores
+     * its values in column-oriented form.
+     */
+    @NotNull
+    public static Builder columnarBuilder(@NotNull List<ColumnMetadata> columns) {
+        return new Builder(columns, true);
+    }
+
     /**
      * A builder for building ResultTables.
      */
@@ -246,21 +380,80 @@ public final class ResultTable implements Iterable<ResultTable.ResultRow> {
         private final ColumnIndices indices;
         private final List<ResultRow> rows = new ArrayList<>();
 
+        /** Builders for columns when building a columnar table, otherwise null */
+        @Nullable
+        private final Column.Builder[] columnBuilders;
+
+        private int rowCount = 0;
+
         public Builder(@NotNull List<ColumnMetadata> columns) {
+            this(columns, false);
+        }
+
+        private Builder(@NotNull List<ColumnMetadata> columns, boolean columnar) {
             this.columns = requireNonNull(columns);
             this.indices = new ColumnIndices(columns);
+
+            if (columnar) {
+                columnBuilders = new Column.Builder[columns.size()];
+                for (int i = 0; i < columnBuilders.length; i++)
+                    columnBuilders[i] = Column.builder(columns.get(i).getRawType());
+            } else {
+                columnBuilders = null;
+            }
         }
 
         public void addRow(@NotNull List<Object> row) {
             if (row.size() != columns.size())
                 throw new IllegalArgumentException("expected " + columns + " size values, but got " + row.size());
 
-            rows.add(new ResultRow(row, indices));
+            if (columnBuilders != null) {
+                for (int i = 0; i < columnBuilders.length; i++)
+                    columnBuilders[i] = columnBuilders[i].add(row.get(i));
+            } else {
+                rows.add(new ResultRow(row, indices));
+            }
+
+            rowCount++;
         }
 
         @NotNull
         public ResultTable build() {
-            return new ResultTable(columns, rows);
+            if (columnBuilders != null) {
+                Column[] columnValues = new Column[columnBuilders.length];
+                for (int i = 0; i < columnValues.length; i++)
+                    columnValues[i] = columnBuilders[i].build();
+
+                return new ResultTable(columns, columnValues, rowCount, indices);
+            } else {
+                return new ResultTable(columns, rows);
+            }
+        }
+    }
+
+    /**
+     * Read-only view to a single row of a columnar table.
+     */
+    private static final class ColumnarRowValues extends AbstractList<Object> {
+
+        @NotNull
+        private final Column[] columns;
+
+        private final int row;
+
+        ColumnarRowValues(@NotNull Column[] columns, int row) {
+            this.columns = columns;
+            this.row = row;
+        }
+
+        @Override
+        public Object get(int index) {
+            return columns[index].get(row);
+        }
+
+        @Override
+        public int size() {
+            return columns.length;
         }
     }
 
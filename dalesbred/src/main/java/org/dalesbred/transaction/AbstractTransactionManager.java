@@ -22,34 +22,42 @@
 
 package org.dalesbred.transaction;
 
+import org.dalesbred.CacheStatistics;
 import org.dalesbred.dialect.Dialect;
+import org.dalesbred.internal.jdbc.StatementCache;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Optional;
 
 public abstract class AbstractTransactionManager implements TransactionManager {
 
+    /** Maximum amount of cached statements per transaction, 0 if caching is disabled */
+    private volatile int statementCacheSize = 0;
+
+    @NotNull
+    private final StatementCache.Counters statementCacheCounters = new StatementCache.Counters();
+
     @NotNull
     protected abstract Optional<DefaultTransaction> getActiveTransaction();
 
     protected abstract <T> T withNewTransaction(@NotNull TransactionCallback<T> callback,
                                                 @NotNull Dialect dialect,
-                                                @NotNull Isolation isolation);
+                                                @NotNull TransactionSettings settings);
 
     protected abstract <T> T withSuspendedTransaction(@NotNull TransactionCallback<T> callback,
-                                                      @NotNull Isolation isolation,
+                                                      @NotNull TransactionSettings settings,
                                                       @NotNull Dialect dialect);
 
     @Override
     public <T> T withTransaction(@NotNull TransactionSettings settings, @NotNull TransactionCallback<T> callback, @NotNull Dialect dialect) {
         Propagation propagation = settings.getPropagation();
-        Isolation isolation = settings.getIsolation();
 
         DefaultTransaction existingTransaction = getActiveTransaction().orElse(null);
 
         if (existingTransaction != null) {
             if (propagation == Propagation.REQUIRES_NEW)
-                return withSuspendedTransaction(callback, isolation, dialect);
+                return withSuspendedTransaction(callback, settings, dialect);
             else if (propagation == Propagation.NESTED)
                 return existingTransaction.nested(callback, dialect);
             else
@@ -59,7 +67,7 @@ public abstract class AbstractTransactionManager implements TransactionManager {
             if (propagation == Propagation.MANDATORY)
                 throw new NoActiveTransactionException("Transaction propagation was MANDATORY, but there was no existing transaction.");
 
-            return withNewTransaction(callback, dialect, isolation);
+            return withNewTransaction(callback, dialect, settings);
         }
     }
 
@@ -74,4 +82,31 @@ public abstract class AbstractTransactionManager implements TransactionManager {
     public boolean hasActiveTransaction() {
         return getActiveTransaction().isPresent();
     }
+
+    @Override
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    @Override
+    public void setStatementCacheSize(int size) {
+        if (size < 0) throw new IllegalArgumentException("negative cache size: " + size);
+
+        this.statementCacheSize = size;
+    }
+
+    @NotNull
+    @Override
+    public CacheStatistics getStatementCacheStatistics() {
+        return statementCacheCounters.getStatistics();
+    }
+
+    /**
+     * Creates the statement cache for a new transaction, or returns null if caching is disabled.
+     */
+    @Nullable
+    StatementCache createStatementCache() {
+        int size = statementCacheSize;
+        return size > 0 ? new StatementCache(size, statementCacheCounters) : null;
+    }
 }
@@ -23,8 +23,10 @@
 package org.dalesbred.transaction;
 
 import org.dalesbred.dialect.Dialect;
+import org.dalesbred.internal.jdbc.StatementCache;
 import org.dalesbred.internal.utils.Throwables;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,17 +41,45 @@ final class DefaultTransaction {
     @NotNull
     private final Connection connection;
 
+    /** Prepared statements of this transaction, or null if statements are not cached */
+    @Nullable
+    private final StatementCache statementCache;
+
+    /** Set to false when the transaction ends, so that lazily used resources can detect it */
+    private volatile boolean open = true;
+
+    /** Amount of temporary id set tables used by this transaction */
+    private int idSetTableCount = 0;
+
     @NotNull
     private static final Logger log = LoggerFactory.getLogger(DefaultTransaction.class);
 
-    DefaultTransaction(@NotNull Connection connection) {
+    DefaultTransaction(@NotNull Connection connection, @Nullable StatementCache statementCache) {
         this.connection = requireNonNull(connection);
+        this.statementCache = statementCache;
+    }
+
+    /**
+     * Marks this transaction ended and closes its cached statements. Must be called before the connection is released.
+     */
+    void end() {
+        open = false;
+        if (statementCache != null)
+            statementCache.close();
+    }
+
+    boolean isOpen() {
+        return open;
+    }
+
+    int nextIdSetTableIndex() {
+        return idSetTableCount++;
     }
 
     <T> T execute(@NotNull TransactionCallback<T> callback, @NotNull Dialect dialect) {
         try {
             try {
-                TransactionContext ctx = new DefaultTransactionContext(connection);
+                TransactionContext ctx = new DefaultTransactionContext(connection, statementCache, this);
                 T value = callback.execute(ctx);
                 if (ctx.isRollbackOnly())
                     connection.rollback();
@@ -71,7 +101,7 @@ final class DefaultTransaction {
         try {
             Savepoint savepoint = connection.setSavepoint();
             try {
-                TransactionContext ctx = new DefaultTransactionContext(connection);
+                TransactionContext ctx = new DefaultTransactionContext(connection, statementCache, this);
                 T value = callback.execute(ctx);
                 if (ctx.isRollbackOnly())
                     connection.rollback(savepoint);
@@ -91,7 +121,7 @@ final class DefaultTransaction {
 
     <T> T join(@NotNull TransactionCallback<T> callback, @NotNull Dialect dialect) {
         try {
-            return callback.execute(new DefaultTransactionContext(connection));
+            return callback.execute(new DefaultTransactionContext(connection, statementCache, this));
         } catch (SQLException e) {
             throw dialect.convertException(e);
         }
@@ -22,20 +22,32 @@
 
 package org.dalesbred.transaction;
 
+import org.dalesbred.internal.jdbc.ManagedTransactionContext;
+import org.dalesbred.internal.jdbc.StatementCache;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.sql.Connection;
 
 import static java.util.Objects.requireNonNull;
 
-final class DefaultTransactionContext implements TransactionContext {
+final class DefaultTransactionContext implements ManagedTransactionContext {
 
     @NotNull
     private final Connection connection;
+
+    @Nullable
+    private final StatementCache statementCache;
+
+    @NotNull
+    private final DefaultTransaction transaction;
+
     private boolean rollbackOnly = false;
 
-    DefaultTransactionContext(@NotNull Connection connection) {
+    DefaultTransactionContext(@NotNull Connection connection, @Nullable StatementCache statementCache, @NotNull DefaultTransaction transaction) {
         this.connection = requireNonNull(connection);
+        this.statementCache = statementCache;
+        this.transaction = requireNonNull(transaction);
     }
 
     /**
@@ -59,4 +71,20 @@ final class DefaultTransactionContext implements TransactionContext {
     public boolean isRollbackOnly() {
         return rollbackOnly;
     }
+
+    @Override
+    @Nullable
+    public StatementCache getStatementCache() {
+        return statementCache;
+    }
+
+    @Override
+    public boolean isTransactionOpen() {
+        return transaction.isOpen();
+    }
+
+    @Override
+    public int nextIdSetTableIndex() {
+        return transaction.nextIdSetTableIndex();
+    }
 }
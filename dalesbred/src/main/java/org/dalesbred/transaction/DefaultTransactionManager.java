@@ -25,6 +25,9 @@ package org.dalesbred.transaction;
 import org.dalesbred.connection.ConnectionProvider;
 import org.dalesbred.dialect.Dialect;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.sql.Connection;
 import java.sql.SQLException;
@@ -46,6 +49,12 @@ public final class DefaultTransactionManager extends AbstractTransactionManager
     @NotNull
     private final ConnectionProvider connectionProvider;
 
+    /** Timeout for checking whether a connection survived a failed transaction */
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+    @NotNull
+    private static final Logger log = LoggerFactory.getLogger(DefaultTransactionManager.class);
+
     public DefaultTransactionManager(@NotNull ConnectionProvider connectionProvider) {
         this.connectionProvider = requireNonNull(connectionProvider);
     }
@@ -53,30 +62,47 @@ public final class DefaultTransactionManager extends AbstractTransactionManager
     @Override
     protected <T> T withNewTransaction(@NotNull TransactionCallback<T> callback,
                                        @NotNull Dialect dialect,
-                                       @NotNull Isolation isolation) {
-        Connection connection = openConnection(isolation, dialect);
+                                       @NotNull TransactionSettings settings) {
+        Connection connection = openConnection(settings, dialect);
+        int originalIsolation = -1;
+        DefaultTransaction newTransaction = null;
+        Throwable failure = null;
         try {
-            DefaultTransaction newTransaction = new DefaultTransaction(connection);
+            if (settings.isReadOnly())
+                connection.setReadOnly(true);
+            connection.setAutoCommit(false);
+            originalIsolation = applyIsolation(connection, settings.getIsolation());
+
+            newTransaction = new DefaultTransaction(connection, createStatementCache());
             activeTransaction.set(newTransaction);
             return newTransaction.execute(callback, dialect);
+        } catch (SQLException e) {
+            failure = e;
+            throw dialect.convertException(e);
+        } catch (RuntimeException | Error e) {
+            failure = e;
+            throw e;
         } finally {
             activeTransaction.set(null);
-            releaseConnection(connection, dialect);
+            if (newTransaction != null)
+                newTransaction.end();
+            releaseConnection(connection, settings, originalIsolation, failure, dialect);
         }
     }
 
     @Override
     protected <T> T withSuspendedTransaction(@NotNull TransactionCallback<T> callback,
-                                             @NotNull Isolation isolation,
+                                             @NotNull TransactionSettings settings,
                                              @NotNull Dialect dialect) {
         DefaultTransaction suspended = getActiveTransaction().orElse(null);
         try {
             activeTransaction.set(null);
 
-            TransactionSettings settings = new TransactionSettings();
-            settings.setPropagation(Propagation.REQUIRED);
-            settings.setIsolation(isolation);
-            return withTransaction(settings, callback, dialect);
+            TransactionSettings newSettings = new TransactionSettings();
+            newSettings.setPropagation(Propagation.REQUIRED);
+            newSettings.setIsolation(settings.getIsolation());
+            newSettings.setReadOnly(settings.isReadOnly());
+            return withTransaction(newSettings, callback, dialect);
         } finally {
             activeTransaction.set(suspended);
         }
@@ -89,24 +115,99 @@ public final class DefaultTransactionManager extends AbstractTransactionManager
     }
 
     @NotNull
-    private Connection openConnection(@NotNull Isolation isolation, @NotNull Dialect dialect) {
+    private Connection openConnection(@NotNull TransactionSettings settings, @NotNull Dialect dialect) {
         try {
-            Connection connection = connectionProvider.getConnection();
-            connection.setAutoCommit(false);
-            if (isolation != Isolation.DEFAULT)
-                connection.setTransactionIsolation(isolation.getJdbcLevel());
-
-            return connection;
+            return connectionProvider.getConnection(settings.isReadOnly());
         } catch (SQLException e) {
             throw dialect.convertException(e);
         }
     }
 
-    private void releaseConnection(@NotNull Connection connection, @NotNull Dialect dialect) {
+    /**
+     * Sets the isolation level of the connection unless isolation is {@link Isolation#DEFAULT}, returning
+     * the original level of the connection or -1 if it was not changed.
+     */
+    private static int applyIsolation(@NotNull Connection connection, @NotNull Isolation isolation) throws SQLException {
+        if (isolation == Isolation.DEFAULT)
+            return -1;
+
+        int originalIsolation = connection.getTransactionIsolation();
+        if (originalIsolation == isolation.getJdbcLevel())
+            return -1;
+
+        connection.setTransactionIsolation(isolation.getJdbcLevel());
+        return originalIsolation;
+    }
+
+    /**
+     * Resets the settings of the transaction and returns the connection to the provider. The connection is
+     * always returned, even if resetting fails. Connections that can't be reset are closed first, so that
+     * pools won't hand them out again. Connections are validated only if the transaction failed because of
+     * a connection error, since validation needs a round trip to the database.
+     */
+    private void releaseConnection(@NotNull Connection connection,
+                                   @NotNull TransactionSettings settings,
+                                   int originalIsolation,
+                                   @Nullable Throwable failure,
+                                   @NotNull Dialect dialect) {
+        try {
+            boolean broken = !resetConnection(connection, settings, originalIsolation)
+                    || (isConnectionFailure(failure) && !isValid(connection));
+            if (broken)
+                closeQuietly(connection);
+        } finally {
+            try {
+                connectionProvider.releaseConnection(connection);
+            } catch (SQLException e) {
+                throw dialect.convertException(e);
+            }
+        }
+    }
+
+    /**
+     * Pooled connections are reused, so don't leak the settings of this transaction to the next one.
+     * Returns false if resetting failed.
+     */
+    private static boolean resetConnection(@NotNull Connection connection, @NotNull TransactionSettings settings, int originalIsolation) {
         try {
-            connectionProvider.releaseConnection(connection);
+            if (settings.isReadOnly())
+                connection.setReadOnly(false);
+            if (originalIsolation != -1)
+                connection.setTransactionIsolation(originalIsolation);
+            return true;
         } catch (SQLException e) {
-            throw dialect.convertException(e);
+            log.warn("Failed to reset connection after transaction: " + e, e);
+            return false;
+        }
+    }
+
+    /**
+     * Returns true if given throwable is caused by an {@link SQLException} of SQLState class 08, connection exception.
+     */
+    private static boolean isConnectionFailure(@Nullable Throwable failure) {
+        for (Throwable e = failure; e != null; e = e.getCause()) {
+            if (e instanceof SQLException) {
+                String sqlState = ((SQLException) e).getSQLState();
+                if (sqlState != null && sqlState.startsWith("08"))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isValid(@NotNull Connection connection) {
+        try {
+            return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private static void closeQuietly(@NotNull Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.warn("Failed to close broken connection: " + e, e);
         }
     }
 }
@@ -57,7 +57,7 @@ public final class SingleConnectionTransactionManager extends AbstractTransactio
     public SingleConnectionTransactionManager(@NotNull Connection connection,
                                               boolean insideForeignTransaction) {
         this.connection = requireNonNull(connection);
-        currentTransaction = insideForeignTransaction ? Optional.of(new DefaultTransaction(connection)) : Optional.empty();
+        currentTransaction = insideForeignTransaction ? Optional.of(new DefaultTransaction(connection, null)) : Optional.empty();
     }
 
     @NotNull
@@ -67,26 +67,42 @@ public final class SingleConnectionTransactionManager extends AbstractTransactio
     }
 
     @Override
-    protected <T> T withNewTransaction(@NotNull TransactionCallback<T> callback, @NotNull Dialect dialect, @NotNull Isolation isolation) {
+    protected <T> T withNewTransaction(@NotNull TransactionCallback<T> callback, @NotNull Dialect dialect, @NotNull TransactionSettings settings) {
         assert !currentTransaction.isPresent();
 
+        DefaultTransaction newTransaction = null;
         try {
+            if (settings.isReadOnly())
+                connection.setReadOnly(true);
             connection.setAutoCommit(false);
+            Isolation isolation = settings.getIsolation();
             if (isolation != Isolation.DEFAULT)
                 connection.setTransactionIsolation(isolation.getJdbcLevel());
 
-            DefaultTransaction newTransaction = new DefaultTransaction(connection);
+            newTransaction = new DefaultTransaction(connection, createStatementCache());
             currentTransaction = Optional.of(newTransaction);
             return newTransaction.execute(callback, dialect);
         } catch (SQLException e) {
             throw dialect.convertException(e);
         } finally {
             currentTransaction = Optional.empty();
+            if (newTransaction != null)
+                newTransaction.end();
+            if (settings.isReadOnly())
+                resetReadOnly(dialect);
+        }
+    }
+
+    private void resetReadOnly(@NotNull Dialect dialect) {
+        try {
+            connection.setReadOnly(false);
+        } catch (SQLException e) {
+            throw dialect.convertException(e);
         }
     }
 
     @Override
-    protected <T> T withSuspendedTransaction(@NotNull TransactionCallback<T> callback, @NotNull Isolation isolation, @NotNull Dialect dialect) {
+    protected <T> T withSuspendedTransaction(@NotNull TransactionCallback<T> callback, @NotNull TransactionSettings settings, @NotNull Dialect dialect) {
         throw new DatabaseException("SingleConnectionTransactionManager does not support Suspended transactions.");
     }
 }
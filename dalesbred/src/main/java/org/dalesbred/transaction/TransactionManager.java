@@ -22,6 +22,7 @@
 
 package org.dalesbred.transaction;
 
+import org.dalesbred.CacheStatistics;
 import org.dalesbred.dialect.Dialect;
 import org.jetbrains.annotations.NotNull;
 
@@ -44,4 +45,30 @@ public interface TransactionManager {
      * Returns true if the code is executing inside transaction.
      */
     boolean hasActiveTransaction();
+
+    /**
+     * Returns the maximum amount of prepared statements cached by each transaction, or 0 if statements are not cached.
+     */
+    default int getStatementCacheSize() {
+        return 0;
+    }
+
+    /**
+     * Sets the maximum amount of prepared statements cached by each transaction. Zero disables caching.
+     * Changing the size only affects transactions started afterwards.
+     *
+     * @throws UnsupportedOperationException if this transaction manager does not support statement caching
+     */
+    default void setStatementCacheSize(int size) {
+        if (size != 0)
+            throw new UnsupportedOperationException(getClass().getName() + " does not support caching statements");
+    }
+
+    /**
+     * Returns statistics of prepared statement caches of all transactions.
+     */
+    @NotNull
+    default CacheStatistics getStatementCacheStatistics() {
+        return new CacheStatistics(0, 0, 0);
+    }
 }
@@ -40,6 +40,8 @@ public final class TransactionSettings {
     @NotNull
     private Isolation isolation = Isolation.DEFAULT;
 
+    private boolean readOnly = false;
+
     @NotNull
     public Propagation getPropagation() {
         return propagation;
@@ -64,9 +66,24 @@ public final class TransactionSettings {
         this.isolation = isolation;
     }
 
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * Marks new transactions as read-only. The flag is passed to the driver using {@link java.sql.Connection#setReadOnly(boolean)}
+     * so that the driver and the database may optimize the transaction, and it may also be used by the connection provider
+     * to route the transaction to a replica. Has no effect when joining an existing transaction.
+     *
+     * @see org.dalesbred.connection.ConnectionProvider#getConnection(boolean)
+     */
+    public void setReadOnly(boolean readOnly) {
+        this.readOnly = readOnly;
+    }
+
     @NotNull
     @Override
     public String toString() {
-        return "[propagation=" + propagation + ", isolation=" + isolation + ']';
+        return "[propagation=" + propagation + ", isolation=" + isolation + (readOnly ? ", readOnly=true" : "") + ']';
     }
 }
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AsyncDatabaseTest {
+
+    private final Database db = TestDatabaseProvider.createInMemoryHSQLDatabase();
+
+    private final AsyncDatabase asyncDb = AsyncDatabase.withThreadPool(db, 2, 1);
+
+    @After
+    public void closeAsyncDatabase() {
+        asyncDb.close();
+    }
+
+    @Test
+    public void findAsynchronously() throws Exception {
+        assertThat(asyncDb.findUniqueInt("values (42)").get(), is(42));
+        assertThat(asyncDb.findAll(String.class, "values ('foo'), ('bar')").get(), is(asList("foo", "bar")));
+    }
+
+    @Test
+    public void transactionIsExecutedOnSingleWorkerThread() throws Exception {
+        Thread callerThread = Thread.currentThread();
+
+        Boolean sameThread = asyncDb.withTransaction(tx -> {
+            Thread worker = Thread.currentThread();
+            db.findUniqueInt("values (1)");
+            return worker != callerThread && Thread.currentThread() == worker && db.hasActiveTransaction();
+        }).get();
+
+        assertTrue(sameThread);
+    }
+
+    @Test
+    public void failuresCompleteFutureExceptionally() throws Exception {
+        try {
+            asyncDb.findUniqueInt("select * from non_existing_table").get();
+            fail("Expected ExecutionException");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), is(instanceOf(DatabaseException.class)));
+        }
+    }
+
+    @Test
+    public void operationsAreRejectedWhenQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch secondStarted = new CountDownLatch(1);
+
+        CompletableFuture<Object> first = asyncDb.execute(db -> await(firstStarted, release));
+        assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Object> second = asyncDb.execute(db -> await(secondStarted, release));
+        assertTrue(secondStarted.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Integer> queued = asyncDb.findUniqueInt("values (1)");
+        CompletableFuture<Integer> rejected = asyncDb.findUniqueInt("values (2)");
+
+        assertTrue(rejected.isCompletedExceptionally());
+        try {
+            rejected.get();
+            fail("Expected ExecutionException");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), is(instanceOf(RejectedExecutionException.class)));
+        }
+
+        AsyncDatabaseStatistics statistics = asyncDb.getStatistics();
+        assertThat(statistics.getActiveTasks(), is(2));
+        assertThat(statistics.getQueueDepth(), is(1));
+        assertThat(statistics.getRejectedTasks(), is(1L));
+        assertThat(statistics.getSaturation(), is(1.0));
+
+        release.countDown();
+        first.get();
+        second.get();
+        assertThat(queued.get(), is(1));
+    }
+
+    @Test
+    public void idleWorkersAcceptOperationsWithoutQueue() throws Exception {
+        try (AsyncDatabase asyncDb = AsyncDatabase.withThreadPool(db, 4, 0)) {
+            for (int i = 0; i < 10; i++)
+                assertThat(asyncDb.findUniqueInt("values (cast(? as int))", i).get(), is(i));
+
+            assertThat(asyncDb.getStatistics().getRejectedTasks(), is(0L));
+        }
+    }
+
+    @Test
+    public void backToBackOperationsAreAcceptedWhileWorkersAreAvailable() throws Exception {
+        try (AsyncDatabase asyncDb = AsyncDatabase.withThreadPool(db, 4, 1)) {
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch started = new CountDownLatch(3);
+
+            CompletableFuture<?> first = asyncDb.execute(db -> await(started, release));
+            CompletableFuture<?> second = asyncDb.execute(db -> await(started, release));
+            CompletableFuture<?> third = asyncDb.execute(db -> await(started, release));
+
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            release.countDown();
+            CompletableFuture.allOf(first, second, third).get();
+
+            assertThat(asyncDb.getStatistics().getRejectedTasks(), is(0L));
+        }
+    }
+
+    @Test
+    public void statisticsTrackCompletedTasks() throws Exception {
+        asyncDb.update("values (1)").exceptionally(e -> 0).get();
+        asyncDb.findUniqueInt("values (1)").get();
+
+        AsyncDatabaseStatistics statistics = asyncDb.getStatistics();
+        assertThat(statistics.getCompletedTasks(), is(2L));
+        assertThat(statistics.getQueueDepth(), is(0));
+        assertThat(statistics.getMaxConcurrency(), is(2));
+    }
+
+    @Test
+    public void withVirtualThreads() throws Exception {
+        try (AsyncDatabase virtualDb = AsyncDatabase.withVirtualThreads(db, 2, 10)) {
+            assertThat(virtualDb.findUniqueInt("values (3)").get(), is(3));
+            assertThat(virtualDb.getStatistics().getMaxConcurrency(), is(2));
+        }
+    }
+
+    private static Object await(CountDownLatch started, CountDownLatch release) {
+        started.countDown();
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+}
@@ -22,6 +22,8 @@
 
 package org.dalesbred;
 
+import org.dalesbred.query.BatchOptions;
+import org.dalesbred.query.VariableResolutionException;
 import org.dalesbred.result.ResultSetProcessor;
 import org.jetbrains.annotations.NotNull;
 import org.junit.Rule;
@@ -30,7 +32,13 @@ import org.junit.Test;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
@@ -61,6 +69,140 @@ public class DatabaseBatchUpdatesTest {
         assertThat(db.findAll(String.class, "select word from dictionary order by word"), is(asList("bar", "baz", "foo")));
     }
 
+    @Test
+    public void chunkedBatchUpdateFromIterator() {
+        db.update("drop table if exists numbers");
+        db.update("create temporary table numbers (num int primary key)");
+
+        Iterator<List<Integer>> rows = IntStream.range(0, 25).mapToObj(Collections::singletonList).iterator();
+        long count = db.updateBatch("insert into numbers (num) values (?)", rows, BatchOptions.chunkSize(10));
+
+        assertThat(count, is(25L));
+        assertThat(db.findUniqueInt("select count(*) from numbers"), is(25));
+        assertThat(db.findUniqueInt("select sum(num) from numbers"), is(300));
+    }
+
+    @Test
+    public void chunkedBatchUpdateFromStream() {
+        db.update("drop table if exists numbers");
+        db.update("create temporary table numbers (num int primary key)");
+
+        long count = db.updateBatch("insert into numbers (num) values (?)",
+                IntStream.rangeClosed(1, 5).mapToObj(Collections::singletonList), BatchOptions.DEFAULT);
+
+        assertThat(count, is(5L));
+        assertThat(db.findAll(Integer.class, "select num from numbers order by num"), is(asList(1, 2, 3, 4, 5)));
+    }
+
+    @Test
+    public void chunkedBatchUpdateWithAdaptiveChunkSize() {
+        db.update("drop table if exists numbers");
+        db.update("create temporary table numbers (num int primary key)");
+
+        BatchOptions options = BatchOptions.chunkSize(3).withAdaptiveChunkSize(1, 50);
+        long count = db.updateBatch("insert into numbers (num) values (?)",
+                IntStream.range(0, 200).mapToObj(Collections::singletonList), options);
+
+        assertThat(count, is(200L));
+        assertThat(db.findUniqueInt("select count(*) from numbers"), is(200));
+    }
+
+    @Test
+    public void chunkedBatchUpdateWithMultiRowInserts() {
+        db.update("drop table if exists numbers");
+        db.update("create temporary table numbers (num int primary key, str varchar(16))");
+
+        BatchOptions options = BatchOptions.chunkSize(1500).withMultiRowInserts(true);
+        long count = db.updateBatch("insert into numbers (num, str) values (?, ?)",
+                IntStream.range(0, 2345).mapToObj(i -> asList(i, "n" + i)), options);
+
+        assertThat(count, is(2345L));
+        assertThat(db.findUniqueInt("select count(*) from numbers"), is(2345));
+        assertThat(db.findUnique(String.class, "select str from numbers where num = 2344"), is("n2344"));
+    }
+
+    @Test
+    public void multiRowInsertsFallBackToNormalBatchesForOtherStatements() {
+        db.update("drop table if exists numbers");
+        db.update("create temporary table numbers (num int primary key, str varchar(16))");
+
+        BatchOptions options = BatchOptions.DEFAULT.withMultiRowInserts(true);
+        long count = db.updateBatch("insert into numbers (num, str) values (?, 'x')",
+                IntStream.range(0, 5).mapToObj(Collections::singletonList), options);
+
+        assertThat(count, is(5L));
+        assertThat(db.findUniqueInt("select count(*) from numbers where str = 'x'"), is(5));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void multiRowInsertsRequireCorrectAmountOfArguments() {
+        db.update("drop table if exists numbers");
+        db.update("create temporary table numbers (num int primary key, str varchar(16))");
+
+        db.updateBatch("insert into numbers (num, str) values (?, ?)",
+                Stream.of(asList(1, "foo"), singletonList(2)), BatchOptions.DEFAULT.withMultiRowInserts(true));
+    }
+
+    @Test
+    public void chunkedBatchUpdateWithEmptySource() {
+        db.update("drop table if exists numbers");
+        db.update("create temporary table numbers (num int primary key)");
+
+        long count = db.updateBatch("insert into numbers (num) values (?)",
+                Collections.<List<?>>emptyIterator(), BatchOptions.DEFAULT);
+
+        assertThat(count, is(0L));
+    }
+
+    @Test
+    public void namedBatchUpdateWithBeans() {
+        db.update("drop table if exists my_table");
+        db.update("create temporary table my_table (str varchar(64), num int)");
+
+        int[] result = db.updateBatchNamed("insert into my_table (num, str) values (:num, :str)",
+                asList(new Row("foo", 1), new Row("bar", 2), new Row("baz", 3)));
+
+        assertThat(result, is(new int[] { 1, 1, 1 }));
+        assertThat(db.findAll(String.class, "select str || num from my_table order by num"), is(asList("foo1", "bar2", "baz3")));
+    }
+
+    @Test
+    public void namedBatchUpdateWithMaps() {
+        db.update("drop table if exists my_table");
+        db.update("create temporary table my_table (str varchar(64), num int)");
+
+        Map<String, Object> first = new HashMap<>();
+        first.put("str", "foo");
+        first.put("num", 1);
+        Map<String, Object> second = new HashMap<>();
+        second.put("str", "bar");
+        second.put("num", 2);
+
+        int[] result = db.updateBatchNamed("insert into my_table (num, str) values (:num, :str)", asList(first, second));
+
+        assertThat(result, is(new int[] { 1, 1 }));
+        assertThat(db.findAll(String.class, "select str || num from my_table order by num"), is(asList("foo1", "bar2")));
+    }
+
+    @Test(expected = VariableResolutionException.class)
+    public void namedBatchUpdateWithMissingProperty() {
+        db.update("drop table if exists my_table");
+        db.update("create temporary table my_table (str varchar(64), num int)");
+
+        db.updateBatchNamed("insert into my_table (num, str) values (:number, :str)", singletonList(new Row("foo", 1)));
+    }
+
+    @Test
+    public void copyInFallsBackToBatchInsertsWithoutDialectSupport() {
+        db.update("drop table if exists my_table");
+        db.update("create temporary table my_table (str varchar(64), num int)");
+
+        long count = db.copyIn("my_table", asList("num", "str"), Stream.of(asList(1, "foo"), asList(2, "bar")));
+
+        assertThat(count, is(2L));
+        assertThat(db.findAll(String.class, "select str || num from my_table order by num"), is(asList("foo1", "bar2")));
+    }
+
     @Test
     public void batchUpdateWithGeneratedKeys() {
         db.update("drop table if exists my_table");
@@ -98,4 +240,22 @@ public class DatabaseBatchUpdatesTest {
             return result;
         }
     }
+
+    public static final class Row {
+        private final String str;
+        private final int num;
+
+        Row(String str, int num) {
+            this.str = str;
+            this.num = num;
+        }
+
+        public String getStr() {
+            return str;
+        }
+
+        public int getNum() {
+            return num;
+        }
+    }
 }
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred;
+
+import org.dalesbred.dialect.HsqldbDialect;
+import org.dalesbred.dialect.IdSetStrategy;
+import org.dalesbred.query.BatchOptions;
+import org.dalesbred.query.IdSet;
+import org.dalesbred.query.QueryBuilder;
+import org.dalesbred.query.SqlQuery;
+import org.dalesbred.transaction.NoActiveTransactionException;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.containsString;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class DatabaseIdSetTest {
+
+    private final Database db = TestDatabaseProvider.createInMemoryHSQLDatabase();
+
+    @Rule
+    public final TransactionalTestsRule rule = new TransactionalTestsRule(db);
+
+    @Before
+    public void createTable() {
+        db.update("drop table if exists numbers");
+        db.update("create temporary table numbers (id bigint primary key)");
+        db.updateBatch("insert into numbers (id) values (?)", LongStream.range(0, 3000).mapToObj(Collections::singletonList).iterator(), BatchOptions.DEFAULT);
+    }
+
+    @Test
+    public void smallIdSet() {
+        SqlQuery condition = db.idSetCondition("id", IdSet.ofLongs(3, 1, 2));
+
+        assertThat(condition.getSql(), is("id in (?,?,?,?,?,?,?,?)"));
+        assertThat(findIds(condition), is(asList(1L, 2L, 3L)));
+    }
+
+    @Test
+    public void largeIdSetIsSplitIntoMultipleLists() {
+        long[] ids = LongStream.range(0, 1500).map(i -> i * 2).toArray();
+
+        SqlQuery condition = db.idSetCondition("id", IdSet.ofLongs(ids));
+
+        assertThat(condition.getArguments().size(), is(1536));
+        assertThat(db.findUniqueInt(new QueryBuilder("select count(*) from numbers where ").append(condition).build()), is(1500));
+    }
+
+    @Test
+    public void emptyIdSetMatchesNothing() {
+        SqlQuery condition = db.idSetCondition("id", IdSet.ofLongs());
+
+        assertThat(db.findUniqueInt(new QueryBuilder("select count(*) from numbers where ").append(condition).build()), is(0));
+    }
+
+    @Test
+    public void temporaryTableIdSet() {
+        Database tempTableDb = new Database(TestDatabaseProvider.createInMemoryHSQLConnectionProvider(), new TemporaryTableDialect());
+
+        tempTableDb.withVoidTransaction(tx -> {
+            // Not a temporary table, since creating the id set table commits the transaction on HSQLDB
+            tempTableDb.update("drop table if exists id_set_numbers");
+            tempTableDb.update("create table id_set_numbers (id bigint primary key)");
+            tempTableDb.update("insert into id_set_numbers (id) values (5), (7), (8), (10), (2999)");
+
+            SqlQuery condition = tempTableDb.idSetCondition("id", IdSet.ofLongs(5, 7, 2999));
+
+            assertThat(condition.getSql(), containsString("select id from"));
+            assertThat(tempTableDb.findAll(Long.class, new QueryBuilder("select id from id_set_numbers where ").append(condition).append(" order by id").build()),
+                    is(asList(5L, 7L, 2999L)));
+
+            SqlQuery secondCondition = tempTableDb.idSetCondition("id", IdSet.ofLongs(8));
+            assertThat(tempTableDb.findAll(Long.class, new QueryBuilder("select id from id_set_numbers where ").append(secondCondition).build()), is(asList(8L)));
+        });
+    }
+
+    @Test
+    public void multipleTemporaryTableIdSetsInOneQuery() {
+        Database tempTableDb = new Database(TestDatabaseProvider.createInMemoryHSQLConnectionProvider(), new TemporaryTableDialect());
+
+        tempTableDb.withVoidTransaction(tx -> {
+            tempTableDb.update("drop table if exists id_set_pairs");
+            tempTableDb.update("create table id_set_pairs (a bigint, b bigint)");
+            tempTableDb.update("insert into id_set_pairs (a, b) values (1, 10), (2, 20), (3, 30)");
+
+            SqlQuery first = tempTableDb.idSetCondition("a", IdSet.ofLongs(1, 2));
+            SqlQuery second = tempTableDb.idSetCondition("b", IdSet.ofLongs(20, 30));
+
+            assertThat(tempTableDb.findAll(Long.class, new QueryBuilder("select a from id_set_pairs where ")
+                            .append(first).append(" and ").append(second).build()),
+                    is(singletonList(2L)));
+        });
+    }
+
+    @Test
+    public void temporaryTablesAreReusedByLaterTransactions() {
+        Database tempTableDb = new Database(TestDatabaseProvider.createInMemoryHSQLConnectionProvider(), new TemporaryTableDialect());
+
+        SqlQuery first = tempTableDb.withTransaction(tx -> tempTableDb.idSetCondition("id", IdSet.ofLongs(1)));
+        SqlQuery second = tempTableDb.withTransaction(tx -> tempTableDb.idSetCondition("id", IdSet.ofLongs(2)));
+
+        assertThat(first.getSql(), is(second.getSql()));
+    }
+
+    @Test(expected = NoActiveTransactionException.class)
+    public void temporaryTableIdSetRequiresTransaction() {
+        Database tempTableDb = new Database(TestDatabaseProvider.createInMemoryHSQLConnectionProvider(), new TemporaryTableDialect());
+
+        tempTableDb.idSetCondition("id", IdSet.ofLongs(1));
+    }
+
+    private List<Long> findIds(SqlQuery condition) {
+        return db.findAll(Long.class, new QueryBuilder("select id from numbers where ").append(condition).append(" order by id").build());
+    }
+
+    private static final class TemporaryTableDialect extends HsqldbDialect {
+
+        @NotNull
+        @Override
+        public IdSetStrategy getIdSetStrategy(int size) {
+            return IdSetStrategy.TEMPORARY_TABLE;
+        }
+
+        @NotNull
+        @Override
+        public String prepareIdSetTable(@NotNull Connection connection, @NotNull String sqlType, int index) throws SQLException {
+            String table = idSetTableName("", sqlType, index);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("create table if not exists " + table + " (id " + sqlType + " not null)");
+                statement.execute("delete from " + table);
+            }
+            return table;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred;
+
+import org.dalesbred.query.SqlQuery;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class DatabaseMultiQueryTest {
+
+    private final Database db = TestDatabaseProvider.createInMemoryHSQLDatabase();
+
+    @Rule
+    public final TransactionalTestsRule rule = new TransactionalTestsRule(db);
+
+    @Test
+    public void executeMultipleQueries() {
+        MultiQuery queries = db.multiQuery();
+        MultiQuery.Result<List<Integer>> numbers = queries.findAll(Integer.class, "values (1), (2), (3)");
+        MultiQuery.Result<String> text = queries.findUnique(String.class, "values (cast(? as varchar(10)))", "foo");
+        MultiQuery.Result<Optional<Integer>> missing = queries.findOptional(Integer.class, "select 1 from (values (1)) where 1 = 0");
+        MultiQuery.Result<Integer> mapped = queries.findUnique(rs -> rs.getInt(1) * 2, SqlQuery.query("values (21)"));
+
+        assertThat(queries.size(), is(4));
+        queries.execute();
+
+        assertThat(numbers.get(), is(asList(1, 2, 3)));
+        assertThat(text.get(), is("foo"));
+        assertThat(missing.get(), is(Optional.empty()));
+        assertThat(mapped.get(), is(42));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void resultsAreNotAvailableBeforeExecution() {
+        MultiQuery queries = db.multiQuery();
+        MultiQuery.Result<Integer> result = queries.findUnique(Integer.class, "values (1)");
+
+        assertThat(result.isExecuted(), is(false));
+        result.get();
+    }
+
+    @Test
+    public void reExecutionReplacesResults() {
+        db.update("drop table if exists multi_query_counter");
+        db.update("create temporary table multi_query_counter (x int)");
+
+        MultiQuery queries = db.multiQuery();
+        MultiQuery.Result<Integer> count = queries.findUnique(Integer.class, "select count(*) from multi_query_counter");
+
+        queries.execute();
+        assertThat(count.get(), is(0));
+
+        db.update("insert into multi_query_counter (x) values (1)");
+        queries.execute();
+        assertThat(count.get(), is(1));
+    }
+
+    @Test
+    public void combinedQueriesAreSeparatedOnTheirOwnLines() {
+        SqlQuery query = Database.combineQueries(asList(
+                SqlQuery.query("select 1 -- trailing comment"),
+                SqlQuery.query("select ? ;\n", 2),
+                SqlQuery.query("select ?", 3)));
+
+        assertThat(query.getSql(), is("select 1 -- trailing comment\n;\nselect ?\n;\nselect ?"));
+        assertThat(query.getArguments(), is(asList(2, 3)));
+    }
+
+    @Test
+    public void emptyMultiQueryDoesNothing() {
+        db.multiQuery().execute();
+    }
+}
@@ -22,6 +22,7 @@
 
 package org.dalesbred;
 
+import org.dalesbred.internal.instantiation.InstantiationFailureException;
 import org.junit.Rule;
 import org.junit.Test;
 
@@ -46,6 +47,21 @@ public class DatabasePropertyPathBindingTest {
         assertThat(result.getNestedGetter().foo, is("BBB"));
     }
 
+    @Test
+    public void creatingMissingIntermediateObjects() {
+        db.setCreateMissingIntermediateObjects(true);
+
+        LazyResultClass result = db.findUnique(LazyResultClass.class,
+                "select 'AAA' as \"nested.foo\" from (VALUES (0))");
+
+        assertThat(result.nested.foo, is("AAA"));
+    }
+
+    @Test(expected = InstantiationFailureException.class)
+    public void missingIntermediateObjectsAreNotCreatedByDefault() {
+        db.findUnique(LazyResultClass.class, "select 'AAA' as \"nested.foo\" from (VALUES (0))");
+    }
+
     public static final class ResultClass {
         public final NestedClass nestedField = new NestedClass();
         private final NestedClass nestedGetterBackingField = new NestedClass();
@@ -55,6 +71,10 @@ public class DatabasePropertyPathBindingTest {
         }
     }
 
+    public static final class LazyResultClass {
+        public NestedClass nested;
+    }
+
     public static final class NestedClass {
         public String foo;
     }
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred;
+
+import org.dalesbred.dialect.HsqldbDialect;
+import org.dalesbred.query.QueryOptions;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+import static org.dalesbred.query.SqlQuery.query;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class DatabaseQueryOptionsTest {
+
+    private final RecordingDialect dialect = new RecordingDialect();
+
+    private final Database db = new Database(TestDatabaseProvider.createInMemoryHSQLConnectionProvider(), dialect);
+
+    @Rule
+    public final TransactionalTestsRule rule = new TransactionalTestsRule(db);
+
+    @Test
+    public void maxRowsLimitsResults() {
+        List<Integer> result = db.findAll(Integer.class, query("values (1), (2), (3)").withOptions(QueryOptions.DEFAULT.withMaxRows(2)));
+
+        assertThat(result, is(asList(1, 2)));
+    }
+
+    @Test
+    public void queryOptionsArePassedToDialect() {
+        QueryOptions options = QueryOptions.DEFAULT.withFetchSize(10).withQueryTimeout(5);
+
+        db.findAll(Integer.class, query("values (1)").withOptions(options));
+
+        assertThat(dialect.appliedOptions, is(asList(options)));
+    }
+
+    @Test
+    public void defaultOptionsAreUsedForUnspecifiedOptions() {
+        db.setDefaultQueryOptions(QueryOptions.DEFAULT.withFetchSize(100).withMaxRows(1000));
+
+        db.findAll(Integer.class, "values (1)");
+        db.findAll(Integer.class, query("values (1)").withOptions(QueryOptions.DEFAULT.withFetchSize(10)));
+
+        assertThat(dialect.appliedOptions, is(asList(
+                QueryOptions.DEFAULT.withFetchSize(100).withMaxRows(1000),
+                QueryOptions.DEFAULT.withFetchSize(10).withMaxRows(1000))));
+    }
+
+    @Test
+    public void streamsUseStreamingOptionsByDefault() {
+        try (Stream<Integer> stream = db.stream(Integer.class, "values (1), (2)")) {
+            assertThat(stream.collect(toList()), is(asList(1, 2)));
+        }
+
+        assertThat(dialect.appliedOptions, is(asList(QueryOptions.DEFAULT.withStreaming(true))));
+        assertThat(dialect.fetchSizes, is(asList(1000)));
+    }
+
+    private static final class RecordingDialect extends HsqldbDialect {
+
+        @NotNull
+        private final List<QueryOptions> appliedOptions = new ArrayList<>();
+
+        @NotNull
+        private final List<Integer> fetchSizes = new ArrayList<>();
+
+        @Override
+        protected void applyOptions(@NotNull PreparedStatement ps, @NotNull QueryOptions options) throws SQLException {
+            appliedOptions.add(options);
+            super.applyOptions(ps, options);
+            fetchSizes.add(ps.getFetchSize());
+        }
+    }
+}
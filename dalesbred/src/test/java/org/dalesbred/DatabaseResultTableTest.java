@@ -33,6 +33,7 @@ import java.util.List;
 
 import static java.util.Arrays.asList;
 import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
 
@@ -65,6 +66,51 @@ public class DatabaseResultTableTest {
         assertThat(table.toString(), is("ResultTable [columns=[NUM: java.lang.Integer, STR: java.lang.String, BOOL: java.lang.Boolean], rows=1]"));
     }
 
+    @Test
+    public void fetchColumnarResultTable() {
+        String sql = "select * from (values " +
+                "(1, cast(10 as bigint), 1.5e0, 'foo', true, timestamp '2016-01-02 03:04:05.123456', date '2016-01-02', cast(1.5 as decimal(5,2)))," +
+                "(2, null, 2.5e0, 'bar', false, null, null, null)," +
+                "(null, cast(30 as bigint), null, 'foo', null, timestamp '2016-01-02 03:04:05.0', date '2016-01-03', cast(2.5 as decimal(5,2)))" +
+                ") as t (i, l, d, s, b, ts, dt, dec)";
+
+        ResultTable table = db.findColumnarTable(sql);
+        ResultTable rowTable = db.findTable(sql);
+
+        assertThat(table.getRowCount(), is(3));
+        assertThat(table.getColumnCount(), is(8));
+        assertThat(table.getColumns().toString(), is(rowTable.getColumns().toString()));
+
+        for (int row = 0; row < table.getRowCount(); row++) {
+            assertThat(table.getRows().get(row).asList(), is(rowTable.getRows().get(row).asList()));
+            for (int column = 0; column < table.getColumnCount(); column++) {
+                assertEquals(rowTable.get(row, column), table.get(row, column));
+                assertThat(table.isNull(row, column), is(rowTable.get(row, column) == null));
+            }
+        }
+
+        assertEquals("bar", table.get(1, "s"));
+        assertEquals("bar", table.getRows().get(1).get("s"));
+        assertThat(table.getColumnValues(3), is(values("foo", "bar", "foo")));
+    }
+
+    @Test
+    public void bulkColumnAccess() {
+        String sql = "select * from (values (1, cast(10 as bigint), 1.5e0), (2, cast(20 as bigint), 2.5e0)) as t (i, l, d)";
+
+        for (ResultTable table : asList(db.findTable(sql), db.findColumnarTable(sql))) {
+            assertArrayEquals(new int[] { 1, 2 }, table.getIntColumn(0));
+            assertArrayEquals(new long[] { 10, 20 }, table.getLongColumn(1));
+            assertArrayEquals(new long[] { 1, 2 }, table.getLongColumn(0));
+            assertArrayEquals(new double[] { 1.5, 2.5 }, table.getDoubleColumn(2), 0);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void bulkAccessToColumnWithNulls() {
+        db.findColumnarTable("values (1), (cast(null as int))").getIntColumn(0);
+    }
+
     @NotNull
     private static List<Object> values(Object... values) {
         return asList(values);
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class DatabaseStatementCacheTest {
+
+    private final Database db = TestDatabaseProvider.createInMemoryHSQLDatabase();
+
+    @Before
+    public void createTable() {
+        db.update("drop table if exists statement_cache_test");
+        db.update("create table statement_cache_test (id int identity primary key, value int)");
+    }
+
+    @Test
+    public void statementsAreNotCachedByDefault() {
+        db.withVoidTransaction(tx -> {
+            for (int i = 0; i < 3; i++)
+                assertThat(db.findUniqueInt("values (cast(? as int))", i), is(i));
+        });
+
+        assertThat(db.getStatementCacheSize(), is(0));
+        assertThat(db.getStatementCacheStatistics().getHits(), is(0L));
+        assertThat(db.getStatementCacheStatistics().getMisses(), is(0L));
+    }
+
+    @Test
+    public void repeatedQueriesReuseStatements() {
+        db.setStatementCacheSize(10);
+
+        db.withVoidTransaction(tx -> {
+            for (int i = 0; i < 5; i++)
+                assertThat(db.findUniqueInt("values (cast(? as int))", i), is(i));
+        });
+
+        CacheStatistics statistics = db.getStatementCacheStatistics();
+        assertThat(statistics.getMisses(), is(1L));
+        assertThat(statistics.getHits(), is(4L));
+    }
+
+    @Test
+    public void cachedStatementsAreClosedWhenTransactionEnds() {
+        db.setStatementCacheSize(10);
+
+        db.withVoidTransaction(tx -> {
+            db.findUniqueInt("values (1)");
+            db.findUniqueInt("values (2)");
+
+            assertThat(db.getStatementCacheStatistics().getSize(), is(2));
+        });
+
+        assertThat(db.getStatementCacheStatistics().getSize(), is(0));
+    }
+
+    @Test
+    public void leastRecentlyUsedStatementsAreEvicted() {
+        db.setStatementCacheSize(1);
+
+        db.withVoidTransaction(tx -> {
+            db.findUniqueInt("values (1)");
+            db.findUniqueInt("values (2)");
+            db.findUniqueInt("values (1)");
+
+            assertThat(db.getStatementCacheStatistics().getSize(), is(1));
+        });
+
+        assertThat(db.getStatementCacheStatistics().getMisses(), is(3L));
+    }
+
+    @Test
+    public void nestedExecutionsOfSameQueryUseSeparateStatements() {
+        db.setStatementCacheSize(10);
+
+        List<Integer> result = db.withTransaction(tx ->
+                db.executeQuery(rs -> {
+                    List<Integer> values = new ArrayList<>();
+                    while (rs.next())
+                        values.add(rs.getInt(1) + db.findUniqueInt("values (cast(? as int))", 10));
+                    return values;
+                }, "values (cast(? as int))", 1));
+
+        assertThat(result, is(asList(11)));
+    }
+
+    @Test
+    public void updatesAndBatchesReuseStatements() {
+        db.setStatementCacheSize(10);
+
+        db.withVoidTransaction(tx -> {
+            db.update("insert into statement_cache_test (value) values (?)", 1);
+            db.update("insert into statement_cache_test (value) values (?)", 2);
+            db.updateBatch("insert into statement_cache_test (value) values (?)", asList(asList(3), asList(4)));
+            db.updateBatch("insert into statement_cache_test (value) values (?)", asList(asList(5), asList(6)));
+        });
+
+        assertThat(db.findAll(Integer.class, "select value from statement_cache_test order by value"), is(asList(1, 2, 3, 4, 5, 6)));
+        assertThat(db.getStatementCacheStatistics().getHits(), is(2L));
+    }
+
+    @Test
+    public void generatedKeyVariantsAreCachedSeparately() {
+        db.setStatementCacheSize(10);
+
+        String sql = "insert into statement_cache_test (value) values (?)";
+        db.withVoidTransaction(tx -> {
+            db.update(sql, 1);
+            db.updateAndProcessGeneratedKeys(rs -> null, emptyList(), sql, 2);
+            db.updateAndProcessGeneratedKeys(rs -> null, asList("ID"), sql, 3);
+            db.updateAndProcessGeneratedKeys(rs -> null, asList("ID"), sql, 4);
+        });
+
+        CacheStatistics statistics = db.getStatementCacheStatistics();
+        assertThat(statistics.getMisses(), is(3L));
+        assertThat(statistics.getHits(), is(1L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeCacheSizeIsRejected() {
+        db.setStatementCacheSize(-1);
+    }
+}
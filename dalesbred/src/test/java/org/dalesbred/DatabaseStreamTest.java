@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred;
+
+import org.dalesbred.query.CopyFormat;
+import org.dalesbred.transaction.NoActiveTransactionException;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class DatabaseStreamTest {
+
+    private final Database db = TestDatabaseProvider.createInMemoryHSQLDatabase();
+
+    @Test
+    public void streamRowsWithClass() {
+        List<Integer> result = db.withTransaction(tx -> {
+            try (Stream<Integer> stream = db.stream(Integer.class, "values (1), (2), (3)")) {
+                return stream.collect(toList());
+            }
+        });
+
+        assertThat(result, is(asList(1, 2, 3)));
+    }
+
+    @Test
+    public void streamRowsWithRowMapper() {
+        List<String> result = db.withTransaction(tx -> {
+            try (Stream<String> stream = db.stream(rs -> rs.getString(1) + "!", "values ('foo'), ('bar')")) {
+                return stream.collect(toList());
+            }
+        });
+
+        assertThat(result, is(asList("foo!", "bar!")));
+    }
+
+    @Test
+    public void rowsAreReadLazily() {
+        db.withVoidTransaction(tx -> {
+            try (Stream<Integer> stream = db.stream(Integer.class, "values (1), (2), (3)")) {
+                Iterator<Integer> iterator = stream.iterator();
+                assertThat(iterator.next(), is(1));
+
+                // Running other queries while the stream is open is fine
+                assertThat(db.findUniqueInt("values (42)"), is(42));
+
+                assertThat(iterator.next(), is(2));
+            }
+        });
+    }
+
+    @Test
+    public void streamCanBeClosedBeforeConsumingAllRows() {
+        List<Integer> result = db.withTransaction(tx -> {
+            try (Stream<Integer> stream = db.stream(Integer.class, "values (1), (2), (3)")) {
+                return stream.limit(1).collect(toList());
+            }
+        });
+
+        assertThat(result, is(asList(1)));
+    }
+
+    @Test(expected = NoActiveTransactionException.class)
+    public void streamingRequiresActiveTransaction() {
+        db.setAllowImplicitTransactions(true);
+        db.stream(Integer.class, "values (1)");
+    }
+
+    @Test(expected = NoActiveTransactionException.class)
+    public void usingStreamAfterTransactionThrowsException() {
+        Stream<Integer> stream = db.withTransaction(tx -> db.stream(Integer.class, "values (1), (2)"));
+
+        stream.collect(toList());
+    }
+
+    @Test(expected = NoActiveTransactionException.class)
+    public void usingStreamInAnotherTransactionThrowsException() {
+        Stream<Integer> stream = db.withTransaction(tx -> db.stream(Integer.class, "values (1), (2)"));
+
+        db.withVoidTransaction(tx -> stream.forEach(x -> { }));
+    }
+
+    @Test
+    public void copyOutFallsBackToStreamingWithoutDialectSupport() {
+        List<Integer> result = new ArrayList<>();
+
+        long count = db.withTransaction(tx -> db.copyOut(Integer.class, "values (1), (2), (3)", result::add));
+
+        assertThat(count, is(3L));
+        assertThat(result, is(asList(1, 2, 3)));
+    }
+
+    @Test
+    public void copyOutFallbackWorksWithImplicitTransactions() {
+        db.setAllowImplicitTransactions(true);
+        List<Integer> result = new ArrayList<>();
+
+        long count = db.copyOut(Integer.class, "values (1), (2), (3)", result::add);
+
+        assertThat(count, is(3L));
+        assertThat(result, is(asList(1, 2, 3)));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void rawCopyOutIsNotSupportedWithoutDialectSupport() {
+        db.copyOut("values (1)", CopyFormat.TEXT, new ByteArrayOutputStream());
+    }
+}
@@ -28,6 +28,7 @@ import org.dalesbred.result.EmptyResultException;
 import org.dalesbred.result.NonUniqueResultException;
 import org.dalesbred.result.ResultSetProcessor;
 import org.dalesbred.result.RowMapper;
+import org.dalesbred.result.UnexpectedResultException;
 import org.junit.Rule;
 import org.junit.Test;
 
@@ -64,6 +65,81 @@ public class DatabaseTest {
         assertThat(db.findUnique(Boolean.class, "values (cast(null as boolean))"), is(nullValue()));
     }
 
+    @Test
+    public void primitiveScalarQueries() {
+        assertThat(db.findUniqueLong("values (cast(42 as bigint))"), is(42L));
+        assertThat(db.findUniqueLong("values (42)"), is(42L));
+        assertThat(db.findUniqueInt("values (cast(42 as bigint))"), is(42));
+        assertThat(db.findOptionalLong("values (cast(42 as bigint))"), is(OptionalLong.of(42)));
+        assertThat(db.findOptionalLong("values (cast(null as bigint))"), is(OptionalLong.empty()));
+        assertThat(db.findOptionalDouble("values (cast(null as double))"), is(OptionalDouble.empty()));
+    }
+
+    @Test(expected = UnexpectedResultException.class)
+    public void findUniqueInt_nullResult() {
+        db.findUniqueInt("values (cast (null as int))");
+    }
+
+    @Test(expected = NonUniqueResultException.class)
+    public void findUniqueInt_nonUniqueResult() {
+        db.findUniqueInt("values (1), (2)");
+    }
+
+    @Test(expected = EmptyResultException.class)
+    public void findUniqueLong_emptyResult() {
+        db.findUniqueLong("select * from (values (cast(1 as bigint))) n where false");
+    }
+
+    @Test(expected = NonUniqueResultException.class)
+    public void findOptionalInt_nonUniqueResult() {
+        db.findOptionalInt("values (1), (2)");
+    }
+
+    @Test
+    public void nullsInTypedColumns() {
+        NullableValues values = db.findUnique(NullableValues.class,
+                "select cast(null as int) as intValue, cast(null as bigint) as longValue, " +
+                "       cast(null as boolean) as booleanValue, cast(null as double) as doubleValue " +
+                "  from (values (0))");
+
+        assertThat(values.intValue, is(nullValue()));
+        assertThat(values.longValue, is(nullValue()));
+        assertThat(values.booleanValue, is(nullValue()));
+        assertThat(values.doubleValue, is(nullValue()));
+    }
+
+    @Test
+    public void findIntArray() {
+        StringBuilder sql = new StringBuilder("values (0)");
+        for (int i = 1; i < 100; i++)
+            sql.append(", (").append(i).append(')');
+
+        int[] result = db.findIntArray(sql.toString());
+
+        assertThat(result.length, is(100));
+        for (int i = 0; i < result.length; i++)
+            assertThat(result[i], is(i));
+    }
+
+    @Test
+    public void findPrimitiveArrays() {
+        assertArrayEquals(new long[] { 1, 2, 3 }, db.findLongArray("values (cast(1 as bigint)), (2), (3)"));
+        assertArrayEquals(new double[] { 1.5, 2.5 }, db.findDoubleArray("values (cast(1.5 as double)), (2.5)"), 0);
+        assertArrayEquals(new int[0], db.findIntArray("select * from (values (1)) n where false"));
+    }
+
+    @Test
+    public void findPrimitiveArraysWithConversions() {
+        assertArrayEquals(new int[] { 1, 2 }, db.findIntArray("values (cast(1 as bigint)), (2)"));
+        assertArrayEquals(new long[] { 1, 2 }, db.findLongArray("values (1), (2)"));
+        assertArrayEquals(new double[] { 1.5, 2.5 }, db.findDoubleArray("values (1.5), (2.5)"), 0);
+    }
+
+    @Test(expected = UnexpectedResultException.class)
+    public void findIntArray_nullValues() {
+        db.findIntArray("values (1), (cast (null as int))");
+    }
+
     @Test
     public void bigNumbers() {
         assertThat(db.findUnique(BigDecimal.class, "values (4242242848428484848484848)"), is(new BigDecimal("4242242848428484848484848")));
@@ -237,6 +313,20 @@ public class DatabaseTest {
         assertTrue(db.isAllowImplicitTransactions());
     }
 
+    public static class NullableValues {
+        @Reflective
+        public Integer intValue;
+
+        @Reflective
+        public Long longValue;
+
+        @Reflective
+        public Boolean booleanValue;
+
+        @Reflective
+        public Double doubleValue;
+    }
+
     public static class Department {
         final int id;
         final String name;
@@ -40,4 +40,13 @@ public class TransactionSettingsTest {
 
         assertEquals("[propagation=REQUIRED, isolation=REPEATABLE_READ]", settings.toString());
     }
+
+    @Test
+    public void readOnlyIsIncludedInToString() {
+        TransactionSettings settings = new TransactionSettings();
+
+        settings.setReadOnly(true);
+
+        assertEquals("[propagation=REQUIRED, isolation=DEFAULT, readOnly=true]", settings.toString());
+    }
 }
@@ -0,0 +1,385 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred.connection;
+
+import org.dalesbred.Database;
+import org.dalesbred.DatabaseException;
+import org.dalesbred.TestDatabaseProvider;
+import org.dalesbred.dialect.HsqldbDialect;
+import org.dalesbred.testutils.LoggingController;
+import org.dalesbred.testutils.SuppressLogging;
+import org.dalesbred.transaction.Isolation;
+import org.dalesbred.transaction.TransactionSettings;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class PooledConnectionProviderTest {
+
+    private final CountingConnectionProvider connectionProvider = new CountingConnectionProvider();
+
+    private final PooledConnectionProvider pool = new PooledConnectionProvider(connectionProvider, 0, 2);
+
+    @Rule
+    public final LoggingController loggingController = new LoggingController();
+
+    @After
+    public void closePool() {
+        pool.close();
+    }
+
+    @Test
+    public void connectionsAreReused() throws SQLException {
+        Connection first = pool.getConnection();
+        pool.releaseConnection(first);
+        Connection second = pool.getConnection();
+        pool.releaseConnection(second);
+
+        assertThat(second, is(sameInstance(first)));
+        assertThat(connectionProvider.opened, is(1));
+
+        ConnectionPoolStatistics statistics = pool.getStatistics();
+        assertThat(statistics.getAcquisitions(), is(2L));
+        assertThat(statistics.getCreatedConnections(), is(1L));
+        assertThat(statistics.getIdleConnections(), is(1));
+        assertThat(statistics.getActiveConnections(), is(0));
+    }
+
+    @Test
+    public void mostRecentlyReturnedConnectionIsReusedFirst() throws SQLException {
+        Connection first = pool.getConnection();
+        Connection second = pool.getConnection();
+        assertThat(pool.getStatistics().getActiveConnections(), is(2));
+
+        pool.releaseConnection(first);
+        pool.releaseConnection(second);
+
+        Connection third = pool.getConnection();
+        assertThat(third, is(sameInstance(second)));
+        pool.releaseConnection(third);
+    }
+
+    @Test
+    public void borrowingTimesOutWhenAllConnectionsAreInUse() throws SQLException {
+        pool.setAcquireTimeoutMillis(10);
+        Connection first = pool.getConnection();
+        Connection second = pool.getConnection();
+
+        try {
+            pool.getConnection();
+            fail("Expected SQLTransientConnectionException");
+        } catch (SQLTransientConnectionException ignored) {
+        }
+
+        assertThat(pool.getStatistics().getTimeouts(), is(1L));
+
+        pool.releaseConnection(first);
+        pool.releaseConnection(pool.getConnection());
+        pool.releaseConnection(second);
+    }
+
+    @Test
+    public void invalidConnectionsAreDiscardedOnBorrow() throws SQLException {
+        pool.setValidationIntervalMillis(0);
+
+        Connection first = pool.getConnection();
+        first.close();
+        pool.releaseConnection(first);
+
+        Connection second = pool.getConnection();
+        assertThat(second, is(not(sameInstance(first))));
+        assertThat(second.isValid(1), is(true));
+        assertThat(connectionProvider.opened, is(2));
+        pool.releaseConnection(second);
+    }
+
+    @Test
+    public void connectionsAreClosedAfterMaxLifetime() throws Exception {
+        pool.setMaxLifetimeMillis(1);
+
+        Connection connection = pool.getConnection();
+        Thread.sleep(5);
+        pool.releaseConnection(connection);
+
+        assertThat(connection.isClosed(), is(true));
+        assertThat(pool.getStatistics().getIdleConnections(), is(0));
+    }
+
+    @Test
+    public void idleConnectionsAreEvictedDownToMinimumSize() throws SQLException {
+        PooledConnectionProvider pool = new PooledConnectionProvider(connectionProvider, 1, 3);
+        pool.fillToMinimumSize();
+        assertThat(pool.getStatistics().getIdleConnections(), is(1));
+
+        Connection first = pool.getConnection();
+        Connection second = pool.getConnection();
+        Connection third = pool.getConnection();
+        assertThat(connectionProvider.opened, is(3));
+
+        pool.setIdleTimeoutMillis(0);
+        pool.releaseConnection(first);
+        pool.releaseConnection(second);
+        pool.releaseConnection(third);
+
+        assertThat(pool.getStatistics().getIdleConnections(), is(1));
+        assertThat(connectionProvider.closed, is(2));
+        pool.close();
+    }
+
+    @Test
+    public void closedPoolDoesNotLendConnections() throws SQLException {
+        pool.releaseConnection(pool.getConnection());
+        pool.close();
+
+        assertThat(connectionProvider.closed, is(1));
+        try {
+            pool.getConnection();
+            fail("Expected SQLException");
+        } catch (SQLException ignored) {
+        }
+    }
+
+    @Test
+    public void transactionSettingsAreNotLeakedToNextTransaction() {
+        Database db = new Database(pool, new HsqldbDialect());
+
+        int defaultIsolation = db.withTransaction(tx -> tx.getConnection().getTransactionIsolation());
+        db.withTransaction(Isolation.SERIALIZABLE, tx -> tx.getConnection().getTransactionIsolation());
+
+        assertThat(db.withTransaction(tx -> tx.getConnection().getTransactionIsolation()), is(defaultIsolation));
+        assertThat(connectionProvider.opened, is(1));
+    }
+
+    @Test
+    @SuppressLogging
+    public void connectionsAreReturnedToPoolWhenTransactionSetupFails() {
+        FlakyConnectionProvider flakyProvider = new FlakyConnectionProvider();
+        PooledConnectionProvider pool = new PooledConnectionProvider(flakyProvider, 0, 2);
+        pool.setAcquireTimeoutMillis(10);
+        Database db = new Database(pool, new HsqldbDialect());
+
+        flakyProvider.failingMethod = "setAutoCommit";
+        for (int i = 0; i < 2; i++) {
+            try {
+                db.findUniqueInt("values (1)");
+                fail("Expected DatabaseException");
+            } catch (DatabaseException ignored) {
+            }
+        }
+
+        assertThat(pool.getStatistics().getActiveConnections(), is(0));
+
+        flakyProvider.failingMethod = null;
+        assertThat(db.findUniqueInt("values (1)"), is(1));
+        pool.close();
+    }
+
+    @Test
+    @SuppressLogging
+    public void connectionsThatCantBeResetAreDiscarded() {
+        FlakyConnectionProvider flakyProvider = new FlakyConnectionProvider();
+        PooledConnectionProvider pool = new PooledConnectionProvider(flakyProvider, 0, 2);
+        Database db = new Database(pool, new HsqldbDialect());
+
+        TransactionSettings settings = new TransactionSettings();
+        settings.setReadOnly(true);
+        db.withTransaction(settings, tx -> {
+            flakyProvider.failingMethod = "setReadOnly";
+            return db.findUniqueInt("values (1)");
+        });
+        flakyProvider.failingMethod = null;
+
+        ConnectionPoolStatistics statistics = pool.getStatistics();
+        assertThat(statistics.getActiveConnections(), is(0));
+        assertThat(statistics.getIdleConnections(), is(0));
+
+        assertThat(db.findUniqueInt("values (1)"), is(1));
+        assertThat(flakyProvider.opened, is(2));
+        pool.close();
+    }
+
+    @Test
+    public void connectionsAreNotValidatedAfterApplicationFailures() {
+        FlakyConnectionProvider flakyProvider = new FlakyConnectionProvider();
+        PooledConnectionProvider pool = new PooledConnectionProvider(flakyProvider, 0, 2);
+        Database db = new Database(pool, new HsqldbDialect());
+
+        try {
+            db.withVoidTransaction(tx -> {
+                throw new IllegalStateException("simulated failure");
+            });
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException ignored) {
+        }
+
+        try {
+            db.update("insert into nonexistent_table values (1)");
+            fail("expected DatabaseException");
+        } catch (DatabaseException ignored) {
+        }
+
+        assertThat(flakyProvider.validations, is(0));
+        assertThat(pool.getStatistics().getIdleConnections(), is(1));
+        pool.close();
+    }
+
+    @Test
+    public void connectionsAreValidatedAfterConnectionFailures() {
+        FlakyConnectionProvider flakyProvider = new FlakyConnectionProvider();
+        PooledConnectionProvider pool = new PooledConnectionProvider(flakyProvider, 0, 2);
+        Database db = new Database(pool, new HsqldbDialect());
+
+        flakyProvider.failingMethod = "prepareStatement";
+        flakyProvider.failingSqlState = "08006";
+        try {
+            db.findUniqueInt("values (1)");
+            fail("expected DatabaseException");
+        } catch (DatabaseException ignored) {
+        }
+        flakyProvider.failingMethod = null;
+
+        assertThat(flakyProvider.validations, is(1));
+        assertThat(pool.getStatistics().getIdleConnections(), is(0));
+        pool.close();
+    }
+
+    @Test
+    public void closedConnectionsAreDiscardedOnRelease() throws SQLException {
+        Connection connection = pool.getConnection();
+        connection.close();
+        pool.releaseConnection(connection);
+
+        assertThat(pool.getStatistics().getIdleConnections(), is(0));
+        assertThat(connectionProvider.closed, is(1));
+    }
+
+    @Test
+    public void openingConnectionsBacksOffAfterFailure() throws SQLException {
+        FlakyConnectionProvider flakyProvider = new FlakyConnectionProvider();
+        PooledConnectionProvider pool = new PooledConnectionProvider(flakyProvider, 0, 2);
+
+        flakyProvider.failingMethod = "getConnection";
+        try {
+            pool.getConnection();
+            fail("Expected SQLException");
+        } catch (SQLException ignored) {
+        }
+
+        flakyProvider.failingMethod = null;
+        try {
+            pool.getConnection();
+            fail("Expected SQLTransientConnectionException");
+        } catch (SQLTransientConnectionException ignored) {
+        }
+
+        assertThat(flakyProvider.opened, is(1));
+        assertThat(pool.getStatistics().getActiveConnections(), is(0));
+        pool.close();
+    }
+
+    /**
+     * Provides connections whose method named by {@link #failingMethod} throws.
+     */
+    private static final class FlakyConnectionProvider implements ConnectionProvider {
+
+        @NotNull
+        private final ConnectionProvider connectionProvider = TestDatabaseProvider.createInMemoryHSQLConnectionProvider();
+
+        @Nullable
+        private volatile String failingMethod;
+
+        @Nullable
+        private volatile String failingSqlState;
+
+        private int opened = 0;
+
+        private int validations = 0;
+
+        @NotNull
+        @Override
+        public Connection getConnection() throws SQLException {
+            opened++;
+            if ("getConnection".equals(failingMethod))
+                throw new SQLException("simulated failure");
+
+            Connection connection = connectionProvider.getConnection();
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+                if (method.getName().equals(failingMethod))
+                    throw new SQLException("simulated failure", failingSqlState);
+                if (method.getName().equals("isValid")) {
+                    validations++;
+                    if (failingMethod != null)
+                        return false;
+                }
+                try {
+                    return method.invoke(connection, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+        }
+
+        @Override
+        public void releaseConnection(@NotNull Connection connection) throws SQLException {
+            connection.close();
+        }
+    }
+
+    private static final class CountingConnectionProvider implements ConnectionProvider {
+
+        @NotNull
+        private final ConnectionProvider connectionProvider = TestDatabaseProvider.createInMemoryHSQLConnectionProvider();
+
+        private int opened = 0;
+
+        private int closed = 0;
+
+        @NotNull
+        @Override
+        public Connection getConnection() throws SQLException {
+            opened++;
+            return connectionProvider.getConnection();
+        }
+
+        @Override
+        public void releaseConnection(@NotNull Connection connection) throws SQLException {
+            closed++;
+            connectionProvider.releaseConnection(connection);
+        }
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred.connection;
+
+import org.dalesbred.Database;
+import org.dalesbred.TestDatabaseProvider;
+import org.dalesbred.dialect.HsqldbDialect;
+import org.dalesbred.testutils.LoggingController;
+import org.dalesbred.testutils.SuppressLogging;
+import org.dalesbred.transaction.TransactionSettings;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Rule;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.logging.Logger;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ReplicaRoutingConnectionProviderTest {
+
+    private final RecordingDataSource primary = new RecordingDataSource();
+    private final RecordingDataSource replica1 = new RecordingDataSource();
+    private final RecordingDataSource replica2 = new RecordingDataSource();
+
+    private final ReplicaRoutingConnectionProvider provider = new ReplicaRoutingConnectionProvider(primary, asList(replica1, replica2));
+
+    @Rule
+    public final LoggingController loggingController = new LoggingController();
+
+    @Test
+    public void readOnlyTransactionsAreRoutedToReplicas() {
+        Database db = new Database(provider, new HsqldbDialect());
+
+        TransactionSettings settings = new TransactionSettings();
+        settings.setReadOnly(true);
+
+        boolean readOnly = db.withTransaction(settings, tx -> tx.getConnection().isReadOnly());
+        db.withVoidTransaction(tx -> db.findUniqueInt("values (1)"));
+
+        assertThat(readOnly, is(true));
+        assertThat(primary.connections, is(1));
+        assertThat(replica1.connections + replica2.connections, is(1));
+    }
+
+    @Test
+    public void connectionsAreAssignedToReplicaWithLeastOutstandingConnections() throws SQLException {
+        Connection first = provider.getConnection(true);
+        Connection second = provider.getConnection(true);
+        assertThat(replica1.connections, is(1));
+        assertThat(replica2.connections, is(1));
+
+        provider.releaseConnection(first);
+        Connection third = provider.getConnection(true);
+        Connection fourth = provider.getConnection(true);
+
+        assertThat(replica1.connections + replica2.connections, is(4));
+        assertThat(Math.abs(replica1.connections - replica2.connections), is(0));
+
+        provider.releaseConnection(second);
+        provider.releaseConnection(third);
+        provider.releaseConnection(fourth);
+    }
+
+    @Test
+    @SuppressLogging
+    public void failingReplicasAreEjected() throws SQLException {
+        replica1.failing = true;
+        provider.setFailureThreshold(2);
+
+        for (int i = 0; i < 10; i++)
+            provider.releaseConnection(provider.getConnection(true));
+
+        assertThat(replica1.attempts, is(2));
+        assertThat(replica2.connections, is(10));
+        assertThat(primary.connections, is(0));
+        assertThat(provider.getAvailableReplicaCount(), is(1));
+    }
+
+    @Test
+    @SuppressLogging
+    public void ejectedReplicasAreRetriedAfterEjectionPeriod() throws SQLException {
+        replica1.failing = true;
+        provider.setFailureThreshold(1);
+        provider.setEjectionMillis(0);
+
+        provider.releaseConnection(provider.getConnection(true));
+        replica1.failing = false;
+
+        for (int i = 0; i < 4; i++)
+            provider.releaseConnection(provider.getConnection(true));
+
+        assertThat(replica1.connections > 0, is(true));
+        assertThat(provider.getAvailableReplicaCount(), is(2));
+    }
+
+    @Test
+    @SuppressLogging
+    public void primaryIsUsedWhenNoReplicaIsAvailable() throws SQLException {
+        replica1.failing = true;
+        replica2.failing = true;
+
+        provider.releaseConnection(provider.getConnection(true));
+
+        assertThat(primary.connections, is(1));
+    }
+
+    @Test
+    public void primaryIsUsedWithoutReplicas() throws SQLException {
+        ReplicaRoutingConnectionProvider provider = new ReplicaRoutingConnectionProvider(primary, emptyList());
+
+        provider.releaseConnection(provider.getConnection(true));
+
+        assertThat(primary.connections, is(1));
+    }
+
+    @Test
+    @SuppressLogging
+    public void laggingReplicasAreEjected() throws SQLException {
+        provider.setMaxReplicationLag(1000, connection -> connection == replica1.lastConnection ? 5000 : 10);
+
+        for (int i = 0; i < 10; i++)
+            provider.releaseConnection(provider.getConnection(true));
+
+        assertThat(replica1.attempts, is(1));
+        assertThat(replica2.connections, is(10));
+        assertThat(provider.getAvailableReplicaCount(), is(1));
+    }
+
+    @Test
+    @SuppressLogging
+    public void connectionsAreReleasedEvenIfResettingThemFails() throws SQLException {
+        replica1.failingReset = true;
+        replica2.failingReset = true;
+        Database db = new Database(provider, new HsqldbDialect());
+
+        TransactionSettings settings = new TransactionSettings();
+        settings.setReadOnly(true);
+        db.withTransaction(settings, tx -> db.findUniqueInt("values (1)"));
+
+        int replica1Connections = replica1.connections;
+        int replica2Connections = replica2.connections;
+
+        // If the failed connection was still counted as outstanding, both of these would go to the other replica
+        Connection first = provider.getConnection(true);
+        Connection second = provider.getConnection(true);
+        assertThat(replica1.connections - replica1Connections, is(1));
+        assertThat(replica2.connections - replica2Connections, is(1));
+
+        provider.releaseConnection(first);
+        provider.releaseConnection(second);
+    }
+
+    private static final class RecordingDataSource implements DataSource {
+
+        @NotNull
+        private final DataSource dataSource = TestDatabaseProvider.createInMemoryHSQLDataSource();
+
+        private boolean failing = false;
+
+        /** If set, connections fail when their read-only flag is reset */
+        private boolean failingReset = false;
+
+        private int attempts = 0;
+
+        private int connections = 0;
+
+        private Connection lastConnection;
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            attempts++;
+            if (failing)
+                throw new SQLException("simulated failure");
+
+            connections++;
+            Connection connection = dataSource.getConnection();
+            lastConnection = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+                if (failingReset && method.getName().equals("setReadOnly") && Boolean.FALSE.equals(args[0]))
+                    throw new SQLException("simulated failure");
+                try {
+                    return method.invoke(connection, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+            return lastConnection;
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            throw new SQLFeatureNotSupportedException();
+        }
+
+        @Override
+        public PrintWriter getLogWriter() throws SQLException {
+            throw new SQLFeatureNotSupportedException();
+        }
+
+        @Override
+        public void setLogWriter(PrintWriter out) throws SQLException {
+            throw new SQLFeatureNotSupportedException();
+        }
+
+        @Override
+        public void setLoginTimeout(int seconds) throws SQLException {
+            throw new SQLFeatureNotSupportedException();
+        }
+
+        @Override
+        public int getLoginTimeout() throws SQLException {
+            throw new SQLFeatureNotSupportedException();
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> iface) throws SQLException {
+            throw new SQLFeatureNotSupportedException();
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> iface) throws SQLException {
+            throw new SQLFeatureNotSupportedException();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred.dialect;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class DialectTest {
+
+    @Test
+    public void multiRowInsertsAreDisabledByDefault() {
+        assertThat(new DefaultDialect().getMaxMultiRowInsertRows(2), is(1));
+        assertThat(new OracleDialect().getMaxMultiRowInsertRows(2), is(1));
+    }
+
+    @Test
+    public void multiRowInsertsAreLimitedByRowCount() {
+        assertThat(new HsqldbDialect().getMaxMultiRowInsertRows(2), is(1000));
+        assertThat(new H2Dialect().getMaxMultiRowInsertRows(2), is(1000));
+    }
+
+    @Test
+    public void multiRowInsertsAreLimitedByParameterCount() {
+        assertThat(new SQLServerDialect().getMaxMultiRowInsertRows(3), is(699));
+        assertThat(new PostgreSQLDialect().getMaxMultiRowInsertRows(100), is(327));
+        assertThat(new MySQLDialect().getMaxMultiRowInsertRows(100), is(655));
+    }
+
+    @Test
+    public void idSetStrategies() {
+        assertThat(new DefaultDialect().getIdSetStrategy(100_000), is(IdSetStrategy.PLACEHOLDERS));
+        assertThat(new PostgreSQLDialect().getIdSetStrategy(100_000), is(IdSetStrategy.ARRAY));
+        assertThat(new SQLServerDialect().getIdSetStrategy(100), is(IdSetStrategy.PLACEHOLDERS));
+        assertThat(new SQLServerDialect().getIdSetStrategy(100_000), is(IdSetStrategy.TEMPORARY_TABLE));
+        assertThat(new MySQLDialect().getIdSetStrategy(100_000), is(IdSetStrategy.TEMPORARY_TABLE));
+    }
+
+    @Test
+    public void idSetTableNamesAreSanitized() {
+        assertThat(Dialect.idSetTableName("#", "varchar(20)", 3), is("#dalesbred_id_set_varchar_20__3"));
+    }
+
+    @Test
+    public void multipleResultSetSupport() {
+        assertThat(new DefaultDialect().supportsMultipleResultSets(), is(false));
+        assertThat(new MySQLDialect().supportsMultipleResultSets(), is(false));
+        assertThat(new PostgreSQLDialect().supportsMultipleResultSets(), is(true));
+        assertThat(new SQLServerDialect().supportsMultipleResultSets(), is(true));
+    }
+
+    @Test
+    public void multiRowInsertsWithTooManyParametersPerRowAreNotRewritten() {
+        assertThat(new SQLServerDialect().getMaxMultiRowInsertRows(3000), is(1));
+    }
+}
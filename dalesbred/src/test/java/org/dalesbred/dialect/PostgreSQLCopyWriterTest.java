@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred.dialect;
+
+import org.dalesbred.datatype.SqlArray;
+import org.junit.Test;
+import org.postgresql.util.PGobject;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.UUID;
+import java.util.function.Function;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class PostgreSQLCopyWriterTest {
+
+    @Test
+    public void encodeBasicValues() throws SQLException {
+        assertThat(encode(2, asList("foo", 42), asList(null, new BigDecimal("1.5"))), is("foo\t42\n\\N\t1.5\n"));
+    }
+
+    @Test
+    public void encodeBooleans() throws SQLException {
+        assertThat(encode(2, asList(true, false)), is("t\tf\n"));
+    }
+
+    @Test
+    public void escapeSpecialCharacters() throws SQLException {
+        assertThat(encode(1, singletonList("a\tb\nc\rd\\e")), is("a\\tb\\nc\\rd\\\\e\n"));
+    }
+
+    @Test
+    public void encodeNonAsciiCharacters() throws SQLException {
+        String value = "Amélie € 😀";
+
+        assertThat(encode(1, singletonList(value)), is(value + "\n"));
+    }
+
+    @Test
+    public void encodeByteArrays() throws SQLException {
+        assertThat(encode(1, singletonList(new byte[] { 0, 15, (byte) 0xAB })), is("\\\\x000fab\n"));
+    }
+
+    @Test
+    public void encodePgObjects() throws SQLException {
+        PGobject object = new PGobject();
+        object.setType("mood");
+        object.setValue("HAPPY");
+
+        assertThat(encode(1, singletonList(object)), is("HAPPY\n"));
+    }
+
+    @Test
+    public void valuesAreConverted() throws SQLException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PostgreSQLCopyWriter writer = new PostgreSQLCopyWriter((bytes, length) -> out.write(bytes, 0, length), 1, v -> "converted-" + v);
+
+        writer.writeRow(singletonList(1));
+        writer.flush();
+
+        assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8), is("converted-1\n"));
+    }
+
+    @Test
+    public void rowsLargerThanBufferAreWrittenInPieces() throws SQLException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100; i++)
+            sb.append("é€😀x");
+        String value = sb.toString();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PostgreSQLCopyWriter writer = new PostgreSQLCopyWriter((bytes, length) -> out.write(bytes, 0, length), 1, Function.identity(), 7);
+        writer.writeRow(singletonList(value));
+        writer.writeRow(singletonList(value));
+        writer.flush();
+
+        assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8), is(value + '\n' + value + '\n'));
+    }
+
+    @Test
+    public void encodeUuids() throws SQLException {
+        UUID uuid = UUID.fromString("6ba7b810-9dad-11d1-80b4-00c04fd430c8");
+
+        assertThat(encode(1, singletonList(uuid)), is("6ba7b810-9dad-11d1-80b4-00c04fd430c8\n"));
+    }
+
+    @Test
+    public void encodeEnumsByName() throws SQLException {
+        assertThat(encode(1, singletonList(Mood.HAPPY)), is("HAPPY\n"));
+    }
+
+    @Test
+    public void encodeTimestampsWithOffset() throws SQLException {
+        TimeZone original = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("Europe/Helsinki"));
+        try {
+            Timestamp timestamp = Timestamp.valueOf("2015-06-15 12:34:56.123456");
+            Date date = new Date(timestamp.getTime());
+
+            assertThat(encode(2, asList(timestamp, date)), is("2015-06-15T12:34:56.123456+03:00\t2015-06-15T12:34:56.123+03:00\n"));
+        } finally {
+            TimeZone.setDefault(original);
+        }
+    }
+
+    @Test
+    public void encodeSqlDatesAndTimes() throws SQLException {
+        assertThat(encode(2, asList(java.sql.Date.valueOf("2015-06-15"), Time.valueOf("12:34:56"))), is("2015-06-15\t12:34:56\n"));
+    }
+
+    @Test
+    public void encodeJavaTimeValues() throws SQLException {
+        LocalDate date = LocalDate.of(2015, 6, 15);
+        LocalDateTime dateTime = LocalDateTime.of(2015, 6, 15, 12, 34, 56, 789_000_000);
+        ZonedDateTime zonedDateTime = ZonedDateTime.of(dateTime, ZoneId.of("Europe/Helsinki"));
+
+        assertThat(encode(3, asList(date, dateTime, zonedDateTime)), is("2015-06-15\t2015-06-15T12:34:56.789\t2015-06-15T12:34:56.789+03:00\n"));
+    }
+
+    @Test
+    public void encodeArrays() throws SQLException {
+        SqlArray array = SqlArray.varchars("foo", "quote\"", "back\\slash", "tab\t", null);
+
+        assertThat(encode(1, singletonList(array)), is("{\"foo\",\"quote\\\\\"\",\"back\\\\\\\\slash\",\"tab\\t\",NULL}\n"));
+    }
+
+    @Test
+    public void encodePrimitiveArrays() throws SQLException {
+        assertThat(encode(2, asList(SqlArray.integers(1, 2, 3), SqlArray.of("integer", emptyList()))), is("{\"1\",\"2\",\"3\"}\t{}\n"));
+    }
+
+    @Test
+    public void encodeByteArraysInArrays() throws SQLException {
+        SqlArray array = SqlArray.of("bytea", singletonList(new byte[] { 0, (byte) 0xAB }));
+
+        assertThat(encode(1, singletonList(array)), is("{\"\\\\\\\\x00ab\"}\n"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void wrongNumberOfValues() throws SQLException {
+        encode(2, singletonList("foo"));
+    }
+
+    private enum Mood { HAPPY }
+
+    private static String encode(int columns, List<?>... rows) throws SQLException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PostgreSQLCopyWriter writer = new PostgreSQLCopyWriter((bytes, length) -> out.write(bytes, 0, length), columns, Function.identity());
+        for (List<?> row : rows)
+            writer.writeRow(row);
+        writer.flush();
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -23,14 +23,25 @@
 package org.dalesbred.dialect;
 
 import org.dalesbred.Database;
+import org.dalesbred.MultiQuery;
 import org.dalesbred.TestDatabaseProvider;
 import org.dalesbred.TransactionalTestsRule;
 import org.dalesbred.annotation.Reflective;
+import org.dalesbred.query.CopyFormat;
+import org.dalesbred.query.IdSet;
+import org.dalesbred.query.QueryBuilder;
+import org.dalesbred.query.SqlQuery;
 import org.junit.Rule;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
@@ -76,6 +87,74 @@ public class PostgreSQLDialectTest {
         assertThat(db.findUnique(Date.class, "select ?::timestamp", date).getTime(), is(date.getTime()));
     }
 
+    @Test
+    public void copyIn() {
+        db.update("drop table if exists copy_target");
+        db.update("create temporary table copy_target (id int primary key, name text, data bytea, happy boolean)");
+
+        long count = db.copyIn("copy_target", asList("id", "name", "data", "happy"), Stream.of(
+                asList(1, "tab\there", new byte[] { 1, 2 }, true),
+                asList(2, null, null, false)));
+
+        assertThat(count, is(2L));
+        assertThat(db.findUnique(String.class, "select name from copy_target where id = 1"), is("tab\there"));
+        assertThat(db.findUnique(byte[].class, "select data from copy_target where id = 1"), is(new byte[] { 1, 2 }));
+        assertThat(db.findUnique(String.class, "select name from copy_target where id = 2"), is(nullValue()));
+        assertThat(db.findUniqueBoolean("select happy from copy_target where id = 1"), is(true));
+    }
+
+    @Test
+    public void copyOutText() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = db.copyOut("select 1, 'foo', null union all select 2, 'tab\there', 'x'", CopyFormat.TEXT, out);
+
+        assertThat(count, is(2L));
+        assertThat(new String(out.toByteArray(), UTF_8), is("1\tfoo\t\\N\n2\ttab\\there\tx\n"));
+    }
+
+    @Test
+    public void copyOutCsv() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        db.copyOut("select 1, 'foo,bar'", CopyFormat.CSV, out);
+
+        assertThat(new String(out.toByteArray(), UTF_8), is("1,\"foo,bar\"\n"));
+    }
+
+    @Test
+    public void copyOutAndDecode() {
+        List<Movie> movies = new ArrayList<>();
+
+        long count = db.copyOut(Movie.class, "select 'Amélie' as name, 'HAPPY' as mood union all select 'Tab\there', 'SAD'", movies::add);
+
+        assertThat(count, is(2L));
+        assertThat(movies.get(0).name, is("Amélie"));
+        assertThat(movies.get(0).mood, is(Mood.HAPPY));
+        assertThat(movies.get(1).name, is("Tab\there"));
+    }
+
+    @Test
+    public void idSetsAreBoundAsArrays() {
+        SqlQuery condition = db.idSetCondition("x", IdSet.ofLongs(1, 3));
+
+        assertThat(condition.getSql(), is("x = any(?)"));
+        assertThat(db.findAll(Long.class, new QueryBuilder("select x from generate_series(1, 5) x where ").append(condition).append(" order by x").build()),
+                is(asList(1L, 3L)));
+    }
+
+    @Test
+    public void multiQueryIsExecutedAsSingleStatement() {
+        MultiQuery queries = db.multiQuery();
+        MultiQuery.Result<List<Integer>> numbers = queries.findAll(Integer.class, "select x from generate_series(1, ?) x order by x;", 3);
+        MultiQuery.Result<String> text = queries.findUnique(String.class, "select ?::text", "foo");
+
+        queries.execute();
+
+        assertThat(numbers.get(), is(asList(1, 2, 3)));
+        assertThat(text.get(), is("foo"));
+    }
+
     enum Mood {
         SAD,
         HAPPY
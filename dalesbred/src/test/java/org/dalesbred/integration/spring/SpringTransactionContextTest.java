@@ -25,6 +25,8 @@ package org.dalesbred.integration.spring;
 import org.dalesbred.TestDatabaseProvider;
 import org.junit.Test;
 import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.sql.Connection;
 import java.sql.SQLException;
@@ -49,4 +51,27 @@ public class SpringTransactionContextTest {
             assertThat(status.isRollbackOnly(), is(true));
         }
     }
+
+    @Test
+    public void contextsOfSameTransactionShareState() throws SQLException {
+        try (Connection connection = TestDatabaseProvider.createInMemoryHSQLDataSource().getConnection()) {
+            TransactionSynchronizationManager.initSynchronization();
+            SpringTransactionContext first;
+            try {
+                first = new SpringTransactionContext(new SimpleTransactionStatus(), connection);
+                SpringTransactionContext second = new SpringTransactionContext(new SimpleTransactionStatus(), connection);
+
+                assertThat(first.nextIdSetTableIndex(), is(0));
+                assertThat(second.nextIdSetTableIndex(), is(1));
+                assertThat(second.isTransactionOpen(), is(true));
+
+                for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations())
+                    synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+
+            assertThat(first.isTransactionOpen(), is(false));
+        }
+    }
 }
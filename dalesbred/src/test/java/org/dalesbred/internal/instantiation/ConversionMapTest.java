@@ -90,6 +90,27 @@ public class ConversionMapTest {
         assertSame(conversion2, registry.findConversion(String.class, Long.class).orElse(null));
     }
 
+    @Test
+    public void registrationsAfterFailedLookupsAreFound() {
+        assertThat(registry.findConversion(String.class, Long.class), is(Optional.empty()));
+
+        TypeConversion conversion = dummyConversion();
+        registry.register(String.class, Long.class, conversion);
+
+        assertSame(conversion, registry.findConversion(String.class, Long.class).orElse(null));
+    }
+
+    @Test
+    public void registrationsAfterSuccessfulLookupsOverrideEarlierOnes() {
+        TypeConversion conversion1 = dummyConversion();
+        TypeConversion conversion2 = dummyConversion();
+        registry.register(CharSequence.class, Long.class, conversion1);
+        assertSame(conversion1, registry.findConversion(String.class, Long.class).orElse(null));
+
+        registry.register(String.class, Long.class, conversion2);
+        assertSame(conversion2, registry.findConversion(String.class, Long.class).orElse(null));
+    }
+
     @NotNull
     private static TypeConversion dummyConversion() {
         return TypeConversion.fromNonNullFunction(x -> { throw new UnsupportedOperationException(); });
@@ -33,6 +33,8 @@ import org.jetbrains.annotations.Nullable;
 import org.junit.Test;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
 
@@ -88,6 +90,11 @@ public class InstantiatorProviderTest {
         assertThat(result.calledConstructor, is(3));
     }
 
+    @Test(expected = InstantiationFailureException.class)
+    public void nullCantBePassedAsPrimitive() {
+        instantiate(TestClass.class, Integer.class, null);
+    }
+
     @Test(expected = InstantiationFailureException.class)
     public void findingInstantiatorForInaccessibleClassThrowsNiceException() {
         instantiate(InaccessibleClassRef.INACCESSIBLE_CLASS, int.class, 3);
@@ -109,6 +116,24 @@ public class InstantiatorProviderTest {
         assertThat(result.publicField, is("baz"));
     }
 
+    @Test
+    public void generatedInstantiatorIsUsedForExplicitConstructor() {
+        NamedTypeList types = NamedTypeList.builder(2).add("name", String.class).add("age", Long.class).build();
+
+        TestClassWithGeneratedInstantiator result = instantiate(TestClassWithGeneratedInstantiator.class, types, "Fred", 42L);
+        assertNotNull(result);
+        assertThat(result.name, is("Fred"));
+        assertThat(result.age, is(42));
+        assertThat(result.createdByGeneratedCode, is(true));
+    }
+
+    @Test(expected = InstantiationFailureException.class)
+    public void generatedInstantiatorRejectsNullPrimitives() {
+        NamedTypeList types = NamedTypeList.builder(2).add("name", String.class).add("age", Integer.class).build();
+
+        instantiate(TestClassWithGeneratedInstantiator.class, types, "Fred", null);
+    }
+
     @Test(expected = InstantiationFailureException.class)
     public void dontUseIgnoredConstructor() {
         instantiate(TestClass.class, createNamedTypeList(int.class, int.class), 0, 0);
@@ -157,6 +182,36 @@ public class InstantiatorProviderTest {
         assertThat(result.publicField, is("foo"));
     }
 
+    @Test
+    public void resolvedInstantiatorsAreCached() {
+        Instantiator<TestClass> instantiator1 = instantiatorRegistry.findInstantiator(TestClass.class, createNamedTypeList(String.class));
+        Instantiator<TestClass> instantiator2 = instantiatorRegistry.findInstantiator(TestClass.class, createNamedTypeList(String.class));
+
+        assertThat(instantiator2, is(sameInstance(instantiator1)));
+        assertThat(instantiatorRegistry.getInstantiatorCacheStatistics().getMisses(), is(1L));
+        assertThat(instantiatorRegistry.getInstantiatorCacheStatistics().getHits(), is(1L));
+    }
+
+    @Test
+    public void differentResultSetSignaturesAreCachedSeparately() {
+        Instantiator<TestClass> instantiator1 = instantiatorRegistry.findInstantiator(TestClass.class, createNamedTypeList(String.class));
+        Instantiator<TestClass> instantiator2 = instantiatorRegistry.findInstantiator(TestClass.class, createNamedTypeList(int.class));
+
+        assertThat(instantiator2, is(not(sameInstance(instantiator1))));
+        assertThat(instantiatorRegistry.getInstantiatorCacheStatistics().getSize(), is(2));
+    }
+
+    @Test
+    public void registeringConversionsInvalidatesCachedInstantiators() {
+        instantiatorRegistry.findInstantiator(TestClass.class, createNamedTypeList(String.class));
+
+        instantiatorRegistry.getTypeConversionRegistry().registerConversionFromDatabase(String.class, TestClass.class, s -> new TestClass(42));
+
+        TestClass result = instantiate(TestClass.class, String.class, "foo");
+        assertNotNull(result);
+        assertThat(result.calledConstructor, is(3));
+    }
+
     public static class TestClass {
         private final int calledConstructor;
 
@@ -252,6 +307,18 @@ public class InstantiatorProviderTest {
         }
     }
 
+    public static class TestClassWithGeneratedInstantiator {
+        public final String name;
+        public final int age;
+        public boolean createdByGeneratedCode;
+
+        @DalesbredInstantiator
+        TestClassWithGeneratedInstantiator(String name, int age) {
+            this.name = name;
+            this.age = age;
+        }
+    }
+
     @Nullable
     private <T,V> T instantiate(@NotNull Class<T> cl, @NotNull Class<V> type, V value) {
         return instantiate(cl, createNamedTypeList(type), value);
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred.internal.instantiation;
+
+import org.dalesbred.generated.GeneratedInstantiator;
+import org.dalesbred.internal.instantiation.InstantiatorProviderTest.TestClassWithGeneratedInstantiator;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Hand-written equivalent of the class that dalesbred-processor generates for
+ * {@link TestClassWithGeneratedInstantiator}.
+ */
+public final class InstantiatorProviderTest_TestClassWithGeneratedInstantiator_DalesbredInstantiator implements GeneratedInstantiator<TestClassWithGeneratedInstantiator> {
+
+    @NotNull
+    @Override
+    public TestClassWithGeneratedInstantiator instantiate(@NotNull Object[] arguments) {
+        TestClassWithGeneratedInstantiator result = new TestClassWithGeneratedInstantiator(
+                (String) arguments[0],
+                (int) (Integer) arguments[1]);
+        result.createdByGeneratedCode = true;
+        return result;
+    }
+}
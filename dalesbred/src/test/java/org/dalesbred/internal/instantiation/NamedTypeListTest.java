@@ -30,6 +30,7 @@ import org.junit.Test;
 import java.lang.reflect.Type;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
 
@@ -91,6 +92,19 @@ public class NamedTypeListTest {
         assertThat(types.getType(1), is(type(Boolean.class)));
     }
 
+    @Test
+    public void equality() {
+        NamedTypeList types1 = NamedTypeList.builder(2).add("foo", String.class).add("bar", Integer.class).build();
+        NamedTypeList types2 = NamedTypeList.builder(2).add("foo", String.class).add("bar", Integer.class).build();
+        NamedTypeList types3 = NamedTypeList.builder(2).add("foo", String.class).add("baz", Integer.class).build();
+        NamedTypeList types4 = NamedTypeList.builder(2).add("foo", String.class).add("bar", Long.class).build();
+
+        assertThat(types1, is(types2));
+        assertThat(types1.hashCode(), is(types2.hashCode()));
+        assertThat(types1, is(not(types3)));
+        assertThat(types1, is(not(types4)));
+    }
+
     @NotNull
     private static Matcher<Type> type(@NotNull Class<?> cl) {
         return CoreMatchers.sameInstance(cl);
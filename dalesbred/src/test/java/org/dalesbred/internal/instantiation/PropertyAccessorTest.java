@@ -32,7 +32,9 @@ import java.util.Optional;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 
 public class PropertyAccessorTest {
 
@@ -56,6 +58,48 @@ public class PropertyAccessorTest {
         assertThat(PropertyAccessor.findAccessor(IgnoredValues.class, "ignoredField"), is(Optional.empty()));
     }
 
+    @Test
+    public void settingValuesThroughSetters() {
+        PropertyAccessor accessor = PropertyAccessor.findAccessor(DepartmentWithSetters.class, "department_name").orElse(null);
+
+        assertNotNull(accessor);
+
+        DepartmentWithSetters department = new DepartmentWithSetters();
+        accessor.set(department, "foo");
+
+        assertThat(department.getDepartmentName(), is("foo"));
+    }
+
+    @Test
+    public void settingValuesThroughFields() {
+        PropertyAccessor accessor = PropertyAccessor.findAccessor(Named.class, "name").orElse(null);
+
+        assertNotNull(accessor);
+
+        Named named = new Named();
+        accessor.set(named, "foo");
+
+        assertThat(named.name, is("foo"));
+    }
+
+    @Test(expected = InstantiationFailureException.class)
+    public void settingNullToPrimitiveField() {
+        PropertyAccessor accessor = PropertyAccessor.findAccessor(Primitives.class, "intField").orElse(null);
+
+        assertNotNull(accessor);
+
+        accessor.set(new Primitives(), null);
+    }
+
+    @Test(expected = InstantiationFailureException.class)
+    public void settingNullToPrimitiveSetter() {
+        PropertyAccessor accessor = PropertyAccessor.findAccessor(Primitives.class, "intProperty").orElse(null);
+
+        assertNotNull(accessor);
+
+        accessor.set(new Primitives(), null);
+    }
+
     @Test
     public void nestedPathsWithIntermediateFields() {
         PropertyAccessor accessor = PropertyAccessor.findAccessor(NestedPaths.class, "namedField.name").orElse(null);
@@ -98,6 +142,66 @@ public class PropertyAccessorTest {
         accessor.set(new NestedPaths(), "foo");
     }
 
+    @Test
+    public void exceptionsFromIntermediateGettersAreWrapped() {
+        PropertyAccessor accessor = PropertyAccessor.findAccessor(NestedPaths.class, "throwingGetter.name").orElse(null);
+
+        assertNotNull(accessor);
+
+        try {
+            accessor.set(new NestedPaths(), "foo");
+            fail("expected InstantiationFailureException");
+        } catch (InstantiationFailureException e) {
+            assertThat(e.getCause() instanceof IllegalStateException, is(true));
+        }
+    }
+
+    @Test
+    public void missingIntermediateFieldsAreCreatedIfEnabled() {
+        PropertyAccessor accessor = PropertyAccessor.findAccessor(MutableNestedPaths.class, "namedField.name", true).orElse(null);
+
+        assertNotNull(accessor);
+
+        MutableNestedPaths paths = new MutableNestedPaths();
+        accessor.set(paths, "foo");
+        assertThat(paths.namedField.name, is("foo"));
+
+        Named existing = paths.namedField;
+        accessor.set(paths, "bar");
+        assertSame(existing, paths.namedField);
+        assertThat(existing.name, is("bar"));
+    }
+
+    @Test
+    public void missingIntermediatePropertiesAreCreatedIfEnabled() {
+        PropertyAccessor accessor = PropertyAccessor.findAccessor(MutableNestedPaths.class, "namedProperty.name", true).orElse(null);
+
+        assertNotNull(accessor);
+
+        MutableNestedPaths paths = new MutableNestedPaths();
+        accessor.set(paths, "foo");
+
+        assertThat(paths.getNamedProperty().name, is("foo"));
+    }
+
+    @Test(expected = InstantiationFailureException.class)
+    public void missingIntermediatesAreNotCreatedByDefault() {
+        PropertyAccessor accessor = PropertyAccessor.findAccessor(MutableNestedPaths.class, "namedField.name").orElse(null);
+
+        assertNotNull(accessor);
+
+        accessor.set(new MutableNestedPaths(), "foo");
+    }
+
+    @Test(expected = InstantiationFailureException.class)
+    public void missingFinalIntermediatesCantBeCreated() {
+        PropertyAccessor accessor = PropertyAccessor.findAccessor(NestedPaths.class, "nullField.name", true).orElse(null);
+
+        assertNotNull(accessor);
+
+        accessor.set(new NestedPaths(), "foo");
+    }
+
     @Test
     public void invalidPathElements() {
         assertThat(PropertyAccessor.findAccessor(Named.class, "foo.name"), is(Optional.empty()));
@@ -138,6 +242,28 @@ public class PropertyAccessorTest {
         public Named getNullGetter() {
             return null;
         }
+
+        @Reflective
+        public Named getThrowingGetter() {
+            throw new IllegalStateException();
+        }
+    }
+
+    public static class MutableNestedPaths {
+        @Reflective
+        public Named namedField;
+
+        private Named namedProperty;
+
+        @Reflective
+        public Named getNamedProperty() {
+            return namedProperty;
+        }
+
+        @Reflective
+        public void setNamedProperty(Named namedProperty) {
+            this.namedProperty = namedProperty;
+        }
     }
 
     public static class Named {
@@ -145,6 +271,16 @@ public class PropertyAccessorTest {
         public String name;
     }
 
+    public static class Primitives {
+        @Reflective
+        public int intField;
+
+        @SuppressWarnings("unused")
+        @Reflective
+        public void setIntProperty(int value) {
+        }
+    }
+
     @SuppressWarnings("unused")
     public static class IgnoredValues {
 
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred.internal.jdbc;
+
+import org.dalesbred.query.BatchOptions;
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class BatchChunkSizerTest {
+
+    @Test
+    public void fixedChunkSizeIsNeverAdjusted() {
+        BatchChunkSizer sizer = new BatchChunkSizer(BatchOptions.chunkSize(100));
+
+        sizer.chunkExecuted(100, MILLISECONDS.toNanos(1000));
+
+        assertThat(sizer.getChunkSize(), is(100));
+    }
+
+    @Test
+    public void fastChunksGrowChunkSizeAtMostToDouble() {
+        BatchChunkSizer sizer = new BatchChunkSizer(BatchOptions.chunkSize(100).withAdaptiveChunkSize(100, 10000));
+
+        sizer.chunkExecuted(100, MILLISECONDS.toNanos(1));
+
+        assertThat(sizer.getChunkSize(), is(200));
+    }
+
+    @Test
+    public void slowChunksShrinkChunkSize() {
+        BatchChunkSizer sizer = new BatchChunkSizer(BatchOptions.chunkSize(100).withAdaptiveChunkSize(100, 10000));
+
+        sizer.chunkExecuted(100, MILLISECONDS.toNanos(1000));
+
+        assertThat(sizer.getChunkSize(), is(55));
+    }
+
+    @Test
+    public void chunkSizeIsLimitedByMaximum() {
+        BatchChunkSizer sizer = new BatchChunkSizer(BatchOptions.chunkSize(100).withAdaptiveChunkSize(100, 150));
+
+        sizer.chunkExecuted(100, 0);
+
+        assertThat(sizer.getChunkSize(), is(150));
+    }
+
+    @Test
+    public void partialChunksAreIgnored() {
+        BatchChunkSizer sizer = new BatchChunkSizer(BatchOptions.chunkSize(100).withAdaptiveChunkSize(100, 10000));
+
+        sizer.chunkExecuted(10, MILLISECONDS.toNanos(1000));
+
+        assertThat(sizer.getChunkSize(), is(100));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void chunkSizeMustBePositive() {
+        BatchOptions.chunkSize(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void maxChunkSizeCantBeSmallerThanChunkSize() {
+        BatchOptions.chunkSize(100).withAdaptiveChunkSize(100, 50);
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred.internal.jdbc;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+
+public class MultiRowInsertTest {
+
+    @Test
+    public void rewriteSimpleInsert() {
+        MultiRowInsert insert = MultiRowInsert.parse("insert into foo (a, b) values (?, ?)").orElseThrow(AssertionError::new);
+
+        assertThat(insert.getParametersPerRow(), is(2));
+        assertThat(insert.getSql(1), is("insert into foo (a, b) values (?, ?)"));
+        assertThat(insert.getSql(3), is("insert into foo (a, b) values (?, ?), (?, ?), (?, ?)"));
+    }
+
+    @Test
+    public void rewriteInsertWithExpressionsAndMixedCase() {
+        MultiRowInsert insert = MultiRowInsert.parse("  INSERT INTO foo(a, b) VALUES(cast(? as int), coalesce(?, 0))  ").orElseThrow(AssertionError::new);
+
+        assertThat(insert.getParametersPerRow(), is(2));
+        assertThat(insert.getSql(2), is("  INSERT INTO foo(a, b) VALUES(cast(? as int), coalesce(?, 0)), (cast(? as int), coalesce(?, 0))"));
+    }
+
+    @Test
+    public void rewriteInsertWithoutColumnList() {
+        MultiRowInsert insert = MultiRowInsert.parse("insert into foo values (?, ?, ?)").orElseThrow(AssertionError::new);
+
+        assertThat(insert.getParametersPerRow(), is(3));
+    }
+
+    @Test
+    public void statementsThatCantBeRewritten() {
+        assertNotRewritten("update foo set a = ?");
+        assertNotRewritten("insert into foo (a) select ? from bar");
+        assertNotRewritten("insert into foo (a, b) values (?, 'x')");
+        assertNotRewritten("insert into foo (a) values (?) returning id");
+        assertNotRewritten("insert into foo (a) values (?) on duplicate key update a = ?");
+        assertNotRewritten("insert into foo (a) values (?); delete from foo");
+        assertNotRewritten("insert into foo (a) values (?) -- comment");
+        assertNotRewritten("insert into foo (a) values (1)");
+        assertNotRewritten("insert into foo (a) values (?, (?)");
+    }
+
+    private static void assertNotRewritten(String sql) {
+        assertFalse(sql, MultiRowInsert.parse(sql).isPresent());
+    }
+}
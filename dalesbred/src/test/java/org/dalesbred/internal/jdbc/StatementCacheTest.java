@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred.internal.jdbc;
+
+import org.junit.Test;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Collections.singletonList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.*;
+
+public class StatementCacheTest {
+
+    private final StatementCache.Counters counters = new StatementCache.Counters();
+
+    private final StatementCache cache = new StatementCache(2, counters);
+
+    @Test
+    public void releasedStatementsAreReused() throws SQLException {
+        PreparedStatement ps = mock(PreparedStatement.class);
+
+        try (StatementHandle handle = cache.prepare(StatementKey.plain("select 1"), () -> ps)) {
+            assertThat(handle.getStatement(), is(sameInstance(ps)));
+        }
+
+        try (StatementHandle handle = cache.prepare(StatementKey.plain("select 1"), () -> { throw new AssertionError(); })) {
+            assertThat(handle.getStatement(), is(sameInstance(ps)));
+        }
+
+        verify(ps, times(2)).clearParameters();
+        verify(ps, times(2)).clearBatch();
+        verify(ps, never()).close();
+        assertThat(counters.getStatistics().getHits(), is(1L));
+        assertThat(counters.getStatistics().getMisses(), is(1L));
+    }
+
+    @Test
+    public void statementsInUseAreNotShared() throws SQLException {
+        PreparedStatement first = mock(PreparedStatement.class);
+        PreparedStatement second = mock(PreparedStatement.class);
+        StatementKey key = StatementKey.plain("select 1");
+
+        try (StatementHandle outer = cache.prepare(key, () -> first)) {
+            try (StatementHandle inner = cache.prepare(key, () -> second)) {
+                assertThat(inner.getStatement(), is(not(sameInstance(outer.getStatement()))));
+            }
+        }
+
+        // Only one of the statements can stay in the cache
+        verify(second).close();
+        verify(first, never()).close();
+        assertThat(cache.size(), is(1));
+    }
+
+    @Test
+    public void leastRecentlyUsedStatementIsClosedWhenCacheIsFull() throws SQLException {
+        PreparedStatement ps1 = mock(PreparedStatement.class);
+        PreparedStatement ps2 = mock(PreparedStatement.class);
+        PreparedStatement ps3 = mock(PreparedStatement.class);
+
+        cache.prepare(StatementKey.plain("1"), () -> ps1).close();
+        cache.prepare(StatementKey.plain("2"), () -> ps2).close();
+        cache.prepare(StatementKey.plain("1"), () -> ps1).close();
+        cache.prepare(StatementKey.plain("3"), () -> ps3).close();
+
+        verify(ps2).close();
+        verify(ps1, never()).close();
+        verify(ps3, never()).close();
+        assertThat(cache.size(), is(2));
+        assertThat(counters.getStatistics().getSize(), is(2));
+    }
+
+    @Test
+    public void closedStatementsAreNotReturnedToCache() throws SQLException {
+        PreparedStatement ps = mock(PreparedStatement.class);
+        when(ps.isClosed()).thenReturn(true);
+
+        cache.prepare(StatementKey.plain("1"), () -> ps).close();
+
+        assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    public void statementsThatCantBeResetAreClosed() throws SQLException {
+        PreparedStatement ps = mock(PreparedStatement.class);
+        doThrow(new SQLException("failed")).when(ps).clearParameters();
+
+        try {
+            cache.prepare(StatementKey.plain("1"), () -> ps).close();
+        } catch (SQLException ignored) {
+        }
+
+        verify(ps).close();
+        assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    public void closingCacheClosesAllStatements() throws SQLException {
+        PreparedStatement ps1 = mock(PreparedStatement.class);
+        PreparedStatement ps2 = mock(PreparedStatement.class);
+
+        cache.prepare(StatementKey.plain("1"), () -> ps1).close();
+        cache.prepare(StatementKey.plain("2"), () -> ps2).close();
+        cache.close();
+
+        verify(ps1).close();
+        verify(ps2).close();
+        assertThat(cache.size(), is(0));
+        assertThat(counters.getStatistics().getSize(), is(0));
+    }
+
+    @Test
+    public void generatedKeyColumnsAreCopied() {
+        List<String> columns = new ArrayList<>(singletonList("id"));
+        StatementKey key = StatementKey.withGeneratedKeys("insert", columns);
+
+        columns.add("name");
+
+        assertThat(key, is(StatementKey.withGeneratedKeys("insert", singletonList("id"))));
+    }
+}
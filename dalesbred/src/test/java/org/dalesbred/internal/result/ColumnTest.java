@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred.internal.result;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+
+public class ColumnTest {
+
+    @Test
+    public void intColumn() {
+        Column column = build(Integer.class, 1, null, 3);
+
+        assertThat(column.size(), is(3));
+        assertThat(column.get(0), is((Object) 1));
+        assertThat(column.get(1), is(nullValue()));
+        assertThat(column.isNull(1), is(true));
+        assertThat(column.isNull(2), is(false));
+        assertArrayEquals(new long[] { 1, 3 }, build(Integer.class, 1, 3).toLongArray());
+    }
+
+    @Test
+    public void dictionaryEncodedStrings() {
+        Column column = build(String.class, "foo", "bar", null, "foo");
+
+        assertThat(column.get(0), is((Object) "foo"));
+        assertThat(column.get(1), is((Object) "bar"));
+        assertThat(column.get(2), is(nullValue()));
+        assertThat(column.get(3), is((Object) "foo"));
+    }
+
+    @Test
+    public void stringsWithFewDistinctValuesStayDictionaryEncoded() {
+        Object[] values = new Object[1000];
+        for (int i = 0; i < values.length; i++)
+            values[i] = "value-" + (i % 10);
+
+        Column column = build(String.class, values);
+
+        assertThat(column.getClass().getSimpleName(), is("DictionaryColumn"));
+        assertThat(column.get(999), is((Object) "value-9"));
+    }
+
+    @Test
+    public void stringsWithManyDistinctValuesAreNotDictionaryEncoded() {
+        Object[] values = new Object[1000];
+        for (int i = 0; i < values.length; i++)
+            values[i] = (i % 100 == 0) ? null : "value-" + i;
+
+        Column column = build(String.class, values);
+
+        assertThat(column.getClass().getSimpleName(), is("StringColumn"));
+        assertThat(column.size(), is(1000));
+        assertThat(column.get(0), is(nullValue()));
+        assertThat(column.get(1), is((Object) "value-1"));
+        assertThat(column.get(999), is((Object) "value-999"));
+    }
+
+    @Test
+    public void booleanColumn() {
+        Column column = build(Boolean.class, true, null, false);
+
+        assertThat(column.get(0), is((Object) true));
+        assertThat(column.get(1), is(nullValue()));
+        assertThat(column.get(2), is((Object) false));
+    }
+
+    @Test
+    public void unexpectedValuesAreStoredAsObjects() {
+        Column column = build(Integer.class, 1, null, new BigDecimal("2.5"));
+
+        assertThat(column.get(0), is((Object) 1));
+        assertThat(column.get(1), is(nullValue()));
+        assertThat(column.get(2), is((Object) new BigDecimal("2.5")));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void primitiveArraysCantContainNulls() {
+        build(Integer.class, 1, null).toIntArray();
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void accessOutsideColumn() {
+        build(Long.class, 1L).get(1);
+    }
+
+    private static Column build(Class<?> type, Object... values) {
+        Column.Builder builder = Column.builder(type);
+        for (Object value : values)
+            builder = builder.add(value);
+        return builder.build();
+    }
+}
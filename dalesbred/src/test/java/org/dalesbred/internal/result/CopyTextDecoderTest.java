@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred.internal.result;
+
+import org.dalesbred.DatabaseException;
+import org.dalesbred.internal.instantiation.NamedTypeList;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class CopyTextDecoderTest {
+
+    @Test
+    public void decodeTypedValues() throws IOException {
+        NamedTypeList types = NamedTypeList.builder(4)
+                .add("id", Integer.class)
+                .add("name", String.class)
+                .add("amount", BigDecimal.class)
+                .add("active", Boolean.class)
+                .build();
+
+        List<List<Object>> rows = decode(types, "1\tfoo\t1.50\tt\n2\t\\N\t\\N\tf\n");
+
+        assertThat(rows, is(asList(
+                asList(1, "foo", new BigDecimal("1.50"), true),
+                asList(2, null, null, false))));
+    }
+
+    @Test
+    public void unescapeValues() throws IOException {
+        NamedTypeList types = NamedTypeList.builder(1).add("s", String.class).build();
+
+        List<List<Object>> rows = decode(types, "a\\tb\\nc\\\\d\\101\\x42\n");
+
+        assertThat(rows, is(asList(asList((Object) "a\tb\nc\\dAB"))));
+    }
+
+    @Test
+    public void decodeMultiByteCharactersSplitAcrossWrites() throws IOException {
+        NamedTypeList types = NamedTypeList.builder(1).add("s", String.class).build();
+        List<List<Object>> rows = new ArrayList<>();
+        byte[] data = "Amélie 😀\n".getBytes(UTF_8);
+
+        try (CopyTextDecoder decoder = new CopyTextDecoder(types, values -> rows.add(asList(values.clone())))) {
+            for (byte b : data)
+                decoder.write(new byte[] { b }, 0, 1);
+        }
+
+        assertThat(rows, is(asList(asList((Object) "Amélie 😀"))));
+    }
+
+    @Test
+    public void decodeByteaAndTimestamps() throws IOException {
+        NamedTypeList types = NamedTypeList.builder(3)
+                .add("data", byte[].class)
+                .add("ts", Timestamp.class)
+                .add("tstz", Timestamp.class)
+                .build();
+
+        List<List<Object>> rows = decode(types, "\\\\x0aff\t2016-01-02 10:11:12.5\t2016-01-02 10:11:12+03\n");
+
+        assertThat(rows.size(), is(1));
+        assertThat((byte[]) rows.get(0).get(0), is(new byte[] { 10, (byte) 0xFF }));
+        assertThat(rows.get(0).get(1), is(Timestamp.valueOf(LocalDateTime.of(2016, 1, 2, 10, 11, 12, 500_000_000))));
+        assertThat(rows.get(0).get(2), is(Timestamp.from(OffsetDateTime.parse("2016-01-02T10:11:12+03:00").toInstant())));
+    }
+
+    @Test
+    public void typesThatCanNotBeDecodedAreReplacedWithStrings() {
+        NamedTypeList types = NamedTypeList.builder(2).add("id", Integer.class).add("x", Object.class).build();
+
+        NamedTypeList result = CopyTextDecoder.decodableTypes(types);
+
+        assertThat(result.getNames(), is(asList("id", "x")));
+        assertThat(result.getType(0), is((Type) Integer.class));
+        assertThat(result.getType(1), is((Type) String.class));
+    }
+
+    @Test(expected = DatabaseException.class)
+    public void wrongNumberOfColumns() throws IOException {
+        NamedTypeList types = NamedTypeList.builder(2).add("a", String.class).add("b", String.class).build();
+
+        decode(types, "foo\n");
+    }
+
+    @Test(expected = IOException.class)
+    public void incompleteRow() throws IOException {
+        NamedTypeList types = NamedTypeList.builder(1).add("a", String.class).build();
+
+        decode(types, "foo");
+    }
+
+    private static List<List<Object>> decode(NamedTypeList types, String data) throws IOException {
+        List<List<Object>> rows = new ArrayList<>();
+        try (CopyTextDecoder decoder = new CopyTextDecoder(types, values -> rows.add(asList(values.clone())))) {
+            decoder.write(data.getBytes(UTF_8));
+        }
+        return rows;
+    }
+}
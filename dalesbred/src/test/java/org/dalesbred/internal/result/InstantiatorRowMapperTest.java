@@ -37,7 +37,6 @@ import java.util.List;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
-import static org.mockito.Matchers.anyInt;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -135,9 +134,7 @@ public class InstantiatorRowMapperTest {
 
         when(resultSet.next()).thenReturn(true).thenReturn(false);
 
-        OngoingStubbing<Object> getObjectStubbing = when(resultSet.getObject(anyInt()));
-        for (Object value : values)
-            getObjectStubbing = getObjectStubbing.thenReturn(value);
+        stubColumnValues(resultSet, new Object[][] { values });
 
         return resultSet;
     }
@@ -152,14 +149,34 @@ public class InstantiatorRowMapperTest {
             nextStubbing = nextStubbing.thenReturn(true);
         nextStubbing.thenReturn(false);
 
-        OngoingStubbing<Object> getObjectStubbing = when(resultSet.getObject(anyInt()));
-        for (Object[] row : rows)
-            for (Object col : row)
-                getObjectStubbing = getObjectStubbing.thenReturn(col);
+        stubColumnValues(resultSet, rows);
 
         return resultSet;
     }
 
+    /**
+     * Stubs both the generic and the typed getters, since the row-mapper is free to use
+     * whichever is most efficient for the type of the column.
+     */
+    private static void stubColumnValues(@NotNull ResultSet resultSet, @NotNull Object[][] rows) throws SQLException {
+        for (int column = 1; column <= rows[0].length; column++) {
+            OngoingStubbing<Object> getObjectStubbing = when(resultSet.getObject(column));
+            for (Object[] row : rows)
+                getObjectStubbing = getObjectStubbing.thenReturn(row[column - 1]);
+
+            Object sample = rows[0][column - 1];
+            if (sample instanceof Integer) {
+                OngoingStubbing<Integer> getIntStubbing = when(resultSet.getInt(column));
+                for (Object[] row : rows)
+                    getIntStubbing = getIntStubbing.thenReturn((Integer) row[column - 1]);
+            } else if (sample instanceof String) {
+                OngoingStubbing<String> getStringStubbing = when(resultSet.getString(column));
+                for (Object[] row : rows)
+                    getStringStubbing = getStringStubbing.thenReturn((String) row[column - 1]);
+            }
+        }
+    }
+
     private static ResultSetMetaData metadataFromRow(@NotNull Object[] row) throws SQLException {
         ResultSetMetaData metaData = mock(ResultSetMetaData.class);
         when(metaData.getColumnCount()).thenReturn(row.length);
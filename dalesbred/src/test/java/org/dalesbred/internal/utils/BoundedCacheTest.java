@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred.internal.utils;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class BoundedCacheTest {
+
+    private final BoundedCache<String, String> cache = new BoundedCache<>(4);
+
+    @Test
+    public void computedValuesAreCached() {
+        assertThat(cache.computeIfAbsent("foo", key -> key + "-1"), is("foo-1"));
+        assertThat(cache.computeIfAbsent("foo", key -> key + "-2"), is("foo-1"));
+        assertThat(cache.getStatistics().getHits(), is(1L));
+    }
+
+    @Test
+    public void cacheIsBounded() {
+        for (int i = 0; i < 10; i++)
+            cache.computeIfAbsent("key-" + i, key -> key);
+
+        assertThat(cache.size() <= 4, is(true));
+    }
+
+    @Test
+    public void valuesComputedWhileClearingAreNotCached() {
+        String value = cache.computeIfAbsent("foo", key -> {
+            cache.clear();
+            return "stale";
+        });
+
+        assertThat(value, is("stale"));
+        assertThat(cache.get("foo"), is(nullValue()));
+        assertThat(cache.computeIfAbsent("foo", key -> "fresh"), is("fresh"));
+    }
+}
@@ -23,8 +23,11 @@
 package org.dalesbred.internal.utils;
 
 import org.dalesbred.DatabaseException;
+import org.dalesbred.internal.instantiation.InstantiationFailureException;
 import org.junit.Test;
 
+import java.util.function.Function;
+
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 
@@ -34,6 +37,18 @@ public class EnumUtilsTest {
         FOO, BAR, BAZ
     }
 
+    private enum KeyedEnum {
+        FOO(1, "foo"), BAR(3, "bar"), BAZ(1000, "baz");
+
+        private final int id;
+        private final String name;
+
+        KeyedEnum(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
     @Test
     public void enumByOrdinal_valid() {
         assertThat(EnumUtils.enumByOrdinal(TestEnum.class, 0), is(TestEnum.FOO));
@@ -45,4 +60,50 @@ public class EnumUtilsTest {
     public void enumByOrdinal_invalid() {
         EnumUtils.enumByOrdinal(TestEnum.class, 4);
     }
+
+    @Test
+    public void enumKeyLookupWithStringKeys() {
+        Function<Object, KeyedEnum> lookup = EnumUtils.enumKeyLookup(KeyedEnum.class, e -> e.name);
+
+        assertThat(lookup.apply("foo"), is(KeyedEnum.FOO));
+        assertThat(lookup.apply("baz"), is(KeyedEnum.BAZ));
+    }
+
+    @Test
+    public void enumKeyLookupWithDenseIntKeys() {
+        Function<Object, TestEnum> lookup = EnumUtils.enumKeyLookup(TestEnum.class, Enum::ordinal);
+
+        assertThat(lookup.apply(0), is(TestEnum.FOO));
+        assertThat(lookup.apply(2), is(TestEnum.BAZ));
+    }
+
+    @Test
+    public void enumKeyLookupWithSparseIntKeys() {
+        Function<Object, KeyedEnum> lookup = EnumUtils.enumKeyLookup(KeyedEnum.class, e -> e.id);
+
+        assertThat(lookup.apply(3), is(KeyedEnum.BAR));
+        assertThat(lookup.apply(1000), is(KeyedEnum.BAZ));
+    }
+
+    @Test(expected = InstantiationFailureException.class)
+    public void enumKeyLookupWithUnknownDenseKey() {
+        EnumUtils.enumKeyLookup(TestEnum.class, Enum::ordinal).apply(3);
+    }
+
+    @Test(expected = InstantiationFailureException.class)
+    public void enumKeyLookupWithUnknownKey() {
+        EnumUtils.enumKeyLookup(KeyedEnum.class, e -> e.name).apply("qux");
+    }
+
+    @Test(expected = InstantiationFailureException.class)
+    public void enumKeyLookupUsesEqualityOfKeys() {
+        EnumUtils.enumKeyLookup(TestEnum.class, Enum::ordinal).apply(1L);
+    }
+
+    @Test
+    public void enumKeyLookupPrefersFirstConstantForDuplicateKeys() {
+        Function<Object, TestEnum> lookup = EnumUtils.enumKeyLookup(TestEnum.class, e -> "same");
+
+        assertThat(lookup.apply("same"), is(TestEnum.FOO));
+    }
 }
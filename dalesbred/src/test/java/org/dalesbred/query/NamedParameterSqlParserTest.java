@@ -31,6 +31,7 @@ import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertThat;
 
 public class NamedParameterSqlParserTest {
@@ -93,6 +94,65 @@ public class NamedParameterSqlParserTest {
         assertNamedParameters("select \" :bar  \"", "select \" :bar  \"", emptyList());
     }
 
+    @Test
+    public void escapeStrings() {
+        assertNamedParameters("select E'it\\'s :foo', e'\\\\' from foo where bar = :bar",
+                "select E'it\\'s :foo', e'\\\\' from foo where bar = ?",
+                singletonList("bar"));
+    }
+
+    @Test
+    public void backslashesInRegularStringsAreNotEscapes() {
+        assertNamedParameters("select name' :foo \\', :bar", "select name' :foo \\', ?", singletonList("bar"));
+    }
+
+    @Test
+    public void dollarQuotedStrings() {
+        assertNamedParameters("select $$it's :foo$$, $tag$ $$ :bar $tag$ from foo where baz = :baz",
+                "select $$it's :foo$$, $tag$ $$ :bar $tag$ from foo where baz = ?",
+                singletonList("baz"));
+    }
+
+    @Test
+    public void dollarsOutsideDollarQuotedStrings() {
+        assertNamedParameters("select foo$bar$ from foo where a = $1 and b = :b and c = $tag$",
+                "select foo$bar$ from foo where a = $1 and b = ? and c = $tag$",
+                singletonList("b"));
+    }
+
+    @Test
+    public void nestedBlockComments() {
+        assertNamedParameters("select /* outer /* inner :foo */ still comment :bar */ :baz",
+                "select /* outer /* inner :foo */ still comment :bar */ ?",
+                singletonList("baz"));
+    }
+
+    @Test(expected = SqlSyntaxException.class)
+    public void unterminatedBlockComment() {
+        NamedParameterSqlParser.parseSqlStatement("select /* /* */ :foo");
+    }
+
+    @Test(expected = SqlSyntaxException.class)
+    public void parameterWithoutName() {
+        NamedParameterSqlParser.parseSqlStatement("select : foo");
+    }
+
+    @Test(expected = SqlSyntaxException.class)
+    public void positionalPlaceholders() {
+        NamedParameterSqlParser.parseSqlStatement("select ?");
+    }
+
+    @Test
+    public void unterminatedQuotesAreProcessedAsSql() {
+        assertNamedParameters("select 'foo :bar", "select 'foo ?", singletonList("bar"));
+    }
+
+    @Test
+    public void sqlWithoutParametersIsNotCopied() {
+        String sql = "select 1";
+        assertThat(NamedParameterSqlParser.parseSqlStatement(sql).getSql(), is(sameInstance(sql)));
+    }
+
     private static void assertNamedParameters(@SQL String sql, @SQL String expected, List<String> parameters) {
         NamedParameterSql result = NamedParameterSqlParser.parseSqlStatement(sql);
 
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred.query;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonMap;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class NamedQueryTest {
+
+    @Test
+    public void parseQuery() {
+        NamedQuery query = NamedQuery.parse("select * from foo where bar = :bar and baz = :baz");
+
+        assertThat(query.getSql(), is("select * from foo where bar = ? and baz = ?"));
+        assertThat(query.getParameterNames(), is(asList("bar", "baz")));
+    }
+
+    @Test
+    public void bindParsedQuery() {
+        NamedQuery query = NamedQuery.parse("select * from foo where bar = :bar and baz = :baz and bar2 = :bar");
+
+        Map<String, Object> values = new HashMap<>();
+        values.put("bar", 1);
+        values.put("baz", "two");
+
+        SqlQuery sqlQuery = query.bind(VariableResolver.forMap(values));
+        assertThat(sqlQuery.getSql(), is("select * from foo where bar = ? and baz = ? and bar2 = ?"));
+        assertThat(sqlQuery.getArguments(), is(asList(1, "two", 1)));
+    }
+
+    @Test
+    public void precompiledQuery() {
+        NamedQuery query = NamedQuery.precompiled("select * from foo where bar = ?", "bar");
+
+        assertThat(query.getParameterNames(), is(asList("bar")));
+        assertThat(query.bind(name -> name + "-value").getArguments(), is(asList("bar-value")));
+    }
+
+    @Test
+    public void bindWithMap() {
+        Map<String, Object> values = new HashMap<>();
+        values.put("bar", 42);
+
+        assertThat(NamedQuery.parse("select * from foo where bar = :bar").bind(values).getArguments(), is(asList(42)));
+    }
+
+    @Test
+    public void bindWithBean() {
+        SqlQuery query = NamedQuery.parse("select * from foo where bar = :bar and baz = :baz").bind(new TestBean());
+
+        assertThat(query.getArguments(), is(asList("bar-value", 42)));
+    }
+
+    @Test
+    public void parsedQueriesAreCached() {
+        String sql = "select * from foo where cached = :cached";
+        NamedQuery first = NamedQuery.parse(sql);
+        long hits = NamedQuery.getParseCacheStatistics().getHits();
+
+        NamedQuery second = NamedQuery.parse(sql);
+
+        assertThat(second, is(sameInstance(first)));
+        assertThat(NamedQuery.getParseCacheStatistics().getHits(), is(hits + 1));
+    }
+
+    @Test
+    public void namedQueriesOfSqlQueryUseCache() {
+        String sql = "select * from foo where cached2 = :cached2";
+        SqlQuery.namedQuery(sql, VariableResolver.forMap(singletonMap("cached2", 1)));
+        long hits = NamedQuery.getParseCacheStatistics().getHits();
+
+        SqlQuery query = SqlQuery.namedQuery(sql, VariableResolver.forMap(singletonMap("cached2", 2)));
+
+        assertThat(query.getArguments(), is(asList(2)));
+        assertThat(NamedQuery.getParseCacheStatistics().getHits(), is(hits + 1));
+    }
+
+    @Test(expected = SqlSyntaxException.class)
+    public void syntaxErrorsAreReportedOnEveryParse() {
+        try {
+            NamedQuery.parse("select * from foo where bar = ?");
+        } catch (SqlSyntaxException ignored) {
+        }
+
+        NamedQuery.parse("select * from foo where bar = ?");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void parameterNamesCanNotBeModified() {
+        NamedQuery.parse("select :foo").getParameterNames().add("bar");
+    }
+
+    @Test
+    public void bindingPlanForBeans() {
+        BindingPlan<TestBean> plan = NamedQuery.parse("select :baz, :bar, :baz").bindingPlanForBeans(TestBean.class);
+        TestBean bean = new TestBean();
+
+        assertThat(plan.getParameterCount(), is(3));
+        assertThat(plan.getArgument(bean, 0), is(42));
+        assertThat(plan.getArgument(bean, 1), is("bar-value"));
+        assertThat(plan.getArgument(bean, 2), is(42));
+    }
+
+    @Test
+    public void bindingPlanForMaps() {
+        BindingPlan<Map<String, ?>> plan = NamedQuery.parse("select :foo, :bar").bindingPlanForMaps();
+
+        Map<String, Object> values = new HashMap<>();
+        values.put("foo", 1);
+        values.put("bar", null);
+
+        assertThat(plan.getArgument(values, 0), is(1));
+        assertThat(plan.getArgument(values, 1), is(nullValue()));
+    }
+
+    @Test(expected = VariableResolutionException.class)
+    public void bindingPlanForMapsWithMissingValue() {
+        NamedQuery.parse("select :foo").bindingPlanForMaps().getArgument(singletonMap("bar", 1), 0);
+    }
+
+    @Test(expected = VariableResolutionException.class)
+    public void bindingPlanForBeansWithUnknownProperty() {
+        NamedQuery.parse("select :unknown").bindingPlanForBeans(TestBean.class).getArgument(new TestBean(), 0);
+    }
+
+    @SuppressWarnings("unused")
+    public static class TestBean {
+        public final String bar = "bar-value";
+
+        public int getBaz() {
+            return 42;
+        }
+    }
+}
@@ -24,6 +24,9 @@ package org.dalesbred.query;
 
 import org.junit.Test;
 
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.nCopies;
 import static org.dalesbred.query.SqlQuery.query;
 import static org.junit.Assert.assertEquals;
 
@@ -51,6 +54,26 @@ public class QueryBuilderTest {
         assertEquals(query("select * from document where id=? or status=?", 4, "rejected"), qb.build());
     }
 
+    @Test
+    public void paddedPlaceholders() {
+        SqlQuery query = new QueryBuilder("select * from document where id in (").appendPaddedPlaceholders(asList(1, 2, 3)).append(")").build();
+
+        assertEquals(query("select * from document where id in (?,?,?,?,?,?,?,?)", 1, 2, 3, 3, 3, 3, 3, 3), query);
+    }
+
+    @Test
+    public void paddedPlaceholdersArePaddedToPowerOfTwo() {
+        assertEquals(8, countPlaceholders(new QueryBuilder().appendPaddedPlaceholders(nCopies(8, 1)).build()));
+        assertEquals(16, countPlaceholders(new QueryBuilder().appendPaddedPlaceholders(nCopies(9, 1)).build()));
+        assertEquals(512, countPlaceholders(new QueryBuilder().appendPaddedPlaceholders(nCopies(300, 1)).build()));
+        assertEquals(512, new QueryBuilder().appendPaddedPlaceholders(nCopies(300, 1)).build().getArguments().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void paddedPlaceholdersRequireValues() {
+        new QueryBuilder().appendPaddedPlaceholders(emptyList());
+    }
+
     @Test
     public void placeholders() {
         QueryBuilder qb = new QueryBuilder("select * from document");
@@ -88,4 +111,8 @@ public class QueryBuilderTest {
 
         assertEquals(query("select * from (select * from foo where bar = ? and baz = ?) where row < ?", 42, "foobar", 10), qb.build());
     }
+
+    private static int countPlaceholders(SqlQuery query) {
+        return query.getSql().replaceAll("[^?]", "").length();
+    }
 }
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2015 Evident Solutions Oy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.dalesbred.query;
+
+import org.junit.Test;
+
+import java.sql.ResultSet;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class QueryOptionsTest {
+
+    @Test
+    public void defaultOptionsDontSpecifyAnything() {
+        QueryOptions options = QueryOptions.DEFAULT;
+
+        assertThat(options.getFetchSize(), is(nullValue()));
+        assertThat(options.getMaxRows(), is(nullValue()));
+        assertThat(options.getQueryTimeout(), is(nullValue()));
+        assertThat(options.getFetchDirection(), is(nullValue()));
+        assertThat(options.getResultSetType(), is(nullValue()));
+        assertThat(options.getResultSetHoldability(), is(nullValue()));
+        assertThat(options.isStreaming(), is(false));
+    }
+
+    @Test
+    public void specifiedOptionsOverrideDefaults() {
+        QueryOptions defaults = QueryOptions.DEFAULT.withFetchSize(100).withQueryTimeout(10).withStreaming(true);
+        QueryOptions options = QueryOptions.DEFAULT.withFetchSize(5).withResultSetType(ResultSet.TYPE_SCROLL_INSENSITIVE).withStreaming(false);
+
+        QueryOptions result = options.withDefaults(defaults);
+
+        assertThat(result.getFetchSize(), is(5));
+        assertThat(result.getQueryTimeout(), is(10));
+        assertThat(result.getResultSetType(), is(ResultSet.TYPE_SCROLL_INSENSITIVE));
+        assertThat(result.getMaxRows(), is(nullValue()));
+        assertThat(result.isStreaming(), is(false));
+    }
+
+    @Test
+    public void equality() {
+        assertThat(QueryOptions.DEFAULT.withFetchSize(5).withMaxRows(3), is(QueryOptions.DEFAULT.withMaxRows(3).withFetchSize(5)));
+        assertThat(QueryOptions.DEFAULT.withFetchSize(5).equals(QueryOptions.DEFAULT.withFetchSize(6)), is(false));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeFetchSizeIsNotAllowed() {
+        QueryOptions.DEFAULT.withFetchSize(-1);
+    }
+
+    @Test
+    public void optionsArePartOfQueryEquality() {
+        SqlQuery query = SqlQuery.query("select 1");
+
+        assertThat(query.withOptions(QueryOptions.DEFAULT.withFetchSize(1)).equals(query), is(false));
+        assertThat(query.withOptions(QueryOptions.DEFAULT).equals(query), is(true));
+    }
+}
@@ -28,7 +28,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 public class VariableResolversTest {
 
@@ -89,6 +89,58 @@ public class VariableResolversTest {
         variableResolver.getValue("unknown");
     }
 
+    @Test
+    public void beanResolverFactoriesAreSharedPerClass() {
+        assertSame(BeanVariableResolverFactory.forClass(TestBean.class), BeanVariableResolverFactory.forClass(TestBean.class));
+    }
+
+    @Test
+    public void resolverFactoryCanBeReusedForMultipleBeans() {
+        BeanVariableResolverFactory<TestBean> factory = BeanVariableResolverFactory.forClass(TestBean.class);
+        TestBean bean1 = new TestBean();
+        TestBean bean2 = new TestBean();
+        bean2.baz = "other";
+
+        assertEquals("qwerty", factory.resolverFor(bean1).getValue("baz"));
+        assertEquals("other", factory.resolverFor(bean2).getValue("baz"));
+    }
+
+    @Test
+    public void unknownVariablesFailConsistently() {
+        VariableResolver variableResolver = VariableResolver.forBean(new TestBean());
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                variableResolver.getValue("unknown");
+                fail("expected VariableResolutionException");
+            } catch (VariableResolutionException ignored) {
+            }
+        }
+    }
+
+    @Test
+    public void resolveStaticGettersAndFields() {
+        VariableResolver variableResolver = VariableResolver.forBean(new TestBean());
+
+        assertEquals("static-getter", variableResolver.getValue("staticGetter"));
+        assertEquals("static-field", variableResolver.getValue("staticField"));
+    }
+
+    @Test
+    public void exceptionsFromGettersAreWrapped() {
+        try {
+            VariableResolver.forBean(new TestBean()).getValue("illegalStateVariable");
+            fail("expected VariableResolutionException");
+        } catch (VariableResolutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test(expected = AssertionError.class)
+    public void errorsFromGettersAreNotWrapped() {
+        VariableResolver.forBean(new TestBean()).getValue("failingVariable");
+    }
+
     @SuppressWarnings({"UnusedDeclaration", "FieldMayBeFinal"})
     private static class TestBean {
         public Object foo = new Object();
@@ -107,5 +159,19 @@ public class VariableResolversTest {
         public String getThrowingVariable() {
             throw new RuntimeException();
         }
+
+        public String getIllegalStateVariable() {
+            throw new IllegalStateException();
+        }
+
+        public String getFailingVariable() {
+            throw new AssertionError();
+        }
+
+        public static String staticField = "static-field";
+
+        public static String getStaticGetter() {
+            return "static-getter";
+        }
     }
 }